@@ -21,11 +21,11 @@ import android.os.AsyncTask;
 import android.util.Log;
 
 import playn.core.AbstractPlatform;
+import playn.core.AssetLoader;
 import playn.core.Game;
 import playn.core.Json;
 import playn.core.Mouse;
 import playn.core.MouseStub;
-import playn.core.TouchImpl;
 import playn.core.json.JsonImpl;
 
 public class AndroidPlatform extends AbstractPlatform {
@@ -44,7 +44,7 @@ public class AndroidPlatform extends AbstractPlatform {
   private final AndroidNet net;
   private final AndroidPointer pointer;
   private final AndroidStorage storage;
-  private final TouchImpl touch;
+  private final AndroidTouch touch;
   private final Json json;
   private final long start = System.nanoTime();
 
@@ -55,12 +55,13 @@ public class AndroidPlatform extends AbstractPlatform {
     audio = new AndroidAudio(this);
     graphics = new AndroidGraphics(this, gl20, activity.preferredBitmapConfig());
     assets = new AndroidAssets(this);
-    json = new JsonImpl();
+    setAssetLoader(new AssetLoader(this, 3));
+    json = new JsonImpl(this);
     keyboard = new AndroidKeyboard(this);
     net = new AndroidNet(this, activity.webSocketDraft());
     pointer = new AndroidPointer();
     storage = new AndroidStorage(this);
-    touch = new TouchImpl();
+    touch = new AndroidTouch();
   }
 
   static void debugLog(String message) {
@@ -91,18 +92,15 @@ public class AndroidPlatform extends AbstractPlatform {
 
   @Override
   public void invokeAsync(final Runnable action) {
-    activity.runOnUiThread(new Runnable() {
+    // run directly on the shared thread pool, rather than hopping to the UI thread to start an
+    // AsyncTask, which would also run our actions serially
+    AsyncTask.THREAD_POOL_EXECUTOR.execute(new Runnable() {
       public void run () {
-        new AsyncTask<Void,Void,Void>() {
-          @Override public Void doInBackground(Void... params) {
-            try {
-              action.run();
-            } catch (Exception e) {
-              reportError("Async task failure [task=" + action + "]", e);
-            }
-            return null;
-          }
-        }.execute();
+        try {
+          action.run();
+        } catch (Exception e) {
+          reportError("Async task failure [task=" + action + "]", e);
+        }
       }
     });
   }
@@ -149,7 +147,7 @@ public class AndroidPlatform extends AbstractPlatform {
   }
 
   @Override
-  public TouchImpl touch() {
+  public AndroidTouch touch() {
     return touch;
   }
 
@@ -23,6 +23,10 @@ class AndroidPointer extends PointerImpl {
   private boolean inDragSequence = false;
 
   // the methods below are called from the GL render thread
+  Event.Impl toEvent(double time, float x, float y) {
+    return obtainEvent(time, x, y, true);
+  }
+
   void onPointerStart(Event.Impl event) {
     inDragSequence = true;
     onPointerStart(event, false);
@@ -0,0 +1,37 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.android;
+
+import playn.core.TouchImpl;
+
+class AndroidTouch extends TouchImpl {
+
+  // the method below is called from the GL render thread
+
+  /**
+   * Returns pooled events for {@code count} of the touches in {@code motion}, starting with the
+   * touch at {@code start}.
+   */
+  Event.Impl[] toEvents(TouchEventHandler.Motion motion, int start, int count) {
+    Event.Impl[] events = obtainEvents(count);
+    for (int ii = 0; ii < count; ii++) {
+      int tt = start + ii;
+      setEvent(events, ii, motion.time, motion.xs[tt], motion.ys[tt], motion.ids[tt],
+               motion.pressures[tt], motion.sizes[tt]);
+    }
+    return events;
+  }
+}
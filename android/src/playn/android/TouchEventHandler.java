@@ -15,107 +15,136 @@
  */
 package playn.android;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import android.view.MotionEvent;
 
 import pythagoras.f.IPoint;
 
-import playn.core.Events;
-import playn.core.Pointer;
-import playn.core.Touch;
 
 class TouchEventHandler {
 
+  /**
+   * The data extracted from a native motion event on the UI thread, which is dispatched on the
+   * GL/Game thread. Motions are pooled, so that handling an event does not allocate.
+   */
+  class Motion implements Runnable {
+    int action, count;
+    double time;
+    int[] ids = new int[0];
+    float[] xs = new float[0], ys = new float[0], pressures = new float[0], sizes = new float[0];
+
+    void init(MotionEvent event) {
+      action = event.getAction();
+      time = event.getEventTime();
+      count = event.getPointerCount();
+      if (ids.length < count) {
+        ids = new int[count];
+        xs = new float[count];
+        ys = new float[count];
+        pressures = new float[count];
+        sizes = new float[count];
+      }
+      for (int t = 0; t < count; t++) {
+        IPoint xy = platform.graphics().transformTouch(event.getX(t), event.getY(t));
+        xs[t] = xy.x();
+        ys[t] = xy.y();
+        pressures[t] = event.getPressure(t);
+        sizes[t] = event.getSize(t);
+        ids[t] = event.getPointerId(t);
+      }
+    }
+
+    public void run() {
+      try {
+        dispatch(this);
+      } finally {
+        release(this);
+      }
+    }
+  }
+
   private final AndroidPlatform platform;
+  private final List<Motion> motions = new ArrayList<Motion>();
 
   TouchEventHandler(AndroidPlatform platform) {
     this.platform = platform;
   }
 
   public boolean onMotionEvent(MotionEvent nativeEvent) {
-    // extract the native event data while we're on the UI thread
-    final int action = nativeEvent.getAction();
-    final int actionType = action & MotionEvent.ACTION_MASK;
-    final double time = nativeEvent.getEventTime();
-    final Events.Flags flags = new Events.Flags.Impl();
-    final Touch.Event.Impl[] touches = parseMotionEvent(nativeEvent, flags);
-
-    // then process it (issuing game callbacks) on the GL/Game thread
-    platform.invokeLater(new Runnable() {
-      public void run() {
-        Touch.Event pointerEvent = touches[0];
-        switch (actionType) {
-        case MotionEvent.ACTION_DOWN:
-          platform.touch().onTouchStart(touches);
-          platform.pointer().onPointerStart(
-            new Pointer.Event.Impl(flags, time, pointerEvent.x(), pointerEvent.y(), true));
-          break;
-        case MotionEvent.ACTION_UP:
-          platform.touch().onTouchEnd(touches);
-          platform.pointer().onPointerEnd(
-            new Pointer.Event.Impl(flags, time, pointerEvent.x(), pointerEvent.y(), true));
-          break;
-        case MotionEvent.ACTION_POINTER_DOWN:
-          platform.touch().onTouchStart(getChangedTouches(action, touches));
-          break;
-        case MotionEvent.ACTION_POINTER_UP:
-          platform.touch().onTouchEnd(getChangedTouches(action, touches));
-          break;
-        case MotionEvent.ACTION_MOVE:
-          platform.touch().onTouchMove(touches);
-          platform.pointer().onPointerDrag(
-            new Pointer.Event.Impl(flags, time, pointerEvent.x(), pointerEvent.y(), true));
-          break;
-        case MotionEvent.ACTION_CANCEL:
-          platform.touch().onTouchCancel(touches);
-          platform.pointer().onPointerCancel(
-            new Pointer.Event.Impl(flags, time, pointerEvent.x(), pointerEvent.y(), true));
-          break;
-        // case MotionEvent.ACTION_OUTSIDE:
-        //   break;
-        }
-      }
-    });
-
     // let our caller know whether we will be handling this event
-    switch (actionType) {
-    case MotionEvent.ACTION_DOWN: return true;
-    case MotionEvent.ACTION_UP: return true;
-    case MotionEvent.ACTION_POINTER_DOWN: return true;
-    case MotionEvent.ACTION_POINTER_UP: return true;
-    case MotionEvent.ACTION_MOVE: return true;
-    case MotionEvent.ACTION_CANCEL: return true;
-    default: return false;
+    switch (nativeEvent.getAction() & MotionEvent.ACTION_MASK) {
+    case MotionEvent.ACTION_DOWN:
+    case MotionEvent.ACTION_UP:
+    case MotionEvent.ACTION_POINTER_DOWN:
+    case MotionEvent.ACTION_POINTER_UP:
+    case MotionEvent.ACTION_MOVE:
+    case MotionEvent.ACTION_CANCEL:
+      break;
+    default:
+      return false;
+    }
+
+    // extract the native event data while we're on the UI thread, then process it (issuing game
+    // callbacks) on the GL/Game thread
+    Motion motion = obtain();
+    motion.init(nativeEvent);
+    platform.invokeLater(motion);
+    return true;
+  }
+
+  private void dispatch(Motion motion) {
+    AndroidTouch touch = platform.touch();
+    AndroidPointer pointer = platform.pointer();
+    int action = motion.action;
+    double time = motion.time;
+    float x = motion.xs[0], y = motion.ys[0];
+    switch (action & MotionEvent.ACTION_MASK) {
+    case MotionEvent.ACTION_DOWN:
+      touch.onTouchStart(touch.toEvents(motion, 0, motion.count));
+      pointer.onPointerStart(pointer.toEvent(time, x, y));
+      break;
+    case MotionEvent.ACTION_UP:
+      touch.onTouchEnd(touch.toEvents(motion, 0, motion.count));
+      pointer.onPointerEnd(pointer.toEvent(time, x, y));
+      break;
+    case MotionEvent.ACTION_POINTER_DOWN:
+      touch.onTouchStart(touch.toEvents(motion, changedIndex(action), 1));
+      break;
+    case MotionEvent.ACTION_POINTER_UP:
+      touch.onTouchEnd(touch.toEvents(motion, changedIndex(action), 1));
+      break;
+    case MotionEvent.ACTION_MOVE:
+      touch.onTouchMove(touch.toEvents(motion, 0, motion.count));
+      pointer.onPointerDrag(pointer.toEvent(time, x, y));
+      break;
+    case MotionEvent.ACTION_CANCEL:
+      touch.onTouchCancel(touch.toEvents(motion, 0, motion.count));
+      pointer.onPointerCancel(pointer.toEvent(time, x, y));
+      break;
+    // case MotionEvent.ACTION_OUTSIDE:
+    //   break;
     }
   }
 
-  private Touch.Event.Impl[] getChangedTouches(int action, Touch.Event.Impl[] touches) {
-    int changed = (action & MotionEvent.ACTION_POINTER_INDEX_MASK)
+  private static int changedIndex(int action) {
+    return (action & MotionEvent.ACTION_POINTER_INDEX_MASK)
       >> MotionEvent.ACTION_POINTER_INDEX_SHIFT;
-    return new Touch.Event.Impl[] { touches[changed] };
   }
 
-  /**
-   * Performs the actual parsing of the MotionEvent event.
-   *
-   * @param event The MotionEvent to process
-   * @param preventDefault Shared preventDefault state among returned {@link AndroidTouchEventImpl}
-   * @return Processed array of {@link AndroidTouchEventImpl}s which share a preventDefault state.
-   */
-  private Touch.Event.Impl[] parseMotionEvent(MotionEvent event, Events.Flags flags) {
-    int eventPointerCount = event.getPointerCount();
-    Touch.Event.Impl[] touches = new Touch.Event.Impl[eventPointerCount];
-    double time = event.getEventTime();
-    float pressure, size;
-    int id;
-    for (int t = 0; t < eventPointerCount; t++) {
-      int pointerIndex = t;
-      IPoint xy = platform.graphics().transformTouch(
-        event.getX(pointerIndex), event.getY(pointerIndex));
-      pressure = event.getPressure(pointerIndex);
-      size = event.getSize(pointerIndex);
-      id = event.getPointerId(pointerIndex);
-      touches[t] = new Touch.Event.Impl(flags, time, xy.x(), xy.y(), id, pressure, size);
+  // motions are obtained on the UI thread and released on the GL thread
+  private Motion obtain() {
+    synchronized (motions) {
+      int size = motions.size();
+      if (size > 0) return motions.remove(size-1);
+    }
+    return new Motion();
+  }
+
+  private void release(Motion motion) {
+    synchronized (motions) {
+      motions.add(motion);
     }
-    return touches;
   }
 }
@@ -0,0 +1,140 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import pythagoras.f.Point;
+import pythagoras.f.Rectangle;
+
+/**
+ * Measures {@link GroupLayerImpl}'s child management and hit testing, on groups of various sizes.
+ * The layers involved are bare {@link AbstractLayer}s, so only the group's bookkeeping is measured.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GroupLayerBenchmark {
+
+  @Param({ "10", "100", "1000" })
+  public int children;
+
+  /** The hit index cell size, or zero for no hit index. */
+  @Param({ "0", "32" })
+  public float hitIndex;
+
+  private BenchGroupLayer group;
+  private BenchLayer[] layers;
+  private Point[] points;
+  private int next;
+
+  @Setup
+  public void setup() {
+    Random rando = new Random(42);
+    layers = new BenchLayer[children];
+    for (int ii = 0; ii < children; ii++) {
+      layers[ii] = new BenchLayer(1 + rando.nextInt(40), 1 + rando.nextInt(40));
+      layers[ii].setDepth(rando.nextInt(10));
+      layers[ii].setTranslation(rando.nextInt(1000), rando.nextInt(1000));
+      layers[ii].setInteractive(true);
+    }
+    group = new BenchGroupLayer();
+    if (hitIndex > 0) group.setHitIndex(hitIndex);
+    for (BenchLayer layer : layers) group.add(layer);
+
+    points = new Point[1024];
+    for (int ii = 0; ii < points.length; ii++)
+      points[ii] = new Point(rando.nextFloat() * 1000, rando.nextFloat() * 1000);
+  }
+
+  /** Removes all children and adds them back, in random depth order. */
+  @Benchmark
+  public BenchGroupLayer addAll() {
+    group.removeAll();
+    for (BenchLayer layer : layers) group.add(layer);
+    return group;
+  }
+
+  /** Moves a child to a new depth, one level deeper or shallower, in turn. */
+  @Benchmark
+  public float depthChanged() {
+    int idx = next++;
+    BenchLayer layer = layers[idx % children];
+    float depth = layer.depth() + ((idx / children) % 2 == 0 ? 1 : -1);
+    layer.setDepth(depth);
+    return depth;
+  }
+
+  /** Hit tests a point within the bounds of the children. */
+  @Benchmark
+  public Layer hitTest() {
+    Point p = points[next++ & (points.length - 1)];
+    return group.hitTest(new Point(p));
+  }
+
+  public static class BenchLayer extends AbstractLayer {
+    private final float width, height;
+
+    public BenchLayer(float width, float height) {
+      this.width = width;
+      this.height = height;
+    }
+
+    @Override public float width() { return width; }
+    @Override public float height() { return height; }
+    @Override protected boolean computeBounds(Rectangle into) {
+      into.setBounds(0, 0, width, height);
+      return true;
+    }
+  }
+
+  public static class BenchGroupLayer extends AbstractLayer implements GroupLayer, ParentLayer {
+    public final GroupLayerImpl<BenchLayer> impl = new GroupLayerImpl<BenchLayer>();
+
+    @Override public Layer get(int index) { return impl.children.get(index); }
+    @Override public void add(Layer layer) { impl.add(this, (BenchLayer)layer); }
+    @Override public void addAt(Layer layer, float tx, float ty) {
+      impl.addAt(this, layer, tx, ty);
+    }
+    @Override public void remove(Layer layer) { impl.remove(this, (BenchLayer)layer); }
+    @Deprecated @Override public void clear() { removeAll(); }
+    @Override public void removeAll() { impl.removeAll(this); }
+    @Override public void destroyAll() { impl.destroyAll(this); }
+    @Override public int size() { return impl.children.size(); }
+    public void setHitIndex(float cellSize) { impl.setHitIndex(cellSize); }
+    @Override public Layer hitTestDefault(Point p) { return impl.hitTest(this, p); }
+    @Override public void depthChanged(Layer layer, float oldDepth) {
+      impl.depthChanged(this, layer, oldDepth);
+    }
+    @Override protected void childChanged(AbstractLayer child) {
+      impl.childChanged((BenchLayer)child);
+    }
+  }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import playn.core.gl.GL20Context;
+import playn.core.gl.GroupLayerGL;
+import playn.core.gl.ImmediateLayerGL;
+import playn.core.gl.NoopGL20;
+import playn.core.gl.SurfaceGL;
+import playn.core.gl.SurfaceImageGL;
+
+/**
+ * Measures the construction and painting of a scene graph of GL layers, on a {@link StubPlatform}
+ * whose GL context renders to a no-op GL. The scene is a grid of groups, each containing a grid of
+ * immediate layers that draw an image. The image is an offscreen surface, as the stub platform has
+ * no graphics with which to create (or fill) a regular image.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SceneGraphBenchmark {
+
+  /** The number of groups, and of leaf layers in each group. */
+  @Param({ "10", "30" })
+  public int size;
+
+  private GL20Context ctx;
+  private GroupLayerGL scene;
+  private SurfaceImageGL image;
+
+  private final ImmediateLayer.Renderer renderer = new ImmediateLayer.Renderer() {
+    public void render(Surface surface) {
+      surface.drawImage(image, 0, 0);
+    }
+  };
+
+  @Setup
+  public void setup() {
+    StubPlatform platform = new StubPlatform();
+    PlayN.setPlatform(platform);
+    ctx = NoopGL20.createContext(platform, 1024, 768);
+    image = new SurfaceImageGL(ctx, new SurfaceGL(ctx, 16, 16));
+    scene = build();
+  }
+
+  /** Builds (and then destroys) a scene. */
+  @Benchmark
+  public GroupLayerGL build() {
+    GroupLayerGL root = new GroupLayerGL(ctx);
+    for (int gg = 0; gg < size; gg++) {
+      GroupLayerGL group = new GroupLayerGL(ctx);
+      group.setDepth(size - gg);
+      for (int ll = 0; ll < size; ll++) {
+        ImmediateLayerGL layer = new ImmediateLayerGL(ctx, renderer);
+        layer.setRotation(ll * 0.1f);
+        group.addAt(layer, ll * 20, gg * 20);
+      }
+      root.addAt(group, gg, gg);
+    }
+    if (scene != null) root.destroy();
+    return root;
+  }
+
+  /** Paints a previously built scene. */
+  @Benchmark
+  public GroupLayerGL paint() {
+    ctx.paint(scene);
+    return scene;
+  }
+}
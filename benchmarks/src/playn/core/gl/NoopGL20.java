@@ -0,0 +1,95 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+import playn.core.StubPlatform;
+
+/**
+ * Creates {@link GL20} implementations that do nothing, so that the CPU side of rendering can be
+ * benchmarked headless, without a GPU. Every call succeeds: objects are created with id one,
+ * shaders compile and link, no errors are reported, and limits queried via {@code glGetInteger}
+ * are those of a typical mobile GPU.
+ *
+ * <p>The implementation is a dynamic proxy, so each GL call costs a reflective dispatch. Renderers
+ * make relatively few GL calls (most of their work is filling vertex buffers), but benchmarks that
+ * flush often should bear this in mind.</p>
+ */
+public class NoopGL20 {
+
+  /**
+   * Creates a no-op {@link GL20}.
+   */
+  public static GL20 create() {
+    return (GL20)Proxy.newProxyInstance(
+      GL20.class.getClassLoader(), new Class<?>[] { GL20.class }, HANDLER);
+  }
+
+  /**
+   * Creates an initialized {@link GL20Context} that renders to a no-op {@link GL20}.
+   */
+  public static GL20Context createContext(StubPlatform platform, int width, int height) {
+    GL20Context ctx = new GL20Context(platform, create(), 1, false);
+    ctx.init();
+    ctx.setSize(width, height);
+    return ctx;
+  }
+
+  protected static int integer(int pname) {
+    switch (pname) {
+    case GL20.GL_MAX_VERTEX_UNIFORM_VECTORS: return 256;
+    case GL20.GL_MAX_TEXTURE_SIZE: return 4096;
+    default: return 1;
+    }
+  }
+
+  private static final InvocationHandler HANDLER = new InvocationHandler() {
+    public Object invoke(Object proxy, Method method, Object[] args) {
+      String name = method.getName();
+      if (method.getDeclaringClass() == Object.class) {
+        if (name.equals("equals")) return proxy == args[0];
+        if (name.equals("hashCode")) return System.identityHashCode(proxy);
+        return "NoopGL20";
+      }
+      if (name.equals("glGetError")) return GL20.GL_NO_ERROR;
+      if (name.equals("glCheckFramebufferStatus")) return GL20.GL_FRAMEBUFFER_COMPLETE;
+      if (name.equals("glGetInteger")) return integer((Integer)args[0]);
+
+      // fill in any output parameters: object ids, compile and link statuses, limits
+      if (args != null) {
+        int value = name.startsWith("glGetInteger") ? integer((Integer)args[0]) : 1;
+        for (Object arg : args) {
+          if (arg instanceof int[]) {
+            int[] ints = (int[])arg;
+            for (int ii = 0; ii < ints.length; ii++) ints[ii] = value;
+          } else if (arg instanceof IntBuffer) {
+            IntBuffer ints = (IntBuffer)arg;
+            for (int ii = ints.position(); ii < ints.limit(); ii++) ints.put(ii, value);
+          }
+        }
+      }
+
+      Class<?> rtype = method.getReturnType();
+      if (rtype == Integer.TYPE) return 1;
+      if (rtype == Boolean.TYPE) return false;
+      if (rtype == Float.TYPE) return 0f;
+      if (rtype == String.class) return "";
+      return null;
+    }
+  };
+}
@@ -0,0 +1,74 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import playn.core.StubPlatform;
+import playn.core.Tint;
+
+/**
+ * Measures the throughput of {@link GLShader#addQuad} for the default quad and triangle shaders,
+ * including the periodic flushes to (no-op) GL as their buffers fill.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class QuadShaderBenchmark {
+
+  /** The number of quads added per frame. */
+  static final int QUADS = 1000;
+
+  @Param({ "quad", "tris" })
+  public String shaderType;
+
+  private GL20Context ctx;
+  private GLShader shader;
+  private int tex;
+
+  @Setup
+  public void setup() {
+    ctx = NoopGL20.createContext(new StubPlatform(), 1024, 768);
+    shader = shaderType.equals("quad") ? ctx.quadShader(null) : ctx.trisShader(null);
+    tex = ctx.createTexture(false, false, false);
+    ctx.bindFramebuffer();
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(QUADS)
+  public void addQuad() {
+    shader.prepareTexture(tex, Tint.NOOP_TINT);
+    for (int ii = 0; ii < QUADS; ii++) {
+      float x = ii % 32 * 32, y = ii / 32 * 24;
+      shader.addQuad(1, 0, 0, 1, x, y, 0, 0, 32, 24, 0, 0, 1, 1);
+    }
+    ctx.flush();
+  }
+}
@@ -0,0 +1,108 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures parsing and writing of representative JSON documents: a level, with many small objects
+ * sharing the same keys; a tile map, dominated by a large array of ints; and an animation, with
+ * arrays of floats.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class JsonBenchmark {
+
+  @Param({ "level", "tilemap", "animation" })
+  public String document;
+
+  private String json;
+  private JsonObject object;
+  private byte[] binary;
+
+  @Setup
+  public void setup() {
+    Random rando = new Random(42);
+    StringBuilder buf = new StringBuilder();
+    if (document.equals("level")) {
+      buf.append("{\"name\": \"level\", \"entities\": [");
+      for (int ii = 0; ii < 2000; ii++) {
+        if (ii > 0) buf.append(", ");
+        buf.append("{\"id\": ").append(ii).append(", \"type\": \"crate\", \"x\": ");
+        buf.append(rando.nextInt(4000)).append(", \"y\": ").append(rando.nextInt(4000));
+        buf.append(", \"solid\": ").append(rando.nextBoolean()).append(", \"tags\": [\"a\"]}");
+      }
+      buf.append("]}");
+    } else if (document.equals("tilemap")) {
+      buf.append("{\"width\": 256, \"height\": 256, \"tiles\": [");
+      for (int ii = 0; ii < 256*256; ii++) {
+        if (ii > 0) buf.append(",");
+        buf.append(rando.nextInt(300));
+      }
+      buf.append("]}");
+    } else {
+      buf.append("{\"name\": \"walk\", \"curves\": [");
+      for (int cc = 0; cc < 100; cc++) {
+        if (cc > 0) buf.append(", ");
+        buf.append("{\"bone\": \"b").append(cc).append("\", \"keys\": [");
+        for (int kk = 0; kk < 200; kk++) {
+          if (kk > 0) buf.append(", ");
+          buf.append(rando.nextInt(100000) / 1000.0);
+        }
+        buf.append("]}");
+      }
+      buf.append("]}");
+    }
+    json = buf.toString();
+    object = JsonParser.object().from(json);
+    binary = JsonBinary.write(object);
+  }
+
+  @Benchmark
+  public JsonObject parse() {
+    return JsonParser.object().from(json);
+  }
+
+  @Benchmark
+  public String write() {
+    return new JsonStringWriter().object(object).write();
+  }
+
+  @Benchmark
+  public Object parseBinary() {
+    return JsonBinary.parse(binary);
+  }
+
+  @Benchmark
+  public byte[] writeBinary() {
+    return JsonBinary.write(object);
+  }
+}
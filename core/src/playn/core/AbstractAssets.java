@@ -15,6 +15,8 @@
  */
 package playn.core;
 
+import playn.core.AssetLoader.Handle;
+import playn.core.AssetLoader.Priority;
 import playn.core.gl.Scale;
 import playn.core.util.Callback;
 
@@ -49,6 +51,19 @@ public abstract class AbstractAssets<IMG> implements Assets {
   @Override
   public Image getImage(final String path) {
     final AsyncImage<IMG> image = createAsyncImage(0, 0);
+    AssetLoader loader = platform.assetLoader();
+    if (loader != null) {
+      loader.load(IMAGE_KEY + path, Priority.NOW, imageTask(path), new Callback<Loaded<IMG>>() {
+        public void onSuccess(Loaded<IMG> loaded) {
+          image.setImage(loaded.impl, loaded.scale);
+        }
+        public void onFailure(Throwable error) {
+          image.setError(error);
+        }
+      });
+      return image;
+    }
+
     platform.invokeAsync(new Runnable() {
       public void run () {
         loadImage(path, new ImageReceiver<IMG>() {
@@ -85,8 +100,73 @@ public abstract class AbstractAssets<IMG> implements Assets {
     return getSound(path);
   }
 
+  /**
+   * Loads the image at {@code path} asynchronously, with the specified priority. Concurrent
+   * requests for the same image share a single load. If this platform has no {@link AssetLoader},
+   * the image is loaded via {@link #getImage(String)} and the priority is ignored.
+   *
+   * @param callback notified with the loaded image on the game thread, unless the request is
+   * cancelled via the returned handle.
+   */
+  public Handle getImage(String path, Priority priority, final Callback<? super Image> callback) {
+    AssetLoader loader = platform.assetLoader();
+    if (loader == null) {
+      AssetLoader.Request<Image> req = AssetLoader.wrap(callback);
+      getImage(path).addCallback(req);
+      return req;
+    }
+    return loader.load(IMAGE_KEY + path, priority, imageTask(path), new Callback<Loaded<IMG>>() {
+      public void onSuccess(Loaded<IMG> loaded) {
+        callback.onSuccess(createStaticImage(loaded.impl, loaded.scale));
+      }
+      public void onFailure(Throwable error) {
+        callback.onFailure(error);
+      }
+    });
+  }
+
+  /**
+   * Loads the text asset at {@code path} asynchronously, with the specified priority. See {@link
+   * #getImage(String,Priority,Callback)} for details.
+   */
+  public Handle getText(final String path, Priority priority, Callback<? super String> callback) {
+    AssetLoader loader = platform.assetLoader();
+    if (loader == null) {
+      AssetLoader.Request<String> req = AssetLoader.wrap(callback);
+      getText(path, req);
+      return req;
+    }
+    return loader.load(TEXT_KEY + path, priority, new AssetLoader.Task<String>() {
+      public String load() throws Throwable {
+        return getTextSync(path);
+      }
+    }, callback);
+  }
+
+  /**
+   * Loads the binary asset at {@code path} asynchronously, with the specified priority. See {@link
+   * #getImage(String,Priority,Callback)} for details.
+   */
+  public Handle getBytes(final String path, Priority priority, Callback<? super byte[]> callback) {
+    AssetLoader loader = platform.assetLoader();
+    if (loader == null) {
+      AssetLoader.Request<byte[]> req = AssetLoader.wrap(callback);
+      getBytes(path, req);
+      return req;
+    }
+    return loader.load(BYTES_KEY + path, priority, new AssetLoader.Task<byte[]>() {
+      public byte[] load() throws Throwable {
+        return getBytesSync(path);
+      }
+    }, callback);
+  }
+
   @Override
   public void getText(final String path, final Callback<String> callback) {
+    if (platform.assetLoader() != null) {
+      getText(path, Priority.NOW, callback);
+      return;
+    }
     platform.invokeAsync(new Runnable() {
       public void run () {
         try {
@@ -100,6 +180,10 @@ public abstract class AbstractAssets<IMG> implements Assets {
 
   @Override
   public void getBytes(final String path, final Callback<byte[]> callback) {
+    if (platform.assetLoader() != null) {
+      getBytes(path, Priority.NOW, callback);
+      return;
+    }
     platform.invokeAsync(new Runnable() {
       public void run () {
         try {
@@ -164,6 +248,40 @@ public abstract class AbstractAssets<IMG> implements Assets {
     });
   }
 
+  /** The result of an asynchronous image load. */
+  protected static class Loaded<I> {
+    public I impl;
+    public Scale scale;
+  }
+
+  /** Returns a task that loads the image at {@code path} via {@link #loadImage}. */
+  protected AssetLoader.Task<Loaded<IMG>> imageTask(final String path) {
+    return new AssetLoader.Task<Loaded<IMG>>() {
+      public Loaded<IMG> load() throws Throwable {
+        final Loaded<IMG> loaded = new Loaded<IMG>();
+        final Throwable[] error = new Throwable[1];
+        loadImage(path, new ImageReceiver<IMG>() {
+          @Override
+          public Image imageLoaded(IMG impl, Scale scale) {
+            loaded.impl = impl;
+            loaded.scale = scale;
+            return null;
+          }
+          @Override
+          public Image loadFailed(Throwable cause) {
+            error[0] = cause;
+            return null;
+          }
+        });
+        if (error[0] != null) throw error[0];
+        return loaded;
+      }
+    };
+  }
+
+  // distinguish the different kinds of asset that may be loaded from the same path
+  private static final String IMAGE_KEY = "image:", TEXT_KEY = "text:", BYTES_KEY = "bytes:";
+
   /**
    * Normalizes the path, by removing {@code foo/..} pairs until the path contains no {@code ..}s.
    * For example:
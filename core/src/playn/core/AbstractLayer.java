@@ -16,6 +16,7 @@ package playn.core;
 import pythagoras.f.FloatMath;
 import pythagoras.f.MathUtil;
 import pythagoras.f.Point;
+import pythagoras.f.Rectangle;
 import pythagoras.f.Transform;
 
 import playn.core.Layer;
@@ -54,7 +55,9 @@ public abstract class AbstractLayer implements Layer {
     DESTROYED(1 << 0),
     VISIBLE(1 << 1),
     INTERACTIVE(1 << 2),
-    XFDIRTY(1 << 3);
+    XFDIRTY(1 << 3),
+    DIRTY(1 << 4), // set on a parent when something in its subtree changed
+    BOUNDSDIRTY(1 << 5); // set on a parent when its cached bounds must be recomputed
 
     public final int bitmask;
 
@@ -76,6 +79,10 @@ public abstract class AbstractLayer implements Layer {
   protected Interactor<?> rootInteractor;
   protected HitTester hitTester;
 
+  // whether, and in which cells, we are recorded in our parent's hit index (see HitIndex)
+  byte hitState;
+  int hitMinCx, hitMinCy, hitMaxCx, hitMaxCy;
+
   protected AbstractLayer() {
     this(new StockInternalTransform());
   }
@@ -135,6 +142,7 @@ public abstract class AbstractLayer implements Layer {
     this.alpha = alpha;
     int ialpha = (int)(0xFF * MathUtil.clamp(alpha, 0, 1));
     this.tint = (ialpha << 24) | (tint & 0xFFFFFF);
+    markDirty();
     return this;
   }
 
@@ -147,6 +155,7 @@ public abstract class AbstractLayer implements Layer {
   public Layer setTint(int tint) {
     this.tint = tint;
     this.alpha = ((tint >> 24) & 0xFF) / 255f;
+    markDirty();
     return this;
   }
 
@@ -164,6 +173,7 @@ public abstract class AbstractLayer implements Layer {
   public Layer setOrigin(float x, float y) {
     this.originX = x;
     this.originY = y;
+    markDirty();
     return this;
   }
 
@@ -180,6 +190,7 @@ public abstract class AbstractLayer implements Layer {
       if (parent != null) {
         ((ParentLayer)parent).depthChanged(this, oldDepth);
       }
+      markDirty();
     }
     return this;
   }
@@ -197,18 +208,21 @@ public abstract class AbstractLayer implements Layer {
   @Override
   public Layer setTx(float x) {
     transform.setTx(x);
+    markDirty();
     return this;
   }
 
   @Override
   public Layer setTy(float y) {
     transform.setTy(y);
+    markDirty();
     return this;
   }
 
   @Override
   public Layer setTranslation(float x, float y) {
     transform.setTranslation(x, y);
+    markDirty();
     return this;
   }
 
@@ -282,6 +296,7 @@ public abstract class AbstractLayer implements Layer {
   @Override
   public Layer setHitTester (HitTester tester) {
     hitTester = tester;
+    if (parent != null) ((AbstractLayer)parent).childChanged(this);
     return this;
   }
 
@@ -335,6 +350,36 @@ public abstract class AbstractLayer implements Layer {
     return 0;
   }
 
+  /**
+   * Computes the bounds of the content rendered by this layer (and its children), in this layer's
+   * coordinate system (prior to the application of its transform and origin). The default
+   * implementation reports unbounded content, so that layers which render outside their {@link
+   * #width} and {@link #height} (or don't report a size at all) are never culled. Layers whose
+   * content is known to lie within their size should override this.
+   *
+   * @return false if this layer's content is unbounded (it may render anywhere), in which case
+   * {@code into} is not modified.
+   */
+  protected boolean computeBounds(Rectangle into) {
+    return false;
+  }
+
+  /**
+   * Computes the region (in this layer's coordinate system) outside of which {@link #hitTest} will
+   * never find this layer. Returns false if no such region can be determined, as is the case for
+   * groups and layers with custom hit testers.
+   */
+  boolean computeHitBounds(Rectangle into) {
+    return hitTester == null && !(this instanceof GroupLayer) && computeBounds(into);
+  }
+
+  /**
+   * Called on a parent layer when one of its children changes in a way that may affect its bounds,
+   * visibility or hit testing. Parents which index their children should override this.
+   */
+  protected void childChanged(AbstractLayer child) {
+  }
+
   public void onAdd() {
     if (destroyed()) throw new IllegalStateException("Illegal to use destroyed layer: " + this);
   }
@@ -343,7 +388,9 @@ public abstract class AbstractLayer implements Layer {
   }
 
   public void setParent(GroupLayer parent) {
+    markDirty(); // our old parent no longer contains us
     this.parent = parent;
+    markDirty(); // and our new parent now does
   }
 
   @Override
@@ -361,11 +408,32 @@ public abstract class AbstractLayer implements Layer {
   }
 
   protected void setFlag(Flag flag, boolean active) {
+    int oflags = flags;
     if (active) {
       flags |= flag.bitmask;
     } else {
       flags &= ~flag.bitmask;
     }
+    // changes to our visibility or transform change what our ancestors render
+    if ((flag == Flag.XFDIRTY && active) || (flag == Flag.VISIBLE && flags != oflags))
+      markDirty();
+  }
+
+  /**
+   * Notes that this layer's rendered appearance has changed by marking our ancestors with
+   * {@link Flag#DIRTY} and {@link Flag#BOUNDSDIRTY}, and notifying our parent via
+   * {@link #childChanged}. Layers that cache the rendering (or bounds) of their subtree use this
+   * to know when they must rebuild their cache. Propagation stops at the first ancestor that is
+   * already dirty, so this is cheap to call repeatedly. Subclasses should call this when a change
+   * affects their rendering.
+   */
+  protected void markDirty() {
+    if (parent != null) ((AbstractLayer)parent).childChanged(this);
+    int dirty = Flag.DIRTY.bitmask | Flag.BOUNDSDIRTY.bitmask;
+    for (AbstractLayer layer = (AbstractLayer)parent;
+         layer != null && (layer.flags & dirty) != dirty; layer = (AbstractLayer)layer.parent) {
+      layer.flags |= dirty;
+    }
   }
 
   <L, E> void interact(Class<L> listenerType, Interaction<L, E> interaction, E argument) {
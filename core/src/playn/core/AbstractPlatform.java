@@ -34,6 +34,7 @@ public abstract class AbstractPlatform implements Platform {
 
   private PlayN.LifecycleListener lifecycleListener;
   private PlayN.ErrorReporter errorReporter = DEFAULT_REPORTER;
+  private AssetLoader assetLoader;
 
   @Override
   public void reportError(String message, Throwable err) {
@@ -45,6 +46,19 @@ public abstract class AbstractPlatform implements Platform {
     runQueue.add(runnable);
   }
 
+  /**
+   * Limits the time spent each frame running actions queued via {@link #invokeLater} (including
+   * asynchronous callbacks delivered by {@link #notifySuccess} and {@link #notifyFailure}). Actions
+   * that do not fit in the budget are run on subsequent frames. This avoids stalling the first
+   * frames of a game when thousands of assets complete loading at once. See
+   * {@link RunQueue#setBudget}.
+   *
+   * @param millis the per-frame budget in milliseconds, or zero for no limit (the default).
+   */
+  public void setInvokeLaterBudget(double millis) {
+    runQueue.setBudget(millis);
+  }
+
   @Override
   public void setLifecycleListener(PlayN.LifecycleListener listener) {
     lifecycleListener = listener;
@@ -82,6 +96,24 @@ public abstract class AbstractPlatform implements Platform {
     });
   }
 
+  /**
+   * Returns the loader used to schedule asynchronous asset loads, or null if this platform does
+   * not load assets via {@link #invokeAsync}.
+   */
+  public AssetLoader assetLoader() {
+    return assetLoader;
+  }
+
+  /**
+   * Configures the loader used to schedule asynchronous asset loads. Backends that support {@link
+   * #invokeAsync} install a default loader; games may replace it with one configured (or
+   * customized) to suit their loading patterns. Setting the loader to null causes assets to be
+   * loaded directly via {@link #invokeAsync}, without prioritization or coalescing.
+   */
+  public void setAssetLoader(AssetLoader loader) {
+    assetLoader = loader;
+  }
+
   /**
    * Invokes the supplied action on a separate thread. Used by {@link AbstractAssets} for
    * asynchronous asset loading.
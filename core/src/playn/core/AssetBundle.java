@@ -0,0 +1,434 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import playn.core.util.Callback;
+import playn.core.util.Callbacks;
+
+/**
+ * A set of assets that are loaded and unloaded together, like the images, sounds and data needed
+ * by a particular screen or level. The assets are declared up front, either programmatically (see
+ * {@link #add}) or via a manifest (see {@link #parse}), and are then loaded with bounded
+ * parallelism, so that a level load keeps the platform's I/O and decode threads busy without
+ * flooding them. Loading progress is reported weighted by the (declared) size of each asset.
+ *
+ * <p>A bundle may depend on other bundles, for example a bundle of assets shared by all levels.
+ * Dependencies are loaded along with the bundle (if they are not already loaded), and assets
+ * declared by a dependency are neither loaded nor unloaded by the dependent bundle. Assets shared
+ * between bundles should thus be declared in a common dependency, so that unloading one bundle
+ * does not unload assets still needed by another.</p>
+ *
+ * <p>If the bundle's assets are a {@link CachingAssets}, assets already in the cache are not
+ * reloaded, and unloading the bundle evicts its assets from the cache.</p>
+ *
+ * <p>A manifest contains one asset per line, consisting of its kind ({@code image}, {@code sound},
+ * {@code music}, {@code text} or {@code bytes}), its path and, optionally, its size in bytes.
+ * Blank lines and lines starting with {@code #} are ignored. For example:</p>
+ * <pre>{@code
+ * # level one
+ * image images/level1/background.png 1048576
+ * image images/level1/tiles.png 262144
+ * sound sounds/explosion
+ * text levels/level1.json
+ * }</pre>
+ */
+public class AssetBundle {
+
+  /** The kinds of asset that a bundle may contain. */
+  public enum Kind {
+    /** Loaded via {@link Assets#getImage}. */
+    IMAGE,
+    /** Loaded via {@link Assets#getSound}. */
+    SOUND,
+    /** Loaded via {@link Assets#getMusic}. */
+    MUSIC,
+    /** Loaded via {@link Assets#getText}. */
+    TEXT,
+    /** Loaded via {@link Assets#getBytes}. */
+    BYTES
+  }
+
+  /**
+   * Creates a bundle from the supplied manifest (see the class documentation for its format).
+   *
+   * @throws IllegalArgumentException if the manifest is malformed.
+   */
+  public static AssetBundle parse(Assets assets, String manifest, AssetBundle... dependencies) {
+    AssetBundle bundle = new AssetBundle(assets, dependencies);
+    int lineNo = 0;
+    for (String line : manifest.split("\n")) {
+      lineNo++;
+      line = line.trim();
+      if (line.length() == 0 || line.startsWith("#")) continue;
+      String[] bits = line.split("\\s+");
+      if (bits.length < 2 || bits.length > 3) throw new IllegalArgumentException(
+        "Malformed manifest line " + lineNo + ": " + line);
+      Kind kind;
+      try {
+        kind = Kind.valueOf(bits[0].toUpperCase());
+      } catch (IllegalArgumentException iae) {
+        throw new IllegalArgumentException(
+          "Unknown asset kind '" + bits[0] + "' on manifest line " + lineNo);
+      }
+      long bytes = 0;
+      if (bits.length == 3) {
+        try {
+          bytes = Long.parseLong(bits[2]);
+        } catch (NumberFormatException nfe) {
+          throw new IllegalArgumentException(
+            "Invalid size '" + bits[2] + "' on manifest line " + lineNo);
+        }
+      }
+      bundle.add(kind, bits[1], bytes);
+    }
+    return bundle;
+  }
+
+  /**
+   * Creates an empty bundle which will load its assets via {@code assets}.
+   *
+   * @param dependencies bundles that will be loaded along with this bundle.
+   */
+  public AssetBundle(Assets assets, AssetBundle... dependencies) {
+    this.assets = assets;
+    for (AssetBundle dep : dependencies) this.dependencies.add(dep);
+  }
+
+  /**
+   * Adds an asset of unknown size to this bundle. See {@link #add(Kind,String,long)}.
+   */
+  public AssetBundle add(Kind kind, String path) {
+    return add(kind, path, 0);
+  }
+
+  /**
+   * Adds an asset to this bundle. Assets may only be added to a bundle that is not loading or
+   * loaded. Adding an asset that is already in the bundle has no effect.
+   *
+   * @param bytes the approximate size of the asset, used to weight load progress, or zero if it
+   * is not known. Assets of unknown size are weighted as the average of the assets of known size.
+   * @return this bundle, for call chaining.
+   */
+  public AssetBundle add(Kind kind, String path, long bytes) {
+    if (state != State.UNLOADED) throw new IllegalStateException(
+      "Cannot add assets to a loading or loaded bundle");
+    String key = key(kind, path);
+    if (!entries.containsKey(key)) entries.put(key, new Entry(kind, path, bytes));
+    return this;
+  }
+
+  /** Returns the number of assets declared by this bundle (excluding its dependencies). */
+  public int size() {
+    return entries.size();
+  }
+
+  /**
+   * Configures the maximum number of this bundle's assets that will be requested at once. The
+   * default is four.
+   */
+  public AssetBundle setParallelism(int parallelism) {
+    if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+    this.parallelism = parallelism;
+    return this;
+  }
+
+  /**
+   * Loads this bundle's dependencies and assets. If the bundle is already loaded, {@code callback}
+   * is notified immediately. If it is loading, the callback is notified when the load completes.
+   *
+   * @param callback notified with this bundle once all of its assets (and those of its
+   * dependencies) have loaded, or with the first error encountered, once all loads have
+   * completed. May be null.
+   */
+  public void load(Callback<? super AssetBundle> callback) {
+    if (state == State.LOADED) {
+      if (callback != null) {
+        if (error == null) callback.onSuccess(this);
+        else callback.onFailure(error);
+      }
+      return;
+    }
+    if (callback != null) callbacks = Callbacks.createAdd(callbacks, callback);
+    if (state == State.LOADING) return;
+
+    state = State.LOADING;
+    error = null;
+    generation++;
+    pending.clear();
+    next = active = 0;
+    totalWeight = doneWeight = 0;
+
+    // skip assets that are provided by our dependencies, and weight the rest
+    long knownBytes = 0;
+    int knownCount = 0;
+    for (Entry entry : entries.values()) {
+      if (providedByDependency(entry.key)) continue;
+      pending.add(entry);
+      if (entry.bytes > 0) {
+        knownBytes += entry.bytes;
+        knownCount++;
+      }
+    }
+    long defaultWeight = (knownCount == 0) ? 1 : Math.max(1, knownBytes / knownCount);
+    for (Entry entry : pending) {
+      entry.weight = (entry.bytes > 0) ? entry.bytes : defaultWeight;
+      totalWeight += entry.weight;
+    }
+
+    for (AssetBundle dep : dependencies) {
+      dep.load(new Callback<AssetBundle>() {
+        public void onSuccess(AssetBundle dep) {
+          maybeComplete();
+        }
+        public void onFailure(Throwable cause) {
+          if (error == null) error = cause;
+          maybeComplete();
+        }
+      });
+    }
+    pump();
+    maybeComplete();
+  }
+
+  /** Returns true if this bundle (and its dependencies) are fully loaded. */
+  public boolean isLoaded() {
+    return state == State.LOADED;
+  }
+
+  /**
+   * Returns the fraction of this bundle's assets (and those of its dependencies) that have
+   * loaded, weighted by size, between zero and one.
+   */
+  public float progress() {
+    if (state == State.LOADED) return 1;
+    long[] weights = new long[2];
+    addWeights(weights);
+    return (weights[1] == 0) ? (state == State.LOADING ? 1 : 0) : (float)weights[0] / weights[1];
+  }
+
+  /**
+   * Unloads the assets loaded by this bundle. Images have their textures cleared, sounds are
+   * released, and references to text and binary data are dropped. Assets provided by dependencies
+   * are not unloaded; dependencies must be unloaded separately. The bundle may subsequently be
+   * loaded again. If the bundle is loading, the callbacks passed to {@link #load} are notified of
+   * failure with an {@link IllegalStateException}.
+   */
+  public void unload() {
+    boolean wasLoading = (state == State.LOADING);
+    for (Entry entry : pending) {
+      if (entry.value != null) release(entry);
+      entry.value = null;
+    }
+    pending.clear();
+    next = active = 0;
+    state = State.UNLOADED;
+    error = null;
+    generation++; // ignore the results of any loads that are still in progress
+    if (wasLoading) callbacks = Callbacks.dispatchFailureClear(
+      callbacks, new IllegalStateException("Bundle unloaded while loading"));
+  }
+
+  /** Returns the image at {@code path}, or null if it has not been loaded by this bundle or its
+   * dependencies. */
+  public Image image(String path) {
+    return (Image)lookup(key(Kind.IMAGE, path));
+  }
+
+  /** Returns the sound at {@code path}, or null if it has not been loaded by this bundle or its
+   * dependencies. */
+  public Sound sound(String path) {
+    return (Sound)lookup(key(Kind.SOUND, path));
+  }
+
+  /** Returns the music at {@code path}, or null if it has not been loaded by this bundle or its
+   * dependencies. */
+  public Sound music(String path) {
+    return (Sound)lookup(key(Kind.MUSIC, path));
+  }
+
+  /** Returns the text at {@code path}, or null if it has not been loaded by this bundle or its
+   * dependencies. */
+  public String text(String path) {
+    return (String)lookup(key(Kind.TEXT, path));
+  }
+
+  /** Returns the data at {@code path}, or null if it has not been loaded by this bundle or its
+   * dependencies. */
+  public byte[] bytes(String path) {
+    return (byte[])lookup(key(Kind.BYTES, path));
+  }
+
+  /**
+   * Releases the resources of an unloaded asset.
+   */
+  protected void release(Entry entry) {
+    if (assets instanceof CachingAssets) ((CachingAssets)assets).evict(entry.key);
+    if (entry.value instanceof Image) ((Image)entry.value).clearTexture();
+    else if (entry.value instanceof Sound) ((Sound)entry.value).release();
+  }
+
+  /** Tracks an asset declared by a bundle. */
+  protected static class Entry {
+    public final Kind kind;
+    public final String path, key;
+    public final long bytes;
+    public long weight;
+    public Object value;
+    public boolean done;
+
+    public Entry(Kind kind, String path, long bytes) {
+      this.kind = kind;
+      this.path = path;
+      this.key = key(kind, path);
+      this.bytes = bytes;
+    }
+  }
+
+  /** Requests pending assets, up to our parallelism. */
+  private void pump() {
+    // assets that complete immediately (cache hits, say) call back into pump via finished; those
+    // calls leave it to this loop to request the next asset, rather than recursing once per asset
+    if (pumping) return;
+    pumping = true;
+    try {
+      while (active < parallelism && next < pending.size()) {
+        Entry entry = pending.get(next++);
+        entry.done = false;
+        active++;
+        request(entry);
+      }
+    } finally {
+      pumping = false;
+    }
+  }
+
+  private void request(final Entry entry) {
+    final int gen = generation;
+    switch (entry.kind) {
+    case IMAGE:
+    case SOUND:
+    case MUSIC:
+      Object value;
+      if (entry.kind == Kind.IMAGE) value = assets.getImage(entry.path);
+      else if (entry.kind == Kind.SOUND) value = assets.getSound(entry.path);
+      else value = assets.getMusic(entry.path);
+      entry.value = value;
+      Callback<Object> cb = new Callback<Object>() {
+        public void onSuccess(Object result) {
+          finished(gen, entry, null);
+        }
+        public void onFailure(Throwable cause) {
+          finished(gen, entry, cause);
+        }
+      };
+      if (value instanceof Image) ((Image)value).addCallback(cb);
+      else ((Sound)value).addCallback(cb);
+      break;
+
+    case TEXT:
+      assets.getText(entry.path, new Callback<String>() {
+        public void onSuccess(String text) {
+          if (gen == generation) entry.value = text;
+          finished(gen, entry, null);
+        }
+        public void onFailure(Throwable cause) {
+          finished(gen, entry, cause);
+        }
+      });
+      break;
+
+    case BYTES:
+      assets.getBytes(entry.path, new Callback<byte[]>() {
+        public void onSuccess(byte[] bytes) {
+          if (gen == generation) entry.value = bytes;
+          finished(gen, entry, null);
+        }
+        public void onFailure(Throwable cause) {
+          finished(gen, entry, cause);
+        }
+      });
+      break;
+    }
+  }
+
+  private void finished(int gen, Entry entry, Throwable cause) {
+    if (gen != generation) return; // we were unloaded while this asset was loading
+    entry.done = true;
+    active--;
+    doneWeight += entry.weight;
+    if (cause != null && error == null) error = cause;
+    pump();
+    maybeComplete();
+  }
+
+  private void maybeComplete() {
+    if (state != State.LOADING || next < pending.size() || active > 0) return;
+    for (AssetBundle dep : dependencies) if (!dep.isLoaded()) return;
+    state = State.LOADED;
+    if (error == null) callbacks = Callbacks.dispatchSuccessClear(callbacks, this);
+    else callbacks = Callbacks.dispatchFailureClear(callbacks, error);
+  }
+
+  private void addWeights(long[] weights) {
+    weights[0] += doneWeight;
+    weights[1] += totalWeight;
+    for (AssetBundle dep : dependencies) {
+      if (dep.isLoaded()) {
+        weights[0] += dep.totalWeight;
+        weights[1] += dep.totalWeight;
+      } else dep.addWeights(weights);
+    }
+  }
+
+  private boolean providedByDependency(String key) {
+    for (AssetBundle dep : dependencies) {
+      if (dep.entries.containsKey(key) || dep.providedByDependency(key)) return true;
+    }
+    return false;
+  }
+
+  private Object lookup(String key) {
+    Entry entry = entries.get(key);
+    if (entry != null && entry.done && entry.value != null) return entry.value;
+    for (AssetBundle dep : dependencies) {
+      Object value = dep.lookup(key);
+      if (value != null) return value;
+    }
+    return null;
+  }
+
+  private static String key(Kind kind, String path) {
+    return CachingAssets.key(kind, path);
+  }
+
+  private enum State { UNLOADED, LOADING, LOADED }
+
+  private final Assets assets;
+  private final List<AssetBundle> dependencies = new ArrayList<AssetBundle>();
+  private final Map<String,Entry> entries = new LinkedHashMap<String,Entry>();
+  private final List<Entry> pending = new ArrayList<Entry>();
+  private List<Callback<? super AssetBundle>> callbacks;
+  private State state = State.UNLOADED;
+  private boolean pumping;
+  private Throwable error;
+  private int parallelism = 4, next, active, generation;
+  private long totalWeight, doneWeight;
+}
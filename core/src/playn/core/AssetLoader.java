@@ -0,0 +1,294 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import playn.core.util.Callback;
+
+/**
+ * Schedules asynchronous asset loads on behalf of {@link AbstractAssets}. Loads are queued in
+ * priority lanes and run on at most {@link #parallelism} worker threads (obtained via {@link
+ * AbstractPlatform#invokeAsync}) at once. Each lane may further limit the number of its loads that
+ * run at once, so that (for example) prefetching the next level does not starve the loading of
+ * assets that are needed now.
+ *
+ * <p>Concurrent requests for the same asset are coalesced into a single load, and each request
+ * returns a {@link Handle} via which it may be cancelled. A load that has not yet started is
+ * discarded once all of its requests are cancelled. Results are delivered to callbacks on the
+ * game thread.</p>
+ */
+public class AssetLoader {
+
+  /** The priority lanes, in order of decreasing priority. */
+  public enum Priority {
+    /** Assets that are needed to display the current screen. */
+    NOW,
+    /** Assets that will be needed soon, like those of the next level. */
+    PREFETCH,
+    /** Assets that are not expected to be needed any time soon. */
+    BACKGROUND
+  }
+
+  /** Loads an asset. This is called on a worker thread. */
+  public interface Task<T> {
+    /** Loads and returns the asset, or throws an exception to report failure. */
+    T load() throws Throwable;
+  }
+
+  /** A handle on a request made to the asset loader. */
+  public interface Handle {
+    /** Cancels this request: its callback will not be notified. If this was the only request for
+     * its asset and the load has not yet started, the load is abandoned. */
+    void cancel();
+
+    /** Returns true if this request has been cancelled. */
+    boolean isCancelled();
+  }
+
+  /**
+   * Creates an asset loader which runs up to {@code parallelism} loads at once.
+   */
+  public AssetLoader(AbstractPlatform platform, int parallelism) {
+    if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+    this.platform = platform;
+    this.parallelism = parallelism;
+    for (int ii = 0; ii < LANES; ii++) {
+      pending[ii] = new ArrayList<Load<?>>();
+      laneLimits[ii] = Integer.MAX_VALUE;
+    }
+  }
+
+  /** Returns the maximum number of loads that will be run at once. */
+  public synchronized int parallelism() {
+    return parallelism;
+  }
+
+  /** Configures the maximum number of loads that will be run at once. */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) throw new IllegalArgumentException("Parallelism must be at least 1");
+    synchronized (this) {
+      this.parallelism = parallelism;
+    }
+    pump();
+  }
+
+  /**
+   * Configures the maximum number of loads from the specified lane that will be run at once. By
+   * default lanes are limited only by {@link #parallelism}.
+   */
+  public void setLaneLimit(Priority priority, int limit) {
+    if (limit < 1) throw new IllegalArgumentException("Lane limit must be at least 1");
+    synchronized (this) {
+      laneLimits[priority.ordinal()] = limit;
+    }
+    pump();
+  }
+
+  /**
+   * Requests that the asset identified by {@code key} be loaded by {@code task}. If a load for the
+   * same key is already pending or running, this request joins it and {@code task} is not used.
+   * If the pending load has a lower priority than this request, it is promoted to this request's
+   * priority.
+   *
+   * @param callback notified on the game thread when the load completes or fails.
+   * @return a handle that may be used to cancel the request.
+   */
+  public <T> Handle load(String key, Priority priority, Task<T> task,
+                         Callback<? super T> callback) {
+    Request<T> req = new Request<T>(callback);
+    synchronized (this) {
+      @SuppressWarnings("unchecked") Load<T> load = (Load<T>)loads.get(key);
+      if (load == null) {
+        loads.put(key, load = new Load<T>(key, priority, task));
+        pending[priority.ordinal()].add(load);
+      } else if (!load.started && priority.ordinal() < load.priority.ordinal()) {
+        pending[load.priority.ordinal()].remove(load);
+        load.priority = priority;
+        pending[priority.ordinal()].add(load);
+      }
+      req.load = load;
+      load.requests.add(req);
+    }
+    pump();
+    return req;
+  }
+
+  /** Returns the number of loads that are waiting to be run, for debugging and testing. */
+  public synchronized int pendingCount() {
+    int count = 0;
+    for (List<Load<?>> lane : pending) count += lane.size();
+    return count;
+  }
+
+  /** Returns the number of loads that are running, for debugging and testing. */
+  public synchronized int activeCount() {
+    return active;
+  }
+
+  /** Wraps {@code callback} in a handle that suppresses notification once cancelled. This is used
+   * when an asset is loaded without the loader, but a handle is nonetheless needed. */
+  static <T> Request<T> wrap(Callback<? super T> callback) {
+    return new Request<T>(callback);
+  }
+
+  static class Request<T> implements Handle, Callback<T> {
+    private final Callback<? super T> callback;
+    private volatile boolean cancelled;
+    Load<T> load;
+
+    Request(Callback<? super T> callback) {
+      this.callback = callback;
+    }
+
+    @Override
+    public void cancel() {
+      cancelled = true;
+      if (load != null) load.cancelled(this);
+    }
+
+    @Override
+    public boolean isCancelled() {
+      return cancelled;
+    }
+
+    @Override
+    public void onSuccess(T result) {
+      if (!cancelled) callback.onSuccess(result);
+    }
+
+    @Override
+    public void onFailure(Throwable cause) {
+      if (!cancelled) callback.onFailure(cause);
+    }
+  }
+
+  class Load<T> implements Runnable {
+    final String key;
+    final Task<T> task;
+    final List<Request<T>> requests = new ArrayList<Request<T>>();
+    Priority priority;
+    boolean started;
+    T result;
+    Throwable error;
+
+    Load(String key, Priority priority, Task<T> task) {
+      this.key = key;
+      this.priority = priority;
+      this.task = task;
+    }
+
+    void cancelled(Request<T> req) {
+      synchronized (AssetLoader.this) {
+        requests.remove(req);
+        if (requests.isEmpty() && !started && loads.get(key) == this) {
+          loads.remove(key);
+          pending[priority.ordinal()].remove(this);
+        }
+      }
+    }
+
+    void execute() {
+      try {
+        result = task.load();
+      } catch (Throwable t) {
+        error = t;
+      }
+      // subsequent requests for this asset will start a new load
+      synchronized (AssetLoader.this) {
+        if (loads.get(key) == this) loads.remove(key);
+      }
+      platform.invokeLater(this);
+    }
+
+    // delivers our result on the game thread
+    @Override
+    public void run() {
+      List<Request<T>> reqs;
+      synchronized (AssetLoader.this) {
+        reqs = new ArrayList<Request<T>>(requests);
+      }
+      for (int ii = 0, ll = reqs.size(); ii < ll; ii++) {
+        Request<T> req = reqs.get(ii);
+        try {
+          if (error == null) req.onSuccess(result);
+          else req.onFailure(error);
+        } catch (Throwable t) {
+          platform.reportError("Asset callback failure [key=" + key + "]", t);
+        }
+      }
+    }
+  }
+
+  /** Runs loads, starting with the supplied load, until there are none that may be run. */
+  private class Worker implements Runnable {
+    private final Load<?> first;
+    Worker(Load<?> first) {
+      this.first = first;
+    }
+    public void run() {
+      for (Load<?> load = first; load != null; load = next(load)) load.execute();
+    }
+  }
+
+  /** Starts workers to run pending loads, up to our parallelism. */
+  protected void pump() {
+    while (true) {
+      Load<?> load;
+      synchronized (this) {
+        if (workers >= parallelism || (load = claim()) == null) return;
+        workers++;
+      }
+      platform.invokeAsync(new Worker(load));
+    }
+  }
+
+  /** Completes {@code done}, and claims and returns the next load for the calling worker to run,
+   * or null if the worker should exit. */
+  private synchronized Load<?> next(Load<?> done) {
+    active--;
+    laneActive[done.priority.ordinal()]--;
+    Load<?> load = (workers <= parallelism) ? claim() : null;
+    if (load == null) workers--;
+    return load;
+  }
+
+  /** Claims and returns the highest priority load that may be run, or null. */
+  private Load<?> claim() {
+    for (int ii = 0; ii < LANES; ii++) {
+      List<Load<?>> lane = pending[ii];
+      if (lane.isEmpty() || laneActive[ii] >= laneLimits[ii]) continue;
+      Load<?> load = lane.remove(0);
+      load.started = true;
+      active++;
+      laneActive[ii]++;
+      return load;
+    }
+    return null;
+  }
+
+  private static final int LANES = Priority.values().length;
+
+  private final AbstractPlatform platform;
+  private final Map<String,Load<?>> loads = new HashMap<String,Load<?>>();
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private final List<Load<?>>[] pending = new List[LANES];
+  private final int[] laneLimits = new int[LANES], laneActive = new int[LANES];
+  private int parallelism, workers, active;
+}
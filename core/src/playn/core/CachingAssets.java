@@ -15,104 +15,295 @@
  */
 package playn.core;
 
-import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
+import playn.core.gl.ImageGL;
 import playn.core.util.Callback;
 
 /**
- * An {@link Assets} wrapper that caches all loaded images and sounds with no expiration mechanism.
+ * An {@link Assets} wrapper that caches loaded images, sounds, text and binary data. By default
+ * the cache has no expiration mechanism. If a byte budget is supplied, the cache instead evicts
+ * its least recently used entries whenever its estimated memory use exceeds the budget. Evicted
+ * images have their textures cleared (see {@link Image#clearTexture}); an evicted image that is
+ * still in use will recreate its texture on demand.
+ *
+ * <p>Image memory is estimated as four bytes per texture pixel (i.e. width times height times the
+ * square of the image's scale factor). Images that are still loading are counted once they become
+ * ready. Sounds are not counted toward the budget, but are still evicted in LRU order.</p>
  */
 public class CachingAssets implements Assets {
 
   private final Assets delegate;
-  private final Map<String, Object> cache = new HashMap<String, Object>();
+  private final long maxBytes;
+  // an access-ordered map, so iteration starts with the least recently used entry
+  private final Map<String, Entry> cache = new LinkedHashMap<String, Entry>(16, 0.75f, true);
+  private long usedBytes;
+  private int hits, misses, evictions;
+
+  private static class Entry {
+    public final Object value;
+    public long bytes;
+    public Entry(Object value, long bytes) {
+      this.value = value;
+      this.bytes = bytes;
+    }
+  }
 
+  /**
+   * Creates a cache that retains everything it loads.
+   */
   public CachingAssets (Assets delegate) {
+    this(delegate, 0);
+  }
+
+  /**
+   * Creates a cache whose estimated memory use is limited to {@code maxBytes}, or which is
+   * unbounded if {@code maxBytes} is zero.
+   */
+  public CachingAssets (Assets delegate, long maxBytes) {
     this.delegate = delegate;
+    this.maxBytes = maxBytes;
+  }
+
+  /** Returns the estimated number of bytes used by the cached assets. */
+  public long usedBytes() {
+    return usedBytes;
+  }
+
+  /** Returns the number of requests that were satisfied from the cache. */
+  public int hits() {
+    return hits;
+  }
+
+  /** Returns the number of requests that were passed on to the underlying assets. */
+  public int misses() {
+    return misses;
+  }
+
+  /** Returns the number of entries that have been evicted to keep within our budget. */
+  public int evictions() {
+    return evictions;
+  }
+
+  /** Evicts all cached assets, clearing the textures of any cached images. */
+  public void evictAll() {
+    for (Entry entry : cache.values()) release(entry.value);
+    cache.clear();
+    usedBytes = 0;
   }
 
   @Override
   public Image getImageSync(String path) {
-    Object object = null;
-    if ((object = cache.get(path)) == null) {
-      object = delegate.getImageSync(path);
-      cache.put(path, object);
+    Image image = (Image) lookup(IMAGE + path);
+    if (image == null) {
+      image = delegate.getImageSync(path);
+      cacheImage(IMAGE + path, image);
     }
-    return (Image) object;
+    return image;
   }
 
   @Override
   public Image getImage(String path) {
-    Object object = null;
-    if ((object = cache.get(path)) == null) {
-      object = delegate.getImage(path);
-      cache.put(path, object);
+    Image image = (Image) lookup(IMAGE + path);
+    if (image == null) {
+      image = delegate.getImage(path);
+      cacheImage(IMAGE + path, image);
     }
-    return (Image) object;
+    return image;
   }
 
   @Override
   public Image getRemoteImage(String url) {
-    Object object = null;
-    if ((object = cache.get(url)) == null) {
-      object = delegate.getRemoteImage(url);
-      cache.put(url, object);
+    Image image = (Image) lookup(IMAGE + url);
+    if (image == null) {
+      image = delegate.getRemoteImage(url);
+      cacheImage(IMAGE + url, image);
     }
-    return (Image) object;
+    return image;
   }
 
   @Override
   public Image getRemoteImage(String url, float width, float height) {
-    Object object = null;
-    if ((object = cache.get(url)) == null) {
-      object = delegate.getRemoteImage(url, width, height);
-      cache.put(url, object);
+    Image image = (Image) lookup(IMAGE + url);
+    if (image == null) {
+      image = delegate.getRemoteImage(url, width, height);
+      cacheImage(IMAGE + url, image);
     }
-    return (Image) object;
+    return image;
   }
 
   @Override
   public Sound getSound(String path) {
-    Object object = null;
-    if ((object = cache.get(path)) == null) {
-      object = delegate.getSound(path);
-      cache.put(path, object);
+    Sound sound = (Sound) lookup(SOUND + path);
+    if (sound == null) {
+      sound = delegate.getSound(path);
+      put(SOUND + path, sound, 0);
     }
-    return (Sound) object;
+    return sound;
   }
 
   @Override
   public Sound getMusic(String path) {
-    Object object = null;
-    if ((object = cache.get(path)) == null) {
-      object = delegate.getMusic(path);
-      cache.put(path, object);
+    Sound sound = (Sound) lookup(MUSIC + path);
+    if (sound == null) {
+      sound = delegate.getMusic(path);
+      put(MUSIC + path, sound, 0);
     }
-    return (Sound) object;
+    return sound;
   }
 
   @Override
   public String getTextSync(String path) throws Exception {
-    // no caching for text loading
-    return delegate.getTextSync(path);
+    String text = (String) lookup(TEXT + path);
+    if (text == null) {
+      text = delegate.getTextSync(path);
+      put(TEXT + path, text, 2L * text.length());
+    }
+    return text;
   }
 
   @Override
-  public void getText(String path, Callback<String> callback) {
-    // no caching for text loading
-    delegate.getText(path, callback);
+  public void getText(final String path, final Callback<String> callback) {
+    final String text = (String) lookup(TEXT + path);
+    if (text != null) {
+      // preserve the asynchronous delivery that callers of the underlying assets expect
+      PlayN.invokeLater(new Runnable() {
+        public void run() {
+          callback.onSuccess(text);
+        }
+      });
+      return;
+    }
+    delegate.getText(path, new Callback.Chain<String>(callback) {
+      public void onSuccess(String result) {
+        put(TEXT + path, result, 2L * result.length());
+        callback.onSuccess(result);
+      }
+    });
   }
 
   @Override
   public byte[] getBytesSync(String path) throws Exception {
-    // no caching for arbitrary binary loading
-    return delegate.getBytesSync(path);
+    byte[] bytes = (byte[]) lookup(BYTES + path);
+    if (bytes == null) {
+      bytes = delegate.getBytesSync(path);
+      put(BYTES + path, bytes, bytes.length);
+    }
+    return bytes;
   }
 
   @Override
-  public void getBytes(String path, Callback<byte[]> callback) {
-    // no caching for arbitrary binary loading
-    delegate.getBytes(path, callback);
+  public void getBytes(final String path, final Callback<byte[]> callback) {
+    final byte[] bytes = (byte[]) lookup(BYTES + path);
+    if (bytes != null) {
+      PlayN.invokeLater(new Runnable() {
+        public void run() {
+          callback.onSuccess(bytes);
+        }
+      });
+      return;
+    }
+    delegate.getBytes(path, new Callback.Chain<byte[]>(callback) {
+      public void onSuccess(byte[] result) {
+        put(BYTES + path, result, result.length);
+        callback.onSuccess(result);
+      }
+    });
   }
+
+  /**
+   * Evicts the asset with the supplied key (see {@link #key}), if it is cached.
+   * @return true if an asset was evicted.
+   */
+  boolean evict(String key) {
+    Entry entry = cache.remove(key);
+    if (entry == null) return false;
+    usedBytes -= entry.bytes;
+    release(entry.value);
+    return true;
+  }
+
+  /** Returns the key under which the specified asset is cached. */
+  static String key(AssetBundle.Kind kind, String path) {
+    switch (kind) {
+    case IMAGE: return IMAGE + path;
+    case SOUND: return SOUND + path;
+    case MUSIC: return MUSIC + path;
+    case TEXT: return TEXT + path;
+    default: return BYTES + path;
+    }
+  }
+
+  /**
+   * Returns an estimate of the memory used by {@code image}, which must be ready.
+   */
+  protected long estimateBytes(Image image) {
+    float scale = (image instanceof ImageGL) ? ((ImageGL<?>)image).scale().factor : 1;
+    return 4L * (long)Math.ceil(image.width()*scale) * (long)Math.ceil(image.height()*scale);
+  }
+
+  /**
+   * Releases the resources of an evicted asset.
+   */
+  protected void release(Object value) {
+    if (value instanceof Image) ((Image)value).clearTexture();
+  }
+
+  private Object lookup(String key) {
+    Entry entry = cache.get(key);
+    if (entry == null) {
+      misses++;
+      return null;
+    }
+    hits++;
+    return entry.value;
+  }
+
+  private void cacheImage(final String key, final Image image) {
+    if (image.isReady()) {
+      put(key, image, estimateBytes(image));
+      return;
+    }
+    // we don't know the size of the image until it's loaded, so we account for it then
+    final Entry entry = put(key, image, 0);
+    image.addCallback(new Callback<Image>() {
+      public void onSuccess(Image result) {
+        // if the image was evicted while loading, there's nothing to account
+        if (cache.get(key) != entry) return;
+        long bytes = estimateBytes(result);
+        usedBytes += bytes - entry.bytes;
+        entry.bytes = bytes;
+        trim();
+      }
+      public void onFailure(Throwable cause) {} // failed images stay cached, as before
+    });
+  }
+
+  private Entry put(String key, Object value, long bytes) {
+    Entry entry = new Entry(value, bytes);
+    Entry old = cache.put(key, entry);
+    if (old != null) usedBytes -= old.bytes;
+    usedBytes += bytes;
+    trim();
+    return entry;
+  }
+
+  private void trim() {
+    if (maxBytes <= 0) return;
+    Iterator<Entry> iter = cache.values().iterator();
+    // never evict the most recently used entry, even if it alone exceeds our budget
+    while (usedBytes > maxBytes && cache.size() > 1) {
+      Entry entry = iter.next();
+      iter.remove();
+      usedBytes -= entry.bytes;
+      evictions++;
+      release(entry.value);
+    }
+  }
+
+  // distinguish the different kinds of asset that may be loaded from the same path
+  private static final String IMAGE = "image:", SOUND = "sound:", MUSIC = "music:";
+  private static final String TEXT = "text:", BYTES = "bytes:";
 }
@@ -88,6 +88,21 @@ public class Events {
       public String toString() {
         return preventDefault ? "preventDefault" : "normal";
       }
+
+      /** Restores these flags to their default state, so that they may be reused. */
+      Impl reset() {
+        preventDefault = false;
+        stopped = false;
+        return this;
+      }
+
+      /** Returns a new set of flags with the same state as these flags. */
+      Impl copy() {
+        Impl copy = new Impl();
+        copy.preventDefault = preventDefault;
+        copy.stopped = stopped;
+        return copy;
+      }
     }
   }
 
@@ -122,11 +137,20 @@ public class Events {
      */
     void capture();
 
+    /**
+     * Returns a version of this event that may be safely retained after the listener to which it
+     * was dispatched returns. To avoid generating garbage for every pointer and touch event, some
+     * events (and the localized copies delivered to layer listeners) are reused by the dispatch
+     * machinery and will be overwritten by subsequent events. A listener that needs to keep an
+     * event around must call this method and keep the returned event instead.
+     */
+    Input retain();
+
     // TODO(mdb): a mechanism to determine which modifier keys are pressed, if any
 
     class Impl implements Input {
-      private final Flags flags;
-      private final double time;
+      private Flags flags;
+      private double time;
       Dispatcher.CaptureState captureState;
 
       /** Creates a copy of this event with local x and y in the supplied layer's coord system and
@@ -145,9 +169,25 @@ public class Events {
         return flags;
       }
 
+      @Override
+      public Input retain() {
+        return this; // events are not reused unless a subclass says otherwise
+      }
+
       protected Impl(Flags flags, double time) {
+        set(flags, time);
+      }
+
+      /** Reinitializes this event, so that it may be reused. */
+      void set(Flags flags, double time) {
         this.flags = flags;
         this.time = time;
+        this.captureState = null;
+      }
+
+      /** Returns flags with the same state as this event's flags which will not be reused. */
+      Flags retainFlags() {
+        return (flags instanceof Flags.Impl) ? ((Flags.Impl)flags).copy() : flags;
       }
 
       protected String name() {
@@ -203,8 +243,8 @@ public class Events {
     Layer hit();
 
     abstract class Impl extends Input.Impl implements Position {
-      private final Layer hit;
-      private final float x, y, localX, localY;
+      private Layer hit;
+      private float x, y, localX, localY;
 
       @Override
       abstract Input.Impl localize(Layer hit);
@@ -240,6 +280,11 @@ public class Events {
 
       protected Impl(Layer hit, Flags flags, double time, float x, float y) {
         super(flags, time);
+        setPosition(hit, x, y);
+      }
+
+      /** Reinitializes the position of this event, so that it may be reused. */
+      void setPosition(Layer hit, float x, float y) {
         this.hit = hit;
         this.x = x;
         this.y = y;
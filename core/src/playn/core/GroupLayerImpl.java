@@ -16,10 +16,12 @@
 
 package playn.core;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.ArrayList;
 
 import pythagoras.f.Point;
+import pythagoras.f.Rectangle;
 import pythagoras.util.NoninvertibleTransformException;
 
 /**
@@ -32,6 +34,34 @@ public class GroupLayerImpl<L extends AbstractLayer>
   /** This group's children. */
   public List<L> children = new ArrayList<L>();
 
+  // an optional spatial index of our children, and scratch space used when querying it
+  private HitIndex<L> index;
+  private int[] hitOrder;
+
+  /**
+   * Enables or disables a spatial index of this group's children. See {@link
+   * playn.core.gl.GroupLayerGL#setHitIndex}.
+   */
+  public void setHitIndex(float cellSize) {
+    if (index != null) index.clear(children);
+    if (cellSize <= 0) {
+      index = null;
+      hitOrder = null;
+    } else {
+      index = new HitIndex<L>(cellSize);
+      hitOrder = new int[16];
+      for (int ii = 0, ll = children.size(); ii < ll; ii++) index.insert(children.get(ii));
+    }
+  }
+
+  /**
+   * Notes that the bounds, visibility or hit testing behavior of the supplied child may have
+   * changed.
+   */
+  public void childChanged(L child) {
+    if (index != null) index.update(child);
+  }
+
   /**
    * @return the index into the children array at which the layer was inserted (based on depth).
    */
@@ -58,6 +88,8 @@ public class GroupLayerImpl<L extends AbstractLayer>
     }
     children.add(index, child);
     child.setParent(self);
+    // we index the child once it's ours, so that setParent's change notification is a no-op
+    if (this.index != null) this.index.insert(child);
     child.onAdd();
 
     // if this child is active, we need to become active
@@ -82,6 +114,8 @@ public class GroupLayerImpl<L extends AbstractLayer>
   }
 
   public void removeAll(GroupLayer self) {
+    // clearing the index wholesale is much cheaper than removing each child from it
+    if (index != null) index.clear(children);
     while (!children.isEmpty()) {
       remove(children.size() - 1);
     }
@@ -114,6 +148,7 @@ public class GroupLayerImpl<L extends AbstractLayer>
   }
 
   public Layer hitTest(GroupLayer self, Point point) {
+    if (index != null) return hitTestIndexed(point);
     float x = point.x, y = point.y;
     boolean sawInteractiveChild = false;
     // we check back to front as children are ordered "lowest" first
@@ -143,6 +178,92 @@ public class GroupLayerImpl<L extends AbstractLayer>
     return null;
   }
 
+  // hit tests only the children returned by our spatial index; we can't tell whether we saw all of
+  // our interactive children, so we don't lazily deactivate ourselves as does hitTest
+  private Layer hitTestIndexed(Point point) {
+    float x = point.x, y = point.y;
+    List<L> candidates = index.candidates(x, y);
+    int count = candidates.size();
+    if (count > hitOrder.length) hitOrder = new int[Math.max(count, hitOrder.length*2)];
+
+    // sort the candidates by their position in our children list
+    int[] order = hitOrder;
+    for (int ii = 0; ii < count; ii++) {
+      L child = candidates.get(ii);
+      order[ii] = findChild(child, child.depth());
+    }
+    Arrays.sort(order, 0, count);
+
+    // then check them back to front, as in hitTest, skipping duplicates
+    for (int ii = count-1; ii >= 0; ii--) {
+      int idx = order[ii];
+      if (idx < 0) break;
+      if (ii < count-1 && idx == order[ii+1]) continue;
+      L child = children.get(idx);
+      if (!child.interactive() || !child.visible()) continue;
+      try {
+        child.transform().inverseTransform(point.set(x, y), point);
+        point.x += child.originX();
+        point.y += child.originY();
+        Layer l = child.hitTest(point);
+        if (l != null)
+          return l;
+      } catch (NoninvertibleTransformException nte) {
+        continue;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Computes the union of the bounds of this group's visible children, in the group's coordinate
+   * system. See {@link AbstractLayer#computeBounds}.
+   *
+   * @return false if any visible child is unbounded, in which case {@code into} is undefined. If
+   * the group has no visible, non-empty children, {@code into} will be empty.
+   */
+  public boolean computeBounds(Rectangle into) {
+    float minX = Float.MAX_VALUE, minY = Float.MAX_VALUE;
+    float maxX = -Float.MAX_VALUE, maxY = -Float.MAX_VALUE;
+    // iterate manually to avoid creating an Iterator as garbage
+    for (int ii = 0, ll = children.size(); ii < ll; ii++) {
+      L child = children.get(ii);
+      if (!child.visible()) continue;
+      if (!child.computeBounds(into)) return false;
+      if (into.width <= 0 || into.height <= 0) continue;
+
+      toParent(child, into);
+      minX = Math.min(minX, into.x);
+      minY = Math.min(minY, into.y);
+      maxX = Math.max(maxX, into.x + into.width);
+      maxY = Math.max(maxY, into.y + into.height);
+    }
+    if (minX > maxX) into.setBounds(0, 0, 0, 0);
+    else into.setBounds(minX, minY, maxX - minX, maxY - minY);
+    return true;
+  }
+
+  /**
+   * Transforms {@code bounds} (in place) from the coordinate system of the supplied layer into that
+   * of its parent, yielding the axis-aligned bounds of the transformed rectangle.
+   */
+  static void toParent(AbstractLayer layer, Rectangle bounds) {
+    InternalTransform xf = (InternalTransform)layer.transform();
+    float m00 = xf.m00(), m01 = xf.m01(), m10 = xf.m10(), m11 = xf.m11();
+    float l = bounds.x - layer.originX(), t = bounds.y - layer.originY();
+    float r = l + bounds.width, b = t + bounds.height;
+    float tx = xf.tx(), ty = xf.ty();
+    float x1 = m00*l + m10*t + tx, y1 = m01*l + m11*t + ty;
+    float x2 = m00*r + m10*t + tx, y2 = m01*r + m11*t + ty;
+    float x3 = m00*l + m10*b + tx, y3 = m01*l + m11*b + ty;
+    float x4 = m00*r + m10*b + tx, y4 = m01*r + m11*b + ty;
+    float minX = Math.min(Math.min(x1, x2), Math.min(x3, x4));
+    float minY = Math.min(Math.min(y1, y2), Math.min(y3, y4));
+    float maxX = Math.max(Math.max(x1, x2), Math.max(x3, x4));
+    float maxY = Math.max(Math.max(y1, y2), Math.max(y3, y4));
+    bounds.setBounds(minX, minY, maxX - minX, maxY - minY);
+  }
+
   /**
    * @return the new index of the depth-changed layer.
    */
@@ -173,6 +294,7 @@ public class GroupLayerImpl<L extends AbstractLayer>
 
   private void remove(int index) {
     L child = children.remove(index);
+    if (this.index != null) this.index.remove(child);
     child.onRemove();
     child.setParent(null);
   }
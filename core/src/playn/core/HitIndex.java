@@ -0,0 +1,183 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import pythagoras.f.Rectangle;
+
+/**
+ * A spatial index of the children of a group layer, used to accelerate hit testing. The group's
+ * coordinate space is divided into a uniform grid of square cells, and each child is recorded in
+ * the cells overlapped by its bounds. The cells are hashed into a fixed number of buckets, so the
+ * grid is unbounded; a hash collision merely yields extra candidates, which are eliminated by the
+ * normal hit test.
+ *
+ * <p>Children whose hit area cannot be determined from their bounds (groups, layers with a custom
+ * {@link Layer.HitTester}, unbounded layers) or that span too many cells are not indexed, and are
+ * always returned as candidates.</p>
+ *
+ * <p>To keep adding and removing children cheap, the cells occupied by each child are stored in
+ * the child itself (a layer has only one parent, so it is in at most one index), and each bucket is
+ * a plain array.</p>
+ */
+final class HitIndex<L extends AbstractLayer> {
+
+  /** Children that span more than this many cells are not indexed. */
+  private static final int MAX_CELLS = 64;
+
+  /** The number of buckets into which cells are hashed; must be a power of two. */
+  private static final int BUCKETS = 1024;
+
+  /** Values for {@link AbstractLayer#hitState}. */
+  static final byte NONE = 0, UNINDEXED = 1, INDEXED = 2;
+
+  private final float cellSize;
+  private final AbstractLayer[][] buckets = new AbstractLayer[BUCKETS][];
+  private final int[] bucketSizes = new int[BUCKETS];
+  private final List<L> unindexed = new ArrayList<L>();
+  private final List<L> candidates = new ArrayList<L>();
+  private final Rectangle bounds = new Rectangle();
+  // the cells computed by the last call to computeCells
+  private int minCx, minCy, maxCx, maxCy;
+
+  HitIndex(float cellSize) {
+    this.cellSize = cellSize;
+  }
+
+  /** Adds the supplied child to the index. */
+  void insert(L child) {
+    if (!computeCells(child)) {
+      track(child);
+      return;
+    }
+    int minCx = this.minCx, minCy = this.minCy, maxCx = this.maxCx, maxCy = this.maxCy;
+    for (int cy = minCy; cy <= maxCy; cy++) {
+      for (int cx = minCx; cx <= maxCx; cx++) {
+        int hash = hash(cx, cy), size = bucketSizes[hash];
+        AbstractLayer[] bucket = buckets[hash];
+        if (bucket == null) buckets[hash] = bucket = new AbstractLayer[4];
+        else if (size == bucket.length) {
+          AbstractLayer[] nbucket = new AbstractLayer[size*2];
+          System.arraycopy(bucket, 0, nbucket, 0, size);
+          buckets[hash] = bucket = nbucket;
+        }
+        bucket[size] = child;
+        bucketSizes[hash] = size+1;
+      }
+    }
+    child.hitState = INDEXED;
+    child.hitMinCx = minCx;
+    child.hitMinCy = minCy;
+    child.hitMaxCx = maxCx;
+    child.hitMaxCy = maxCy;
+  }
+
+  /** Removes the supplied child from the index. Children not in the index are ignored. */
+  void remove(L child) {
+    byte state = child.hitState;
+    child.hitState = NONE;
+    if (state == UNINDEXED) {
+      unindexed.remove(child);
+    } else if (state == INDEXED) {
+      for (int cy = child.hitMinCy; cy <= child.hitMaxCy; cy++) {
+        for (int cx = child.hitMinCx; cx <= child.hitMaxCx; cx++) {
+          // a child spanning colliding cells occurs more than once, so we remove just one entry;
+          // the order of a bucket doesn't matter, so we fill the hole with the last entry
+          int hash = hash(cx, cy), last = bucketSizes[hash] - 1;
+          AbstractLayer[] bucket = buckets[hash];
+          for (int ii = last; ii >= 0; ii--) {
+            if (bucket[ii] == child) {
+              bucket[ii] = bucket[last];
+              bucket[last] = null;
+              bucketSizes[hash] = last;
+              break;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /** Removes all children from the index. */
+  void clear(List<L> children) {
+    for (int ii = 0, ll = children.size(); ii < ll; ii++) children.get(ii).hitState = NONE;
+    for (int ii = 0; ii < BUCKETS; ii++) {
+      AbstractLayer[] bucket = buckets[ii];
+      if (bucket != null) {
+        for (int jj = 0, size = bucketSizes[ii]; jj < size; jj++) bucket[jj] = null;
+        bucketSizes[ii] = 0;
+      }
+    }
+    unindexed.clear();
+  }
+
+  /** Updates the cells occupied by the supplied child, if it is in the index. */
+  void update(L child) {
+    switch (child.hitState) {
+    case NONE:
+      return;
+    case INDEXED:
+      // most changes (to a child's tint, say, or a small move) leave it in the same cells
+      if (computeCells(child) && minCx == child.hitMinCx && minCy == child.hitMinCy &&
+          maxCx == child.hitMaxCx && maxCy == child.hitMaxCy) return;
+      break;
+    }
+    remove(child);
+    insert(child);
+  }
+
+  /**
+   * Returns the children that may contain the supplied point, which is in the group's coordinate
+   * system. The returned list is reused by subsequent calls, and may contain duplicates.
+   */
+  @SuppressWarnings("unchecked")
+  List<L> candidates(float x, float y) {
+    candidates.clear();
+    int hash = hash(cell(x), cell(y));
+    AbstractLayer[] bucket = buckets[hash];
+    for (int ii = 0, size = bucketSizes[hash]; ii < size; ii++) candidates.add((L)bucket[ii]);
+    candidates.addAll(unindexed);
+    return candidates;
+  }
+
+  /** Computes the range of cells occupied by the supplied child into {@link #minCx} etc.
+   * @return false if the child is not to be indexed. */
+  private boolean computeCells(L child) {
+    if (!child.computeHitBounds(bounds)) return false;
+    GroupLayerImpl.toParent(child, bounds);
+    minCx = cell(bounds.x);
+    minCy = cell(bounds.y);
+    maxCx = cell(bounds.x + bounds.width);
+    maxCy = cell(bounds.y + bounds.height);
+    // we use doubles here to avoid overflow when a child is enormous or far from the origin
+    return (maxCx - (double)minCx + 1) * (maxCy - (double)minCy + 1) <= MAX_CELLS;
+  }
+
+  private void track(L child) {
+    unindexed.add(child);
+    child.hitState = UNINDEXED;
+  }
+
+  private int cell(float coord) {
+    return (int)Math.floor(coord / cellSize);
+  }
+
+  private static int hash(int cx, int cy) {
+    return ((cx * 73856093) ^ (cy * 19349663)) & (BUCKETS-1);
+  }
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+/**
+ * A map from primitive ints to values, which avoids boxing its keys. Entries are stored in parallel
+ * arrays and located by a linear scan, which is faster than hashing for the handful of entries
+ * (e.g. active touches) for which this map is intended.
+ */
+final class IntMap<V> {
+
+  private int[] keys = new int[4];
+  private Object[] values = new Object[4];
+  private int size;
+
+  /** Returns the number of entries in this map. */
+  int size() {
+    return size;
+  }
+
+  /** Returns the key of the entry at the supplied index, which must be less than {@link #size}. */
+  int keyAt(int index) {
+    return keys[index];
+  }
+
+  /** Returns the value of the entry at the supplied index. See {@link #keyAt}. */
+  @SuppressWarnings("unchecked")
+  V valueAt(int index) {
+    return (V)values[index];
+  }
+
+  /** Returns the value mapped to {@code key}, or null. */
+  @SuppressWarnings("unchecked")
+  V get(int key) {
+    int idx = indexOf(key);
+    return (idx < 0) ? null : (V)values[idx];
+  }
+
+  /** Maps {@code key} to {@code value}, replacing any existing mapping. */
+  void put(int key, V value) {
+    int idx = indexOf(key);
+    if (idx >= 0) {
+      values[idx] = value;
+      return;
+    }
+    if (size == keys.length) {
+      int[] nkeys = new int[size*2];
+      System.arraycopy(keys, 0, nkeys, 0, size);
+      keys = nkeys;
+      Object[] nvalues = new Object[size*2];
+      System.arraycopy(values, 0, nvalues, 0, size);
+      values = nvalues;
+    }
+    keys[size] = key;
+    values[size] = value;
+    size++;
+  }
+
+  /** Removes the mapping for {@code key}, if any. */
+  void remove(int key) {
+    int idx = indexOf(key);
+    if (idx >= 0) removeAt(idx);
+  }
+
+  /** Removes the entry at the supplied index. The last entry is moved into its place. */
+  void removeAt(int index) {
+    int last = --size;
+    keys[index] = keys[last];
+    values[index] = values[last];
+    values[last] = null;
+  }
+
+  private int indexOf(int key) {
+    for (int ii = 0; ii < size; ii++) {
+      if (keys[ii] == key) return ii;
+    }
+    return -1;
+  }
+}
@@ -19,6 +19,7 @@ import java.util.List;
 
 import playn.core.json.JsonParserException;
 import playn.core.json.JsonSink;
+import playn.core.util.Callback;
 
 /**
  * PlayN JSON parsing and serialization interface.
@@ -42,6 +43,98 @@ public interface Json {
     Writer useVerboseFormat(boolean verbose);
   }
 
+  /**
+   * Reads a JSON document one token at a time, without building a tree of {@link Object}s and
+   * {@link Array}s. For example:
+   * <pre>{@code
+   * Json.Reader reader = json.newReader(text);
+   * reader.next(); // START_OBJECT
+   * while (reader.next() == Json.Reader.Token.KEY) {
+   *   String key = reader.string();
+   *   reader.next(); // move to the value
+   *   if (key.equals("version")) version = reader.intValue();
+   *   else reader.skipValue();
+   * }
+   * }</pre>
+   *
+   * <p>Keys and values are separated (and commas and colons consumed) by the reader, which also
+   * verifies that the document is well formed, throwing a {@link JsonParserException} if it is
+   * not.</p>
+   */
+  interface Reader {
+    /** The tokens returned by {@link Reader#next}. */
+    enum Token {
+      START_OBJECT, END_OBJECT, START_ARRAY, END_ARRAY, KEY, STRING, NUMBER, BOOLEAN, NULL, END
+    }
+
+    /**
+     * Advances to the next token and returns it. Returns {@link Token#END} once the document has
+     * been read in its entirety.
+     */
+    Token next() throws JsonParserException;
+
+    /**
+     * Returns the current token: the one most recently returned by {@link #next}, or null if
+     * {@code next} has not yet been called.
+     */
+    Token token();
+
+    /**
+     * Returns the number of arrays and objects that enclose the current token. The start and end
+     * tokens of an array or object are enclosed by the array or object.
+     */
+    int depth();
+
+    /**
+     * Returns the text of the current {@link Token#KEY} or {@link Token#STRING}.
+     *
+     * @throws IllegalStateException if the current token is neither a key nor a string.
+     */
+    String string();
+
+    /**
+     * Returns the value of the current {@link Token#NUMBER}.
+     *
+     * @throws IllegalStateException if the current token is not a number.
+     */
+    Number number();
+
+    /** Returns the value of the current {@link Token#NUMBER} as an int. */
+    int intValue();
+
+    /** Returns the value of the current {@link Token#NUMBER} as a long. */
+    long longValue();
+
+    /** Returns the value of the current {@link Token#NUMBER} as a float. */
+    float floatValue();
+
+    /** Returns the value of the current {@link Token#NUMBER} as a double. */
+    double doubleValue();
+
+    /**
+     * Returns the value of the current {@link Token#BOOLEAN}.
+     *
+     * @throws IllegalStateException if the current token is not a boolean.
+     */
+    boolean booleanValue();
+
+    /**
+     * Skips the value that starts at the current token. If the current token is {@link
+     * Token#START_OBJECT} or {@link Token#START_ARRAY}, the reader is advanced to the matching end
+     * token. If it is a {@link Token#KEY}, the key's value is skipped. Otherwise this is a no-op.
+     */
+    void skipValue() throws JsonParserException;
+
+    /**
+     * Reads the value that starts at the current token: a {@link Object}, {@link Array}, {@link
+     * String}, {@link Number}, {@link Boolean} or null. Objects and arrays are read in their
+     * entirety, leaving the reader on their end token.
+     *
+     * @throws IllegalStateException if the current token does not start a value.
+     */
+    java.lang.Object value() throws JsonParserException;
+  }
+
   /**
    * A JSON array that assumes all values are of a uniform JSON type.
    */
@@ -210,6 +303,25 @@ public interface Json {
      */
     long getLong(int index, long dflt);
 
+    /**
+     * Copies the values of this array, as ints, into {@code into} if it is at least {@link
+     * #length} long, or into a newly created array if not. Values that are not numbers are copied
+     * as {@code 0}. This is much more efficient than fetching the values one by one from a large
+     * numeric array.
+     *
+     * @return the array into which the values were copied.
+     */
+    int[] getInts(int[] into);
+
+    /**
+     * Copies the values of this array, as floats, into {@code into} if it is at least {@link
+     * #length} long, or into a newly created array if not. Values that are not numbers are copied
+     * as {@code 0}.
+     *
+     * @return the array into which the values were copied.
+     */
+    float[] getFloats(float[] into);
+
     /**
      * Gets the string value at the given index, or {@code null} if there is no value at this
      * index.
@@ -548,4 +660,22 @@ public interface Json {
    * Parses the given JSON string into an {@link Array} that can be dynamically introspected.
    */
   Array parseArray(String json) throws JsonParserException;
+
+  /**
+   * Creates a {@link Reader} that reads the given JSON string one token at a time.
+   */
+  Reader newReader(String json);
+
+  /**
+   * Parses the given JSON string into an {@link Object} without blocking the calling thread, and
+   * delivers the result (or a {@link JsonParserException}) to {@code callback} on the main
+   * thread. Where the platform supports it, large documents are parsed on multiple threads.
+   */
+  void parseAsync(String json, Callback<? super Object> callback);
+
+  /**
+   * Parses the given JSON string into an {@link Array} without blocking the calling thread. See
+   * {@link #parseAsync}.
+   */
+  void parseArrayAsync(String json, Callback<? super Array> callback);
 }
@@ -29,8 +29,12 @@ public interface Pointer {
     /** Returns true if this event originated from touch input, false otherwise. */
     boolean isTouch();
 
+    @Override
+    Event retain();
+
     class Impl extends Events.Position.Impl implements Event {
       private boolean isTouch;
+      private Event.Impl local;
 
       public Impl(Flags flags, double time, float x, float y, boolean isTouch) {
         this(null, flags, time, x, y, isTouch);
@@ -38,9 +42,16 @@ public interface Pointer {
 
       @Override
       public Event.Impl localize(Layer hit) {
-        Event.Impl impl = new Event.Impl(hit, flags(), time(), x(), y(), isTouch());
-        impl.captureState = captureState;
-        return impl;
+        // a single localized event is reused for every dispatch of this event; see retain()
+        if (local == null) local = new Event.Impl(hit, flags(), time(), x(), y(), isTouch);
+        else local.set(hit, flags(), time(), x(), y(), isTouch);
+        local.captureState = captureState;
+        return local;
+      }
+
+      @Override
+      public Event retain() {
+        return new Event.Impl(hit(), retainFlags(), time(), x(), y(), isTouch);
       }
 
       @Override
@@ -53,6 +64,13 @@ public interface Pointer {
         this.isTouch = isTouch;
       }
 
+      /** Reinitializes this event, so that it may be reused. */
+      void set(Layer hit, Flags flags, double time, float x, float y, boolean isTouch) {
+        set(flags, time);
+        setPosition(hit, x, y);
+        this.isTouch = isTouch;
+      }
+
       @Override
       protected String name() {
         return "Pointer.Event";
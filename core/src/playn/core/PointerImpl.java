@@ -26,6 +26,11 @@ public abstract class PointerImpl implements Pointer {
   private Dispatcher dispatcher = Dispatcher.SINGLE;
   private Listener listener;
   private final Dispatcher.CaptureState active = new Dispatcher.CaptureState();
+  private final Point scratchPoint = new Point();
+  private final Events.Flags.Impl pooledFlags = new Events.Flags.Impl();
+  private final Event.Impl pooledEvent = new Event.Impl(pooledFlags, 0, 0, 0, false);
+  private final Events.Flags.Impl cancelFlags = new Events.Flags.Impl();
+  private final Event.Impl cancelEvent = new Event.Impl(cancelFlags, 0, 0, 0, false);
 
   @Override
   public boolean isEnabled() {
@@ -50,7 +55,8 @@ public abstract class PointerImpl implements Pointer {
   @Override
   public void cancelLayerDrags() {
     if (active.layer != null) {
-      Event.Impl event = new Event.Impl(new Events.Flags.Impl(), PlayN.currentTime(), 0, 0, false);
+      Event.Impl event = cancelEvent;
+      event.set(null, cancelFlags.reset(), PlayN.currentTime(), 0, 0, false);
       event.captureState = active;
       dispatcher.dispatch(Listener.class, event, CANCEL, null);
       active.clear();
@@ -61,6 +67,17 @@ public abstract class PointerImpl implements Pointer {
     dispatcher = Dispatcher.select(propagate);
   }
 
+  /**
+   * Returns an event initialized with the supplied values, for dispatch via one of the {@code
+   * onPointerXXX} methods. The same event instance (and flags) is returned by every call, so
+   * backends need not allocate an event for every pointer movement. Listeners that wish to keep
+   * an event must {@link Event#retain} it.
+   */
+  protected Event.Impl obtainEvent(double time, float x, float y, boolean isTouch) {
+    pooledEvent.set(null, pooledFlags.reset(), time, x, y, isTouch);
+    return pooledEvent;
+  }
+
   protected boolean onPointerStart(Event.Impl event, boolean preventDefault) {
     if (!enabled)
       return preventDefault;
@@ -72,7 +89,7 @@ public abstract class PointerImpl implements Pointer {
 
     GroupLayer root = PlayN.graphics().rootLayer();
     if (root.interactive()) {
-      Point p = new Point(event.x(), event.y());
+      Point p = scratchPoint.set(event.x(), event.y());
       root.transform().inverseTransform(p, p);
       p.x += root.originX();
       p.y += root.originY();
@@ -39,10 +39,14 @@ public interface Touch {
     // TODO(mdb): provide more details in the docs? size in pixels?
     float size();
 
+    @Override
+    Event retain();
+
     static class Impl extends Events.Position.Impl implements Event {
-      private final int id;
-      private final float pressure;
-      private final float size;
+      private int id;
+      private float pressure;
+      private float size;
+      private Event.Impl local;
 
       // TODO: Implement pressure and size across all platforms that support touch.
       public Impl(Events.Flags flags, double time, float x, float y, int id) {
@@ -56,7 +60,16 @@ public interface Touch {
 
       @Override
       public Event.Impl localize(Layer hit) {
-        return new Event.Impl(hit, flags(), time(), x(), y(), id(), pressure(), size());
+        // a single localized event is reused for every dispatch of this event; see retain()
+        if (local == null)
+          local = new Event.Impl(hit, flags(), time(), x(), y(), id, pressure, size);
+        else local.set(hit, flags(), time(), x(), y(), id, pressure, size);
+        return local;
+      }
+
+      @Override
+      public Event retain() {
+        return new Event.Impl(hit(), retainFlags(), time(), x(), y(), id, pressure, size);
       }
 
       @Override
@@ -82,6 +95,16 @@ public interface Touch {
         this.size = size;
       }
 
+      /** Reinitializes this event, so that it may be reused. */
+      void set(Layer hit, Events.Flags flags, double time, float x, float y,
+               int id, float pressure, float size) {
+        set(flags, time);
+        setPosition(hit, x, y);
+        this.id = id;
+        this.pressure = pressure;
+        this.size = size;
+      }
+
       @Override
       protected String name() {
         return "Touch.Event";
@@ -15,10 +15,6 @@
  */
 package playn.core;
 
-import java.util.HashMap;
-import java.util.Iterator;
-import java.util.Map;
-
 import pythagoras.f.Point;
 
 /**
@@ -29,7 +25,13 @@ public class TouchImpl implements Touch {
   private boolean enabled = true;
   private Dispatcher dispatcher = Dispatcher.SINGLE;
   private Listener listener;
-  private Map<Integer,AbstractLayer> activeLayers = new HashMap<Integer,AbstractLayer>();
+  private final IntMap<AbstractLayer> activeLayers = new IntMap<AbstractLayer>();
+  private final Point scratchPoint = new Point();
+  private final Events.Flags.Impl pooledFlags = new Events.Flags.Impl();
+  private Event.Impl[][] pooledEvents = new Event.Impl[0][];
+  private final Events.Flags.Impl cancelFlags = new Events.Flags.Impl();
+  private final Event.Impl cancelEvent = new Event.Impl(cancelFlags, 0, 0, 0, 0);
+  private boolean cancelling;
 
   @Override
   public boolean hasTouch() {
@@ -59,14 +61,27 @@ public class TouchImpl implements Touch {
   @Override
   public void cancelLayerTouches(Layer except) {
     double now = PlayN.currentTime();
-    Iterator<Map.Entry<Integer,AbstractLayer>> iter = activeLayers.entrySet().iterator();
-    while (iter.hasNext()) {
-      Map.Entry<Integer,AbstractLayer> entry = iter.next();
-      AbstractLayer layer = entry.getValue();
-      if (layer == except) continue;
-      iter.remove();
-      Event.Impl event = new Event.Impl(new Events.Flags.Impl(), now, 0, 0, entry.getKey());
-      dispatcher.dispatch(layer, LayerListener.class, event, CANCEL);
+    // if a listener cancels touches while we're dispatching our reused cancel event, use a new one
+    boolean reuse = !cancelling;
+    cancelling = true;
+    try {
+      // iterate backwards, as removal moves the last entry into the removed entry's place
+      for (int ii = activeLayers.size()-1; ii >= 0; ii--) {
+        AbstractLayer layer = activeLayers.valueAt(ii);
+        if (layer == except) continue;
+        int id = activeLayers.keyAt(ii);
+        activeLayers.removeAt(ii);
+        Event.Impl event;
+        if (reuse) {
+          event = cancelEvent;
+          event.set(null, cancelFlags.reset(), now, 0, 0, id, -1, -1);
+        } else event = new Event.Impl(new Events.Flags.Impl(), now, 0, 0, id);
+        dispatcher.dispatch(layer, LayerListener.class, event, CANCEL);
+        // a listener may have ended or cancelled other touches
+        if (ii > activeLayers.size()) ii = activeLayers.size();
+      }
+    } finally {
+      if (reuse) cancelling = false;
     }
   }
 
@@ -74,6 +89,36 @@ public class TouchImpl implements Touch {
     dispatcher = Dispatcher.select(propagate);
   }
 
+  /**
+   * Returns an array of {@code count} events, for dispatch via one of the {@code onTouchXXX}
+   * methods once each has been initialized via {@link #setEvent}. The same array (and events, and
+   * flags, which are shared by all events in the array) is returned by every call for a given
+   * count, so backends need not allocate events for every touch movement. Listeners that wish to
+   * keep an event must {@link Event#retain} it.
+   */
+  protected Event.Impl[] obtainEvents(int count) {
+    if (count >= pooledEvents.length) {
+      Event.Impl[][] events = new Event.Impl[count+1][];
+      System.arraycopy(pooledEvents, 0, events, 0, pooledEvents.length);
+      pooledEvents = events;
+    }
+    Event.Impl[] events = pooledEvents[count];
+    if (events == null) {
+      events = pooledEvents[count] = new Event.Impl[count];
+      for (int ii = 0; ii < count; ii++) events[ii] = new Event.Impl(pooledFlags, 0, 0, 0, 0);
+    }
+    pooledFlags.reset();
+    return events;
+  }
+
+  /**
+   * Initializes the {@code index}th event in an array obtained from {@link #obtainEvents}.
+   */
+  protected void setEvent(Event.Impl[] events, int index, double time, float x, float y, int id,
+                          float pressure, float size) {
+    events[index].set(null, pooledFlags, time, x, y, id, pressure, size);
+  }
+
   public void onTouchStart(Event.Impl[] touches) {
     if (!enabled)
       return;
@@ -84,7 +129,7 @@ public class TouchImpl implements Touch {
     GroupLayer root = PlayN.graphics().rootLayer();
     if (root.interactive()) {
       for (Event.Impl event : touches) {
-        Point p = new Point(event.x(), event.y());
+        Point p = scratchPoint.set(event.x(), event.y());
         root.transform().inverseTransform(p, p);
         p.x += root.originX();
         p.y += root.originY();
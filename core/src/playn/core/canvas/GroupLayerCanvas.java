@@ -18,6 +18,7 @@ package playn.core.canvas;
 import pythagoras.f.Point;
 
 import playn.core.Canvas;
+import playn.core.AbstractLayer;
 import playn.core.GroupLayer;
 import playn.core.GroupLayerImpl;
 import playn.core.InternalTransform;
@@ -147,6 +148,17 @@ public class GroupLayerCanvas extends LayerCanvas implements GroupLayer, ParentL
     return impl.hitTest(this, p);
   }
 
+  /** Enables or disables a spatial index of this group's children. See {@link
+   * playn.core.gl.GroupLayerGL#setHitIndex}. */
+  public void setHitIndex(float cellSize) {
+    impl.setHitIndex(cellSize);
+  }
+
+  @Override
+  protected void childChanged(AbstractLayer child) {
+    impl.childChanged((LayerCanvas) child);
+  }
+
   @Override
   public void depthChanged(Layer layer, float oldDepth) {
     impl.depthChanged(this, layer, oldDepth);
@@ -15,6 +15,8 @@
  */
 package playn.core.canvas;
 
+import pythagoras.f.Rectangle;
+
 import playn.core.Canvas;
 import playn.core.Image;
 import playn.core.ImageLayer;
@@ -43,6 +45,7 @@ public class ImageLayerCanvas extends LayerCanvas implements ImageLayer {
   @Override
   public ImageLayer setImage(Image img) {
     this.img = img;
+    markDirty();
     return this;
   }
 
@@ -75,6 +78,7 @@ public class ImageLayerCanvas extends LayerCanvas implements ImageLayer {
     assert height >= 0 : "Height must be >= 0";
     heightSet = true;
     this.height = height;
+    markDirty();
   }
 
   @Override
@@ -82,6 +86,7 @@ public class ImageLayerCanvas extends LayerCanvas implements ImageLayer {
     assert width >= 0 : "Width must be >= 0";
     widthSet = true;
     this.width = width;
+    markDirty();
   }
 
   @Override
@@ -92,16 +97,31 @@ public class ImageLayerCanvas extends LayerCanvas implements ImageLayer {
     this.width = width;
     heightSet = true;
     this.height = height;
+    markDirty();
   }
 
   @Override
   public void clearHeight() {
     heightSet = false;
+    markDirty();
   }
 
   @Override
   public void clearWidth() {
     widthSet = false;
+    markDirty();
+  }
+
+  @Override
+  protected boolean computeBounds(Rectangle into) {
+    if (img == null) {
+      into.setBounds(0, 0, 0, 0);
+      return true;
+    }
+    // until our image is loaded we don't know our size
+    if (!img.isReady()) return false;
+    into.setBounds(0, 0, width(), height());
+    return true;
   }
 
   @Override
@@ -15,6 +15,8 @@
  */
 package playn.core.canvas;
 
+import pythagoras.f.Rectangle;
+
 import playn.core.Canvas;
 import playn.core.ImmediateLayer;
 import playn.core.InternalTransform;
@@ -53,6 +55,12 @@ public class ImmediateLayerCanvas extends LayerCanvas implements ImmediateLayer
       return scaleY() * height();
     }
 
+    @Override
+    protected boolean computeBounds(Rectangle into) {
+      into.setBounds(0, 0, width, height);
+      return true;
+    }
+
     @Override
     protected void render(Canvas canvas) {
       canvas.clipRect(0, 0, width, height);
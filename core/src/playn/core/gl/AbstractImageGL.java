@@ -15,6 +15,7 @@
  */
 package playn.core.gl;
 
+import playn.core.CanvasImage;
 import playn.core.Image;
 import playn.core.InternalTransform;
 import playn.core.Pattern;
@@ -84,11 +85,32 @@ public abstract class AbstractImageGL<GC> implements Image {
                 float dx, float dy, float dw, float dh,
                 float sl, float st, float sr, float sb) {
     if (tex > 0) {
-      ctx.quadShader(shader).prepareTexture(tex, tint).addQuad(
-        xform, dx, dy, dx + dw, dy + dh, sl, st, sr, sb);
+      // a canvas image only uploads its latest canvas data when its texture is requested
+      if (this instanceof CanvasImage) ctx.noteMutableImage(this);
+      ctx.addQuad(ctx.quadShader(shader), tex, tint, xform, dx, dy, dx + dw, dy + dh,
+                  texS(sl), texT(st), texS(sr), texT(sb));
+    } else {
+      ctx.noteUncacheable(); // we'll render something once our texture is ready
     }
   }
 
+  /**
+   * Maps a horizontal texture coordinate relative to this image into a coordinate in the texture
+   * returned by {@link #ensureTexture}. These only differ when the image shares its texture with
+   * other images, as when it has been packed into an atlas.
+   */
+  float texS(float s) {
+    return s;
+  }
+
+  /**
+   * Maps a vertical texture coordinate relative to this image into a coordinate in the texture
+   * returned by {@link #ensureTexture}. See {@link #texS}.
+   */
+  float texT(float t) {
+    return t;
+  }
+
   @Override
   public boolean repeatX() {
     return repeatX;
@@ -256,6 +256,8 @@ abstract class AbstractSurfaceGL implements Surface {
     // TODO: Add it to the state stack.
     assert pattern instanceof GLPattern;
     this.fillPattern = ((GLPattern) pattern).image();
+    // this also keeps the pattern's image out of any atlas: our fill methods compute texture
+    // coordinates that tile the image, which only work with a texture of its own
     this.fillPattern.setRepeat(true, true);
     return this;
   }
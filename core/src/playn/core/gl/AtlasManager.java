@@ -0,0 +1,377 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import playn.core.CanvasImage;
+import playn.core.InternalTransform;
+import playn.core.Tint;
+
+/**
+ * Packs small images into shared power-of-two atlas textures. When an atlas manager is configured
+ * on a {@link GLContext} (via {@link GLContext#setAtlasManager}), small, non-repeating,
+ * non-mipmapped, non-canvas images are copied into a shared atlas page the first time they are
+ * rendered, rather than being given a texture of their own. This allows the quad shader to render
+ * many different images without flushing to bind a new texture.
+ *
+ * <p>Space is allocated within a page using a skyline packer. When an image is released (its
+ * reference count drops to zero), its space is reclaimed once every image on its page has been
+ * released. If no page has room for a new image and the maximum number of pages has been
+ * allocated, the page with the least live data is evicted: it is cleared and repacked, and the
+ * images evicted from it are transparently re-added the next time they are rendered. Images that
+ * cannot be atlased fall back to having their own texture.</p>
+ */
+public class AtlasManager {
+
+  /** The space (in pixels) left around each image to prevent bleeding during filtering. This
+   * padding is filled with copies of the image's edge texels. */
+  protected static final int PAD = 1;
+
+  /** A page is only evicted if its live data occupies less than this fraction of its area. */
+  protected static final float EVICT_THRESHOLD = 0.5f;
+
+  /** Describes the location of an image in an atlas page. */
+  public class Region {
+    /** The bounds of this region's image in texture coordinates of its atlas page. */
+    public final float sl, st, sr, sb;
+
+    /** Returns the texture of the atlas page that contains this region. */
+    public int tex() {
+      return page.tex;
+    }
+
+    /** Returns true if this region still refers to live data in its atlas page. */
+    public boolean isValid() {
+      return page != null && page.epoch == ctx.epoch();
+    }
+
+    /** Releases this region's space in its atlas page. */
+    public void release() {
+      if (page != null) page.free(this);
+    }
+
+    Region(Page page, int x, int y, int width, int height) {
+      float size = page.size;
+      this.page = page;
+      this.area = (width + 2*PAD) * (height + 2*PAD);
+      this.sl = (x + PAD) / size;
+      this.st = (y + PAD) / size;
+      this.sr = (x + PAD + width) / size;
+      this.sb = (y + PAD + height) / size;
+    }
+
+    Page page;
+    final int area;
+  }
+
+  /**
+   * Creates an atlas manager. It must subsequently be configured via {@link
+   * GLContext#setAtlasManager}.
+   *
+   * @param pageSize the width and height of each atlas page, which must be a power of two.
+   * @param maxImageSize images larger than this (in pixels) in either dimension are not atlased.
+   * @param maxPages the maximum number of atlas pages to create.
+   */
+  public AtlasManager(GLContext ctx, int pageSize, int maxImageSize, int maxPages) {
+    assert GLUtil.nextPowerOfTwo(pageSize) == 0 : "Page size must be a power of two: " + pageSize;
+    assert maxImageSize + 2*PAD <= pageSize : "Max image size must fit in a page.";
+    this.ctx = ctx;
+    this.pageSize = pageSize;
+    this.maxImageSize = maxImageSize;
+    this.maxPages = maxPages;
+  }
+
+  /** Returns the number of atlas pages currently allocated. */
+  public int pages() {
+    return pages.size();
+  }
+
+  /** Returns the number of images currently packed into atlas pages. */
+  public int images() {
+    int images = 0;
+    for (Page page : pages) images += page.regions.size();
+    return images;
+  }
+
+  /** Returns true if the supplied image is eligible to be added to an atlas. */
+  public boolean canAtlas(ImageGL<?> image) {
+    if (image instanceof CanvasImage || image.repeatX() || image.repeatY() || image.mipmapped)
+      return false;
+    // atlas pages are uncompressed, so we'd lose the benefit of compressed textures
+    CompressedTexture ctex = image.compressedTexture();
+    if (ctex != null && ctx.supportsCompressedFormat(ctex.format)) return false;
+    Scale scale = image.scale();
+    int width = scale.scaledCeil(image.width()), height = scale.scaledCeil(image.height());
+    return width > 0 && height > 0 && width <= maxImageSize && height <= maxImageSize;
+  }
+
+  /**
+   * Copies the supplied image into an atlas page.
+   * @return the region allocated for the image, or null if there was no room in any page.
+   */
+  public Region add(ImageGL<?> image) {
+    checkEpoch();
+    Scale scale = image.scale();
+    int width = scale.scaledCeil(image.width()), height = scale.scaledCeil(image.height());
+    int pwidth = width + 2*PAD, pheight = height + 2*PAD;
+
+    // first try to squeeze the image into one of our existing pages
+    Region region = null;
+    for (int ii = 0, ll = pages.size(); ii < ll && region == null; ii++) {
+      region = pages.get(ii).alloc(width, height, pwidth, pheight);
+    }
+    // if that fails, create a new page, or evict the least utilized page
+    if (region == null) {
+      Page page = null;
+      if (pages.size() < maxPages) {
+        pages.add(page = new Page());
+      } else {
+        for (Page p : pages) {
+          if (page == null || p.liveArea < page.liveArea) page = p;
+        }
+        if (page.liveArea > EVICT_THRESHOLD * pageSize * pageSize) return null;
+        page.reset();
+      }
+      region = page.alloc(width, height, pwidth, pheight);
+      if (region == null) return null;
+    }
+
+    // finally render the image into its allocated region
+    int tex = image.createMainTex();
+    try {
+      region.page.render(tex, region);
+    } finally {
+      ctx.destroyTexture(tex);
+    }
+    return region;
+  }
+
+  /** Queues the supplied region to be released on the GL thread. */
+  public void queueRelease(final Region region) {
+    ctx.platform.invokeLater(new Runnable() {
+      public void run() {
+        region.release();
+      }
+    });
+  }
+
+  /**
+   * Destroys all atlas pages. The images currently in those pages will revert to using their own
+   * textures (or to a newly configured atlas manager) the next time they are rendered.
+   */
+  public void destroy() {
+    boolean stale = pages.size() > 0 && pages.get(0).epoch != ctx.epoch();
+    for (Page page : pages) {
+      page.evictAll();
+      // if our GL context has been lost, our handles refer to nothing (or someone else's data)
+      if (!stale) {
+        ctx.deleteFramebuffer(page.fbuf);
+        ctx.destroyTexture(page.tex);
+      }
+    }
+    pages.clear();
+  }
+
+  // if our GL context has been lost and regained, all of our pages are gone
+  protected void checkEpoch() {
+    if (pages.size() > 0 && pages.get(0).epoch != ctx.epoch()) destroy();
+  }
+
+  /** A single atlas page, a power-of-two texture packed using the skyline algorithm. */
+  protected class Page {
+    public final int size = pageSize;
+    public final int epoch = ctx.epoch();
+    public final int tex, fbuf;
+    public final List<Region> regions = new ArrayList<Region>();
+    public int liveArea;
+
+    // the skyline: a list of horizontal segments ordered by x which cover the page width
+    private int[] xs = new int[16], ys = new int[16], widths = new int[16];
+    private int segs;
+
+    public Page() {
+      tex = ctx.createTexture(size, size, false, false, false);
+      fbuf = ctx.createFramebuffer(tex);
+      // we may be created mid-frame, so we restore the current framebuffer after clearing ours
+      ctx.pushFramebuffer(fbuf, size, size);
+      try {
+        ctx.clear(0, 0, 0, 0);
+      } finally {
+        ctx.popFramebuffer();
+      }
+      resetSkyline();
+    }
+
+    /** Allocates a {@code pwidth x pheight} region of this page, or returns null. */
+    public Region alloc(int width, int height, int pwidth, int pheight) {
+      int bestIdx = -1, bestY = size, bestTop = Integer.MAX_VALUE, bestWidth = Integer.MAX_VALUE;
+      for (int ii = 0; ii < segs; ii++) {
+        int y = fit(ii, pwidth, pheight);
+        if (y < 0) continue;
+        int top = y + pheight;
+        if (top < bestTop || (top == bestTop && widths[ii] < bestWidth)) {
+          bestIdx = ii;
+          bestY = y;
+          bestTop = top;
+          bestWidth = widths[ii];
+        }
+      }
+      if (bestIdx < 0) return null;
+
+      Region region = new Region(this, xs[bestIdx], bestY, width, height);
+      addSegment(bestIdx, xs[bestIdx], bestTop, pwidth);
+      regions.add(region);
+      liveArea += region.area;
+      return region;
+    }
+
+    /** Renders the supplied texture into the supplied region of this page. The edge texels of
+     * the texture are replicated into the padding around the region, so that linear filtering at
+     * the region's edges does not blend in the (transparent) padding, or a neighboring image. */
+    public void render(int srcTex, Region region) {
+      ctx.pushFramebuffer(fbuf, size, size);
+      try {
+        float left = region.sl * size, top = region.st * size;
+        float right = region.sr * size, bottom = region.sb * size;
+        // sample the centers of the edge texels when filling the padding
+        float hs = 0.5f / (right - left), ht = 0.5f / (bottom - top);
+        // we render the image upside down, as does ImageGL.convertToRepTex, so that its data
+        // ends up properly oriented in texture coordinates
+        float[] xs = { left - PAD, left, right, right + PAD };
+        float[] ss = { hs, hs, 0, 1, 1 - hs, 1 - hs };
+        float[] ys = { bottom + PAD, bottom, top, top - PAD };
+        float[] ts = { ht, ht, 0, 1, 1 - ht, 1 - ht };
+        InternalTransform xform = ctx.createTransform();
+        GLShader shader = ctx.quadShader(null).prepareTexture(srcTex, Tint.NOOP_TINT);
+        for (int row = 0; row < 3; row++) {
+          for (int col = 0; col < 3; col++) {
+            shader.addQuad(xform, xs[col], ys[row], xs[col+1], ys[row+1],
+                           ss[2*col], ts[2*row], ss[2*col+1], ts[2*row+1]);
+          }
+        }
+        shader.flush();
+      } finally {
+        ctx.popFramebuffer();
+      }
+    }
+
+    /** Releases the space occupied by the supplied region. Once all of a page's regions have been
+     * released, the page is cleared for reuse. */
+    public void free(Region region) {
+      regions.remove(region);
+      region.page = null;
+      liveArea -= region.area;
+      // the region's space may now be reused by another image
+      ctx.noteTextureChange();
+      if (regions.isEmpty()) reset();
+    }
+
+    /** Evicts all regions in this page and clears it for reuse. */
+    public void reset() {
+      evictAll();
+      ctx.pushFramebuffer(fbuf, size, size);
+      try {
+        ctx.clear(0, 0, 0, 0);
+      } finally {
+        ctx.popFramebuffer();
+      }
+      resetSkyline();
+    }
+
+    protected void evictAll() {
+      for (Region region : regions) region.page = null;
+      regions.clear();
+      liveArea = 0;
+      ctx.noteTextureChange();
+    }
+
+    protected void resetSkyline() {
+      xs[0] = 0;
+      ys[0] = 0;
+      widths[0] = size;
+      segs = 1;
+    }
+
+    // returns the y position at which a region can be placed at the start of the specified
+    // segment, or -1 if it does not fit
+    protected int fit(int idx, int width, int height) {
+      int x = xs[idx];
+      if (x + width > size) return -1;
+      int y = ys[idx];
+      for (int ii = idx, remain = width; remain > 0; ii++) {
+        y = Math.max(y, ys[ii]);
+        if (y + height > size) return -1;
+        remain -= widths[ii];
+      }
+      return y;
+    }
+
+    // inserts a new segment at idx and trims or removes the segments it now shadows
+    protected void addSegment(int idx, int x, int y, int width) {
+      if (segs == xs.length) {
+        xs = grow(xs);
+        ys = grow(ys);
+        widths = grow(widths);
+      }
+      System.arraycopy(xs, idx, xs, idx+1, segs-idx);
+      System.arraycopy(ys, idx, ys, idx+1, segs-idx);
+      System.arraycopy(widths, idx, widths, idx+1, segs-idx);
+      xs[idx] = x;
+      ys[idx] = y;
+      widths[idx] = width;
+      segs++;
+
+      int right = x + width;
+      for (int ii = idx+1; ii < segs; ) {
+        if (xs[ii] >= right) break;
+        int shrink = right - xs[ii];
+        if (widths[ii] > shrink) {
+          xs[ii] += shrink;
+          widths[ii] -= shrink;
+          break;
+        }
+        removeSegment(ii);
+      }
+
+      // merge neighboring segments at the same height
+      for (int ii = 0; ii < segs-1; ) {
+        if (ys[ii] == ys[ii+1]) {
+          widths[ii] += widths[ii+1];
+          removeSegment(ii+1);
+        } else ii++;
+      }
+    }
+
+    private void removeSegment(int idx) {
+      System.arraycopy(xs, idx+1, xs, idx, segs-idx-1);
+      System.arraycopy(ys, idx+1, ys, idx, segs-idx-1);
+      System.arraycopy(widths, idx+1, widths, idx, segs-idx-1);
+      segs--;
+    }
+
+    private int[] grow(int[] values) {
+      int[] nvalues = new int[values.length*2];
+      System.arraycopy(values, 0, nvalues, 0, values.length);
+      return nvalues;
+    }
+  }
+
+  protected final GLContext ctx;
+  protected final int pageSize, maxImageSize, maxPages;
+  protected final List<Page> pages = new ArrayList<Page>();
+}
@@ -0,0 +1,260 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+/**
+ * Block-compressed texture data, as read from a KTX, PKM or DDS container. Compressed textures are
+ * uploaded to the GPU as is, via {@code glCompressedTexImage2D}, when the GL context supports
+ * their format (see {@link GLContext#supportsCompressedFormat}). Otherwise they are decoded into
+ * RGBA pixels in software, if a decoder is available for their format (see {@link #canDecode}).
+ *
+ * <p>KTX containers may hold any compressed format (including ETC2 and ASTC); PKM containers hold
+ * ETC1 or ETC2 data, and DDS containers hold DXT1, DXT3 or DXT5 data. Cube maps, texture arrays
+ * and 3D textures are not supported.</p>
+ */
+public final class CompressedTexture {
+
+  /** {@code GL_ETC1_RGB8_OES}. */
+  public static final int ETC1_RGB8 = 0x8D64;
+  /** {@code GL_COMPRESSED_RGB8_ETC2}. */
+  public static final int ETC2_RGB8 = 0x9274;
+  /** {@code GL_COMPRESSED_RGBA8_ETC2_EAC}. */
+  public static final int ETC2_RGBA8 = 0x9278;
+  /** {@code GL_COMPRESSED_RGB_S3TC_DXT1_EXT}. */
+  public static final int DXT1_RGB = 0x83F0;
+  /** {@code GL_COMPRESSED_RGBA_S3TC_DXT1_EXT}. */
+  public static final int DXT1_RGBA = 0x83F1;
+  /** {@code GL_COMPRESSED_RGBA_S3TC_DXT3_EXT}. */
+  public static final int DXT3_RGBA = 0x83F2;
+  /** {@code GL_COMPRESSED_RGBA_S3TC_DXT5_EXT}. */
+  public static final int DXT5_RGBA = 0x83F3;
+  /** {@code GL_COMPRESSED_RGBA_ASTC_4x4_KHR}, the first of the ASTC LDR formats. */
+  public static final int ASTC_4x4_RGBA = 0x93B0;
+  /** {@code GL_COMPRESSED_RGBA_ASTC_12x12_KHR}, the last of the ASTC LDR formats. */
+  public static final int ASTC_12x12_RGBA = 0x93BD;
+
+  /** The GL internal format of this texture's data. */
+  public final int format;
+
+  /** The width and height of this texture's top mipmap level, in pixels. */
+  public final int width, height;
+
+  /**
+   * Returns true if {@code path} names a compressed texture container, based on its extension.
+   */
+  public static boolean isContainer(String path) {
+    String lpath = path.toLowerCase();
+    return lpath.endsWith(".ktx") || lpath.endsWith(".pkm") || lpath.endsWith(".dds");
+  }
+
+  /**
+   * Parses the supplied KTX, PKM or DDS container.
+   *
+   * @throws IllegalArgumentException if the data is not a supported container, or is truncated.
+   */
+  public static CompressedTexture parse(byte[] data) {
+    try {
+      if (matches(data, KTX_MAGIC)) return parseKTX(data);
+      if (matches(data, PKM_MAGIC)) return parsePKM(data);
+      if (matches(data, DDS_MAGIC)) return parseDDS(data);
+    } catch (ArrayIndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("Truncated compressed texture data");
+    }
+    throw new IllegalArgumentException("Unknown compressed texture container");
+  }
+
+  /** Returns true if {@code format} is one of the ETC1 or ETC2 formats. */
+  public static boolean isETC(int format) {
+    return format == ETC1_RGB8 || (format >= 0x9270 && format <= 0x9279);
+  }
+
+  /** Returns true if {@code format} is one of the S3TC (DXT) formats. */
+  public static boolean isS3TC(int format) {
+    return format >= DXT1_RGB && format <= DXT5_RGBA;
+  }
+
+  /** Returns true if {@code format} is one of the ASTC LDR formats. */
+  public static boolean isASTC(int format) {
+    return format >= ASTC_4x4_RGBA && format <= ASTC_12x12_RGBA;
+  }
+
+  /** Returns the number of mipmap levels in this texture (at least one). */
+  public int levels() {
+    return levels.length;
+  }
+
+  /** Returns the compressed data for the specified mipmap level. */
+  public byte[] level(int level) {
+    return levels[level];
+  }
+
+  /** Returns the width of the specified mipmap level, in pixels. */
+  public int levelWidth(int level) {
+    return Math.max(1, width >> level);
+  }
+
+  /** Returns the height of the specified mipmap level, in pixels. */
+  public int levelHeight(int level) {
+    return Math.max(1, height >> level);
+  }
+
+  /**
+   * Returns true if this texture's format can be decoded in software, via {@link #decode}.
+   * Decoders are provided for the ETC1 and DXT formats.
+   */
+  public boolean canDecode() {
+    return format == ETC1_RGB8 || isS3TC(format);
+  }
+
+  /**
+   * Decodes the top mipmap level of this texture into premultiplied ARGB pixels, in row-major
+   * order.
+   *
+   * @throws UnsupportedOperationException if this texture's format cannot be decoded.
+   */
+  public int[] decode() {
+    int[] pixels = new int[width*height];
+    byte[] data = levels[0];
+    switch (format) {
+    case ETC1_RGB8:
+      TextureDecoder.decodeETC1(data, width, height, pixels);
+      break;
+    case DXT1_RGB:
+    case DXT1_RGBA:
+    case DXT3_RGBA:
+    case DXT5_RGBA:
+      TextureDecoder.decodeDXT(format, data, width, height, pixels);
+      break;
+    default:
+      throw new UnsupportedOperationException(
+        "No software decoder for texture format 0x" + Integer.toHexString(format));
+    }
+    return pixels;
+  }
+
+  @Override
+  public String toString() {
+    return "CompressedTexture[format=0x" + Integer.toHexString(format) + ", size=" + width + "x" +
+      height + ", levels=" + levels.length + "]";
+  }
+
+  private CompressedTexture(int format, int width, int height, byte[][] levels) {
+    this.format = format;
+    this.width = width;
+    this.height = height;
+    this.levels = levels;
+  }
+
+  private static CompressedTexture parseKTX(byte[] data) {
+    boolean le = readInt(data, 12, true) == 0x04030201;
+    int glType = readInt(data, 16, le), format = readInt(data, 28, le);
+    int width = readInt(data, 36, le), height = readInt(data, 40, le);
+    int depth = readInt(data, 44, le), elements = readInt(data, 48, le);
+    int faces = readInt(data, 52, le), levelCount = Math.max(1, readInt(data, 56, le));
+    if (glType != 0) throw new IllegalArgumentException("KTX texture is not compressed");
+    if (depth > 1 || elements > 0 || faces != 1) throw new IllegalArgumentException(
+      "KTX texture is not a simple 2D texture [depth=" + depth + ", elements=" + elements +
+      ", faces=" + faces + "]");
+    int offset = 64 + readInt(data, 60, le); // skip the key/value data
+    byte[][] levels = new byte[levelCount][];
+    for (int ii = 0; ii < levelCount; ii++) {
+      int size = readInt(data, offset, le);
+      levels[ii] = copy(data, offset + 4, size);
+      offset = (offset + 4 + size + 3) & ~3; // levels are padded to four bytes
+    }
+    return new CompressedTexture(format, width, height, levels);
+  }
+
+  private static CompressedTexture parsePKM(byte[] data) {
+    int format;
+    switch (readShortBE(data, 6)) {
+    case 0: format = ETC1_RGB8; break;
+    case 1: format = ETC2_RGB8; break;
+    case 3: format = ETC2_RGBA8; break;
+    default: throw new IllegalArgumentException(
+      "Unsupported PKM texture type " + readShortBE(data, 6));
+    }
+    int paddedWidth = readShortBE(data, 8), paddedHeight = readShortBE(data, 10);
+    int width = readShortBE(data, 12), height = readShortBE(data, 14);
+    int size = (paddedWidth/4) * (paddedHeight/4) * blockBytes(format);
+    return new CompressedTexture(format, width, height, new byte[][] { copy(data, 16, size) });
+  }
+
+  private static CompressedTexture parseDDS(byte[] data) {
+    int flags = readInt(data, 8, true);
+    int height = readInt(data, 12, true), width = readInt(data, 16, true);
+    int levelCount = ((flags & DDSD_MIPMAPCOUNT) != 0) ? Math.max(1, readInt(data, 28, true)) : 1;
+    if ((readInt(data, 80, true) & DDPF_FOURCC) == 0) throw new IllegalArgumentException(
+      "DDS texture is not compressed");
+    int format, fourCC = readInt(data, 84, true);
+    if (fourCC == fourCC("DXT1")) format = DXT1_RGBA;
+    else if (fourCC == fourCC("DXT3")) format = DXT3_RGBA;
+    else if (fourCC == fourCC("DXT5")) format = DXT5_RGBA;
+    else throw new IllegalArgumentException("Unsupported DDS texture format " + fourCC);
+    byte[][] levels = new byte[levelCount][];
+    for (int ii = 0, offset = 128; ii < levelCount; ii++) {
+      int lwidth = Math.max(1, width >> ii), lheight = Math.max(1, height >> ii);
+      int size = ((lwidth+3)/4) * ((lheight+3)/4) * blockBytes(format);
+      levels[ii] = copy(data, offset, size);
+      offset += size;
+    }
+    return new CompressedTexture(format, width, height, levels);
+  }
+
+  private static int blockBytes(int format) {
+    return (format == ETC1_RGB8 || format == ETC2_RGB8 || format == DXT1_RGB ||
+            format == DXT1_RGBA) ? 8 : 16;
+  }
+
+  private static boolean matches(byte[] data, int[] magic) {
+    if (data.length < magic.length) return false;
+    for (int ii = 0; ii < magic.length; ii++) {
+      if ((data[ii] & 0xFF) != magic[ii]) return false;
+    }
+    return true;
+  }
+
+  private static byte[] copy(byte[] data, int offset, int size) {
+    if (size < 0 || offset + size > data.length) throw new ArrayIndexOutOfBoundsException();
+    byte[] copy = new byte[size];
+    System.arraycopy(data, offset, copy, 0, size);
+    return copy;
+  }
+
+  private static int readInt(byte[] data, int offset, boolean le) {
+    int b0 = data[offset] & 0xFF, b1 = data[offset+1] & 0xFF;
+    int b2 = data[offset+2] & 0xFF, b3 = data[offset+3] & 0xFF;
+    return le ? (b3 << 24 | b2 << 16 | b1 << 8 | b0) : (b0 << 24 | b1 << 16 | b2 << 8 | b3);
+  }
+
+  private static int readShortBE(byte[] data, int offset) {
+    return (data[offset] & 0xFF) << 8 | (data[offset+1] & 0xFF);
+  }
+
+  private static int fourCC(String code) {
+    return code.charAt(0) | code.charAt(1) << 8 | code.charAt(2) << 16 | code.charAt(3) << 24;
+  }
+
+  private final byte[][] levels;
+
+  private static final int[] KTX_MAGIC = {
+    0xAB, 0x4B, 0x54, 0x58, 0x20, 0x31, 0x31, 0xBB, 0x0D, 0x0A, 0x1A, 0x0A };
+  private static final int[] PKM_MAGIC = { 'P', 'K', 'M', ' ' };
+  private static final int[] DDS_MAGIC = { 'D', 'D', 'S', ' ' };
+
+  private static final int DDSD_MIPMAPCOUNT = 0x20000;
+  private static final int DDPF_FOURCC = 0x4;
+}
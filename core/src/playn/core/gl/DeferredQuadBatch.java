@@ -0,0 +1,221 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import playn.core.InternalTransform;
+
+/**
+ * Records quads during a scene graph traversal and submits them to their shaders grouped by
+ * (shader, texture). A quad is only moved ahead of previously recorded quads if it does not
+ * overlap any of them, so the rendered result is identical to painting in scene graph order.
+ *
+ * <p>Quads are stored in parallel arrays which are reused from frame to frame, so recording does
+ * not generate garbage once the arrays have grown to accommodate a typical frame.</p>
+ */
+final class DeferredQuadBatch {
+
+  // the layout of a single quad's float data
+  private static final int M00 = 0, M01 = 1, M10 = 2, M11 = 3, TX = 4, TY = 5;
+  private static final int LEFT = 6, TOP = 7, RIGHT = 8, BOTTOM = 9;
+  private static final int SL = 10, ST = 11, SR = 12, SB = 13;
+  private static final int QUAD_FLOATS = 14;
+
+  // the layout of a single batch's bounds data
+  private static final int MINX = 0, MINY = 1, MAXX = 2, MAXY = 3;
+  private static final int BOUNDS_FLOATS = 4;
+
+  private static final int START_QUADS = 256;
+  private static final int START_BATCHES = 32;
+
+  /** The maximum number of batches we search back through when looking for a batch with which a
+   * newly recorded quad can be merged. This bounds the cost of recording a quad. */
+  private final int lookback;
+
+  // per-quad data
+  private float[] quadData = new float[START_QUADS*QUAD_FLOATS];
+  private int[] quadTints = new int[START_QUADS];
+  private int[] quadNext = new int[START_QUADS];
+  private int quadCount;
+
+  // per-batch data; each batch is a linked list of quads threaded through quadNext
+  private GLShader[] batchShaders = new GLShader[START_BATCHES];
+  private int[] batchTexs = new int[START_BATCHES];
+  private int[] batchHeads = new int[START_BATCHES];
+  private int[] batchTails = new int[START_BATCHES];
+  private float[] batchBounds = new float[START_BATCHES*BOUNDS_FLOATS];
+  private int batchCount;
+
+  private int depth, fbuf;
+
+  DeferredQuadBatch(int lookback) {
+    this.lookback = lookback;
+  }
+
+  /** Starts recording (or notes a nested request to record) quads rendered into {@code fbuf}. */
+  void begin(int fbuf) {
+    if (depth++ == 0) this.fbuf = fbuf;
+  }
+
+  /** Ends a (potentially nested) recording.
+   * @return true if the outermost recording was ended and the batch should be submitted. */
+  boolean end() {
+    assert depth > 0 : "Unbalanced begin/end";
+    return --depth == 0;
+  }
+
+  /** Returns true if quads rendered into {@code fbuf} should currently be recorded. */
+  boolean recording(int fbuf) {
+    return depth > 0 && this.fbuf == fbuf;
+  }
+
+  /** Returns true if no quads are awaiting submission. */
+  boolean isEmpty() {
+    return quadCount == 0;
+  }
+
+  /** Records a quad. See {@link GLShader#addQuad} for details on the arguments. */
+  void add(GLShader shader, int tex, int tint, InternalTransform xf,
+           float left, float top, float right, float bottom,
+           float sl, float st, float sr, float sb) {
+    float m00 = xf.m00(), m01 = xf.m01(), m10 = xf.m10(), m11 = xf.m11();
+    float tx = xf.tx(), ty = xf.ty();
+
+    // compute the screen-space bounds of the quad for use in our overlap tests
+    float x1 = m00*left  + m10*top    + tx, y1 = m01*left  + m11*top    + ty;
+    float x2 = m00*right + m10*top    + tx, y2 = m01*right + m11*top    + ty;
+    float x3 = m00*left  + m10*bottom + tx, y3 = m01*left  + m11*bottom + ty;
+    float x4 = m00*right + m10*bottom + tx, y4 = m01*right + m11*bottom + ty;
+    float minX = Math.min(Math.min(x1, x2), Math.min(x3, x4));
+    float minY = Math.min(Math.min(y1, y2), Math.min(y3, y4));
+    float maxX = Math.max(Math.max(x1, x2), Math.max(x3, x4));
+    float maxY = Math.max(Math.max(y1, y2), Math.max(y3, y4));
+
+    int quad = quadCount++;
+    if (quad == quadTints.length) expandQuads();
+    float[] data = quadData;
+    int pos = quad*QUAD_FLOATS;
+    data[pos+M00] = m00;
+    data[pos+M01] = m01;
+    data[pos+M10] = m10;
+    data[pos+M11] = m11;
+    data[pos+TX] = tx;
+    data[pos+TY] = ty;
+    data[pos+LEFT] = left;
+    data[pos+TOP] = top;
+    data[pos+RIGHT] = right;
+    data[pos+BOTTOM] = bottom;
+    data[pos+SL] = sl;
+    data[pos+ST] = st;
+    data[pos+SR] = sr;
+    data[pos+SB] = sb;
+    quadTints[quad] = tint;
+    quadNext[quad] = -1;
+
+    // search back through our most recent batches for one with the same state; we can join that
+    // batch only if none of the batches recorded after it overlap our quad
+    for (int bb = batchCount-1, stop = Math.max(0, batchCount-lookback); bb >= stop; bb--) {
+      if (batchShaders[bb] == shader && batchTexs[bb] == tex) {
+        quadNext[batchTails[bb]] = quad;
+        batchTails[bb] = quad;
+        growBounds(bb, minX, minY, maxX, maxY);
+        return;
+      }
+      if (overlaps(bb, minX, minY, maxX, maxY)) break;
+    }
+
+    // otherwise start a new batch at the end of the list
+    int batch = batchCount++;
+    if (batch == batchTexs.length) expandBatches();
+    batchShaders[batch] = shader;
+    batchTexs[batch] = tex;
+    batchHeads[batch] = quad;
+    batchTails[batch] = quad;
+    int bpos = batch*BOUNDS_FLOATS;
+    batchBounds[bpos+MINX] = minX;
+    batchBounds[bpos+MINY] = minY;
+    batchBounds[bpos+MAXX] = maxX;
+    batchBounds[bpos+MAXY] = maxY;
+  }
+
+  /** Sends all recorded quads to their shaders, batch by batch, and clears the recording. */
+  void submit() {
+    // clear our counts first; the shaders will call back into GLContext.flush as we switch
+    // textures, and we don't want that to trigger a recursive submission
+    int batches = batchCount;
+    quadCount = 0;
+    batchCount = 0;
+
+    float[] data = quadData;
+    for (int bb = 0; bb < batches; bb++) {
+      GLShader shader = batchShaders[bb];
+      int tex = batchTexs[bb];
+      for (int qq = batchHeads[bb]; qq >= 0; qq = quadNext[qq]) {
+        int pos = qq*QUAD_FLOATS;
+        shader.prepareTexture(tex, quadTints[qq]).addQuad(
+          data[pos+M00], data[pos+M01], data[pos+M10], data[pos+M11], data[pos+TX], data[pos+TY],
+          data[pos+LEFT], data[pos+TOP], data[pos+RIGHT], data[pos+BOTTOM],
+          data[pos+SL], data[pos+ST], data[pos+SR], data[pos+SB]);
+      }
+      batchShaders[bb] = null; // don't retain shaders beyond their useful life
+    }
+  }
+
+  private boolean overlaps(int batch, float minX, float minY, float maxX, float maxY) {
+    int bpos = batch*BOUNDS_FLOATS;
+    return minX < batchBounds[bpos+MAXX] && maxX > batchBounds[bpos+MINX] &&
+      minY < batchBounds[bpos+MAXY] && maxY > batchBounds[bpos+MINY];
+  }
+
+  private void growBounds(int batch, float minX, float minY, float maxX, float maxY) {
+    int bpos = batch*BOUNDS_FLOATS;
+    batchBounds[bpos+MINX] = Math.min(batchBounds[bpos+MINX], minX);
+    batchBounds[bpos+MINY] = Math.min(batchBounds[bpos+MINY], minY);
+    batchBounds[bpos+MAXX] = Math.max(batchBounds[bpos+MAXX], maxX);
+    batchBounds[bpos+MAXY] = Math.max(batchBounds[bpos+MAXY], maxY);
+  }
+
+  private void expandQuads() {
+    int count = quadTints.length, ncount = count*2;
+    float[] ndata = new float[ncount*QUAD_FLOATS];
+    System.arraycopy(quadData, 0, ndata, 0, count*QUAD_FLOATS);
+    quadData = ndata;
+    int[] ntints = new int[ncount];
+    System.arraycopy(quadTints, 0, ntints, 0, count);
+    quadTints = ntints;
+    int[] nnext = new int[ncount];
+    System.arraycopy(quadNext, 0, nnext, 0, count);
+    quadNext = nnext;
+  }
+
+  private void expandBatches() {
+    int count = batchTexs.length, ncount = count*2;
+    GLShader[] nshaders = new GLShader[ncount];
+    System.arraycopy(batchShaders, 0, nshaders, 0, count);
+    batchShaders = nshaders;
+    int[] ntexs = new int[ncount];
+    System.arraycopy(batchTexs, 0, ntexs, 0, count);
+    batchTexs = ntexs;
+    int[] nheads = new int[ncount];
+    System.arraycopy(batchHeads, 0, nheads, 0, count);
+    batchHeads = nheads;
+    int[] ntails = new int[ncount];
+    System.arraycopy(batchTails, 0, ntails, 0, count);
+    batchTails = ntails;
+    float[] nbounds = new float[ncount*BOUNDS_FLOATS];
+    System.arraycopy(batchBounds, 0, nbounds, 0, count*BOUNDS_FLOATS);
+    batchBounds = nbounds;
+  }
+}
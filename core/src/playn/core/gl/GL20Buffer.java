@@ -26,13 +26,41 @@ import java.nio.ShortBuffer;
  */
 public abstract class GL20Buffer implements GLBuffer {
 
+  /** The strategies available for streaming a buffer's data to GL in {@link #send}. */
+  public static enum Streaming {
+    /** Replaces the buffer's storage on every send with {@code glBufferData}, sized to exactly
+     * the data being sent. This is the simplest strategy and the default. */
+    REALLOCATE,
+
+    /** Orphans the buffer's storage on every send by calling {@code glBufferData} with null data
+     * and the buffer's full capacity, then writes just the used range with {@code
+     * glBufferSubData}. The driver can hand out fresh storage rather than waiting for pending
+     * draws from the old storage to complete, and because the storage size never changes, it can
+     * recycle the orphaned storage rather than reallocating. */
+    ORPHAN,
+
+    /** Cycles through a ring of {@link #RING_SIZE} buffer objects for streamed data, writing the
+     * used range into the next buffer in the ring with {@code glBufferSubData}. Storage is only
+     * allocated when a buffer's capacity changes. Because {@link #send} switches the buffer bound
+     * to the target, vertex attributes must be rebound after each send (see {@link
+     * GLBuffer#sendRebinds}). Data sent with {@code GL_STATIC_DRAW} does not cycle. */
+    RING;
+
+    /** The number of buffer objects used by {@link #RING}. */
+    public static final int RING_SIZE = 3;
+  }
+
   public static class FloatImpl extends GL20Buffer implements GLBuffer.Float {
     float[] staging;
     int stagingPos;
     FloatBuffer buffer;
 
     public FloatImpl(GL20 gl, int capacity) {
-      super(gl);
+      this(gl, capacity, Streaming.REALLOCATE);
+    }
+
+    public FloatImpl(GL20 gl, int capacity, Streaming streaming) {
+      super(gl, streaming);
       expand(capacity);
     }
 
@@ -127,7 +155,11 @@ public abstract class GL20Buffer implements GLBuffer {
     ShortBuffer buffer;
 
     public ShortImpl(GL20 gl, int capacity) {
-      super(gl);
+      this(gl, capacity, Streaming.REALLOCATE);
+    }
+
+    public ShortImpl(GL20 gl, int capacity, Streaming streaming) {
+      super(gl, streaming);
       expand(capacity);
     }
 
@@ -221,7 +253,12 @@ public abstract class GL20Buffer implements GLBuffer {
   }
 
   protected final GL20 gl;
-  protected final int bufferId;
+  protected final Streaming streaming;
+  protected int bufferId;
+
+  // the buffer ids (and allocated storage sizes, in bytes) used for ring streaming
+  private final int[] ringIds, ringSizes;
+  private int ringIdx;
 
   @Override
   public int byteSize() {
@@ -239,13 +276,42 @@ public abstract class GL20Buffer implements GLBuffer {
     flush();
     Buffer buffer = buffer();
     buffer.position(0);
-    gl.glBufferData(target, byteSize, buffer, usage);
+    switch (streaming) {
+    default:
+    case REALLOCATE:
+      gl.glBufferData(target, byteSize, buffer, usage);
+      break;
+
+    case ORPHAN:
+      gl.glBufferData(target, capacity() * bytesPerElement(), null, usage);
+      if (byteSize > 0) gl.glBufferSubData(target, 0, byteSize, buffer);
+      break;
+
+    case RING:
+      if (usage != GL20.GL_STATIC_DRAW) {
+        ringIdx = (ringIdx + 1) % ringIds.length;
+        gl.glBindBuffer(target, bufferId = ringIds[ringIdx]);
+      }
+      int capBytes = capacity() * bytesPerElement();
+      if (ringSizes[ringIdx] != capBytes) {
+        gl.glBufferData(target, capBytes, null, usage);
+        ringSizes[ringIdx] = capBytes;
+      }
+      if (byteSize > 0) gl.glBufferSubData(target, 0, byteSize, buffer);
+      break;
+    }
     return count;
   }
 
+  @Override
+  public boolean sendRebinds() {
+    return streaming == Streaming.RING;
+  }
+
   @Override
   public void destroy() {
-    gl.glDeleteBuffers(1, new int[] { bufferId }, 0);
+    if (ringIds != null) gl.glDeleteBuffers(ringIds.length, ringIds, 0);
+    else gl.glDeleteBuffers(1, new int[] { bufferId }, 0);
   }
 
   protected abstract Buffer buffer();
@@ -253,8 +319,21 @@ public abstract class GL20Buffer implements GLBuffer {
   protected abstract int bytesPerElement();
 
   protected GL20Buffer(GL20 gl) {
+    this(gl, Streaming.REALLOCATE);
+  }
+
+  protected GL20Buffer(GL20 gl, Streaming streaming) {
     this.gl = gl;
-    this.bufferId = genBufferId(gl);
+    this.streaming = streaming;
+    if (streaming == Streaming.RING) {
+      ringIds = new int[Streaming.RING_SIZE];
+      ringSizes = new int[Streaming.RING_SIZE];
+      gl.glGenBuffers(ringIds.length, ringIds, 0);
+      this.bufferId = ringIds[0];
+    } else {
+      ringIds = ringSizes = null;
+      this.bufferId = genBufferId(gl);
+    }
   }
 
   private static int genBufferId(GL20 gl) {
@@ -16,6 +16,7 @@
 package playn.core.gl;
 
 import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 import pythagoras.i.Rectangle;
 
@@ -30,12 +31,19 @@ import static playn.core.gl.GL20.*;
  */
 public class GL20Context extends GLContext {
 
+  /** The maximum number of quads rendered per draw call by the instanced quad shader. */
+  protected static final int INSTANCED_MAX_QUADS = 4096;
+
   public final GL20 gl;
 
   private final boolean checkErrors;
   private final InternalTransform rootXform;
   private int minFilter = GL_LINEAR, magFilter = GL_LINEAR;
   private GLShader quadShader, trisShader;
+  private GL20Buffer.Streaming streaming = GL20Buffer.Streaming.REALLOCATE;
+  // written by init() on the GL thread, read by asset loaders checking for compressed formats
+  private volatile String extensions;
+  private ByteBuffer compressedBuffer;
 
   public GL20Context(AbstractPlatform platform, GL20 gl, float scaleFactor, boolean checkErrors) {
     super(platform, scaleFactor);
@@ -51,6 +59,10 @@ public class GL20Context extends GLContext {
     gl.glEnable(GL_BLEND);
     gl.glBlendFunc(GL_ONE, GL_ONE_MINUS_SRC_ALPHA);
     gl.glClearColor(0, 0, 0, 1);
+    String exts = getString(GL_EXTENSIONS), version = getString(GL_VERSION);
+    // ETC2 is a core feature of OpenGL ES 3 (and of desktop GL with ES3 compatibility)
+    boolean es3 = version != null && version.startsWith("OpenGL ES 3");
+    extensions = " " + (exts == null ? "" : exts) + " " + (es3 ? "ES3 " : "");
     if (quadShader != null) {
       quadShader.clearProgram();
     }
@@ -62,7 +74,37 @@ public class GL20Context extends GLContext {
     checkGLError("initGL");
   }
 
+  /**
+   * Configures the strategy used to stream data from the buffers created by this context to GL.
+   * This only affects buffers created after the call, so the default shaders' GL resources are
+   * cleared so that they will be recreated using the new strategy. Custom shaders must be cleared
+   * manually (via {@link GLShader#clearProgram}). This must be called on the GL thread.
+   */
+  public void setBufferStreaming(GL20Buffer.Streaming streaming) {
+    if (this.streaming == streaming) return;
+    flush(true);
+    this.streaming = streaming;
+    if (quadShader != null) quadShader.clearProgram();
+    if (trisShader != null) trisShader.clearProgram();
+  }
+
+  /** Returns the buffer streaming strategy in effect. See {@link #setBufferStreaming}. */
+  public GL20Buffer.Streaming bufferStreaming() {
+    return streaming;
+  }
+
+  /**
+   * Returns an interface to this context's instanced rendering functions, or null if instanced
+   * rendering is not supported. Backends which can detect support for instancing should override
+   * this method. If instancing is supported, quads are rendered using an {@link
+   * InstancedQuadShader}.
+   */
+  public GLInstancing instancing() {
+    return null;
+  }
+
   public void paint(GroupLayerGL rootLayer) {
+    processUploads();
     if (rootLayer.size() > 0) {
       checkGLError("paint");
       bindFramebuffer();
@@ -73,6 +115,21 @@ public class GL20Context extends GLContext {
     if (STATS_ENABLED) stats.frames++;
   }
 
+  @Override
+  protected GLShader createQuadShader() {
+    GLInstancing instancing = instancing();
+    if (instancing != null) {
+      try {
+        GLShader quadShader = new InstancedQuadShader(this, instancing, INSTANCED_MAX_QUADS);
+        quadShader.createCore(); // force core creation to test whether it fails
+        return quadShader;
+      } catch (Throwable t) {
+        platform.reportError("Failed to create InstancedQuadShader", t);
+      }
+    }
+    return super.createQuadShader();
+  }
+
   @Override
   public InternalTransform rootTransform() {
     return rootXform;
@@ -108,14 +165,14 @@ public class GL20Context extends GLContext {
   public void texImage2D(Image image, int target, int level, int internalformat, int format,
                          int type) {
     gl.glTexImage2D(target, level, internalformat, (int) image.width(),  (int) image.height(), 0,
-                    format, type, getRgba(image));
+                    format, type, getScratchRgba(image));
   }
 
   @Override
   public void texSubImage2D(Image image, int target, int level, int xOffset, int yOffset, int format,
                             int type) {
     gl.glTexSubImage2D(target, level, xOffset, yOffset, (int) image.width(),  (int) image.height(),
-                       format, type, getRgba(image));
+                       format, type, getScratchRgba(image));
   }
 
   @Override
@@ -126,12 +183,12 @@ public class GL20Context extends GLContext {
 
   @Override
   public GLBuffer.Float createFloatBuffer(int capacity) {
-    return new GL20Buffer.FloatImpl(gl, capacity);
+    return new GL20Buffer.FloatImpl(gl, capacity, streaming);
   }
 
   @Override
   public GLBuffer.Short createShortBuffer(int capacity) {
-    return new GL20Buffer.ShortImpl(gl, capacity);
+    return new GL20Buffer.ShortImpl(gl, capacity, streaming);
   }
 
   @Override
@@ -167,6 +224,48 @@ public class GL20Context extends GLContext {
     gl.glGenerateMipmap(GL_TEXTURE_2D);
   }
 
+  @Override
+  public boolean supportsCompressedFormat(int format) {
+    // our extensions are read by init(), after which this may be called from any thread
+    if (extensions == null) return false;
+    if (CompressedTexture.isS3TC(format)) {
+      return hasExtension("GL_EXT_texture_compression_s3tc") ||
+        (format == CompressedTexture.DXT1_RGB && hasExtension("GL_EXT_texture_compression_dxt1"));
+    }
+    boolean etc2 = hasExtension("ES3") || hasExtension("GL_ARB_ES3_compatibility");
+    if (format == CompressedTexture.ETC1_RGB8) {
+      return etc2 || hasExtension("GL_OES_compressed_ETC1_RGB8_texture");
+    }
+    if (CompressedTexture.isETC(format)) return etc2;
+    if (CompressedTexture.isASTC(format)) {
+      return hasExtension("GL_KHR_texture_compression_astc_ldr");
+    }
+    return false;
+  }
+
+  @Override
+  public boolean uploadCompressed(int tex, CompressedTexture texture) {
+    if (!supportsCompressedFormat(texture.format)) return false;
+    // contexts with ETC2 but not the ETC1 extension decode ETC1 data as ETC2, of which it is a
+    // subset
+    int format = (texture.format == CompressedTexture.ETC1_RGB8 &&
+                  !hasExtension("GL_OES_compressed_ETC1_RGB8_texture")) ?
+      CompressedTexture.ETC2_RGB8 : texture.format;
+    bindTexture(tex);
+    for (int ii = 0, ll = texture.levels(); ii < ll; ii++) {
+      byte[] data = texture.level(ii);
+      if (compressedBuffer == null || compressedBuffer.capacity() < data.length) {
+        compressedBuffer = ByteBuffer.allocateDirect(data.length).order(ByteOrder.nativeOrder());
+      }
+      compressedBuffer.clear();
+      compressedBuffer.put(data).flip();
+      gl.glCompressedTexImage2D(GL_TEXTURE_2D, ii, format, texture.levelWidth(ii),
+                                texture.levelHeight(ii), 0, data.length, compressedBuffer);
+    }
+    checkGLError("uploadCompressed");
+    return true;
+  }
+
   @Override
   public void activeTexture(int glTextureN) {
     gl.glActiveTexture(glTextureN);
@@ -250,6 +349,10 @@ public class GL20Context extends GLContext {
     return trisShader;
   }
 
+  private boolean hasExtension(String name) {
+    return extensions.contains(" " + name + " ");
+  }
+
   private static int toGL(Filter filter) {
     switch (filter) {
     default:
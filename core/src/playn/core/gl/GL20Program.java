@@ -187,6 +187,11 @@ public class GL20Program implements GLProgram {
     };
   }
 
+  /** Returns the location of the named attribute, or -1 if the program has no such attribute. */
+  public int getAttribLocation(String name) {
+    return gl.glGetAttribLocation(program, name);
+  }
+
   @Override
   public GLShader.Attrib getAttrib(String name, final int size, final int type) {
     final int loc = gl.glGetAttribLocation(program, name);
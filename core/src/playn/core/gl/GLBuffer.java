@@ -107,6 +107,11 @@ public interface GLBuffer {
    * @return the number of elements in the buffer at the time it was bound. */
   int send(int target, int usage);
 
+  /** Returns true if {@link #send} may switch this buffer to a different underlying GL buffer
+   * object. In that case, any vertex attributes sourced from this buffer must be rebound after
+   * each call to {@link #send}. */
+  boolean sendRebinds();
+
   /** Flushes this buffer's staging array to its underlying NIO buffer (if any). This is done
    * automatically on a call to {@link #send}. */
   void flush();
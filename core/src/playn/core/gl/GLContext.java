@@ -26,6 +26,7 @@ import playn.core.CanvasImage;
 import playn.core.Image;
 import playn.core.InternalTransform;
 import playn.core.StockInternalTransform;
+import playn.core.util.Callback;
 
 public abstract class GLContext {
 
@@ -64,6 +65,17 @@ public abstract class GLContext {
   }
 
   protected static final boolean STATS_ENABLED = true;
+
+  /** The number of batches searched when merging a quad into an existing batch. */
+  protected static final int DEFERRED_LOOKBACK = 16;
+
+  // the layout of a single entry in our cull rect stack
+  private static final int CULL_LEFT = 0, CULL_TOP = 1, CULL_RIGHT = 2, CULL_BOTTOM = 3;
+  private static final int CULL_RECT_FLOATS = 4;
+  // the number of pixels converted at a time by getRgba
+  private static final int RGBA_STRIP_PIXELS = 16*1024;
+  // the largest upload buffer we keep around between uploads (that of a 1024x1024 image)
+  private static final int MAX_RGBA_BUFFER_BYTES = 4*1024*1024;
   protected final Stats stats = new Stats();
 
   protected final AbstractPlatform platform;
@@ -73,6 +85,18 @@ public abstract class GLContext {
   private List<Rectangle> scissors = new ArrayList<Rectangle>();
   private int scissorDepth;
   private Image fillImage;
+  private DeferredQuadBatch deferred;
+  private AtlasManager atlases;
+  private QuadCache recorder;
+  private int texGeneration;
+  private boolean culling = true;
+  private float[] cullRects = new float[4*CULL_RECT_FLOATS];
+  private int[] cullFbufs = new int[4];
+  private int cullDepth;
+  private ByteBuffer rgbaBuffer;
+  private IntBuffer rgbaInts;
+  private int[] rgbaStrip;
+  private UploadQueue uploads;
 
   /** The (actual screen pixel) width and height of our default frame buffer. */
   protected int defaultFbufWidth, defaultFbufHeight;
@@ -106,6 +130,98 @@ public abstract class GLContext {
    */
   public abstract void setTextureFilter(Filter minFilter, Filter magFilter);
 
+  /**
+   * Enables or disables deferred batching. When enabled, the quads rendered during a traversal of
+   * the scene graph are recorded rather than sent directly to their shader. When the traversal
+   * completes (or when some other rendering operation intervenes), the recorded quads are grouped
+   * by shader and texture and then submitted. A quad is only moved ahead of earlier quads that it
+   * does not overlap, so the rendered result is unchanged, but scenes which interleave images from
+   * multiple textures can be rendered with far fewer shader flushes and texture binds.
+   *
+   * <p>This is disabled by default, as the bookkeeping is wasted on scenes that already render
+   * most of their quads from a single texture.</p>
+   */
+  public void setDeferredBatching(boolean enabled) {
+    if (enabled == (deferred != null)) return;
+    flush(); // submit anything recorded prior to the change
+    deferred = enabled ? new DeferredQuadBatch(DEFERRED_LOOKBACK) : null;
+  }
+
+  /** Returns whether deferred batching is enabled. See {@link #setDeferredBatching}. */
+  public boolean deferredBatching() {
+    return deferred != null;
+  }
+
+  /**
+   * Configures the atlas manager used to pack small images into shared textures. Any previously
+   * configured manager is destroyed, and the images in its atlases will be moved to the new
+   * manager (or back into textures of their own) the next time they are rendered. Atlasing is
+   * disabled by default and may be disabled again by passing null.
+   */
+  public void setAtlasManager(AtlasManager atlases) {
+    if (this.atlases != null) this.atlases.destroy();
+    this.atlases = atlases;
+  }
+
+  /** Returns the configured atlas manager, or null if atlasing is disabled. */
+  public AtlasManager atlasManager() {
+    return atlases;
+  }
+
+  /**
+   * Queues the texture of {@code image} for staged upload. Rather than uploading its texture on
+   * the frame on which it is first painted, the image's texture will be uploaded at the start of a
+   * subsequent frame (once the image is loaded), within the budget configured by {@link
+   * #setUploadBudget}. Large images are uploaded in strips spread across multiple frames, where
+   * the backend supports it. This is useful for preparing the images of a screen before it is
+   * shown. Images are decoded on a background thread by the asset loading machinery, so only the
+   * upload itself takes place on the render thread.
+   *
+   * @param onResident if non-null, notified when the image's texture has been uploaded, or if the
+   * image fails to load.
+   */
+  public void queueUpload(Image image, Callback<? super Image> onResident) {
+    if (!(image instanceof ImageGL)) {
+      // only GL images have textures that we manage; report others as resident once loaded
+      if (onResident != null) image.addCallback(onResident);
+      return;
+    }
+    if (uploads == null) uploads = new UploadQueue(this);
+    uploads.add((ImageGL<?>)image, onResident);
+  }
+
+  /**
+   * Configures the budget for staged texture uploads (see {@link #queueUpload}). Uploads stop for
+   * the current frame once either {@code bytes} bytes of texture data have been uploaded, or
+   * {@code millis} milliseconds have elapsed. The default budget is 4MB or 4ms.
+   */
+  public void setUploadBudget(int bytes, double millis) {
+    if (uploads == null) uploads = new UploadQueue(this);
+    uploads.setBudget(bytes, millis);
+  }
+
+  /**
+   * Returns the number of images awaiting staged upload.
+   */
+  public int pendingUploads() {
+    return (uploads == null) ? 0 : uploads.size();
+  }
+
+  /**
+   * Enables or disables view culling. When enabled (the default), layers and group subtrees whose
+   * bounds lie entirely outside the current framebuffer (or the clipping region of an enclosing
+   * clipped group) are not rendered. Layers rendered with a custom shader are never culled, as
+   * their shader may move their vertices.
+   */
+  public void setCulling(boolean enabled) {
+    culling = enabled;
+  }
+
+  /** Returns whether view culling is enabled. See {@link #setCulling}. */
+  public boolean culling() {
+    return culling;
+  }
+
   /** Returns the specified GL string parameter. */
   public abstract String getString(int param);
 
@@ -121,10 +237,10 @@ public abstract class GLContext {
   /**
    * See http://www.khronos.org/opengles/sdk/docs/man/xhtml/glTexImage2D.xml
    *
-   * <p>The default implementation is based on {@link Image#getRgb} and will hand over an RGBA byte
-   * array. Please set the (internal)format and type parameters accordingly; they are mainly
-   * present for future support of different formats. The WebGL implementation will pass through
-   * all parameters.</p>
+   * <p>The default implementation is based on {@link Image#getRgb} and will hand over a
+   * premultiplied RGBA byte array (see {@link #getScratchRgba}). Please set the (internal)format
+   * and type parameters accordingly; they are mainly present for future support of different
+   * formats. The WebGL implementation will pass through all parameters.</p>
    */
   public void texImage2D(Image image, int target, int level, int internalformat, int format,
                          int type) {
@@ -134,10 +250,10 @@ public abstract class GLContext {
   /**
    * See http://www.khronos.org/opengles/sdk/docs/man/xhtml/glTexSubImage2D.xml
    *
-   * <p>The default implementation is based on {@link Image#getRgb} and will hand over a RGBA byte
-   * array. Please set the (internal)format and type parameters accordingly; they are mainly
-   * present for future support of different formats. The WebGL implementation will pass through
-   * all parameters.</p>
+   * <p>The default implementation is based on {@link Image#getRgb} and will hand over a
+   * premultiplied RGBA byte array (see {@link #getScratchRgba}). Please set the (internal)format
+   * and type parameters accordingly; they are mainly present for future support of different
+   * formats. The WebGL implementation will pass through all parameters.</p>
    */
   public void texSubImage2D(Image image, int target, int level, int xOffset, int yOffset, int format,
                             int type) {
@@ -184,6 +300,20 @@ public abstract class GLContext {
   /** Generates mipmaps for the specified texture. */
   public abstract void generateMipmap(int tex);
 
+  /** Returns true if this context can upload textures in the specified compressed format (see
+   * {@link CompressedTexture}). Once the context is initialized, this may be called from any
+   * thread (e.g. by asset loaders). The default implementation supports no compressed formats. */
+  public boolean supportsCompressedFormat(int format) {
+    return false;
+  }
+
+  /** Uploads the mipmap levels of the supplied compressed texture into {@code tex}.
+   * @return false if this context does not support the texture's format, in which case nothing is
+   * uploaded and the caller should upload decoded pixels instead. */
+  public boolean uploadCompressed(int tex, CompressedTexture texture) {
+    return false;
+  }
+
   /** Activates the specified texture unit.
    * @param glTextureN the texture unit to active (e.g. {@link GL20#GL_TEXTURE0}). */
   public abstract void activeTexture(int glTextureN);
@@ -291,6 +421,7 @@ public abstract class GLContext {
   }
 
   public void flush(boolean deactivate) {
+    submitDeferred();
     if (curShader != null) {
       checkGLError("flush()");
       curShader.flush();
@@ -335,6 +466,177 @@ public abstract class GLContext {
     return String.valueOf(trisShader());
   }
 
+  /**
+   * Notes that the scene graph is about to be traversed. If deferred batching is enabled, quads
+   * will be recorded until a matching call to {@link #endDeferred}. Calls may be nested.
+   */
+  void beginDeferred() {
+    if (deferred != null) deferred.begin(lastFramebuffer);
+  }
+
+  /**
+   * Notes that a traversal started by {@link #beginDeferred} is complete. The outermost call
+   * submits all recorded quads.
+   */
+  void endDeferred() {
+    if (deferred != null && deferred.end()) submitDeferred();
+  }
+
+  /**
+   * Adds a quad to be rendered with the supplied shader and texture. If we are recording quads
+   * for deferred batching, the quad is recorded, otherwise it is sent directly to the shader.
+   */
+  void addQuad(GLShader shader, int tex, int tint, InternalTransform xform,
+               float left, float top, float right, float bottom,
+               float sl, float st, float sr, float sb) {
+    for (QuadCache cache = recorder; cache != null; cache = cache.outer) {
+      cache.add(shader, tex, tint, xform, left, top, right, bottom, sl, st, sr, sb);
+    }
+    if (deferred != null && deferred.recording(lastFramebuffer)) {
+      deferred.add(shader, tex, tint, xform, left, top, right, bottom, sl, st, sr, sb);
+    } else {
+      shader.prepareTexture(tex, tint).addQuad(xform, left, top, right, bottom, sl, st, sr, sb);
+    }
+  }
+
+  /**
+   * Submits any quads recorded for deferred batching. This must be called before any rendering
+   * that does not go through {@link #addQuad}, to preserve the ordering of rendering operations.
+   */
+  void submitDeferred() {
+    if (deferred != null && !deferred.isEmpty()) deferred.submit();
+  }
+
+  /**
+   * Starts recording the quads passed to {@link #addQuad} into the supplied cache (in addition to
+   * any caches that are already recording). Must be balanced by a call to {@link #stopRecording}.
+   */
+  void startRecording(QuadCache cache) {
+    cache.outer = recorder;
+    recorder = cache;
+  }
+
+  /** Stops recording into a cache previously passed to {@link #startRecording}. */
+  void stopRecording(QuadCache cache) {
+    assert recorder == cache : "Unbalanced start/stopRecording";
+    recorder = cache.outer;
+    cache.outer = null;
+  }
+
+  /** Returns true if layers should currently test their bounds via {@link #culled}. */
+  boolean cullingActive() {
+    return culling && recorder == null;
+  }
+
+  /**
+   * Returns true if the supplied rectangle, transformed by {@code xf}, lies entirely outside the
+   * visible region of the current framebuffer. This region is the framebuffer itself, intersected
+   * with any rectangles pushed via {@link #pushCullRect}. Nothing is culled while a {@link
+   * QuadCache} is recording, as the cache may later be replayed at a different position.
+   */
+  boolean culled(InternalTransform xf, float left, float top, float right, float bottom) {
+    if (!cullingActive()) return false;
+
+    float m00 = xf.m00(), m01 = xf.m01(), m10 = xf.m10(), m11 = xf.m11();
+    float tx = xf.tx(), ty = xf.ty();
+    float x1 = m00*left  + m10*top    + tx, y1 = m01*left  + m11*top    + ty;
+    float x2 = m00*right + m10*top    + tx, y2 = m01*right + m11*top    + ty;
+    float x3 = m00*left  + m10*bottom + tx, y3 = m01*left  + m11*bottom + ty;
+    float x4 = m00*right + m10*bottom + tx, y4 = m01*right + m11*bottom + ty;
+
+    float cl = 0, ct = 0, cr = curFbufWidth, cb = curFbufHeight;
+    if (cullDepth > 0 && cullFbufs[cullDepth-1] == lastFramebuffer) {
+      int pos = (cullDepth-1)*CULL_RECT_FLOATS;
+      cl = cullRects[pos+CULL_LEFT];
+      ct = cullRects[pos+CULL_TOP];
+      cr = cullRects[pos+CULL_RIGHT];
+      cb = cullRects[pos+CULL_BOTTOM];
+    }
+    // we allow a pixel of slop to account for rounding when rasterizing
+    return (Math.max(Math.max(x1, x2), Math.max(x3, x4)) < cl - 1 ||
+            Math.min(Math.min(x1, x2), Math.min(x3, x4)) > cr + 1 ||
+            Math.max(Math.max(y1, y2), Math.max(y3, y4)) < ct - 1 ||
+            Math.min(Math.min(y1, y2), Math.min(y3, y4)) > cb + 1);
+  }
+
+  /**
+   * Narrows the region used by {@link #culled} to the supplied rectangle, transformed by {@code
+   * xf}. This is used by clipped layers and must be balanced by a call to {@link #popCullRect}.
+   */
+  void pushCullRect(InternalTransform xf, float left, float top, float right, float bottom) {
+    if (cullDepth == cullFbufs.length) {
+      float[] nrects = new float[cullRects.length*2];
+      System.arraycopy(cullRects, 0, nrects, 0, cullRects.length);
+      cullRects = nrects;
+      int[] nfbufs = new int[cullFbufs.length*2];
+      System.arraycopy(cullFbufs, 0, nfbufs, 0, cullFbufs.length);
+      cullFbufs = nfbufs;
+    }
+
+    float m00 = xf.m00(), m01 = xf.m01(), m10 = xf.m10(), m11 = xf.m11();
+    float tx = xf.tx(), ty = xf.ty();
+    float x1 = m00*left  + m10*top    + tx, y1 = m01*left  + m11*top    + ty;
+    float x2 = m00*right + m10*top    + tx, y2 = m01*right + m11*top    + ty;
+    float x3 = m00*left  + m10*bottom + tx, y3 = m01*left  + m11*bottom + ty;
+    float x4 = m00*right + m10*bottom + tx, y4 = m01*right + m11*bottom + ty;
+    float cl = Math.min(Math.min(x1, x2), Math.min(x3, x4));
+    float ct = Math.min(Math.min(y1, y2), Math.min(y3, y4));
+    float cr = Math.max(Math.max(x1, x2), Math.max(x3, x4));
+    float cb = Math.max(Math.max(y1, y2), Math.max(y3, y4));
+
+    // intersect with the enclosing rect, if it applies to the current framebuffer
+    if (cullDepth > 0 && cullFbufs[cullDepth-1] == lastFramebuffer) {
+      int ppos = (cullDepth-1)*CULL_RECT_FLOATS;
+      cl = Math.max(cl, cullRects[ppos+CULL_LEFT]);
+      ct = Math.max(ct, cullRects[ppos+CULL_TOP]);
+      cr = Math.min(cr, cullRects[ppos+CULL_RIGHT]);
+      cb = Math.min(cb, cullRects[ppos+CULL_BOTTOM]);
+    }
+
+    int pos = cullDepth*CULL_RECT_FLOATS;
+    cullRects[pos+CULL_LEFT] = cl;
+    cullRects[pos+CULL_TOP] = ct;
+    cullRects[pos+CULL_RIGHT] = cr;
+    cullRects[pos+CULL_BOTTOM] = cb;
+    cullFbufs[cullDepth++] = lastFramebuffer;
+  }
+
+  /** Removes the rectangle most recently pushed via {@link #pushCullRect}. */
+  void popCullRect() {
+    assert cullDepth > 0 : "Unbalanced push/popCullRect";
+    cullDepth--;
+  }
+
+  /**
+   * Notes that something is being rendered which cannot be captured by a {@link QuadCache}. Any
+   * caches that are currently recording abandon their recording.
+   */
+  void noteUncacheable() {
+    for (QuadCache cache = recorder; cache != null; cache = cache.outer) cache.fail();
+  }
+
+  /**
+   * Notes that the supplied image was drawn, and that its texture data may change without its
+   * texture changing, as a canvas image's does when its canvas is redrawn. Caches that are
+   * recording ask the image for its texture before each replay, which uploads any such changes.
+   */
+  void noteMutableImage(AbstractImageGL<?> image) {
+    for (QuadCache cache = recorder; cache != null; cache = cache.outer) cache.addImage(image);
+  }
+
+  /**
+   * Notes that a texture has been destroyed, or that the contents of a texture region have been
+   * repurposed. This invalidates all {@link QuadCache} recordings, which may refer to it.
+   */
+  void noteTextureChange() {
+    texGeneration++;
+  }
+
+  /** Returns a counter that is incremented by every call to {@link #noteTextureChange}. */
+  int texGeneration() {
+    return texGeneration;
+  }
+
   /**
    * Returns a (created on demand, then cached) image used when filling solid color quads or
    * triangles.
@@ -403,6 +705,14 @@ public abstract class GLContext {
     bindFramebuffer();
   }
 
+  /**
+   * Performs staged texture uploads for the current frame (see {@link #queueUpload}). This should
+   * be called by platform backends at the start of each frame, before painting.
+   */
+  protected void processUploads() {
+    if (uploads != null) uploads.process();
+  }
+
   /**
    * Increments our GL context epoch. This should be called by platform backends when the GL
    * context has been lost and a new one created.
@@ -451,21 +761,74 @@ public abstract class GLContext {
     return new IndexedTrisShader(this);
   }
 
-  // used by GLContext.tex(Sub)Image2D impls
+  /**
+   * Returns the pixels of {@code image} as premultiplied RGBA bytes, suitable for uploading via
+   * {@code glTex(Sub)Image2D} with format {@code GL_RGBA} and type {@code GL_UNSIGNED_BYTE}. This
+   * allocates a new buffer on every call; {@link #texImage2D} and {@link #texSubImage2D}
+   * implementations should prefer {@link #getScratchRgba}.
+   */
   protected static ByteBuffer getRgba(Image image) {
+    int size = (int) image.width() * (int) image.height();
+    ByteBuffer buffer = ByteBuffer.allocateDirect(size * 4).order(ByteOrder.nativeOrder());
+    int[] strip = new int[stripRows(image) * (int) image.width()];
+    return toRgba(image, buffer, buffer.asIntBuffer(), strip);
+  }
+
+  /**
+   * Returns the pixels of {@code image} as in {@link #getRgba}, but converted a strip at a time
+   * into a scratch array and written into a buffer which is reused by subsequent calls, so no
+   * garbage is generated beyond the first upload of the largest image. Images larger than 1024x1024
+   * pixels are converted into a buffer that is not retained, so that one large upload does not pin
+   * a large buffer for the life of the context. The returned buffer is only valid until the next
+   * call.
+   */
+  protected ByteBuffer getScratchRgba(Image image) {
+    int size = (int) image.width() * (int) image.height() * 4;
+    ByteBuffer buffer;
+    IntBuffer ints;
+    if (size > MAX_RGBA_BUFFER_BYTES) {
+      buffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+      ints = buffer.asIntBuffer();
+    } else {
+      if (rgbaBuffer == null || rgbaBuffer.capacity() < size) {
+        rgbaBuffer = ByteBuffer.allocateDirect(size).order(ByteOrder.nativeOrder());
+        rgbaInts = rgbaBuffer.asIntBuffer();
+      }
+      buffer = rgbaBuffer;
+      ints = rgbaInts;
+    }
+    int stripSize = stripRows(image) * (int) image.width();
+    if (rgbaStrip == null || rgbaStrip.length < stripSize) rgbaStrip = new int[stripSize];
+    return toRgba(image, buffer, ints, rgbaStrip);
+  }
+
+  private static int stripRows(Image image) {
+    int w = (int) image.width(), h = (int) image.height();
+    return (w == 0) ? 0 : Math.max(1, Math.min(h, RGBA_STRIP_PIXELS / w));
+  }
+
+  private static ByteBuffer toRgba(Image image, ByteBuffer buffer, IntBuffer rgba, int[] strip) {
     int w = (int) image.width(), h = (int) image.height(), size = w * h;
-    int[] rawPixels = new int[size];
-    ByteBuffer pixels = ByteBuffer.allocateDirect(size * 4);
-    pixels.order(ByteOrder.nativeOrder());
-    IntBuffer rgba = pixels.asIntBuffer();
-    image.getRgb(0, 0, w, h, rawPixels, 0, w);
-
-    for (int i = 0; i < size; i++) {
-      int argb = rawPixels[i];
-      // Order is inverted because this is read as a byte array, and we store intel ints.
-      rgba.put(i, ((argb >> 16) & 0x0ff) | (argb & 0x0ff00ff00) | ((argb & 0xff) << 16));
+    int stripRows = stripRows(image);
+    for (int y = 0, pos = 0; w > 0 && y < h; y += stripRows) {
+      int rows = Math.min(stripRows, h - y), count = rows * w;
+      image.getRgb(0, y, w, rows, strip, 0, w);
+      for (int ii = 0; ii < count; ii++, pos++) {
+        int argb = strip[ii], a = argb >>> 24;
+        if (a != 255) argb = premultiply(argb, a);
+        // order is inverted because this is read as a byte array, and we store intel ints
+        rgba.put(pos, ((argb >> 16) & 0x0ff) | (argb & 0x0ff00ff00) | ((argb & 0xff) << 16));
+      }
     }
-    return pixels;
+    buffer.position(0).limit(size * 4);
+    return buffer;
+  }
+
+  /** Premultiplies the color components of the supplied ARGB pixel by its alpha. */
+  protected static int premultiply(int argb, int a) {
+    int r = ((argb >> 16) & 0xff) * a / 255, g = ((argb >> 8) & 0xff) * a / 255;
+    int b = (argb & 0xff) * a / 255;
+    return (a << 24) | (r << 16) | (g << 8) | b;
   }
 
   protected abstract GLShader quadShader();
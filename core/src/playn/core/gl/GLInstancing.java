@@ -0,0 +1,32 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+/**
+ * Exposes instanced rendering, which is not part of GL ES 2.0 but is provided by many GL
+ * implementations (core in GL 3.3, and via {@code ARB_instanced_arrays},
+ * {@code EXT_instanced_arrays} and {@code ANGLE_instanced_arrays} elsewhere). Backends that support
+ * it return an implementation from {@link GL20Context#instancing}.
+ */
+public interface GLInstancing {
+
+  /** Sets the rate at which the specified generic vertex attribute advances during instanced
+   * rendering: zero for once per vertex, or {@code divisor} for once per that many instances. */
+  void glVertexAttribDivisor(int index, int divisor);
+
+  /** Renders {@code primcount} instances of the elements in the bound element array buffer. */
+  void glDrawElementsInstanced(int mode, int count, int type, int offset, int primcount);
+}
@@ -113,6 +113,8 @@ public abstract class GLShader {
 
   /** Prepares this shader to render the specified texture, etc. */
   public GLShader prepareTexture(int tex, int tint) {
+    // submit any deferred quads so that they are rendered before whatever follows
+    ctx.submitDeferred();
     // if our GL context has been lost and regained we may need to recreate our core; we don't
     // destroy the old core because the underlying resources are gone and destroying using our
     // stale handles might result in destroying someone else's newly created resources
@@ -16,8 +16,10 @@ package playn.core.gl;
 import java.util.List;
 
 import pythagoras.f.Point;
+import pythagoras.f.Rectangle;
 import pythagoras.f.Vector;
 
+import playn.core.AbstractLayer;
 import playn.core.GroupLayer;
 import playn.core.GroupLayerImpl;
 import playn.core.InternalTransform;
@@ -42,16 +44,19 @@ public class GroupLayerGL extends LayerGL implements GroupLayer, ParentLayer {
     public void setSize(float width, float height) {
       this.width = width;
       this.height = height;
+      markDirty();
     }
 
     @Override
     public void setWidth(float width) {
       this.width = width;
+      markDirty();
     }
 
     @Override
     public void setHeight(float height) {
       this.height = height;
+      markDirty();
     }
 
     @Override
@@ -74,8 +79,17 @@ public class GroupLayerGL extends LayerGL implements GroupLayer, ParentLayer {
       return scaleY() * height();
     }
 
+    @Override
+    protected boolean computeBounds(Rectangle into) {
+      // nothing is rendered outside our clip region, regardless of the bounds of our children
+      into.setBounds(0, 0, width, height);
+      return true;
+    }
+
     @Override
     protected void render(InternalTransform xform, int curTint, GLShader shader) {
+      // the scissor rect depends on our screen position, so we can't be replayed by a cached group
+      ctx.noteUncacheable();
       xform.translate(originX, originY);
       xform.transform(pos.set(-originX, -originY), pos);
       xform.transform(size.set(width, height), size);
@@ -84,7 +98,12 @@ public class GroupLayerGL extends LayerGL implements GroupLayer, ParentLayer {
                        Math.round(Math.abs(size.x)), Math.round(Math.abs(size.y)));
       try {
         if (nonEmpty) {
-          super.render(xform, curTint, shader);
+          ctx.pushCullRect(xform, 0, 0, width, height);
+          try {
+            super.render(xform, curTint, shader);
+          } finally {
+            ctx.popCullRect();
+          }
         }
       } finally {
         ctx.endClipped();
@@ -93,9 +112,33 @@ public class GroupLayerGL extends LayerGL implements GroupLayer, ParentLayer {
   }
 
   private GroupLayerImpl<LayerGL> impl = new GroupLayerImpl<LayerGL>();
+  QuadCache cache; // package-private for testing
+  // the cached bounds of our children, valid when BOUNDSDIRTY is not set
+  private float boundsX, boundsY, boundsWidth, boundsHeight;
+  private boolean bounded;
 
   public GroupLayerGL(GLContext ctx) {
     super(ctx);
+    setFlag(Flag.BOUNDSDIRTY, true);
+  }
+
+  /**
+   * Configures whether this group caches the rendering of its subtree. A cached group records the
+   * quads rendered by its children and replays them on subsequent frames without traversing its
+   * subtree, until a layer in the subtree is added, removed or changed. The group itself may be
+   * freely moved, rotated and scaled without invalidating its cache.
+   *
+   * <p>Caching is only worthwhile for largely static subtrees containing many layers. A subtree
+   * containing immediate layers or clipped groups cannot be cached and is rendered normally.</p>
+   */
+  public GroupLayerGL setCached(boolean cached) {
+    if (cached != (cache != null)) cache = cached ? new QuadCache(ctx) : null;
+    return this;
+  }
+
+  /** Returns whether this group caches the rendering of its subtree. See {@link #setCached}. */
+  public boolean cached() {
+    return cache != null;
   }
 
   @Override
@@ -163,6 +206,25 @@ public class GroupLayerGL extends LayerGL implements GroupLayer, ParentLayer {
     return impl.hitTest(this, p);
   }
 
+  /**
+   * Enables or disables a spatial index of this group's children. When enabled, hit testing only
+   * checks the children near the point being tested, rather than every child, which greatly speeds
+   * up hit testing in groups with many interactive children. The index is updated as children are
+   * added, removed, moved or resized, which makes those operations somewhat more expensive.
+   *
+   * @param cellSize the size of the index's grid cells, in this group's coordinate system. This
+   * should be somewhat larger than a typical child. A value of zero disables the index (the
+   * default).
+   */
+  public void setHitIndex(float cellSize) {
+    impl.setHitIndex(cellSize);
+  }
+
+  @Override
+  protected void childChanged(AbstractLayer child) {
+    impl.childChanged((LayerGL) child);
+  }
+
   @Override
   public void depthChanged(Layer layer, float oldDepth) {
     impl.depthChanged(this, layer, oldDepth);
@@ -172,16 +234,75 @@ public class GroupLayerGL extends LayerGL implements GroupLayer, ParentLayer {
   public void paint(InternalTransform curTransform, int curTint, GLShader curShader) {
     if (!visible()) return;
 
+    InternalTransform xform = localTransform(curTransform);
+    GLShader shader = (this.shader == null) ? curShader : this.shader;
+    if (culled(xform, shader)) return;
+
     if (tint != Tint.NOOP_TINT)
       curTint = Tint.combine(curTint, tint);
-    render(localTransform(curTransform), curTint, (shader == null) ? curShader : shader);
+    render(xform, curTint, shader);
+  }
+
+  @Override
+  protected boolean computeBounds(Rectangle into) {
+    if (isSet(Flag.BOUNDSDIRTY)) {
+      bounded = impl.computeBounds(into);
+      if (bounded) {
+        boundsX = into.x;
+        boundsY = into.y;
+        boundsWidth = into.width;
+        boundsHeight = into.height;
+      }
+      setFlag(Flag.BOUNDSDIRTY, false);
+    }
+    if (!bounded) return false;
+    into.setBounds(boundsX, boundsY, boundsWidth, boundsHeight);
+    return true;
   }
 
   protected void render(InternalTransform xform, int curTint, GLShader shader) {
+    // if deferred batching is enabled, this records our children's quads for later submission
+    ctx.beginDeferred();
+    try {
+      if (cache == null) renderChildren(xform, curTint, shader);
+      else if (isSet(Flag.DIRTY) || !cache.replay(xform, curTint, shader)) {
+        // our subtree changed (or we have no valid recording), so render it and record it anew
+        clearDirty();
+        if (!cache.begin(xform, curTint, shader)) renderChildren(xform, curTint, shader);
+        else {
+          ctx.startRecording(cache);
+          try {
+            renderChildren(xform, curTint, shader);
+          } finally {
+            ctx.stopRecording(cache);
+            cache.end();
+          }
+        }
+      }
+    } finally {
+      ctx.endDeferred();
+    }
+  }
+
+  protected void renderChildren(InternalTransform xform, int curTint, GLShader shader) {
     // iterate manually to avoid creating an Iterator as garbage, this is inner-loop territory
     List<LayerGL> children = impl.children;
     for (int ii = 0, ll = children.size(); ii < ll; ii++) {
       children.get(ii).paint(xform, curTint, shader);
     }
   }
+
+  // clears the dirty flag throughout our subtree so that subsequent changes propagate up to us;
+  // cached groups that were dirty discard their recording, as they will not rebuild it themselves
+  // until they are next rendered with their dirty flag cleared
+  private void clearDirty() {
+    if (!isSet(Flag.DIRTY)) return;
+    setFlag(Flag.DIRTY, false);
+    if (cache != null) cache.clear();
+    List<LayerGL> children = impl.children;
+    for (int ii = 0, ll = children.size(); ii < ll; ii++) {
+      LayerGL child = children.get(ii);
+      if (child instanceof GroupLayerGL) ((GroupLayerGL)child).clearDirty();
+    }
+  }
 }
@@ -26,6 +26,9 @@ public abstract class ImageGL<GC> extends AbstractImageGL<GC> {
   /** Our texture handle. */
   protected int tex;
 
+  /** The atlas region that contains our image data, if we have been atlased. */
+  protected AtlasManager.Region atlasRegion;
+
   @Override
   public Scale scale() {
     return scale;
@@ -38,8 +41,22 @@ public abstract class ImageGL<GC> extends AbstractImageGL<GC> {
     } else if (!isReady()) {
       return 0;
     } else if (repeatX || repeatY || mipmapped) {
+      // atlased textures cannot be tiled or mipmapped, so we always get our own texture here
+      if (atlasRegion != null) {
+        atlasRegion.release();
+        atlasRegion = null;
+      }
       return (tex = scaleTexture());
+    } else if (atlasRegion != null && atlasRegion.isValid()) {
+      return atlasRegion.tex();
     } else {
+      // if we were evicted from our atlas, or have yet to be atlased, try adding ourselves
+      atlasRegion = null;
+      AtlasManager atlases = ctx.atlasManager();
+      if (atlases != null && atlases.canAtlas(this)) {
+        atlasRegion = atlases.add(this);
+        if (atlasRegion != null) return atlasRegion.tex();
+      }
       return (tex = createMainTex());
     }
   }
@@ -50,6 +67,11 @@ public abstract class ImageGL<GC> extends AbstractImageGL<GC> {
       ctx.destroyTexture(tex);
       tex = 0;
     }
+    if (atlasRegion != null) {
+      atlasRegion.release();
+      atlasRegion = null;
+    }
+    ctx.noteTextureChange();
   }
 
   protected ImageGL(GLContext ctx, Scale scale) {
@@ -62,10 +84,49 @@ public abstract class ImageGL<GC> extends AbstractImageGL<GC> {
    */
   protected abstract void updateTexture(int tex);
 
+  /**
+   * Returns true if this image supports {@link #updateTextureRows}, which allows the upload of a
+   * large image to be spread across frames (see {@link GLContext#queueUpload}).
+   */
+  protected boolean canUpdateTextureRows() {
+    return false;
+  }
+
+  /**
+   * Copies rows {@code y} through {@code y+rows-1} of our image data into the supplied texture,
+   * which has already been allocated at our full size. The default implementation simply uploads
+   * the whole image; images that return true from {@link #canUpdateTextureRows} should override
+   * this to upload only the requested rows.
+   */
+  protected void updateTextureRows(int tex, int y, int rows) {
+    updateTexture(tex);
+  }
+
+  /**
+   * Returns the compressed texture data from which this image was loaded, or null if it was not
+   * loaded from a compressed texture container. If the GL context supports the compressed data's
+   * format, it is uploaded in place of our decoded image data.
+   */
+  protected CompressedTexture compressedTexture() {
+    return null;
+  }
+
+  @Override
+  float texS(float s) {
+    return (atlasRegion == null) ? s : atlasRegion.sl + s * (atlasRegion.sr - atlasRegion.sl);
+  }
+
+  @Override
+  float texT(float t) {
+    return (atlasRegion == null) ? t : atlasRegion.st + t * (atlasRegion.sb - atlasRegion.st);
+  }
+
   @Override
   protected void finalize() {
     if (tex > 0)
       ctx.queueDestroyTexture(tex);
+    if (atlasRegion != null && ctx.atlasManager() != null)
+      ctx.atlasManager().queueRelease(atlasRegion);
   }
 
   /**
@@ -76,21 +137,36 @@ public abstract class ImageGL<GC> extends AbstractImageGL<GC> {
     // power-of-two textures; scaleTexture will use tex to create the POT texture, so tex should
     // not have mipmaps enabled, or it will hose up that process
     int tex = ctx.createTexture(false, false, false);
-    updateTexture(tex);
+    uploadTexture(tex, false);
     return tex;
   }
 
   /**
-   * Creates and populates a texture for use as our power-of-two texture. This is used when our
-   * main image data is already power-of-two-sized.
+   * Creates and populates a texture for use as our power-of-two texture (generating its mipmaps,
+   * if needed). This is used when our main image data is already power-of-two-sized.
    */
   protected int createPow2RepTex(int width, int height, boolean repeatX, boolean repeatY,
                                  boolean mipmapped) {
     int powtex = ctx.createTexture(width, height, repeatX, repeatY, mipmapped);
-    updateTexture(powtex);
+    if (!uploadTexture(powtex, mipmapped) && mipmapped) ctx.generateMipmap(powtex);
     return powtex;
   }
 
+  /**
+   * Copies our image data into the supplied texture, uploading our compressed texture data if we
+   * have any and the GL context supports its format.
+   * @param mipmaps whether the texture requires mipmaps, which cannot be generated for compressed
+   * textures, so compressed data is only used if it provides them.
+   * @return true if compressed data was uploaded, false if our decoded image data was uploaded.
+   */
+  protected boolean uploadTexture(int tex, boolean mipmaps) {
+    CompressedTexture ctex = compressedTexture();
+    if (ctex != null && (!mipmaps || ctex.levels() > 1) && ctx.uploadCompressed(tex, ctex))
+      return true;
+    updateTexture(tex);
+    return false;
+  }
+
   /**
    * Called by canvas image implementations in {@link #ensureTexture} to either cause their texture
    * data to be reuploaded (in the simple case where the image is neither repeated nor mipmapped),
@@ -114,9 +190,7 @@ public abstract class ImageGL<GC> extends AbstractImageGL<GC> {
 
     // no need to scale if our source data is already a power of two
     if ((width == 0) && (height == 0)) {
-      int reptex = createPow2RepTex(scaledWidth, scaledHeight, repeatX, repeatY, mipmapped);
-      if (mipmapped) ctx.generateMipmap(reptex);
-      return reptex;
+      return createPow2RepTex(scaledWidth, scaledHeight, repeatX, repeatY, mipmapped);
     }
 
     // otherwise we need to scale our non-repeated texture, so load that normally
@@ -13,6 +13,8 @@
  */
 package playn.core.gl;
 
+import pythagoras.f.Rectangle;
+
 import playn.core.Image;
 import playn.core.ImageLayer;
 import playn.core.InternalTransform;
@@ -22,6 +24,7 @@ public class ImageLayerGL extends LayerGL implements ImageLayer {
 
   private float width, height;
   private boolean widthSet, heightSet;
+  private float paintedWidth, paintedHeight;
   private AbstractImageGL<?> img;
 
   public ImageLayerGL(GLContext ctx) {
@@ -37,11 +40,13 @@ public class ImageLayerGL extends LayerGL implements ImageLayer {
   @Override
   public void clearHeight() {
     heightSet = false;
+    markDirty();
   }
 
   @Override
   public void clearWidth() {
     widthSet = false;
+    markDirty();
   }
 
   @Override
@@ -59,6 +64,7 @@ public class ImageLayerGL extends LayerGL implements ImageLayer {
       this.img = (AbstractImageGL<?>) img;
       if (this.img != null)
         this.img.reference();
+      markDirty();
     }
     return this;
   }
@@ -68,6 +74,7 @@ public class ImageLayerGL extends LayerGL implements ImageLayer {
     assert width >= 0 : "Width must be >= 0";
     widthSet = true;
     this.width = width;
+    markDirty();
   }
 
   @Override
@@ -75,6 +82,7 @@ public class ImageLayerGL extends LayerGL implements ImageLayer {
     assert height >= 0 : "Height must be >= 0";
     heightSet = true;
     this.height = height;
+    markDirty();
   }
 
   @Override
@@ -85,16 +93,40 @@ public class ImageLayerGL extends LayerGL implements ImageLayer {
     this.width = width;
     heightSet = true;
     this.height = height;
+    markDirty();
   }
 
   @Override
   public void paint(InternalTransform curTransform, int curTint, GLShader curShader) {
     if (visible() && img != null) {
+      // our size changes when our image loads (or is resized), which changes our parent's bounds
+      float w = width(), h = height();
+      if (w != paintedWidth || h != paintedHeight) {
+        paintedWidth = w;
+        paintedHeight = h;
+        markDirty();
+      }
+
+      InternalTransform xform = localTransform(curTransform);
+      GLShader shader = (this.shader == null) ? curShader : this.shader;
+      if (culled(xform, shader)) return;
+
       if (tint != Tint.NOOP_TINT)
         curTint = Tint.combine(curTint, tint);
-      img.draw((shader == null) ? curShader : shader, localTransform(curTransform), curTint,
-               0, 0, width(), height());
+      img.draw(shader, xform, curTint, 0, 0, w, h);
+    }
+  }
+
+  @Override
+  protected boolean computeBounds(Rectangle into) {
+    if (img == null) {
+      into.setBounds(0, 0, 0, 0);
+      return true;
     }
+    // until our image is loaded we don't know our size, so we don't allow ourselves to be culled
+    if (!img.isReady()) return false;
+    into.setBounds(0, 0, width(), height());
+    return true;
   }
 
   @Override
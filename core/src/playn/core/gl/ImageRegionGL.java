@@ -58,6 +58,7 @@ public class ImageRegionGL<GC> extends AbstractImageGL<GC> implements Image.Regi
     if (tex > 0) {
       ctx.destroyTexture(tex);
       tex = 0;
+      ctx.noteTextureChange();
     }
   }
 
@@ -204,7 +205,8 @@ public class ImageRegionGL<GC> extends AbstractImageGL<GC> implements Image.Regi
       float sl = this.x, st = this.y, sr = sl + this.width, sb = st + this.height;
       GLShader shader = ctx.quadShader(null).prepareTexture(tex, Tint.NOOP_TINT);
       shader.addQuad(ctx.createTransform(), 0, height, width, 0,
-                     sl / tw, st / th, sr / tw, sb / th);
+                     parent.texS(sl / tw), parent.texT(st / th),
+                     parent.texS(sr / tw), parent.texT(sb / th));
       shader.flush();
       // if we're mipmapped, we can now generate our mipmaps
       if (mipmapped) ctx.generateMipmap(reptex);
@@ -16,6 +16,7 @@
 package playn.core.gl;
 
 import pythagoras.f.Point;
+import pythagoras.f.Rectangle;
 import pythagoras.f.Vector;
 
 import playn.core.ImmediateLayer;
@@ -76,6 +77,12 @@ public class ImmediateLayerGL extends LayerGL implements ImmediateLayer {
       return scaleY() * height();
     }
 
+    @Override
+    protected boolean computeBounds(Rectangle into) {
+      into.setBounds(0, 0, width, height);
+      return true;
+    }
+
     @Override
     protected void render(InternalTransform xform) {
       xform.translate(originX, originY);
@@ -115,10 +122,17 @@ public class ImmediateLayerGL extends LayerGL implements ImmediateLayer {
     this.renderer = renderer;
   }
 
+  @Override
+  protected boolean computeBounds(Rectangle into) {
+    return false; // our renderer may render anywhere
+  }
+
   @Override
   public void paint(InternalTransform curTransform, int curTint, GLShader curShader) {
     if (!visible()) return;
 
+    // our renderer may render anything, so we cannot be captured by a cached group
+    ctx.noteUncacheable();
     InternalTransform xform = localTransform(curTransform);
     surface.topTransform().set(xform);
     if (tint != Tint.NOOP_TINT)
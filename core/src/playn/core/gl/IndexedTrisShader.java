@@ -176,7 +176,9 @@ public class IndexedTrisShader extends GLShader {
         return;
       ctx.checkGLError("Shader.flush");
 
-      if (delayedBinding) { // see comments in activate()
+      // if our buffers switch GL buffer objects when sending, we have to bind after sending
+      boolean rebind = vertices.sendRebinds();
+      if (delayedBinding && !rebind) { // see comments in activate()
         bindAttribsBufs();
         ctx.checkGLError("Shader.flush bind");
       }
@@ -185,6 +187,11 @@ public class IndexedTrisShader extends GLShader {
       int elems = elements.send(GL20.GL_ELEMENT_ARRAY_BUFFER, GL20.GL_STREAM_DRAW);
       ctx.checkGLError("Shader.flush BufferData");
 
+      if (rebind) {
+        bindAttribsBufs();
+        ctx.checkGLError("Shader.flush rebind");
+      }
+
       elements.drawElements(GL20.GL_TRIANGLES, elems);
       ctx.checkGLError("Shader.flush DrawElements");
     }
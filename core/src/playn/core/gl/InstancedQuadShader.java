@@ -0,0 +1,250 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+/**
+ * A {@link GLShader} implementation that only handles quads, and renders them using instanced
+ * rendering. A single unit quad is stored in a static buffer, and each quad rendered writes a
+ * single instance record (its transform, texture coordinates and tint) which the GPU expands into
+ * the four vertices of the quad. This requires a quarter of the data per quad that is required by
+ * {@link IndexedTrisShader}, and does not limit the number of quads per batch as does the uniform
+ * array used by {@link QuadShader}.
+ *
+ * <p>This shader is only used if the GL context supports instancing, see {@link
+ * GL20Context#instancing}.</p>
+ */
+public class InstancedQuadShader extends GLShader {
+
+  /** Declares the uniform variables for our shader. */
+  public static final String VERT_UNIFS =
+    "uniform vec2 u_ScreenSize;\n";
+
+  /** Declares the attribute variables for our shader. The first varies per vertex, the rest per
+   * instance. */
+  public static final String VERT_ATTRS =
+    "attribute vec2 a_Vertex;\n" +
+    "attribute vec4 a_Matrix;\n" +
+    "attribute vec4 a_TransTex;\n" +
+    "attribute vec4 a_TexColor;\n";
+
+  /** Declares the varying variables for our shader. */
+  public static final String VERT_VARS =
+    "varying vec2 v_TexCoord;\n" +
+    "varying vec4 v_Color;\n";
+
+  /** The shader code that computes {@code gl_Position}. */
+  public static final String VERT_SETPOS =
+    // Transform the vertex.
+    "mat3 transform = mat3(\n" +
+    "  a_Matrix.x, a_Matrix.y, 0,\n" +
+    "  a_Matrix.z, a_Matrix.w, 0,\n" +
+    "  a_TransTex.x, a_TransTex.y, 1);\n" +
+    "gl_Position = vec4(transform * vec3(a_Vertex, 1.0), 1.0);\n" +
+    // Scale from screen coordinates to [0, 2].
+    "gl_Position.xy /= u_ScreenSize.xy;\n" +
+    // Offset to [-1, 1] and flip y axis to put origin at top-left.
+    "gl_Position.x -= 1.0;\n" +
+    "gl_Position.y = 1.0 - gl_Position.y;\n";
+
+  /** The shader code that computes {@code v_TexCoord}. */
+  public static final String VERT_SETTEX =
+    "v_TexCoord = a_Vertex * a_TexColor.xy + a_TransTex.zw;\n";
+
+  /** The shader code that computes {@code v_Color}. */
+  public static final String VERT_SETCOLOR =
+    // tint is encoded as two floats A*R and G*B where A, R, G, B are (0 - 255)
+    "float red = mod(a_TexColor.z, 256.0);\n" +
+    "float alpha = (a_TexColor.z - red) / 256.0;\n" +
+    "float blue = mod(a_TexColor.w, 256.0);\n" +
+    "float green = (a_TexColor.w - blue) / 256.0;\n" +
+    "v_Color = vec4(red / 255.0, green / 255.0, blue / 255.0, alpha / 255.0);\n";
+
+  /** The GLSL code for our vertex shader. */
+  public static final String VERTEX_SHADER =
+    VERT_UNIFS +
+    VERT_ATTRS +
+    VERT_VARS +
+    "void main(void) {\n" +
+    VERT_SETPOS +
+    VERT_SETTEX +
+    VERT_SETCOLOR +
+    "}";
+
+  private static final int INSTANCE_SIZE = 12; // 12 floats per instance
+  private static final int FLOAT_SIZE_BYTES = 4;
+  private static final short[] QUAD_INDICES = {0, 1, 2, 1, 3, 2};
+
+  protected final GL20 gl;
+  protected final GLInstancing instancing;
+  protected final int maxQuads;
+
+  /**
+   * Creates an instanced quad shader which renders at most {@code maxQuads} quads per draw call.
+   */
+  public InstancedQuadShader(GL20Context ctx, GLInstancing instancing, int maxQuads) {
+    super(ctx);
+    this.gl = ctx.gl;
+    this.instancing = instancing;
+    this.maxQuads = maxQuads;
+  }
+
+  @Override
+  public String toString() {
+    return "instanced/" + maxQuads;
+  }
+
+  /**
+   * Returns the vertex shader program. Note that this program <em>must</em> preserve the use of
+   * the existing attributes and uniforms. You can add new uniforms and attributes, but you cannot
+   * remove or change the defaults.
+   */
+  protected String vertexShader() {
+    return VERTEX_SHADER;
+  }
+
+  @Override
+  protected Core createTextureCore() {
+    return new InstancedCore(vertexShader(), textureFragmentShader());
+  }
+
+  protected class InstancedCore extends Core {
+    private final Uniform2f uScreenSize;
+    private final Attrib aVertex, aMatrix, aTransTex, aTexColor;
+    private final int[] instanceLocs;
+    private final GLBuffer.Short vertices, elements;
+    private final GLBuffer.Float instances;
+
+    private int quadCounter;
+    private float arTint, gbTint;
+
+    public InstancedCore(String vertShader, String fragShader) {
+      super(vertShader, fragShader);
+
+      uScreenSize = prog.getUniform2f("u_ScreenSize");
+      aVertex = prog.getAttrib("a_Vertex", 2, GL20.GL_SHORT);
+      aMatrix = prog.getAttrib("a_Matrix", 4, GL20.GL_FLOAT);
+      aTransTex = prog.getAttrib("a_TransTex", 4, GL20.GL_FLOAT);
+      aTexColor = prog.getAttrib("a_TexColor", 4, GL20.GL_FLOAT);
+      GL20Program gprog = (GL20Program)prog;
+      instanceLocs = new int[] { gprog.getAttribLocation("a_Matrix"),
+                                 gprog.getAttribLocation("a_TransTex"),
+                                 gprog.getAttribLocation("a_TexColor") };
+
+      // our single unit quad never changes, so we send it once
+      vertices = ctx.createShortBuffer(8);
+      vertices.add(0, 0).add(1, 0).add(0, 1).add(1, 1);
+      elements = ctx.createShortBuffer(QUAD_INDICES.length);
+      elements.add(QUAD_INDICES);
+      vertices.bind(GL20.GL_ARRAY_BUFFER);
+      vertices.send(GL20.GL_ARRAY_BUFFER, GL20.GL_STATIC_DRAW);
+      elements.bind(GL20.GL_ELEMENT_ARRAY_BUFFER);
+      elements.send(GL20.GL_ELEMENT_ARRAY_BUFFER, GL20.GL_STATIC_DRAW);
+
+      instances = ctx.createFloatBuffer(maxQuads*INSTANCE_SIZE);
+    }
+
+    @Override
+    public void activate(int fbufWidth, int fbufHeight) {
+      prog.bind();
+      uScreenSize.bind(fbufWidth/2f, fbufHeight/2f);
+      vertices.bind(GL20.GL_ARRAY_BUFFER);
+      aVertex.bind(0, 0);
+      for (int loc : instanceLocs) instancing.glVertexAttribDivisor(loc, 1);
+      ctx.checkGLError("InstancedQuadShader.activate");
+    }
+
+    @Override
+    public void deactivate() {
+      // other shaders may use the same attribute locations, so we restore the default divisor
+      for (int loc : instanceLocs) instancing.glVertexAttribDivisor(loc, 0);
+      aVertex.unbind();
+      aMatrix.unbind();
+      aTransTex.unbind();
+      aTexColor.unbind();
+    }
+
+    @Override
+    public void prepare(int tex, int tint, boolean justActivated) {
+      super.prepare(tex, tint, justActivated);
+      this.arTint = (tint >> 16) & 0xFFFF;
+      this.gbTint = tint & 0xFFFF;
+    }
+
+    @Override
+    public void flush() {
+      super.flush();
+      if (quadCounter == 0)
+        return;
+
+      // the instance attributes are (re)bound after sending, as some streaming strategies switch
+      // to a different GL buffer on each send
+      instances.bind(GL20.GL_ARRAY_BUFFER);
+      instances.send(GL20.GL_ARRAY_BUFFER, GL20.GL_STREAM_DRAW);
+      int stride = INSTANCE_SIZE*FLOAT_SIZE_BYTES;
+      aMatrix.bind(stride, 0);
+      aTransTex.bind(stride, 4*FLOAT_SIZE_BYTES);
+      aTexColor.bind(stride, 8*FLOAT_SIZE_BYTES);
+      ctx.checkGLError("InstancedQuadShader.flush bind");
+
+      elements.bind(GL20.GL_ELEMENT_ARRAY_BUFFER);
+      instancing.glDrawElementsInstanced(GL20.GL_TRIANGLES, QUAD_INDICES.length,
+                                         GL20.GL_UNSIGNED_SHORT, 0, quadCounter);
+      ctx.checkGLError("InstancedQuadShader.flush draw");
+      quadCounter = 0;
+    }
+
+    @Override
+    public void destroy() {
+      super.destroy();
+      vertices.destroy();
+      elements.destroy();
+      instances.destroy();
+    }
+
+    @Override
+    public void addQuad(float m00, float m01, float m10, float m11, float tx, float ty,
+                        float x1, float y1, float sx1, float sy1,
+                        float x2, float y2, float sx2, float sy2,
+                        float x3, float y3, float sx3, float sy3,
+                        float x4, float y4, float sx4, float sy4) {
+      float dw = x2 - x1, dh = y3 - y1;
+      float[] data = instances.array();
+      int pos = instances.position();
+      data[pos++] = m00*dw;
+      data[pos++] = m01*dw;
+      data[pos++] = m10*dh;
+      data[pos++] = m11*dh;
+      data[pos++] = tx + m00*x1 + m10*y1;
+      data[pos++] = ty + m01*x1 + m11*y1;
+      data[pos++] = sx1;
+      data[pos++] = sy1;
+      data[pos++] = sx2 - sx1;
+      data[pos++] = sy3 - sy1;
+      data[pos++] = arTint;
+      data[pos++] = gbTint;
+      instances.skip(INSTANCE_SIZE);
+      quadCounter++;
+
+      if (quadCounter >= maxQuads)
+        InstancedQuadShader.this.flush();
+    }
+
+    @Override
+    public String toString() {
+      return "cq=" + maxQuads;
+    }
+  }
+}
@@ -15,6 +15,8 @@
  */
 package playn.core.gl;
 
+import pythagoras.f.Rectangle;
+
 import playn.core.AbstractLayer;
 import playn.core.InternalTransform;
 import playn.core.Layer;
@@ -22,6 +24,9 @@ import playn.core.gl.GLShader;
 
 public abstract class LayerGL extends AbstractLayer {
 
+  // used to compute bounds when culling; rendering is single threaded, so we can share this
+  private static final Rectangle cullBounds = new Rectangle();
+
   private final InternalTransform savedLocal;
 
   protected final GLContext ctx;
@@ -36,6 +41,7 @@ public abstract class LayerGL extends AbstractLayer {
     if (this.shader != null) {
       this.shader.reference();
     }
+    markDirty();
     return this;
   }
 
@@ -56,5 +62,18 @@ public abstract class LayerGL extends AbstractLayer {
     return savedLocal.concatenate(transform(), originX, originY);
   }
 
+  /**
+   * Returns true if this layer, rendered with the supplied transform and shader, would be entirely
+   * outside the visible region of the current framebuffer (or would render nothing at all).
+   */
+  protected boolean culled(InternalTransform xform, GLShader shader) {
+    // custom shaders may move vertices, so we can't know where their layers will end up
+    if (shader != null || !ctx.cullingActive()) return false;
+    Rectangle bounds = cullBounds;
+    if (!computeBounds(bounds)) return false;
+    if (bounds.width <= 0 || bounds.height <= 0) return true;
+    return ctx.culled(xform, bounds.x, bounds.y, bounds.maxX(), bounds.maxY());
+  }
+
   public abstract void paint(InternalTransform curTransform, int curTint, GLShader curShader);
 }
@@ -0,0 +1,214 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import playn.core.InternalTransform;
+
+/**
+ * Retains the quads rendered by a layer subtree so that they can be replayed on subsequent frames
+ * without traversing the subtree. Quads are stored relative to the transform in effect when
+ * recording started, so a cached subtree may be moved, rotated or scaled as a whole and replayed
+ * without being rebuilt.
+ *
+ * <p>A recording is discarded if the subtree renders anything other than simple quads (see
+ * {@link GLContext#noteUncacheable}), or if any texture is destroyed after the recording was made
+ * (see {@link GLContext#noteTextureChange}). Images whose texture data may change in place (see
+ * {@link GLContext#noteMutableImage}) are asked for their texture before each replay, so that the
+ * replayed quads use their latest data.</p>
+ */
+final class QuadCache {
+
+  // the layout of a single quad's float data
+  private static final int M00 = 0, M01 = 1, M10 = 2, M11 = 3, TX = 4, TY = 5;
+  private static final int LEFT = 6, TOP = 7, RIGHT = 8, BOTTOM = 9;
+  private static final int SL = 10, ST = 11, SR = 12, SB = 13;
+  private static final int QUAD_FLOATS = 14;
+
+  private static final int START_QUADS = 32;
+
+  /** The cache which was recording when this cache started recording, if any. */
+  QuadCache outer;
+
+  private final GLContext ctx;
+  private final InternalTransform xform;
+
+  private float[] quadData = new float[START_QUADS*QUAD_FLOATS];
+  private GLShader[] quadShaders = new GLShader[START_QUADS];
+  private int[] quadTexs = new int[START_QUADS];
+  private int[] quadTints = new int[START_QUADS];
+  private int quadCount;
+
+  private AbstractImageGL<?>[] images = new AbstractImageGL<?>[4];
+  private int imageCount;
+
+  // the inverse of the transform in effect when recording started
+  private float i00, i01, i10, i11, itx, ity;
+  // the state in effect when recording started
+  private int recTint, recTexGen, recEpoch;
+  private GLShader recShader;
+  private boolean recording, valid;
+
+  QuadCache(GLContext ctx) {
+    this.ctx = ctx;
+    this.xform = ctx.createTransform();
+  }
+
+  /** Returns true if this cache holds a valid recording. */
+  boolean isValid() {
+    return valid;
+  }
+
+  /**
+   * Replays our recorded quads via {@link GLContext#addQuad}, relative to the supplied transform.
+   * @return false if we have no valid recording for the supplied tint and shader, in which case
+   * nothing is rendered and the caller must rebuild the cache.
+   */
+  boolean replay(InternalTransform xf, int tint, GLShader shader) {
+    if (!valid) return false;
+    // this uploads any changes to our mutable images' data; if that requires a new texture, the
+    // texture generation changes and we'll rebuild
+    for (int ii = 0; ii < imageCount; ii++) images[ii].ensureTexture();
+    if (tint != recTint || shader != recShader ||
+        recTexGen != ctx.texGeneration() || recEpoch != ctx.epoch()) return false;
+
+    float a00 = xf.m00(), a01 = xf.m01(), a10 = xf.m10(), a11 = xf.m11();
+    float atx = xf.tx(), aty = xf.ty();
+    float[] data = quadData;
+    for (int qq = 0, ll = quadCount; qq < ll; qq++) {
+      int pos = qq*QUAD_FLOATS;
+      float b00 = data[pos+M00], b01 = data[pos+M01], b10 = data[pos+M10], b11 = data[pos+M11];
+      float btx = data[pos+TX], bty = data[pos+TY];
+      xform.setTransform(a00*b00 + a10*b01, a01*b00 + a11*b01,
+                         a00*b10 + a10*b11, a01*b10 + a11*b11,
+                         a00*btx + a10*bty + atx, a01*btx + a11*bty + aty);
+      ctx.addQuad(quadShaders[qq], quadTexs[qq], quadTints[qq], xform,
+                  data[pos+LEFT], data[pos+TOP], data[pos+RIGHT], data[pos+BOTTOM],
+                  data[pos+SL], data[pos+ST], data[pos+SR], data[pos+SB]);
+    }
+    return true;
+  }
+
+  /**
+   * Discards any existing recording and prepares to record quads rendered relative to the supplied
+   * transform. The caller must register this cache with {@link GLContext#startRecording}.
+   * @return false if the transform is not invertible, in which case nothing can be recorded.
+   */
+  boolean begin(InternalTransform xf, int tint, GLShader shader) {
+    clear();
+    float m00 = xf.m00(), m01 = xf.m01(), m10 = xf.m10(), m11 = xf.m11();
+    float det = m00*m11 - m01*m10;
+    if (det == 0) return false;
+    float tx = xf.tx(), ty = xf.ty();
+    i00 = m11/det;
+    i01 = -m01/det;
+    i10 = -m10/det;
+    i11 = m00/det;
+    itx = -(i00*tx + i10*ty);
+    ity = -(i01*tx + i11*ty);
+    recTint = tint;
+    recShader = shader;
+    recTexGen = ctx.texGeneration();
+    recEpoch = ctx.epoch();
+    recording = true;
+    return true;
+  }
+
+  /** Records a quad. See {@link GLShader#addQuad} for details on the arguments. */
+  void add(GLShader shader, int tex, int tint, InternalTransform xf,
+           float left, float top, float right, float bottom,
+           float sl, float st, float sr, float sb) {
+    if (!recording) return;
+    int quad = quadCount++;
+    if (quad == quadTints.length) expandQuads();
+
+    // store the quad's transform relative to the transform in effect when we started recording
+    float b00 = xf.m00(), b01 = xf.m01(), b10 = xf.m10(), b11 = xf.m11();
+    float btx = xf.tx(), bty = xf.ty();
+    float[] data = quadData;
+    int pos = quad*QUAD_FLOATS;
+    data[pos+M00] = i00*b00 + i10*b01;
+    data[pos+M01] = i01*b00 + i11*b01;
+    data[pos+M10] = i00*b10 + i10*b11;
+    data[pos+M11] = i01*b10 + i11*b11;
+    data[pos+TX] = i00*btx + i10*bty + itx;
+    data[pos+TY] = i01*btx + i11*bty + ity;
+    data[pos+LEFT] = left;
+    data[pos+TOP] = top;
+    data[pos+RIGHT] = right;
+    data[pos+BOTTOM] = bottom;
+    data[pos+SL] = sl;
+    data[pos+ST] = st;
+    data[pos+SR] = sr;
+    data[pos+SB] = sb;
+    quadShaders[quad] = shader;
+    quadTexs[quad] = tex;
+    quadTints[quad] = tint;
+  }
+
+  /** Records an image whose texture must be ensured before each replay. */
+  void addImage(AbstractImageGL<?> image) {
+    if (!recording) return;
+    for (int ii = 0; ii < imageCount; ii++) if (images[ii] == image) return;
+    if (imageCount == images.length) {
+      AbstractImageGL<?>[] nimages = new AbstractImageGL<?>[imageCount*2];
+      System.arraycopy(images, 0, nimages, 0, imageCount);
+      images = nimages;
+    }
+    images[imageCount++] = image;
+  }
+
+  /** Notes that something was rendered which cannot be recorded. The recording is abandoned. */
+  void fail() {
+    if (recording) {
+      recording = false;
+      clear();
+    }
+  }
+
+  /** Completes a recording started by {@link #begin}. */
+  void end() {
+    valid = recording;
+    recording = false;
+    // if the textures changed mid-recording, we may have recorded stale data
+    if (recTexGen != ctx.texGeneration()) clear();
+  }
+
+  /** Discards our recording. */
+  void clear() {
+    for (int ii = 0; ii < quadCount; ii++) quadShaders[ii] = null;
+    quadCount = 0;
+    for (int ii = 0; ii < imageCount; ii++) images[ii] = null;
+    imageCount = 0;
+    recShader = null;
+    valid = false;
+  }
+
+  private void expandQuads() {
+    int count = quadTints.length, ncount = count*2;
+    float[] ndata = new float[ncount*QUAD_FLOATS];
+    System.arraycopy(quadData, 0, ndata, 0, count*QUAD_FLOATS);
+    quadData = ndata;
+    GLShader[] nshaders = new GLShader[ncount];
+    System.arraycopy(quadShaders, 0, nshaders, 0, count);
+    quadShaders = nshaders;
+    int[] ntexs = new int[ncount];
+    System.arraycopy(quadTexs, 0, ntexs, 0, count);
+    quadTexs = ntexs;
+    int[] ntints = new int[ncount];
+    System.arraycopy(quadTints, 0, ntints, 0, count);
+    quadTints = ntints;
+  }
+}
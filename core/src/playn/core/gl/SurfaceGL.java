@@ -55,8 +55,7 @@ public class SurfaceGL extends AbstractSurfaceGL {
     // Draw this layer to the screen upside-down, because its contents are flipped (This happens
     // because it uses the same vertex program as everything else, which flips vertically to put
     // the origin at the top-left).
-    ctx.quadShader(shader).prepareTexture(tex, curTint).addQuad(
-      xform, 0, height, width, 0, 0, 0, 1, 1);
+    ctx.addQuad(ctx.quadShader(shader), tex, curTint, xform, 0, height, width, 0, 0, 0, 1, 1);
   }
 
   protected void createTexture() {
@@ -69,6 +68,7 @@ public class SurfaceGL extends AbstractSurfaceGL {
   protected void clearTexture() {
     ctx.destroyTexture(tex);
     tex = 0;
+    ctx.noteTextureChange();
     ctx.deleteFramebuffer(fbuf);
     fbuf = 0;
   }
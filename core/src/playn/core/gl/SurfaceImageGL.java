@@ -100,8 +100,10 @@ public class SurfaceImageGL extends AbstractImageGL<Object> implements SurfaceIm
                 float sl, float st, float sr, float sb) {
     if (tex > 0) {
       // we have to invert y here due to GL origin shenanigans
-      ctx.quadShader(shader).prepareTexture(tex, tint).addQuad(
-        xform, dx, dy, dx + dw, dy + dh, sl, 1-st, sr, 1-sb);
+      ctx.addQuad(ctx.quadShader(shader), tex, tint, xform, dx, dy, dx + dw, dy + dh,
+                  sl, 1-st, sr, 1-sb);
+    } else {
+      ctx.noteUncacheable();
     }
   }
 
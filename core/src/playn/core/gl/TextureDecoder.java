@@ -0,0 +1,182 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+/**
+ * Software decoders for block-compressed texture formats, used when the GPU does not support a
+ * {@link CompressedTexture}'s format. All decoders write premultiplied ARGB pixels.
+ */
+final class TextureDecoder {
+
+  /** Decodes ETC1 data into {@code pixels}. */
+  static void decodeETC1(byte[] data, int width, int height, int[] pixels) {
+    int[] block = new int[16];
+    int bwidth = (width+3)/4, bheight = (height+3)/4;
+    for (int by = 0; by < bheight; by++) {
+      for (int bx = 0; bx < bwidth; bx++) {
+        int offset = (by * bwidth + bx) * 8;
+        decodeETC1Block(readIntBE(data, offset), readIntBE(data, offset+4), block);
+        copyBlock(block, bx, by, width, height, pixels);
+      }
+    }
+  }
+
+  /** Decodes DXT1, DXT3 or DXT5 data into {@code pixels}. */
+  static void decodeDXT(int format, byte[] data, int width, int height, int[] pixels) {
+    int[] block = new int[16], alphas = new int[16];
+    boolean dxt1 = (format == CompressedTexture.DXT1_RGB || format == CompressedTexture.DXT1_RGBA);
+    int blockBytes = dxt1 ? 8 : 16;
+    int bwidth = (width+3)/4, bheight = (height+3)/4;
+    for (int by = 0; by < bheight; by++) {
+      for (int bx = 0; bx < bwidth; bx++) {
+        int offset = (by * bwidth + bx) * blockBytes;
+        if (dxt1) {
+          decodeColorBlock(data, offset, true, block);
+          if (format == CompressedTexture.DXT1_RGB) { // no alpha, so "transparent" is black
+            for (int ii = 0; ii < 16; ii++) block[ii] |= 0xFF000000;
+          }
+        } else {
+          if (format == CompressedTexture.DXT3_RGBA) decodeExplicitAlpha(data, offset, alphas);
+          else decodeInterpolatedAlpha(data, offset, alphas);
+          decodeColorBlock(data, offset+8, false, block);
+          for (int ii = 0; ii < 16; ii++) block[ii] = premultiply(block[ii], alphas[ii]);
+        }
+        copyBlock(block, bx, by, width, height, pixels);
+      }
+    }
+  }
+
+  private static void decodeETC1Block(int hi, int lo, int[] block) {
+    int r1, g1, b1, r2, g2, b2;
+    if ((hi & 2) == 0) { // individual mode: two 4-bit base colors
+      r1 = extend4(hi >>> 28); r2 = extend4((hi >>> 24) & 0xF);
+      g1 = extend4((hi >>> 20) & 0xF); g2 = extend4((hi >>> 16) & 0xF);
+      b1 = extend4((hi >>> 12) & 0xF); b2 = extend4((hi >>> 8) & 0xF);
+    } else { // differential mode: a 5-bit base color and a 3-bit signed delta
+      int r = hi >>> 27, g = (hi >>> 19) & 0x1F, b = (hi >>> 11) & 0x1F;
+      r1 = extend5(r); r2 = extend5((r + delta3(hi >>> 24)) & 0x1F);
+      g1 = extend5(g); g2 = extend5((g + delta3(hi >>> 16)) & 0x1F);
+      b1 = extend5(b); b2 = extend5((b + delta3(hi >>> 8)) & 0x1F);
+    }
+    int[] table1 = ETC1_MODIFIERS[(hi >>> 5) & 7], table2 = ETC1_MODIFIERS[(hi >>> 2) & 7];
+    boolean flip = (hi & 1) != 0;
+    for (int x = 0; x < 4; x++) {
+      for (int y = 0; y < 4; y++) {
+        int bit = x * 4 + y; // pixel indices are stored in column-major order
+        int index = ((lo >>> (bit + 15)) & 2) | ((lo >>> bit) & 1);
+        boolean second = flip ? (y >= 2) : (x >= 2);
+        int mod = second ? table2[index] : table1[index];
+        block[y * 4 + x] = second ?
+          0xFF000000 | clamp(r2 + mod) << 16 | clamp(g2 + mod) << 8 | clamp(b2 + mod) :
+          0xFF000000 | clamp(r1 + mod) << 16 | clamp(g1 + mod) << 8 | clamp(b1 + mod);
+      }
+    }
+  }
+
+  private static void decodeColorBlock(byte[] data, int offset, boolean dxt1, int[] block) {
+    int c0 = readShortLE(data, offset), c1 = readShortLE(data, offset+2);
+    int r0 = extend5(c0 >>> 11), g0 = extend6((c0 >>> 5) & 0x3F), b0 = extend5(c0 & 0x1F);
+    int r1 = extend5(c1 >>> 11), g1 = extend6((c1 >>> 5) & 0x3F), b1 = extend5(c1 & 0x1F);
+    int[] colors = { rgb(r0, g0, b0), rgb(r1, g1, b1), 0, 0 };
+    // DXT1 blocks with c0 <= c1 use three colors plus transparent black; the color blocks of DXT3
+    // and DXT5 always use four colors
+    if (c0 > c1 || !dxt1) {
+      colors[2] = rgb((2*r0 + r1) / 3, (2*g0 + g1) / 3, (2*b0 + b1) / 3);
+      colors[3] = rgb((r0 + 2*r1) / 3, (g0 + 2*g1) / 3, (b0 + 2*b1) / 3);
+    } else {
+      colors[2] = rgb((r0 + r1) / 2, (g0 + g1) / 2, (b0 + b1) / 2);
+    }
+    for (int row = 0; row < 4; row++) {
+      int bits = data[offset + 4 + row] & 0xFF;
+      for (int col = 0; col < 4; col++) block[row * 4 + col] = colors[(bits >>> (col * 2)) & 3];
+    }
+  }
+
+  private static void decodeExplicitAlpha(byte[] data, int offset, int[] alphas) {
+    for (int ii = 0; ii < 16; ii++) {
+      int nibble = (data[offset + ii/2] >>> ((ii & 1) * 4)) & 0xF;
+      alphas[ii] = nibble * 17;
+    }
+  }
+
+  private static void decodeInterpolatedAlpha(byte[] data, int offset, int[] alphas) {
+    int a0 = data[offset] & 0xFF, a1 = data[offset+1] & 0xFF;
+    int[] values = { a0, a1, 0, 0, 0, 0, 0, 255 };
+    if (a0 > a1) {
+      for (int ii = 1; ii < 7; ii++) values[ii+1] = ((7-ii) * a0 + ii * a1) / 7;
+    } else {
+      for (int ii = 1; ii < 5; ii++) values[ii+1] = ((5-ii) * a0 + ii * a1) / 5;
+    }
+    // the sixteen 3-bit indices are packed into six little-endian bytes
+    long bits = 0;
+    for (int ii = 5; ii >= 0; ii--) bits = (bits << 8) | (data[offset + 2 + ii] & 0xFF);
+    for (int ii = 0; ii < 16; ii++) alphas[ii] = values[(int)(bits >>> (ii * 3)) & 7];
+  }
+
+  private static void copyBlock(int[] block, int bx, int by, int width, int height,
+                                int[] pixels) {
+    int x0 = bx * 4, y0 = by * 4;
+    int cols = Math.min(4, width - x0), rows = Math.min(4, height - y0);
+    for (int row = 0; row < rows; row++) {
+      System.arraycopy(block, row * 4, pixels, (y0 + row) * width + x0, cols);
+    }
+  }
+
+  private static int premultiply(int rgb, int a) {
+    if (a == 255) return 0xFF000000 | rgb;
+    int r = ((rgb >> 16) & 0xFF) * a / 255, g = ((rgb >> 8) & 0xFF) * a / 255;
+    int b = (rgb & 0xFF) * a / 255;
+    return a << 24 | r << 16 | g << 8 | b;
+  }
+
+  private static int rgb(int r, int g, int b) {
+    return 0xFF000000 | r << 16 | g << 8 | b;
+  }
+
+  private static int clamp(int c) {
+    return (c < 0) ? 0 : (c > 255 ? 255 : c);
+  }
+
+  private static int extend4(int c) {
+    return c << 4 | c;
+  }
+
+  private static int extend5(int c) {
+    return c << 3 | c >> 2;
+  }
+
+  private static int extend6(int c) {
+    return c << 2 | c >> 4;
+  }
+
+  private static int delta3(int bits) {
+    return ((bits & 7) ^ 4) - 4; // sign extend the low three bits
+  }
+
+  private static int readIntBE(byte[] data, int offset) {
+    return (data[offset] & 0xFF) << 24 | (data[offset+1] & 0xFF) << 16 |
+      (data[offset+2] & 0xFF) << 8 | (data[offset+3] & 0xFF);
+  }
+
+  private static int readShortLE(byte[] data, int offset) {
+    return (data[offset] & 0xFF) | (data[offset+1] & 0xFF) << 8;
+  }
+
+  private static final int[][] ETC1_MODIFIERS = {
+    { 2, 8, -2, -8 }, { 5, 17, -5, -17 }, { 9, 29, -9, -29 }, { 13, 42, -13, -42 },
+    { 18, 60, -18, -60 }, { 24, 80, -24, -80 }, { 33, 106, -33, -106 }, { 47, 183, -47, -183 }
+  };
+}
@@ -0,0 +1,154 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import playn.core.Image;
+import playn.core.util.Callback;
+
+/**
+ * Spreads the upload of image textures across frames. Images queued via {@link
+ * GLContext#queueUpload} are uploaded at the start of each frame until the frame's byte or time
+ * budget is exhausted. Images that support it (see {@link ImageGL#updateTextureRows}) are
+ * uploaded a strip of rows at a time, so that a single large image need not blow the budget.
+ *
+ * <p>An image that is painted before its staged upload completes simply creates its texture on
+ * demand, as usual, and the staged upload is abandoned.</p>
+ */
+final class UploadQueue {
+
+  private static final int BYTES_PER_PIXEL = 4;
+
+  private static class Upload {
+    public final ImageGL<?> image;
+    public final Callback<? super Image> onResident;
+    public int tex, width, height, uploadedRows, epoch;
+    public Upload(ImageGL<?> image, Callback<? super Image> onResident) {
+      this.image = image;
+      this.onResident = onResident;
+    }
+  }
+
+  private final GLContext ctx;
+  private final List<Upload> queue = new ArrayList<Upload>();
+  private int maxBytes = 4*1024*1024;
+  private double maxMillis = 4;
+
+  UploadQueue(GLContext ctx) {
+    this.ctx = ctx;
+  }
+
+  void setBudget(int bytes, double millis) {
+    this.maxBytes = bytes;
+    this.maxMillis = millis;
+  }
+
+  void add(ImageGL<?> image, final Callback<? super Image> onResident) {
+    final Upload up = new Upload(image, onResident);
+    queue.add(up);
+    // if the image fails to load, it will never be ready, so drop it from the queue
+    image.addCallback(new Callback<Image>() {
+      public void onSuccess(Image image) {} // we'll notice it's ready in process()
+      public void onFailure(Throwable cause) {
+        queue.remove(up);
+        if (onResident != null) onResident.onFailure(cause);
+      }
+    });
+  }
+
+  int size() {
+    return queue.size();
+  }
+
+  /** Uploads queued images until this frame's budget is exhausted. */
+  void process() {
+    if (queue.isEmpty()) return;
+    double start = ctx.platform.time();
+    int bytes = 0;
+    for (int ii = 0; ii < queue.size(); ) {
+      Upload up = queue.get(ii);
+      // images that are still loading stay in the queue until they're ready
+      if (!up.image.isReady()) {
+        ii++;
+        continue;
+      }
+      bytes += upload(up, maxBytes - bytes);
+      if (up.tex == 0) { // upload complete
+        queue.remove(ii);
+        notifyResident(up);
+      } else ii++;
+      if (bytes >= maxBytes || ctx.platform.time() - start >= maxMillis) break;
+    }
+  }
+
+  /** Uploads all or part of the supplied image, and returns the number of bytes uploaded. When
+   * the upload is complete, {@code up.tex} is reset to zero. */
+  private int upload(Upload up, int budget) {
+    ImageGL<?> image = up.image;
+    if (image.tex > 0) {
+      // the image was painted and created its own texture, so we're done
+      if (up.tex > 0) {
+        ctx.destroyTexture(up.tex);
+        up.tex = 0;
+      }
+      return 0;
+    }
+    // if our GL context was lost, our partial texture went with it, so start over
+    if (up.tex > 0 && up.epoch != ctx.epoch()) up.tex = 0;
+
+    if (up.tex == 0) {
+      up.width = image.scale.scaledCeil(image.width());
+      up.height = image.scale.scaledCeil(image.height());
+      int size = up.width * up.height * BYTES_PER_PIXEL;
+      // images that are atlased, repeated, mipmapped or compressed, or that fit in the budget, go
+      // in one shot
+      if (size <= budget || image.repeatX || image.repeatY || image.mipmapped ||
+          image.compressedTexture() != null || !image.canUpdateTextureRows()) {
+        image.ensureTexture();
+        return size;
+      }
+      AtlasManager atlases = ctx.atlasManager();
+      if (atlases != null && atlases.canAtlas(image)) {
+        image.ensureTexture();
+        return size;
+      }
+      up.tex = ctx.createTexture(up.width, up.height, false, false, false);
+      up.epoch = ctx.epoch();
+      up.uploadedRows = 0;
+    }
+
+    int rowBytes = up.width * BYTES_PER_PIXEL;
+    int rows = Math.min(up.height - up.uploadedRows, Math.max(1, budget / rowBytes));
+    image.updateTextureRows(up.tex, up.uploadedRows, rows);
+    up.uploadedRows += rows;
+    if (up.uploadedRows == up.height) {
+      image.tex = up.tex;
+      up.tex = 0;
+    }
+    return rows * rowBytes;
+  }
+
+  private void notifyResident(Upload up) {
+    if (up.onResident == null) return;
+    try {
+      up.onResident.onSuccess(up.image);
+    } catch (Throwable t) {
+      ctx.platform.reportError("Texture resident callback failure [image=" + up.image + "]", t);
+    }
+  }
+}
@@ -21,23 +21,38 @@ import playn.core.Json;
 import playn.core.Json.TypedArray;
 
 /**
- * Extends an {@link ArrayList} with helper methods to determine the underlying JSON type of the list element.
+ * A JSON array, with helper methods to determine the underlying JSON type of its elements.
+ *
+ * <p>Arrays whose elements are all ints, or all doubles, are stored unboxed in an {@code int[]} or
+ * {@code double[]}. Arrays which mix ints and doubles are stored in a {@code double[]}, noting
+ * which elements are ints, so that they are still read (and written) as ints. Adding any other
+ * type of element, or inserting, replacing or removing an element, converts the array to a list of
+ * boxed values.</p>
  */
 class JsonArray implements Json.Array {
-  private final ArrayList<Object> list;
-  
+  /** The elements of this array, if it's not stored unboxed. Null until needed. */
+  private ArrayList<Object> list;
+  /** The elements of this array, if they're all ints or all doubles. */
+  private int[] ints;
+  private double[] doubles;
+  /** For an array stored in {@link #doubles}, a bit set of the elements that were added as ints,
+   * or null if there are none. */
+  private long[] intSlots;
+  /** The number of elements in {@link #ints} or {@link #doubles}. */
+  private int size;
+
   /**
    * Creates an empty {@link JsonArray} with the default capacity.
    */
   public JsonArray() {
-    list = new ArrayList<Object>();
   }
 
   /**
    * Creates an empty {@link JsonArray} from the given collection of objects.
    */
   JsonArray(Collection<? extends Object> collection) {
-    list = new ArrayList<Object>(collection);
+    for (Object value : collection)
+      append(value);
   }
 
   /**
@@ -56,11 +71,12 @@ class JsonArray implements Json.Array {
   
   public void add(java.lang.Object value) {
     JsonImpl.checkJsonType(value);
-    list.add(value);
+    append(value);
   }
   
   public void add(int index, java.lang.Object value) {
     JsonImpl.checkJsonType(value);
+    ArrayList<Object> list = list();
     // TODO(mmastrac): Use an array rather than ArrayList to make this more efficient
     while (list.size() < index)
       list.add(null);
@@ -114,6 +130,10 @@ class JsonArray implements Json.Array {
    * Returns the {@link Double} at the given index, or the default if it does not exist or is the wrong type.
    */
   public double getDouble(int key, double default_) {
+    if (ints != null)
+      return (key >= 0 && key < size) ? ints[key] : default_;
+    if (doubles != null)
+      return (key >= 0 && key < size) ? doubles[key] : default_;
     Object o = get(key);
     return o instanceof Number ? ((Number)o).doubleValue() : default_;
   }
@@ -129,6 +149,10 @@ class JsonArray implements Json.Array {
    * Returns the {@link Float} at the given index, or the default if it does not exist or is the wrong type.
    */
   public float getNumber(int key, float default_) {
+    if (ints != null)
+      return (key >= 0 && key < size) ? ints[key] : default_;
+    if (doubles != null)
+      return (key >= 0 && key < size) ? (float)doubles[key] : default_;
     Object o = get(key);
     return o instanceof Number ? ((Number)o).floatValue() : default_;
   }
@@ -144,6 +168,10 @@ class JsonArray implements Json.Array {
    * Returns the {@link Integer} at the given index, or the default if it does not exist or is the wrong type.
    */
   public int getInt(int key, int default_) {
+    if (ints != null)
+      return (key >= 0 && key < size) ? ints[key] : default_;
+    if (doubles != null)
+      return (key >= 0 && key < size) ? (int)doubles[key] : default_;
     Object o = get(key);
     return o instanceof Number ? ((Number)o).intValue() : default_;
   }
@@ -160,10 +188,37 @@ class JsonArray implements Json.Array {
    * wrong type.
    */
   public long getLong(int key, long default_) {
+    if (ints != null)
+      return (key >= 0 && key < size) ? ints[key] : default_;
+    if (doubles != null)
+      return (key >= 0 && key < size) ? (long)doubles[key] : default_;
     Object o = get(key);
     return o instanceof Number ? ((Number)o).longValue() : default_;
   }
 
+  @Override
+  public int[] getInts(int[] into) {
+    int length = length();
+    if (into == null || into.length < length)
+      into = new int[length];
+    if (ints != null)
+      System.arraycopy(ints, 0, into, 0, length);
+    else
+      for (int i = 0; i < length; i++)
+        into[i] = getInt(i);
+    return into;
+  }
+
+  @Override
+  public float[] getFloats(float[] into) {
+    int length = length();
+    if (into == null || into.length < length)
+      into = new float[length];
+    for (int i = 0; i < length; i++)
+      into[i] = getNumber(i);
+    return into;
+  }
+
   /**
    * Returns the {@link JsonObject} at the given index, or null if it does not exist or is the wrong type.
    */
@@ -238,19 +293,20 @@ class JsonArray implements Json.Array {
 
   @Override
   public int length() {
-    return list.size();
+    return (ints != null || doubles != null) ? size : (list == null ? 0 : list.size());
   }
 
   @Override
   public void remove(int index) {
-    if (index < 0 || index >= list.size())
+    if (index < 0 || index >= length())
       return;
-    list.remove(index);
+    list().remove(index);
   }
   
   @Override
   public void set(int index, java.lang.Object value) {
     JsonImpl.checkJsonType(value);
+    ArrayList<Object> list = list();
     // TODO(mmastrac): Use an array rather than ArrayList to make this more efficient
     while (list.size() <= index)
       list.add(null);
@@ -259,22 +315,171 @@ class JsonArray implements Json.Array {
 
   @Override
   public String toString() {
-    return list.toString();
+    if (list != null)
+      return list.toString();
+    // match the formatting of AbstractCollection.toString
+    StringBuilder buf = new StringBuilder("[");
+    for (int i = 0, length = length(); i < length; i++) {
+      if (i > 0)
+        buf.append(", ");
+      buf.append(get(i));
+    }
+    return buf.append(']').toString();
   }
   
   @Override
   public <T extends JsonSink<T>> JsonSink<T> write(JsonSink<T> sink) {
-    for (int i = 0; i < list.size(); i++)
-      sink.value(list.get(i));
+    for (int i = 0, length = length(); i < length; i++)
+      sink.value(get(i));
     return sink;
   }
   
+  /**
+   * Appends all of the elements of {@code other} to this array.
+   */
+  void addAll(JsonArray other) {
+    for (int i = 0, length = other.length(); i < length; i++) {
+      if (other.ints != null)
+        addInt(other.ints[i]);
+      else if (other.doubles != null && other.isIntSlot(i))
+        addInt((int)other.doubles[i]);
+      else if (other.doubles != null)
+        addDouble(other.doubles[i]);
+      else
+        append(other.list.get(i));
+    }
+  }
+
+  /**
+   * Returns the array in which this array's elements are stored, if they're all ints, or null.
+   * Only the first {@link #length} elements of the returned array are valid.
+   */
+  int[] intValues() {
+    return ints;
+  }
+
+  /**
+   * Returns the array in which this array's elements are stored, if they're all doubles, or null.
+   * Only the first {@link #length} elements of the returned array are valid.
+   */
+  double[] doubleValues() {
+    return (intSlots == null) ? doubles : null;
+  }
+
+  /**
+   * Appends an int, keeping this array unboxed if possible.
+   */
+  void addInt(int value) {
+    if (doubles != null) {
+      int index = size;
+      pushDouble(value);
+      if (intSlots == null)
+        intSlots = new long[doubles.length / 64 + 1];
+      else if (index / 64 >= intSlots.length) {
+        long[] nslots = new long[doubles.length / 64 + 1];
+        System.arraycopy(intSlots, 0, nslots, 0, intSlots.length);
+        intSlots = nslots;
+      }
+      intSlots[index / 64] |= 1L << (index % 64);
+      return;
+    }
+    if (ints == null && length() > 0) {
+      list().add(value);
+      return;
+    }
+    if (ints == null) {
+      ints = new int[8];
+      list = null;
+    } else if (size == ints.length) {
+      int[] nints = new int[size * 2];
+      System.arraycopy(ints, 0, nints, 0, size);
+      ints = nints;
+    }
+    ints[size++] = value;
+  }
+
+  /**
+   * Appends a double, keeping this array unboxed if possible. If this array holds only ints, they
+   * are widened to doubles (but still read as ints).
+   */
+  void addDouble(double value) {
+    if (ints != null) {
+      doubles = new double[ints.length];
+      intSlots = new long[ints.length / 64 + 1];
+      for (int i = 0; i < size; i++) {
+        doubles[i] = ints[i];
+        intSlots[i / 64] |= 1L << (i % 64);
+      }
+      ints = null;
+    } else if (doubles == null && length() > 0) {
+      list().add(value);
+      return;
+    }
+    pushDouble(value);
+  }
+
+  private void pushDouble(double value) {
+    if (doubles == null) {
+      doubles = new double[8];
+      list = null;
+    } else if (size == doubles.length) {
+      double[] ndoubles = new double[size * 2];
+      System.arraycopy(doubles, 0, ndoubles, 0, size);
+      doubles = ndoubles;
+    }
+    doubles[size++] = value;
+  }
+
+  /**
+   * Returns true if the element at {@code index} of {@link #doubles} was added as an int. The
+   * bit set only grows as ints are added, so elements beyond its end were added as doubles.
+   */
+  private boolean isIntSlot(int index) {
+    int word = index / 64;
+    return intSlots != null && word < intSlots.length &&
+      (intSlots[word] & (1L << (index % 64))) != 0;
+  }
+
   /**
    * Returns the underlying object at the given index, or null if it does not exist or is out of
    * bounds (to match the HTML implementation).
    */
   Object get(int key) {
-    return (key >= 0 && key < list.size()) ? list.get(key) : null;
+    if (key < 0 || key >= length())
+      return null;
+    if (ints != null)
+      return ints[key];
+    if (doubles != null)
+      return isIntSlot(key) ? (Object)(int)doubles[key] : (Object)doubles[key];
+    return list.get(key);
+  }
+
+  /**
+   * Appends a value whose type has already been checked.
+   */
+  private void append(Object value) {
+    if (value instanceof Integer)
+      addInt((Integer)value);
+    else if (value instanceof Double)
+      addDouble((Double)value);
+    else
+      list().add(value);
+  }
+
+  /**
+   * Returns the list of this array's elements, first boxing them if they're stored unboxed.
+   */
+  private ArrayList<Object> list() {
+    if (list == null) {
+      list = new ArrayList<Object>(Math.max(size, 10));
+      for (int i = 0; i < size; i++)
+        list.add(get(i));
+      ints = null;
+      doubles = null;
+      intSlots = null;
+      size = 0;
+    }
+    return list;
   }
  
 }
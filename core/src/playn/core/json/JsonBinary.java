@@ -0,0 +1,167 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import java.nio.ByteBuffer;
+
+import playn.core.Json;
+
+/**
+ * Reads and writes {@link Json.Object}s and {@link Json.Array}s in a compact binary format, which
+ * is typically a third the size of the equivalent JSON text, and much faster to encode and decode.
+ * For example:
+ * <pre>{@code
+ * byte[] save = JsonBinary.write(state);
+ * Json.Object restored = JsonBinary.parse(save);
+ * }</pre>
+ *
+ * <p>Every value starts with a one byte tag. Numbers are written as zigzag encoded varints, or as
+ * IEEE floats or doubles; strings as a varint length followed by their UTF-8 bytes; and arrays and
+ * objects as their elements followed by an end marker. Arrays of ints or doubles (as produced by
+ * the parser for homogeneous numeric arrays) are packed, as a count followed by the numbers,
+ * without per-element tags. Each distinct object key is written once; subsequent uses of the key
+ * refer back to the first.</p>
+ *
+ * <p>This class is not available on the HTML platform.</p>
+ */
+public final class JsonBinary {
+
+  /**
+   * Creates a writer that writes a single value in the binary format. The writer is used just
+   * like a {@link Json.Writer}, and the result obtained via {@link JsonBinaryWriter#toByteArray}.
+   */
+  public static JsonBinaryWriter newWriter() {
+    return new JsonBinaryWriter();
+  }
+
+  /**
+   * Encodes {@code object} in the binary format.
+   */
+  public static byte[] write(Json.Object object) {
+    return newWriter().object(object).toByteArray();
+  }
+
+  /**
+   * Encodes {@code array} in the binary format.
+   */
+  public static byte[] write(Json.Array array) {
+    return newWriter().array(array).toByteArray();
+  }
+
+  /**
+   * Decodes an object from {@code bytes}.
+   *
+   * @throws JsonParserException if {@code bytes} does not contain exactly one encoded object.
+   */
+  public static Json.Object parse(byte[] bytes) throws JsonParserException {
+    return parse(bytes, true);
+  }
+
+  /**
+   * Decodes an object from {@code bytes}. The decoded objects iterate their keys in sorted order
+   * if {@code sortKeys} is true, or in encoded order otherwise (see {@link JsonImpl#setSortKeys}).
+   *
+   * @throws JsonParserException if {@code bytes} does not contain exactly one encoded object.
+   */
+  public static Json.Object parse(byte[] bytes, boolean sortKeys) throws JsonParserException {
+    return parse(ByteBuffer.wrap(bytes), sortKeys);
+  }
+
+  /**
+   * Decodes an object from the remaining bytes of {@code bytes}, which may be a direct buffer.
+   * The position of {@code bytes} is not changed.
+   *
+   * @throws JsonParserException if {@code bytes} does not contain exactly one encoded object.
+   */
+  public static Json.Object parse(ByteBuffer bytes) throws JsonParserException {
+    return parse(bytes, true);
+  }
+
+  /**
+   * Decodes an object from the remaining bytes of {@code bytes}, as {@link #parse(byte[],boolean)}
+   * does. The position of {@code bytes} is not changed.
+   *
+   * @throws JsonParserException if {@code bytes} does not contain exactly one encoded object.
+   */
+  public static Json.Object parse(ByteBuffer bytes, boolean sortKeys)
+      throws JsonParserException {
+    return new JsonBinaryParser(bytes).setSortKeys(sortKeys).parse(JsonObject.class);
+  }
+
+  /**
+   * Decodes an array from {@code bytes}.
+   *
+   * @throws JsonParserException if {@code bytes} does not contain exactly one encoded array.
+   */
+  public static Json.Array parseArray(byte[] bytes) throws JsonParserException {
+    return parseArray(bytes, true);
+  }
+
+  /**
+   * Decodes an array from {@code bytes}. Objects in the array iterate their keys in sorted order
+   * if {@code sortKeys} is true, or in encoded order otherwise.
+   *
+   * @throws JsonParserException if {@code bytes} does not contain exactly one encoded array.
+   */
+  public static Json.Array parseArray(byte[] bytes, boolean sortKeys)
+      throws JsonParserException {
+    return parseArray(ByteBuffer.wrap(bytes), sortKeys);
+  }
+
+  /**
+   * Decodes an array from the remaining bytes of {@code bytes}, which may be a direct buffer.
+   * The position of {@code bytes} is not changed.
+   *
+   * @throws JsonParserException if {@code bytes} does not contain exactly one encoded array.
+   */
+  public static Json.Array parseArray(ByteBuffer bytes) throws JsonParserException {
+    return parseArray(bytes, true);
+  }
+
+  /**
+   * Decodes an array from the remaining bytes of {@code bytes}, as
+   * {@link #parseArray(byte[],boolean)} does. The position of {@code bytes} is not changed.
+   *
+   * @throws JsonParserException if {@code bytes} does not contain exactly one encoded array.
+   */
+  public static Json.Array parseArray(ByteBuffer bytes, boolean sortKeys)
+      throws JsonParserException {
+    return new JsonBinaryParser(bytes).setSortKeys(sortKeys).parse(JsonArray.class);
+  }
+
+  static final int NULL = 0, FALSE = 1, TRUE = 2;
+  /** A zigzag encoded varint. */
+  static final int INT = 3;
+  /** Eight and four byte big endian IEEE numbers. */
+  static final int DOUBLE = 4, FLOAT = 5;
+  /** A varint length followed by the bytes of {@link java.math.BigInteger#toByteArray}. */
+  static final int BIG_INTEGER = 6;
+  /** A varint length followed by UTF-8 bytes. */
+  static final int STRING = 7;
+  /** Elements up to {@link #END}. */
+  static final int ARRAY = 8;
+  /** Keys and values, up to a zero key header. A key header is a varint: odd headers are followed
+   * by a new key, of {@code header >>> 1} UTF-8 bytes; even headers refer to the {@code
+   * (header >>> 1) - 1}th new key in the document. */
+  static final int OBJECT = 9;
+  static final int END = 10;
+  /** A varint count followed by zigzag encoded varints, or big endian doubles. */
+  static final int PACKED_INTS = 11, PACKED_DOUBLES = 12;
+
+  /** The maximum number of distinct keys that may be referred back to. */
+  static final int MAX_KEYS = 4096;
+
+  private JsonBinary() {
+  }
+}
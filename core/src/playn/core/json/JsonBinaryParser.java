@@ -0,0 +1,242 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodes a value in the binary format described by {@link JsonBinary}. Bytes are read from the
+ * buffer by absolute index, so heap and direct buffers are read in place, without copying. Errors
+ * report the offset of the offending byte (relative to the buffer's position) as their char
+ * offset and position, and line one as their line.
+ */
+final class JsonBinaryParser {
+
+  JsonBinaryParser(ByteBuffer bytes) {
+    this.bytes = bytes;
+    this.start = bytes.position();
+    this.pos = start;
+    this.end = bytes.limit();
+  }
+
+  /**
+   * Configures whether the objects created by this parser iterate their keys in sorted order (the
+   * default) or in encoded order.
+   */
+  JsonBinaryParser setSortKeys(boolean sortKeys) {
+    this.sortKeys = sortKeys;
+    return this;
+  }
+
+  /**
+   * Decodes a single value, which must be a {@code clazz}, expecting the end of the input after it.
+   */
+  @SuppressWarnings("unchecked")
+  <T> T parse(Class<T> clazz) throws JsonParserException {
+    Object parsed = readValue(readByte());
+    if (pos != end)
+      throw error("Expected end of input", pos);
+    if (clazz != Object.class && (parsed == null || clazz != parsed.getClass()))
+      throw error("JSON did not contain the correct type, expected " + clazz.getName() + ".",
+                  start);
+    return (T)parsed;
+  }
+
+  private Object readValue(int tag) throws JsonParserException {
+    switch (tag) {
+    case JsonBinary.NULL:
+      return null;
+    case JsonBinary.FALSE:
+      return Boolean.FALSE;
+    case JsonBinary.TRUE:
+      return Boolean.TRUE;
+    case JsonBinary.INT:
+      long value = unzigzag(readVarlong());
+      if (value == (int)value)
+        return (int)value;
+      return value;
+    case JsonBinary.DOUBLE:
+      return Double.longBitsToDouble(readLong());
+    case JsonBinary.FLOAT:
+      // floats are parsed as doubles, just as they are from text
+      return (double)Float.intBitsToFloat(readInt());
+    case JsonBinary.BIG_INTEGER:
+      byte[] magnitude = new byte[readLength()];
+      for (int ii = 0; ii < magnitude.length; ii++)
+        magnitude[ii] = bytes.get(pos++);
+      return new BigInteger(magnitude);
+    case JsonBinary.STRING:
+      return readUTF8(readLength());
+    case JsonBinary.ARRAY:
+      JsonArray array = new JsonArray();
+      for (int etag = readByte(); etag != JsonBinary.END; etag = readByte())
+        array.add(readValue(etag));
+      return array;
+    case JsonBinary.OBJECT:
+      JsonObject object = new JsonObject(sortKeys);
+      for (int header = readVarint(); header != 0; header = readVarint()) {
+        String key = readKey(header);
+        object.put(key, readValue(readByte()));
+      }
+      return object;
+    case JsonBinary.PACKED_INTS:
+      JsonArray ints = new JsonArray();
+      for (int ii = 0, count = readCount(1); ii < count; ii++) {
+        long ivalue = unzigzag(readVarlong());
+        if (ivalue == (int)ivalue)
+          ints.addInt((int)ivalue);
+        else
+          throw error("Packed int out of range: " + ivalue, pos - 1);
+      }
+      return ints;
+    case JsonBinary.PACKED_DOUBLES:
+      JsonArray doubles = new JsonArray();
+      for (int ii = 0, count = readCount(8); ii < count; ii++)
+        doubles.addDouble(Double.longBitsToDouble(readLong()));
+      return doubles;
+    default:
+      throw error("Invalid value tag: " + tag, pos - 1);
+    }
+  }
+
+  private String readKey(int header) throws JsonParserException {
+    if ((header & 1) == 0) {
+      int index = (header >>> 1) - 1;
+      if (index >= keys.size())
+        throw error("Invalid key reference: " + index, pos - 1);
+      return keys.get(index);
+    }
+    int length = header >>> 1;
+    checkRemaining(length);
+    String key = readUTF8(length);
+    if (keys.size() < JsonBinary.MAX_KEYS)
+      keys.add(key);
+    return key;
+  }
+
+  /**
+   * Reads {@code length} bytes of (the writer's flavor of) UTF-8.
+   */
+  private String readUTF8(int length) throws JsonParserException {
+    if (chars.length < length)
+      chars = new char[Math.max(length, chars.length * 2)];
+    char[] out = chars;
+    int count = 0, stop = pos + length;
+    while (pos < stop) {
+      int b = bytes.get(pos++) & 0xFF;
+      if (b < 0x80)
+        out[count++] = (char)b;
+      else if ((b & 0xE0) == 0xC0)
+        out[count++] = (char)(((b & 0x1F) << 6) | continuation(stop));
+      else if ((b & 0xF0) == 0xE0)
+        out[count++] = (char)(((b & 0x0F) << 12) | (continuation(stop) << 6) | continuation(stop));
+      else if ((b & 0xF8) == 0xF0) {
+        int cp = ((b & 0x07) << 18) | (continuation(stop) << 12) | (continuation(stop) << 6) |
+          continuation(stop);
+        out[count++] = Character.highSurrogate(cp);
+        out[count++] = Character.lowSurrogate(cp);
+      } else
+        throw error("Invalid UTF-8 byte: 0x" + Integer.toHexString(b), pos - 1);
+    }
+    return new String(out, 0, count);
+  }
+
+  private int continuation(int stop) throws JsonParserException {
+    if (pos >= stop)
+      throw error("Truncated UTF-8 sequence", pos);
+    int b = bytes.get(pos++) & 0xFF;
+    if ((b & 0xC0) != 0x80)
+      throw error("Invalid UTF-8 byte: 0x" + Integer.toHexString(b), pos - 1);
+    return b & 0x3F;
+  }
+
+  /** Reads a byte length, and checks that that many bytes remain. */
+  private int readLength() throws JsonParserException {
+    return readCount(1);
+  }
+
+  /** Reads a count of items of {@code size} bytes (or at least that), and checks that they fit in
+   * the remaining bytes. */
+  private int readCount(int size) throws JsonParserException {
+    int count = readVarint();
+    checkRemaining((long)count * size);
+    return count;
+  }
+
+  private void checkRemaining(long length) throws JsonParserException {
+    if (length < 0 || length > end - pos)
+      throw error("Length exceeds end of input: " + length, pos);
+  }
+
+  private int readByte() throws JsonParserException {
+    if (pos >= end)
+      throw error("Unexpected end of input", pos);
+    return bytes.get(pos++) & 0xFF;
+  }
+
+  private int readVarint() throws JsonParserException {
+    long value = readVarlong();
+    if ((value >>> 31) != 0)
+      throw error("Varint out of range: " + value, pos - 1);
+    return (int)value;
+  }
+
+  private long readVarlong() throws JsonParserException {
+    long value = 0;
+    for (int shift = 0; shift < 64; shift += 7) {
+      int b = readByte();
+      value |= (long)(b & 0x7F) << shift;
+      if ((b & 0x80) == 0)
+        return value;
+    }
+    throw error("Malformed varint", pos - 1);
+  }
+
+  private int readInt() throws JsonParserException {
+    checkRemaining(4);
+    int value = 0;
+    for (int ii = 0; ii < 4; ii++)
+      value = (value << 8) | (bytes.get(pos++) & 0xFF);
+    return value;
+  }
+
+  private long readLong() throws JsonParserException {
+    checkRemaining(8);
+    long value = 0;
+    for (int ii = 0; ii < 8; ii++)
+      value = (value << 8) | (bytes.get(pos++) & 0xFF);
+    return value;
+  }
+
+  private static long unzigzag(long value) {
+    return (value >>> 1) ^ -(value & 1);
+  }
+
+  private JsonParserException error(String message, int at) {
+    int offset = at - start;
+    return new JsonParserException(null, message + " at byte " + offset, 1, offset, offset);
+  }
+
+  private final ByteBuffer bytes;
+  private final int start, end;
+  private int pos;
+  private boolean sortKeys = true;
+
+  /** The distinct keys read so far, in the order in which they were first written. */
+  private final List<String> keys = new ArrayList<String>();
+  private char[] chars = new char[64];
+}
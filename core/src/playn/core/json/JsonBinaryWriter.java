@@ -0,0 +1,396 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import java.math.BigInteger;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import playn.core.Json;
+
+/**
+ * A {@link JsonSink} that writes a value in the binary format described by {@link JsonBinary}.
+ * Obtain one via {@link JsonBinary#newWriter}.
+ */
+public final class JsonBinaryWriter implements JsonSink<JsonBinaryWriter> {
+
+  JsonBinaryWriter() {
+  }
+
+  /**
+   * Completes this writing session and returns the encoded value.
+   *
+   * @throws JsonWriterException if nothing was written, or an array or object was not ended.
+   */
+  public byte[] toByteArray() {
+    if (depth > 0)
+      throw new JsonWriterException("Unclosed JSON objects and/or arrays when closing writer");
+    if (first)
+      throw new JsonWriterException("Nothing was written to the JSON writer");
+    byte[] bytes = new byte[length];
+    System.arraycopy(buffer, 0, bytes, 0, length);
+    return bytes;
+  }
+
+  @Override
+  public JsonBinaryWriter array(Collection<?> c) {
+    return array(null, c);
+  }
+
+  @Override
+  public JsonBinaryWriter array(Json.Array c) {
+    return array(null, c);
+  }
+
+  @Override
+  public JsonBinaryWriter array(String key, Collection<?> c) {
+    start(key, false);
+    for (Object o : c)
+      value(o);
+    return end();
+  }
+
+  @Override
+  public JsonBinaryWriter array(String key, Json.Array c) {
+    // arrays stored unboxed are packed, without a tag per element
+    int[] ints = (c instanceof JsonArray) ? ((JsonArray)c).intValues() : null;
+    double[] doubles = (c instanceof JsonArray) ? ((JsonArray)c).doubleValues() : null;
+    if (ints != null || doubles != null) {
+      preValue(key);
+      int count = c.length();
+      if (ints != null) {
+        writeByte(JsonBinary.PACKED_INTS);
+        writeVarint(count);
+        for (int ii = 0; ii < count; ii++)
+          writeVarlong(zigzag(ints[ii]));
+      } else {
+        writeByte(JsonBinary.PACKED_DOUBLES);
+        writeVarint(count);
+        for (int ii = 0; ii < count; ii++)
+          writeLong(Double.doubleToLongBits(doubles[ii]));
+      }
+      return this;
+    }
+
+    start(key, false);
+    c.write(this);
+    return end();
+  }
+
+  @Override
+  public JsonBinaryWriter object(Map<?, ?> map) {
+    return object(null, map);
+  }
+
+  @Override
+  public JsonBinaryWriter object(Json.Object map) {
+    return object(null, map);
+  }
+
+  @Override
+  public JsonBinaryWriter object(String key, Map<?, ?> map) {
+    start(key, true);
+    for (Map.Entry<?, ?> entry : map.entrySet()) {
+      if (!(entry.getKey() instanceof String))
+        throw new JsonWriterException("Invalid key type for map: "
+            + (entry.getKey() == null ? "null" : entry.getKey().getClass()));
+      value((String)entry.getKey(), entry.getValue());
+    }
+    return end();
+  }
+
+  @Override
+  public JsonBinaryWriter object(String key, Json.Object obj) {
+    start(key, true);
+    obj.write(this);
+    return end();
+  }
+
+  @Override
+  public JsonBinaryWriter nul() {
+    return nul(null);
+  }
+
+  @Override
+  public JsonBinaryWriter nul(String key) {
+    preValue(key);
+    writeByte(JsonBinary.NULL);
+    return this;
+  }
+
+  @Override
+  public JsonBinaryWriter value(Object o) {
+    return value(null, o);
+  }
+
+  @Override
+  public JsonBinaryWriter value(String key, Object o) {
+    if (o == null)
+      return nul(key);
+    else if (o instanceof String)
+      return value(key, (String)o);
+    else if (o instanceof Number)
+      return value(key, (Number)o);
+    else if (o instanceof Boolean)
+      return value(key, (boolean)(Boolean)o);
+    else if (o instanceof Collection)
+      return array(key, (Collection<?>)o);
+    else if (o instanceof Map)
+      return object(key, (Map<?, ?>)o);
+    else if (JsonTypes.isArray(o))
+      return array(key, (Json.Array)o);
+    else if (JsonTypes.isObject(o))
+      return object(key, (Json.Object)o);
+    else
+      throw new JsonWriterException("Unable to handle type: " + o.getClass());
+  }
+
+  @Override
+  public JsonBinaryWriter value(String s) {
+    return value(null, s);
+  }
+
+  @Override
+  public JsonBinaryWriter value(boolean b) {
+    return value(null, b);
+  }
+
+  @Override
+  public JsonBinaryWriter value(Number n) {
+    return value(null, n);
+  }
+
+  @Override
+  public JsonBinaryWriter value(String key, String s) {
+    if (s == null)
+      return nul(key);
+    preValue(key);
+    writeByte(JsonBinary.STRING);
+    writeString(s);
+    return this;
+  }
+
+  @Override
+  public JsonBinaryWriter value(String key, boolean b) {
+    preValue(key);
+    writeByte(b ? JsonBinary.TRUE : JsonBinary.FALSE);
+    return this;
+  }
+
+  @Override
+  public JsonBinaryWriter value(String key, Number n) {
+    if (n == null)
+      return nul(key);
+    preValue(key);
+    if (n instanceof Integer || n instanceof Long || n instanceof Short || n instanceof Byte) {
+      writeByte(JsonBinary.INT);
+      writeVarlong(zigzag(n.longValue()));
+    } else if (n instanceof Float) {
+      writeByte(JsonBinary.FLOAT);
+      writeInt(Float.floatToIntBits(n.floatValue()));
+    } else if (n instanceof BigInteger) {
+      byte[] bytes = ((BigInteger)n).toByteArray();
+      writeByte(JsonBinary.BIG_INTEGER);
+      writeVarint(bytes.length);
+      ensureCapacity(bytes.length);
+      System.arraycopy(bytes, 0, buffer, length, bytes.length);
+      length += bytes.length;
+    } else {
+      writeByte(JsonBinary.DOUBLE);
+      writeLong(Double.doubleToLongBits(n.doubleValue()));
+    }
+    return this;
+  }
+
+  @Override
+  public JsonBinaryWriter array() {
+    return start(null, false);
+  }
+
+  @Override
+  public JsonBinaryWriter object() {
+    return start(null, true);
+  }
+
+  @Override
+  public JsonBinaryWriter array(String key) {
+    return start(key, false);
+  }
+
+  @Override
+  public JsonBinaryWriter object(String key) {
+    return start(key, true);
+  }
+
+  @Override
+  public JsonBinaryWriter end() {
+    if (depth == 0)
+      throw new JsonWriterException("Invalid call to end()");
+    // objects end with a zero key header
+    writeByte(inObject ? 0 : JsonBinary.END);
+    first = false;
+    inObject = states[--depth];
+    return this;
+  }
+
+  private JsonBinaryWriter start(String key, boolean object) {
+    preValue(key);
+    writeByte(object ? JsonBinary.OBJECT : JsonBinary.ARRAY);
+    if (depth == states.length) {
+      boolean[] nstates = new boolean[depth * 2];
+      System.arraycopy(states, 0, nstates, 0, depth);
+      states = nstates;
+    }
+    states[depth++] = inObject;
+    inObject = object;
+    first = true;
+    return this;
+  }
+
+  /**
+   * Checks that a value (keyed, if {@code key} is non-null) may be written, and writes its key.
+   */
+  private void preValue(String key) {
+    if (key == null && inObject)
+      throw new JsonWriterException("Invalid call to emit a keyless value while writing an object");
+    if (key != null && !inObject)
+      throw new JsonWriterException("Invalid call to emit a key value while not writing an object");
+    if (first)
+      first = false;
+    else if (depth == 0)
+      throw new JsonWriterException("Invalid call to emit a value in a finished JSON writer");
+    if (key != null)
+      writeKey(key);
+  }
+
+  private void writeKey(String key) {
+    Integer index = keys.get(key);
+    if (index != null) {
+      writeVarint((index + 1) << 1);
+      return;
+    }
+    if (keys.size() < JsonBinary.MAX_KEYS)
+      keys.put(key, keys.size());
+    writeUTF8(key, true);
+  }
+
+  private void writeString(String s) {
+    writeUTF8(s, false);
+  }
+
+  /**
+   * Writes {@code s} as its UTF-8 length followed by its UTF-8 bytes. If {@code key}, the length
+   * is written as an odd key header.
+   */
+  private void writeUTF8(String s, boolean key) {
+    int chars = s.length(), bytes = 0;
+    for (int ii = 0; ii < chars; ii++) {
+      char c = s.charAt(ii);
+      if (c < 0x80)
+        bytes += 1;
+      else if (c < 0x800)
+        bytes += 2;
+      else if (isSurrogatePair(s, ii)) {
+        bytes += 4;
+        ii++;
+      } else
+        bytes += 3;
+    }
+    writeVarint(key ? (bytes << 1) | 1 : bytes);
+
+    ensureCapacity(bytes);
+    byte[] buf = buffer;
+    int pos = length;
+    for (int ii = 0; ii < chars; ii++) {
+      char c = s.charAt(ii);
+      if (c < 0x80)
+        buf[pos++] = (byte)c;
+      else if (c < 0x800) {
+        buf[pos++] = (byte)(0xC0 | (c >> 6));
+        buf[pos++] = (byte)(0x80 | (c & 0x3F));
+      } else if (isSurrogatePair(s, ii)) {
+        int cp = Character.toCodePoint(c, s.charAt(++ii));
+        buf[pos++] = (byte)(0xF0 | (cp >> 18));
+        buf[pos++] = (byte)(0x80 | ((cp >> 12) & 0x3F));
+        buf[pos++] = (byte)(0x80 | ((cp >> 6) & 0x3F));
+        buf[pos++] = (byte)(0x80 | (cp & 0x3F));
+      } else {
+        // unpaired surrogates are encoded as is, as the text writer would do
+        buf[pos++] = (byte)(0xE0 | (c >> 12));
+        buf[pos++] = (byte)(0x80 | ((c >> 6) & 0x3F));
+        buf[pos++] = (byte)(0x80 | (c & 0x3F));
+      }
+    }
+    length = pos;
+  }
+
+  private static boolean isSurrogatePair(String s, int index) {
+    return Character.isHighSurrogate(s.charAt(index)) && index + 1 < s.length() &&
+      Character.isLowSurrogate(s.charAt(index + 1));
+  }
+
+  private static long zigzag(long value) {
+    return (value << 1) ^ (value >> 63);
+  }
+
+  private void writeByte(int b) {
+    ensureCapacity(1);
+    buffer[length++] = (byte)b;
+  }
+
+  private void writeVarint(int value) {
+    writeVarlong(value & 0xFFFFFFFFL);
+  }
+
+  private void writeVarlong(long value) {
+    ensureCapacity(10);
+    while ((value & ~0x7FL) != 0) {
+      buffer[length++] = (byte)((value & 0x7F) | 0x80);
+      value >>>= 7;
+    }
+    buffer[length++] = (byte)value;
+  }
+
+  private void writeInt(int value) {
+    ensureCapacity(4);
+    for (int shift = 24; shift >= 0; shift -= 8)
+      buffer[length++] = (byte)(value >>> shift);
+  }
+
+  private void writeLong(long value) {
+    ensureCapacity(8);
+    for (int shift = 56; shift >= 0; shift -= 8)
+      buffer[length++] = (byte)(value >>> shift);
+  }
+
+  private void ensureCapacity(int bytes) {
+    if (length + bytes > buffer.length) {
+      byte[] nbuffer = new byte[Math.max(buffer.length * 2, length + bytes)];
+      System.arraycopy(buffer, 0, nbuffer, 0, length);
+      buffer = nbuffer;
+    }
+  }
+
+  private byte[] buffer = new byte[256];
+  private int length;
+
+  /** Whether each enclosing array or object is an object; states[0] is the top level. */
+  private boolean[] states = new boolean[16];
+  private int depth;
+  private boolean first = true, inObject;
+
+  /** The index of each distinct key written so far. */
+  private final Map<String, Integer> keys = new HashMap<String, Integer>();
+}
@@ -13,7 +13,9 @@
  */
 package playn.core.json;
 
+import playn.core.AbstractPlatform;
 import playn.core.Json;
+import playn.core.util.Callback;
 
 /**
  * {@link Json} implementation for Java-like platforms.
@@ -22,6 +24,35 @@ import playn.core.Json;
  */
 public class JsonImpl implements Json {
 
+  private final AbstractPlatform platform;
+  private boolean sortKeys = true;
+
+  /**
+   * Creates a JSON implementation that performs "async" parses synchronously, on the calling
+   * thread.
+   */
+  public JsonImpl() {
+    this(null);
+  }
+
+  /**
+   * Creates a JSON implementation that performs async parses on {@code platform}'s async threads
+   * (see {@link AbstractPlatform#invokeAsync}).
+   */
+  public JsonImpl(AbstractPlatform platform) {
+    this.platform = platform;
+  }
+
+  /**
+   * Configures whether the objects created and parsed by this implementation iterate (and write)
+   * their keys in sorted order, which is the default, or in insertion order. Sorted order is
+   * deterministic regardless of how an object was built, but insertion order preserves the order
+   * of a parsed document and avoids sorting the keys of large objects.
+   */
+  public void setSortKeys(boolean sortKeys) {
+    this.sortKeys = sortKeys;
+  }
+
   @Override
   public Json.Writer newWriter() {
     return new JsonStringWriter();
@@ -34,7 +65,7 @@ public class JsonImpl implements Json {
   
   @Override
   public Object createObject() {
-    return new JsonObject();
+    return new JsonObject(sortKeys);
   }
   
   @Override
@@ -49,14 +80,51 @@ public class JsonImpl implements Json {
   
   @Override
   public Object parse(String json) throws JsonParserException {
-    return JsonParser.object().from(json);
+    return new JsonParser(json).setSortKeys(sortKeys).parse(JsonObject.class);
   }
 
   @Override
   public Array parseArray(String json) throws JsonParserException {
-    return JsonParser.array().from(json);
+    return new JsonParser(json).setSortKeys(sortKeys).parse(JsonArray.class);
   }
   
+  @Override
+  public Reader newReader(String json) {
+    return new JsonReader(new JsonParser(json).setSortKeys(sortKeys));
+  }
+
+  @Override
+  public void parseAsync(String json, Callback<? super Object> callback) {
+    if (platform != null) {
+      JsonParallelParser.parse(platform, json, JsonObject.class, sortKeys, callback);
+      return;
+    }
+    Object result;
+    try {
+      result = parse(json);
+    } catch (JsonParserException e) {
+      callback.onFailure(e);
+      return;
+    }
+    callback.onSuccess(result);
+  }
+
+  @Override
+  public void parseArrayAsync(String json, Callback<? super Array> callback) {
+    if (platform != null) {
+      JsonParallelParser.parse(platform, json, JsonArray.class, sortKeys, callback);
+      return;
+    }
+    Array result;
+    try {
+      result = parseArray(json);
+    } catch (JsonParserException e) {
+      callback.onFailure(e);
+      return;
+    }
+    callback.onSuccess(result);
+  }
+
   static void checkJsonType(java.lang.Object value) {
     if (value == null || value instanceof String || value instanceof Json.Object || value instanceof Json.Array || value instanceof Boolean || value instanceof Number)
       return;
@@ -13,27 +13,53 @@
  */
 package playn.core.json;
 
-import java.util.TreeMap;
-import java.util.Map;
+import java.util.Arrays;
 
 import playn.core.Json;
 import playn.core.Json.TypedArray;
 
 /**
- * Extends a {@link Map} with helper methods to determine the underlying JSON type of the map
- * element.
+ * A JSON object, with helper methods to determine the underlying JSON type of its members.
+ *
+ * <p>Members are stored compactly, in insertion order, in parallel arrays of keys and values. Small
+ * objects (the vast majority of those in typical JSON) are searched linearly; larger objects add
+ * an open addressing hash index. Keys may be iterated in insertion order, or in sorted order (the
+ * default), which is computed when needed and cached until the keys change.</p>
  */
 class JsonObject implements Json.Object {
-  private final Map<String, Object> map;
+  private final boolean sortKeys;
+  private String[] keys = NO_KEYS;
+  private Object[] values = NO_VALUES;
+  private int size;
+
+  /** Slots hold one plus the position of a key in {@link #keys}, or zero if empty. Created once
+   * the object has more than {@link #LINEAR_LIMIT} members. */
+  private int[] index;
+
+  /** The keys in sorted order, or null if they must be recomputed. */
+  private String[] sortedKeys;
+
+  /** Objects with no more than this many members are searched linearly. */
+  private static final int LINEAR_LIMIT = 8;
+
+  private static final String[] NO_KEYS = {};
+  private static final Object[] NO_VALUES = {};
 
   /**
-   * Creates an empty {@link JsonObject} with the default capacity.
+   * Creates an empty {@link JsonObject} whose keys are iterated in sorted order.
    */
   public JsonObject() {
-    // we use a tree map here to ensure predictable iteration order; for better or worse we have a
-    // bunch of tests that rely on a specific iteration order and those broke when we moved from
-    // JDK7 to 8; now we use an API that guarantees iteration order
-    map = new TreeMap<String, Object>();
+    // we iterate in sorted order by default to ensure predictable iteration order; for better or
+    // worse we have a bunch of tests that rely on a specific iteration order
+    this(true);
+  }
+
+  /**
+   * Creates an empty {@link JsonObject} whose keys are iterated in sorted order if {@code sortKeys}
+   * is true, or in insertion order if not.
+   */
+  JsonObject(boolean sortKeys) {
+    this.sortKeys = sortKeys;
   }
 
   /**
@@ -178,7 +204,7 @@ class JsonObject implements Json.Object {
    * Returns true if the object has an element at that key (even if that element is null).
    */
   public boolean containsKey(String key) {
-    return map.containsKey(key);
+    return find(key) >= 0;
   }
 
   /**
@@ -236,36 +262,155 @@ class JsonObject implements Json.Object {
 
   @Override
   public TypedArray<String> keys() {
-    return new JsonStringTypedArray(map.keySet());
+    return new JsonStringTypedArray(Arrays.asList(orderedKeys()));
   }
 
   @Override
   public void put(String key, Object value) {
     JsonImpl.checkJsonType(value);
-    map.put(key, value);
+    if (key == null)
+      throw new NullPointerException("JSON object keys may not be null");
+    int pos = find(key);
+    if (pos >= 0) {
+      values[pos] = value;
+      return;
+    }
+
+    if (size == keys.length) {
+      int capacity = Math.max(4, size * 2);
+      String[] nkeys = new String[capacity];
+      Object[] nvalues = new Object[capacity];
+      System.arraycopy(keys, 0, nkeys, 0, size);
+      System.arraycopy(values, 0, nvalues, 0, size);
+      keys = nkeys;
+      values = nvalues;
+    }
+    keys[size] = key;
+    values[size] = value;
+    size++;
+    sortedKeys = null;
+
+    if (index != null && size * 2 <= index.length)
+      addToIndex(size - 1);
+    else if (size > LINEAR_LIMIT)
+      rebuildIndex();
   }
 
   @Override
   public void remove(String key) {
-    map.remove(key);
+    int pos = find(key);
+    if (pos < 0)
+      return;
+    System.arraycopy(keys, pos + 1, keys, pos, size - pos - 1);
+    System.arraycopy(values, pos + 1, values, pos, size - pos - 1);
+    size--;
+    keys[size] = null;
+    values[size] = null;
+    sortedKeys = null;
+    if (size > LINEAR_LIMIT)
+      rebuildIndex();
+    else
+      index = null;
   }
 
   @Override
   public String toString() {
-    return map.toString();
+    StringBuilder buf = new StringBuilder("{");
+    for (String key : orderedKeys()) {
+      if (buf.length() > 1)
+        buf.append(", ");
+      buf.append(key).append('=').append(get(key));
+    }
+    return buf.append('}').toString();
   }
 
   @Override
   public <T extends JsonSink<T>> JsonSink<T> write(JsonSink<T> sink) {
-    for (Map.Entry<String, Object> entry : map.entrySet())
-      sink.value(entry.getKey(), entry.getValue());
+    if (sortKeys) {
+      for (String key : orderedKeys())
+        sink.value(key, get(key));
+    } else {
+      for (int ii = 0; ii < size; ii++)
+        sink.value(keys[ii], values[ii]);
+    }
     return sink;
   }
 
+  /**
+   * Puts all of the members of {@code other} into this object.
+   */
+  void putAll(JsonObject other) {
+    for (int ii = 0; ii < other.size; ii++)
+      put(other.keys[ii], other.values[ii]);
+  }
+
   /**
    * Gets the JSON value at the given key.
    */
   Object get(String key) {
-    return map.get(key);
+    int pos = find(key);
+    return (pos < 0) ? null : values[pos];
+  }
+
+  /**
+   * Returns the position of {@code key} in {@link #keys}, or -1 if it is not present.
+   */
+  private int find(String key) {
+    if (index == null) {
+      // keys are usually interned by the parser, so this is often just an identity check
+      for (int ii = 0; ii < size; ii++)
+        if (keys[ii].equals(key))
+          return ii;
+      return -1;
+    }
+    int mask = index.length - 1;
+    for (int slot = hash(key) & mask;; slot = (slot + 1) & mask) {
+      int pos = index[slot] - 1;
+      if (pos < 0)
+        return -1;
+      if (keys[pos].equals(key))
+        return pos;
+    }
+  }
+
+  private void addToIndex(int pos) {
+    int mask = index.length - 1;
+    int slot = hash(keys[pos]) & mask;
+    while (index[slot] != 0)
+      slot = (slot + 1) & mask;
+    index[slot] = pos + 1;
+  }
+
+  private void rebuildIndex() {
+    // keep the table at most half full, so that probe sequences stay short
+    int capacity = 16;
+    while (capacity < size * 2)
+      capacity <<= 1;
+    index = new int[capacity];
+    for (int ii = 0; ii < size; ii++)
+      addToIndex(ii);
+  }
+
+  /**
+   * Returns the keys in iteration order. The returned array must not be modified.
+   */
+  private String[] orderedKeys() {
+    if (!sortKeys) {
+      String[] ordered = new String[size];
+      System.arraycopy(keys, 0, ordered, 0, size);
+      return ordered;
+    }
+    if (sortedKeys == null) {
+      String[] sorted = new String[size];
+      System.arraycopy(keys, 0, sorted, 0, size);
+      Arrays.sort(sorted);
+      sortedKeys = sorted;
+    }
+    return sortedKeys;
+  }
+
+  private static int hash(String key) {
+    int h = key.hashCode();
+    return h ^ (h >>> 16);
   }
 }
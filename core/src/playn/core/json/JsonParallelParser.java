@@ -0,0 +1,351 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import playn.core.AbstractPlatform;
+import playn.core.util.Callback;
+
+/**
+ * Parses JSON documents off the calling thread, splitting large documents into slices that are
+ * parsed in parallel.
+ *
+ * <p>A quick structural scan, which tracks only string boundaries and nesting, finds the members
+ * of the document's root array or object. Runs of adjacent members are grouped into slices, and
+ * each slice is parsed by its own {@link JsonParser} via {@link AbstractPlatform#invokeAsync}.
+ * Members that are themselves large arrays or objects are split recursively. Once every slice is
+ * parsed, the slices are assembled in document order, and the result is delivered via {@link
+ * AbstractPlatform#invokeLater}.</p>
+ *
+ * <p>If the scan finds the document to be malformed, or any slice fails to parse, the document is
+ * reparsed sequentially, so that any error reported is exactly the one {@link JsonParser} would
+ * report.</p>
+ */
+final class JsonParallelParser<T> {
+
+  /** Documents shorter than this (in chars) are parsed sequentially, as one slice. */
+  static final int MIN_PARALLEL_LENGTH = 64*1024;
+
+  /** The minimum length of a slice, in chars. */
+  static final int MIN_SLICE_LENGTH = 8*1024;
+
+  /** The number of slices into which we aim to split a large document. */
+  static final int TARGET_SLICES = 16;
+
+  /**
+   * Parses {@code json} as a {@code clazz} (one of {@link JsonObject} or {@link JsonArray}) on
+   * {@code platform}'s async threads, and delivers the result to {@code callback}. The parsed
+   * objects iterate their keys in sorted order if {@code sortKeys} is true.
+   */
+  static <T> void parse(AbstractPlatform platform, String json, Class<T> clazz, boolean sortKeys,
+                        Callback<? super T> callback) {
+    final JsonParallelParser<T> parser =
+      new JsonParallelParser<T>(platform, json, clazz, sortKeys, callback);
+    platform.invokeAsync(new Runnable() {
+      public void run() {
+        parser.start();
+      }
+    });
+  }
+
+  private JsonParallelParser(AbstractPlatform platform, String json, Class<T> clazz,
+                             boolean sortKeys, Callback<? super T> callback) {
+    this.platform = platform;
+    this.json = json;
+    this.clazz = clazz;
+    this.sortKeys = sortKeys;
+    this.callback = callback;
+    this.sliceLength = Math.max(MIN_SLICE_LENGTH, json.length() / TARGET_SLICES);
+  }
+
+  /** Splits our document into slices and starts parsing them. Called on an async thread. */
+  void start() {
+    Node root = null;
+    if (json.length() >= MIN_PARALLEL_LENGTH) {
+      try {
+        int open = skipWhitespace(0);
+        char expect = (clazz == JsonArray.class) ? '[' : '{';
+        if (open < json.length() && json.charAt(open) == expect) {
+          root = split(open);
+          // nothing but whitespace may follow the root value
+          if (skipWhitespace(root.close + 1) != json.length()) root = null;
+        }
+      } catch (MalformedException e) {
+        root = null;
+      }
+    }
+    if (root == null || slices.size() < 2) {
+      parseSequentially();
+      return;
+    }
+
+    this.root = root;
+    pending = slices.size();
+    for (int ii = 1; ii < slices.size(); ii++) platform.invokeAsync(slices.get(ii));
+    // parse the first slice on this thread, rather than waiting for another
+    slices.get(0).run();
+  }
+
+  /**
+   * Scans the array or object that starts at {@code open}, adding slices for runs of its members
+   * to {@link #slices}, and recursively splitting members that are large arrays or objects.
+   */
+  private Node split(int open) throws MalformedException {
+    IntList commas = new IntList();
+    Node node = new Node(json.charAt(open) == '{', scan(open, commas));
+    int close = node.close;
+    if (commas.size == 0 && skipWhitespace(open + 1) == close) return node; // empty
+
+    int sliceStart = open + 1;
+    for (int mm = 0; mm <= commas.size; mm++) {
+      int mstart = (mm == 0) ? open + 1 : commas.get(mm - 1) + 1;
+      int mend = (mm == commas.size) ? close : commas.get(mm);
+      if (mend - mstart >= sliceLength) {
+        // this member is large; if it's an array or object, split it as well
+        String key = null;
+        int vstart = mstart;
+        if (node.object) {
+          JsonParser keyParser = new JsonParser(json, mstart, mend);
+          try {
+            key = keyParser.parseKey();
+          } catch (JsonParserException e) {
+            throw new MalformedException();
+          }
+          vstart = keyParser.position();
+        }
+        vstart = skipWhitespace(vstart);
+        char vc = json.charAt(vstart);
+        if (vc == '[' || vc == '{') {
+          if (mstart > sliceStart) addSlice(node, sliceStart, mstart - 1);
+          Node value = split(vstart);
+          if (skipWhitespace(value.close + 1) != mend) throw new MalformedException();
+          node.parts.add(new Member(key, value));
+          sliceStart = mend + 1;
+          continue;
+        }
+      }
+      // otherwise include this member in the current slice, ending the slice if it's long enough
+      if (mend - sliceStart >= sliceLength) {
+        addSlice(node, sliceStart, mend);
+        sliceStart = mend + 1;
+      }
+    }
+    if (sliceStart <= close) addSlice(node, sliceStart, close);
+    return node;
+  }
+
+  /**
+   * Scans the array or object that starts at {@code open}, adding the offsets of the commas that
+   * separate its members to {@code commas}.
+   * @return the offset of its closing bracket.
+   */
+  private int scan(int open, IntList commas) throws MalformedException {
+    String s = json;
+    int depth = 0;
+    for (int ii = open, ll = s.length(); ii < ll; ii++) {
+      char c = s.charAt(ii);
+      switch (c) {
+      case '"':
+        // skip to the end of the string, ignoring escaped quotes
+        while (true) {
+          if (++ii >= ll) throw new MalformedException();
+          char sc = s.charAt(ii);
+          if (sc == '\\') ii++;
+          else if (sc == '"') break;
+        }
+        break;
+      case '[':
+      case '{':
+        depth++;
+        break;
+      case ']':
+      case '}':
+        if (--depth == 0) {
+          if ((c == ']') != (s.charAt(open) == '[')) throw new MalformedException();
+          return ii;
+        }
+        break;
+      case ',':
+        if (depth == 1) commas.add(ii);
+        break;
+      }
+    }
+    throw new MalformedException();
+  }
+
+  private void addSlice(Node node, int start, int end) {
+    Slice slice = new Slice(this, node.object, start, end);
+    node.parts.add(slice);
+    slices.add(slice);
+  }
+
+  private int skipWhitespace(int pos) {
+    String s = json;
+    for (int ll = s.length(); pos < ll; pos++) {
+      char c = s.charAt(pos);
+      if (c != ' ' && c != '\n' && c != '\r' && c != '\t') break;
+    }
+    return pos;
+  }
+
+  private void sliceDone(boolean success) {
+    synchronized (this) {
+      failed |= !success;
+      if (--pending > 0) return;
+    }
+    // we're the last slice to finish, so assemble the results (or report the failure)
+    if (failed) {
+      parseSequentially();
+    } else {
+      @SuppressWarnings("unchecked") T result = (T)assemble(root);
+      succeed(result);
+    }
+  }
+
+  private Object assemble(Node node) {
+    if (node.object) {
+      JsonObject object = new JsonObject(sortKeys);
+      for (Object part : node.parts) {
+        if (part instanceof Slice) object.putAll((JsonObject)((Slice)part).result);
+        else object.put(((Member)part).key, assemble(((Member)part).value));
+      }
+      return object;
+    } else {
+      JsonArray array = new JsonArray();
+      for (Object part : node.parts) {
+        if (part instanceof Slice) array.addAll((JsonArray)((Slice)part).result);
+        else array.add(assemble(((Member)part).value));
+      }
+      return array;
+    }
+  }
+
+  private void parseSequentially() {
+    T result;
+    try {
+      result = new JsonParser(json).setSortKeys(sortKeys).parse(clazz);
+    } catch (final JsonParserException e) {
+      platform.invokeLater(new Runnable() {
+        public void run() {
+          callback.onFailure(e);
+        }
+      });
+      return;
+    }
+    succeed(result);
+  }
+
+  private void succeed(final T result) {
+    platform.invokeLater(new Runnable() {
+      public void run() {
+        callback.onSuccess(result);
+      }
+    });
+  }
+
+  /** An array or object that has been split into slices and members. */
+  private static class Node {
+    public final boolean object;
+    public final int close;
+    /** {@link Slice}s and {@link Member}s, in document order. */
+    public final List<Object> parts = new ArrayList<Object>();
+
+    public Node(boolean object, int close) {
+      this.object = object;
+      this.close = close;
+    }
+  }
+
+  /** A member of a {@link Node} that has itself been split. */
+  private static class Member {
+    /** The member's key, or null if it's an array element. */
+    public final String key;
+    public final Node value;
+
+    public Member(String key, Node value) {
+      this.key = key;
+      this.value = value;
+    }
+  }
+
+  /** A run of adjacent members, parsed as a unit. */
+  private static class Slice implements Runnable {
+    public final JsonParallelParser<?> parser;
+    public final boolean object;
+    public final int start, end;
+    public Object result;
+
+    public Slice(JsonParallelParser<?> parser, boolean object, int start, int end) {
+      this.parser = parser;
+      this.object = object;
+      this.start = start;
+      this.end = end;
+    }
+
+    public void run() {
+      boolean success = false;
+      try {
+        JsonParser slice = new JsonParser(parser.json, start, end).setSortKeys(parser.sortKeys);
+        if (object) {
+          JsonObject members = new JsonObject(parser.sortKeys);
+          slice.parseMembers(members);
+          result = members;
+        } else {
+          JsonArray elements = new JsonArray();
+          slice.parseElements(elements);
+          result = elements;
+        }
+        success = true;
+      } catch (Exception e) {
+        // we'll reparse sequentially to report the error
+      }
+      parser.sliceDone(success);
+    }
+  }
+
+  /** A growable list of ints. */
+  private static class IntList {
+    public int[] values = new int[16];
+    public int size;
+
+    public void add(int value) {
+      if (size == values.length) {
+        int[] nvalues = new int[size * 2];
+        System.arraycopy(values, 0, nvalues, 0, size);
+        values = nvalues;
+      }
+      values[size++] = value;
+    }
+
+    public int get(int index) {
+      return values[index];
+    }
+  }
+
+  @SuppressWarnings("serial")
+  private static class MalformedException extends Exception {}
+
+  private final AbstractPlatform platform;
+  private final String json;
+  private final Class<T> clazz;
+  private final boolean sortKeys;
+  private final Callback<? super T> callback;
+  private final int sliceLength;
+  private final List<Slice> slices = new ArrayList<Slice>();
+  private Node root;
+  private int pending;
+  private boolean failed;
+}
@@ -16,7 +16,18 @@ package playn.core.json;
 import java.math.BigInteger;
 
 /**
- * Simple JSON parser.
+ * Simple JSON parser. The parser is split into a tokenizer ({@link #advanceToken}), which reads
+ * characters from an {@link Input} via a fixed size buffer, and a recursive tree builder ({@link
+ * #currentValue}) layered on top of it. {@link JsonReader} provides streaming access to the same
+ * tokenizer.
+ *
+ * <p>Object keys are interned through a per-parse symbol table, so that the many objects in a
+ * typical document that share the same keys also share the same key strings, and a key that has
+ * been seen before is resolved without allocating.</p>
+ *
+ * <p>Numbers are parsed in place, without creating intermediate strings, and array elements that
+ * are ints or doubles are added to their {@link JsonArray} unboxed, so that homogeneous numeric
+ * arrays are stored as primitive arrays.</p>
  *
  * <pre>
  * Object json = {@link JsonParser}.any().from("{\"a\":[true,false], \"b\":1}");
@@ -29,22 +40,57 @@ final class JsonParser {
   private int linePos = 1, rowPos, charOffset, utf8adjust;
   private int tokenLinePos, tokenCharPos, tokenCharOffset;
   private Object value;
+  private int numberType, intNumber;
+  private double doubleNumber;
   private Token token;
   private StringBuilder reusableBuffer = new StringBuilder();
+  private boolean nextIsKey, sortKeys = true;
+
+  private String[] symbols = new String[64];
+  private int symbolCount;
 
   private boolean eof;
   private int index;
-  private String string;
+  private final Input input;
+  private final char[] buffer;
   private int bufferLength;
 
+  private static final int BUFFER_SIZE = 8*1024;
+
+  /** The maximum number of keys interned by a single parser. Documents with more distinct keys
+   * than this are probably using them as data, which we don't want to hold on to. */
+  private static final int MAX_SYMBOLS = 4096;
+
+  /** The types of number token: boxed in {@link #value}, or unboxed in {@link #intNumber} or
+   * {@link #doubleNumber}. */
+  private static final int BOXED = 0, INT = 1, DOUBLE = 2;
+
+  /** The powers of ten that are exactly representable as doubles. */
+  private static final double[] POWERS_OF_TEN = {
+    1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+    1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+  };
+
   private static final char[] TRUE = { 'r', 'u', 'e' };
   private static final char[] FALSE = { 'a', 'l', 's', 'e' };
   private static final char[] NULL = { 'u', 'l', 'l' };
 
+  /**
+   * A source of characters for the parser.
+   */
+  interface Input {
+    /**
+     * Reads up to {@code length} characters into {@code buffer} at {@code offset}.
+     *
+     * @return the number of characters read, or -1 at the end of the input.
+     */
+    int read(char[] buffer, int offset, int length) throws Exception;
+  }
+
   /**
    * The tokens available in JSON.
    */
-  private enum Token {
+  enum Token {
     EOF(false), NULL(true), TRUE(true), FALSE(true), STRING(true), NUMBER(true), COMMA(false), COLON(false), //
     OBJECT_START(true), OBJECT_END(false), ARRAY_START(true), ARRAY_END(false);
     public boolean isValue;
@@ -74,9 +120,53 @@ final class JsonParser {
   }
 
   JsonParser(String s) throws JsonParserException {
-    this.string = s;
-    this.bufferLength = s.length();
-    eof = (s.length() == 0);
+    this(s, 0, s.length());
+  }
+
+  /**
+   * Creates a parser over the characters of {@code s} from {@code start} (inclusive) to {@code end}
+   * (exclusive). Character offsets in errors are relative to the start of {@code s}, but line
+   * numbers are relative to {@code start}.
+   */
+  JsonParser(final String s, final int start, final int end) {
+    this(new Input() {
+      private int pos = start;
+      public int read(char[] buffer, int offset, int length) {
+        if (pos >= end)
+          return -1;
+        int count = Math.min(length, end - pos);
+        s.getChars(pos, pos + count, buffer, offset);
+        pos += count;
+        return count;
+      }
+    }, Math.max(1, Math.min(BUFFER_SIZE, end - start)));
+    this.charOffset = start;
+    this.rowPos = start;
+  }
+
+  /**
+   * Creates a parser that reads from {@code input}, buffering {@code bufferSize} characters at a
+   * time.
+   */
+  JsonParser(Input input, int bufferSize) {
+    this.input = input;
+    this.buffer = new char[bufferSize];
+  }
+
+  /**
+   * Creates a parser that reads from {@code input}.
+   */
+  JsonParser(Input input) {
+    this(input, BUFFER_SIZE);
+  }
+
+  /**
+   * Configures whether the objects created by this parser iterate their keys in sorted order (the
+   * default) or in document order.
+   */
+  JsonParser setSortKeys(boolean sortKeys) {
+    this.sortKeys = sortKeys;
+    return this;
   }
 
   /**
@@ -130,45 +220,170 @@ final class JsonParser {
   }
 
   /**
-   * Starts parsing a JSON value at the current token position.
+   * Parses a comma separated sequence of JSON values into {@code into}, expecting an EOF at the
+   * end. Used to parse a slice of an array's elements.
+   */
+  void parseElements(JsonArray into) throws JsonParserException {
+    while (true) {
+      advanceToken();
+      addCurrentValue(into);
+      if (advanceToken() == Token.EOF)
+        return;
+      if (token != Token.COMMA)
+        throw createParseException(null, "Expected a comma or end of input instead of " + token, true);
+    }
+  }
+
+  /**
+   * Parses a comma separated sequence of {@code "key": value} pairs into {@code into}, expecting
+   * an EOF at the end. Used to parse a slice of an object's members.
+   */
+  void parseMembers(JsonObject into) throws JsonParserException {
+    while (true) {
+      String key = parseKey();
+      advanceToken();
+      into.put(key, currentValue());
+      if (advanceToken() == Token.EOF)
+        return;
+      if (token != Token.COMMA)
+        throw createParseException(null, "Expected a comma or end of input instead of " + token, true);
+    }
+  }
+
+  /**
+   * Parses a {@code "key":} prefix, leaving the parser positioned at the start of the value.
+   */
+  String parseKey() throws JsonParserException {
+    if (advanceKeyToken() != Token.STRING)
+      throw createParseException(null, "Expected STRING, got " + token, true);
+    String key = (String)value;
+    if (advanceToken() != Token.COLON)
+      throw createParseException(null, "Expected COLON, got " + token, true);
+    return key;
+  }
+
+  /**
+   * Returns the offset into the source of the next character to be parsed.
+   */
+  int position() {
+    return charOffset + index;
+  }
+
+  /**
+   * Returns the most recently consumed token.
+   */
+  Token token() {
+    return token;
+  }
+
+  /**
+   * Returns the value of the most recently consumed string, number, boolean or null token.
+   */
+  Object value() {
+    return (token == Token.NUMBER) ? numberValue() : value;
+  }
+
+  /**
+   * Starts parsing a JSON value at the current token position. Arrays and objects are parsed
+   * through to their closing token.
+   */
+  Object currentValue() throws JsonParserException {
+    switch (token) {
+    case ARRAY_START:
+      return parseArray();
+    case OBJECT_START:
+      return parseObject();
+    default:
+      // Only a value start token should appear when we're in the context of parsing a JSON value
+      if (token.isValue)
+        return value();
+      throw createParseException(null, "Expected JSON value, got " + token, true);
+    }
+  }
+
+  /**
+   * Parses the remainder of an array, whose start token has been consumed.
    */
-  private Object currentValue() throws JsonParserException {
-    // Only a value start token should appear when we're in the context of parsing a JSON value
-    if (token.isValue)
-      return value;
-    throw createParseException(null, "Expected JSON value, got " + token, true);
+  private JsonArray parseArray() throws JsonParserException {
+    JsonArray list = new JsonArray();
+    if (advanceToken() != Token.ARRAY_END)
+      while (true) {
+        addCurrentValue(list);
+        if (advanceToken() == Token.ARRAY_END)
+          break;
+        if (token != Token.COMMA)
+          throw createParseException(null, "Expected a comma or end of the array instead of " + token, true);
+        if (advanceToken() == Token.ARRAY_END)
+          throw createParseException(null, "Trailing comma found in array", true);
+      }
+    return list;
+  }
+
+  /**
+   * Adds the value that starts at the current token to {@code array}, without boxing it if it's an
+   * int or double.
+   */
+  private void addCurrentValue(JsonArray array) throws JsonParserException {
+    if (token == Token.NUMBER && numberType == INT)
+      array.addInt(intNumber);
+    else if (token == Token.NUMBER && numberType == DOUBLE)
+      array.addDouble(doubleNumber);
+    else
+      array.add(currentValue());
+  }
+
+  /**
+   * Parses the remainder of an object, whose start token has been consumed.
+   */
+  private JsonObject parseObject() throws JsonParserException {
+    JsonObject map = new JsonObject(sortKeys);
+    if (advanceKeyToken() != Token.OBJECT_END)
+      while (true) {
+        if (token != Token.STRING)
+          throw createParseException(null, "Expected STRING, got " + token, true);
+        String key = (String)value;
+        if (advanceToken() != Token.COLON)
+          throw createParseException(null, "Expected COLON, got " + token, true);
+        advanceToken();
+        map.put(key, currentValue());
+        if (advanceToken() == Token.OBJECT_END)
+          break;
+        if (token != Token.COMMA)
+          throw createParseException(null, "Expected a comma or end of the object instead of " + token, true);
+        if (advanceKeyToken() == Token.OBJECT_END)
+          throw createParseException(null, "Trailing object found in array", true);
+      }
+    return map;
+  }
+
+  /**
+   * Consumes a token where an object key is expected. Identical to {@link #advanceToken}, except
+   * that a string token is interned via our symbol table.
+   */
+  Token advanceKeyToken() throws JsonParserException {
+    nextIsKey = true;
+    return advanceToken();
   }
 
   /**
    * Consumes a token, first eating up any whitespace ahead of it. Note that number tokens are not necessarily valid
-   * numbers.
+   * numbers. Array and object start tokens are returned as is; their contents are consumed by subsequent calls.
    */
-  private Token advanceToken() throws JsonParserException {
+  Token advanceToken() throws JsonParserException {
+    boolean isKey = nextIsKey;
+    nextIsKey = false;
     int c = advanceChar();
     while (isWhitespace(c))
       c = advanceChar();
 
     tokenLinePos = linePos;
-    tokenCharPos = index - rowPos - utf8adjust;
+    tokenCharPos = charOffset + index - rowPos - utf8adjust;
     tokenCharOffset = charOffset + index;
 
     switch (c) {
     case -1:
       return token = Token.EOF;
-    case '[': // Inlined function to avoid additional stack
-      JsonArray list = new JsonArray();
-      if (advanceToken() != Token.ARRAY_END)
-        while (true) {
-          list.add(currentValue());
-          if (advanceToken() == Token.ARRAY_END)
-            break;
-          if (token != Token.COMMA)
-            throw createParseException(null, "Expected a comma or end of the array instead of " + token,
-                true);
-          if (advanceToken() == Token.ARRAY_END)
-            throw createParseException(null, "Trailing comma found in array", true);
-        }
-      value = list;
+    case '[':
       return token = Token.ARRAY_START;
     case ']':
       return token = Token.ARRAY_END;
@@ -176,26 +391,7 @@ final class JsonParser {
       return token = Token.COMMA;
     case ':':
       return token = Token.COLON;
-    case '{': // Inlined function to avoid additional stack
-      JsonObject map = new JsonObject();
-      if (advanceToken() != Token.OBJECT_END)
-        while (true) {
-          if (token != Token.STRING)
-            throw createParseException(null, "Expected STRING, got " + token, true);
-          String key = (String)value;
-          if (advanceToken() != Token.COLON)
-            throw createParseException(null, "Expected COLON, got " + token, true);
-          advanceToken();
-          map.put(key, currentValue());
-          if (advanceToken() == Token.OBJECT_END)
-            break;
-          if (token != Token.COMMA)
-            throw createParseException(null, "Expected a comma or end of the object instead of " + token,
-                true);
-          if (advanceToken() == Token.OBJECT_END)
-            throw createParseException(null, "Trailing object found in array", true);
-        }
-      value = map;
+    case '{':
       return token = Token.OBJECT_START;
     case '}':
       return token = Token.OBJECT_END;
@@ -212,7 +408,7 @@ final class JsonParser {
       value = null;
       return token = Token.NULL;
     case '\"':
-      value = consumeTokenString();
+      value = consumeTokenString(isKey);
       return token = Token.STRING;
     case '-':
     case '0':
@@ -225,7 +421,7 @@ final class JsonParser {
     case '7':
     case '8':
     case '9':
-      value = consumeTokenNumber((char)c);
+      consumeTokenNumber((char)c);
       return token = Token.NUMBER;
     case '+':
     case '.':
@@ -252,21 +448,138 @@ final class JsonParser {
       throw createHelpfulException(first, expected, expected.length);
   }
 
+  /**
+   * Returns the value of the current number token, boxing it if necessary.
+   */
+  private Number numberValue() {
+    switch (numberType) {
+    case INT:
+      return intNumber;
+    case DOUBLE:
+      return doubleNumber;
+    default:
+      return (Number)value;
+    }
+  }
+
   /**
    * Steps through to the end of the current number token (a non-digit token).
    */
-  private Number consumeTokenNumber(char c) throws JsonParserException {
-    int start = index - 1;
-    int end = index;
+  private void consumeTokenNumber(char c) throws JsonParserException {
+    reusableBuffer.setLength(0);
+    reusableBuffer.append(c);
 
     boolean isDouble = false;
     while (isDigitCharacter(peekChar())) {
       char next = (char)advanceChar();
       isDouble = next == '.' || next == 'e' || next == 'E' || isDouble;
-      end++;
+      reusableBuffer.append(next);
+    }
+
+    if (parseNumberInPlace())
+      return;
+
+    Number number = parseNumber(isDouble);
+    if (number instanceof Integer) {
+      numberType = INT;
+      intNumber = number.intValue();
+    } else if (number instanceof Double) {
+      numberType = DOUBLE;
+      doubleNumber = number.doubleValue();
+    } else {
+      numberType = BOXED;
+      value = number;
+    }
+  }
+
+  /**
+   * Parses the number in {@link #reusableBuffer} directly from its characters, if it's a well
+   * formed int, or a well formed double whose value can be computed exactly (one with at most 15
+   * significant digits and a small exponent). Returns false if the number must instead be parsed
+   * (or rejected) by {@link #parseNumber}.
+   */
+  private boolean parseNumberInPlace() {
+    StringBuilder b = reusableBuffer;
+    int length = b.length(), i = 0;
+    boolean negative = b.charAt(0) == '-';
+    if (negative)
+      i++;
+
+    // the integer part; leading zeros are not allowed
+    int intStart = i;
+    long mantissa = 0;
+    int digits = 0, exponent = 0;
+    if (i < length && b.charAt(i) == '0')
+      i++;
+    else
+      for (char c; i < length && (c = b.charAt(i)) >= '0' && c <= '9'; i++) {
+        mantissa = mantissa * 10 + (c - '0');
+        if (++digits > 15)
+          return false;
+      }
+    int intLength = i - intStart;
+    if (intLength == 0)
+      return false;
+
+    if (i == length) {
+      // -0 is a double, and ints of ten or more digits may not fit in an int
+      if ((negative && mantissa == 0) || intLength >= 10)
+        return false;
+      numberType = INT;
+      intNumber = (int)(negative ? -mantissa : mantissa);
+      return true;
+    }
+
+    // the fraction
+    if (b.charAt(i) == '.') {
+      int fracStart = ++i;
+      for (char c; i < length && (c = b.charAt(i)) >= '0' && c <= '9'; i++) {
+        mantissa = mantissa * 10 + (c - '0');
+        exponent--;
+        if (mantissa != 0 && ++digits > 15)
+          return false;
+      }
+      if (i == fracStart)
+        return false;
     }
 
-    String number = string.substring(start, end);
+    // the exponent
+    if (i < length && (b.charAt(i) == 'e' || b.charAt(i) == 'E')) {
+      boolean negativeExp = false;
+      if (++i < length && (b.charAt(i) == '+' || b.charAt(i) == '-'))
+        negativeExp = b.charAt(i++) == '-';
+      int expStart = i, exp = 0;
+      for (char c; i < length && (c = b.charAt(i)) >= '0' && c <= '9'; i++)
+        if (exp < 1000)
+          exp = exp * 10 + (c - '0');
+      if (i == expStart)
+        return false;
+      exponent += negativeExp ? -exp : exp;
+    }
+    if (i != length)
+      return false;
+
+    // the mantissa and the power of ten are both exact, so a single multiplication or division
+    // yields the correctly rounded result
+    double d;
+    if (mantissa == 0)
+      d = 0;
+    else if (exponent >= 0 && exponent < POWERS_OF_TEN.length)
+      d = mantissa * POWERS_OF_TEN[exponent];
+    else if (exponent < 0 && -exponent < POWERS_OF_TEN.length)
+      d = mantissa / POWERS_OF_TEN[-exponent];
+    else
+      return false;
+    numberType = DOUBLE;
+    doubleNumber = negative ? -d : d;
+    return true;
+  }
+
+  /**
+   * Parses (or rejects) the number in {@link #reusableBuffer} via its string representation.
+   */
+  private Number parseNumber(boolean isDouble) throws JsonParserException {
+    String number = reusableBuffer.toString();
 
     try {
       if (isDouble) {
@@ -320,14 +633,14 @@ final class JsonParser {
   /**
    * Steps through to the end of the current string token (the unescaped double quote).
    */
-  private String consumeTokenString() throws JsonParserException {
+  private String consumeTokenString(boolean intern) throws JsonParserException {
     reusableBuffer.setLength(0);
     while (true) {
       char c = stringChar();
 
       switch (c) {
       case '\"':
-        return reusableBuffer.toString();
+        return intern ? intern(reusableBuffer) : reusableBuffer.toString();
       case '\\':
         int escape = advanceChar();
         switch (escape) {
@@ -367,6 +680,54 @@ final class JsonParser {
     }
   }
 
+  /**
+   * Returns the symbol whose characters match those of {@code chars}, adding it to our symbol
+   * table if it's new.
+   */
+  private String intern(StringBuilder chars) {
+    int length = chars.length(), hash = 0;
+    for (int i = 0; i < length; i++)
+      hash = 31 * hash + chars.charAt(i); // matches String.hashCode
+    int mask = symbols.length - 1;
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    for (String symbol; (symbol = symbols[slot]) != null; slot = (slot + 1) & mask)
+      if (symbol.hashCode() == hash && matches(symbol, chars))
+        return symbol;
+
+    String symbol = chars.toString();
+    if (symbolCount < MAX_SYMBOLS) {
+      symbols[slot] = symbol;
+      // keep the table at most half full, so that probe sequences stay short
+      if (++symbolCount * 2 > symbols.length)
+        growSymbols();
+    }
+    return symbol;
+  }
+
+  private void growSymbols() {
+    String[] old = symbols;
+    symbols = new String[old.length * 2];
+    int mask = symbols.length - 1;
+    for (String symbol : old) {
+      if (symbol == null)
+        continue;
+      int hash = symbol.hashCode(), slot = (hash ^ (hash >>> 16)) & mask;
+      while (symbols[slot] != null)
+        slot = (slot + 1) & mask;
+      symbols[slot] = symbol;
+    }
+  }
+
+  private static boolean matches(String symbol, StringBuilder chars) {
+    int length = chars.length();
+    if (symbol.length() != length)
+      return false;
+    for (int i = 0; i < length; i++)
+      if (symbol.charAt(i) != chars.charAt(i))
+        return false;
+    return true;
+  }
+
   /**
    * Advances a character, throwing if it is illegal in the context of a JSON string.
    */
@@ -415,30 +776,57 @@ final class JsonParser {
   /**
    * Peek one char ahead, don't advance, returns {@link Token#EOF} on end of input.
    */
-  private int peekChar() {
-    return eof ? -1 : string.charAt(index);
+  private int peekChar() throws JsonParserException {
+    if (index >= bufferLength && !fillBuffer())
+      return -1;
+    return buffer[index];
   }
 
   /**
    * Advance one character ahead, or return {@link Token#EOF} on end of input.
    */
   private int advanceChar() throws JsonParserException {
-    if (eof)
+    if (index >= bufferLength && !fillBuffer())
       return -1;
-    int c = string.charAt(index);
+    int c = buffer[index];
     if (c == '\n') {
       linePos++;
-      rowPos = index + 1;
+      rowPos = charOffset + index + 1;
       utf8adjust = 0;
     }
 
     index++;
-    if (index >= bufferLength)
-      eof = true;
-
     return c;
   }
 
+  /**
+   * Refills the buffer from the input, once all of its characters have been consumed. Returns false at the end of
+   * input.
+   */
+  private boolean fillBuffer() throws JsonParserException {
+    if (eof)
+      return false;
+    int read;
+    try {
+      do {
+        read = input.read(buffer, 0, buffer.length);
+      } while (read == 0);
+    } catch (JsonParserException e) {
+      throw e;
+    } catch (Exception e) {
+      throw createParseException(e, "Failed to read input", false);
+    }
+    if (read < 0) {
+      // leave the index where it is, so that errors at the end of input are positioned correctly
+      eof = true;
+      return false;
+    }
+    charOffset += bufferLength;
+    index = 0;
+    bufferLength = read;
+    return true;
+  }
+
   /**
    * Throws a helpful exception based on the current alphanumeric token.
    */
@@ -459,12 +847,12 @@ final class JsonParser {
   /**
    * Creates a {@link JsonParserException} and fills it from the current line and char position.
    */
-  private JsonParserException createParseException(Exception e, String message, boolean tokenPos) {
+  JsonParserException createParseException(Exception e, String message, boolean tokenPos) {
     if (tokenPos)
       return new JsonParserException(e, message + " on line " + tokenLinePos + ", char " + tokenCharPos,
           tokenLinePos, tokenCharPos, tokenCharOffset);
     else {
-      int charPos = Math.max(1, index - rowPos - utf8adjust);
+      int charPos = Math.max(1, charOffset + index - rowPos - utf8adjust);
       return new JsonParserException(e, message + " on line " + linePos + ", char " + charPos, linePos, charPos,
           index + charOffset);
     }
@@ -0,0 +1,234 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import playn.core.Json;
+
+/**
+ * {@link Json.Reader} implementation that pulls tokens from a {@link JsonParser}. The reader
+ * tracks the arrays and objects that enclose the current token (which is the only state it keeps,
+ * besides the parser's buffer), consuming commas and colons and reporting the same errors as the
+ * parser's tree builder.
+ */
+class JsonReader implements Json.Reader {
+
+  JsonReader(JsonParser parser) {
+    this.parser = parser;
+  }
+
+  @Override
+  public Token next() throws JsonParserException {
+    if (popPending) {
+      depth--;
+      popPending = false;
+    }
+    JsonParser.Token t;
+    switch (states[depth]) {
+    case TOP:
+      states[depth] = TOP_DONE;
+      return startValue(parser.advanceToken());
+    case TOP_DONE:
+      if (parser.advanceToken() != JsonParser.Token.EOF)
+        throw parser.createParseException(
+          null, "Expected end of input, got " + parser.token(), true);
+      return token = Token.END;
+    case ARRAY_FIRST:
+      if (parser.advanceToken() == JsonParser.Token.ARRAY_END)
+        return end(Token.END_ARRAY);
+      states[depth] = ARRAY_NEXT;
+      return startValue(parser.token());
+    case ARRAY_NEXT:
+      t = parser.advanceToken();
+      if (t == JsonParser.Token.ARRAY_END)
+        return end(Token.END_ARRAY);
+      if (t != JsonParser.Token.COMMA)
+        throw parser.createParseException(
+          null, "Expected a comma or end of the array instead of " + t, true);
+      if (parser.advanceToken() == JsonParser.Token.ARRAY_END)
+        throw parser.createParseException(null, "Trailing comma found in array", true);
+      return startValue(parser.token());
+    case OBJECT_FIRST:
+      if (parser.advanceKeyToken() == JsonParser.Token.OBJECT_END)
+        return end(Token.END_OBJECT);
+      return key();
+    case OBJECT_NEXT:
+      t = parser.advanceToken();
+      if (t == JsonParser.Token.OBJECT_END)
+        return end(Token.END_OBJECT);
+      if (t != JsonParser.Token.COMMA)
+        throw parser.createParseException(
+          null, "Expected a comma or end of the object instead of " + t, true);
+      if (parser.advanceKeyToken() == JsonParser.Token.OBJECT_END)
+        throw parser.createParseException(null, "Trailing comma found in object", true);
+      return key();
+    case OBJECT_VALUE:
+      states[depth] = OBJECT_NEXT;
+      return startValue(parser.advanceToken());
+    default:
+      throw new AssertionError("Invalid reader state " + states[depth]);
+    }
+  }
+
+  @Override
+  public Token token() {
+    return token;
+  }
+
+  @Override
+  public int depth() {
+    return depth;
+  }
+
+  @Override
+  public String string() {
+    if (token != Token.KEY && token != Token.STRING)
+      throw new IllegalStateException("Current token is not a key or string: " + token);
+    return string;
+  }
+
+  @Override
+  public Number number() {
+    if (token != Token.NUMBER)
+      throw new IllegalStateException("Current token is not a number: " + token);
+    return number;
+  }
+
+  @Override
+  public int intValue() {
+    return number().intValue();
+  }
+
+  @Override
+  public long longValue() {
+    return number().longValue();
+  }
+
+  @Override
+  public float floatValue() {
+    return number().floatValue();
+  }
+
+  @Override
+  public double doubleValue() {
+    return number().doubleValue();
+  }
+
+  @Override
+  public boolean booleanValue() {
+    if (token != Token.BOOLEAN)
+      throw new IllegalStateException("Current token is not a boolean: " + token);
+    return bool;
+  }
+
+  @Override
+  public void skipValue() throws JsonParserException {
+    if (token == Token.KEY)
+      next();
+    if (token == Token.START_OBJECT || token == Token.START_ARRAY) {
+      // read (and thereby validate) tokens until we reach the matching end token
+      int startDepth = depth;
+      do
+        next();
+      while (depth != startDepth || (token != Token.END_OBJECT && token != Token.END_ARRAY));
+    }
+  }
+
+  @Override
+  public Object value() throws JsonParserException {
+    if (token == null)
+      throw new IllegalStateException("No current token; call next() first");
+    switch (token) {
+    case START_OBJECT:
+    case START_ARRAY:
+      // let the parser's tree builder consume the rest of the array or object
+      Object value = parser.currentValue();
+      end(token == Token.START_OBJECT ? Token.END_OBJECT : Token.END_ARRAY);
+      return value;
+    case STRING:
+      return string;
+    case NUMBER:
+      return number;
+    case BOOLEAN:
+      return bool;
+    case NULL:
+      return null;
+    default:
+      throw new IllegalStateException("Current token does not start a value: " + token);
+    }
+  }
+
+  private Token key() throws JsonParserException {
+    if (parser.token() != JsonParser.Token.STRING)
+      throw parser.createParseException(null, "Expected STRING, got " + parser.token(), true);
+    string = (String)parser.value();
+    if (parser.advanceToken() != JsonParser.Token.COLON)
+      throw parser.createParseException(null, "Expected COLON, got " + parser.token(), true);
+    states[depth] = OBJECT_VALUE;
+    return token = Token.KEY;
+  }
+
+  private Token startValue(JsonParser.Token t) throws JsonParserException {
+    switch (t) {
+    case OBJECT_START:
+      push(OBJECT_FIRST);
+      return token = Token.START_OBJECT;
+    case ARRAY_START:
+      push(ARRAY_FIRST);
+      return token = Token.START_ARRAY;
+    case STRING:
+      string = (String)parser.value();
+      return token = Token.STRING;
+    case NUMBER:
+      number = (Number)parser.value();
+      return token = Token.NUMBER;
+    case TRUE:
+    case FALSE:
+      bool = (t == JsonParser.Token.TRUE);
+      return token = Token.BOOLEAN;
+    case NULL:
+      return token = Token.NULL;
+    default:
+      throw parser.createParseException(null, "Expected JSON value, got " + t, true);
+    }
+  }
+
+  private Token end(Token end) {
+    // we remain at the depth of the array or object until the next token is read
+    popPending = true;
+    return token = end;
+  }
+
+  private void push(int state) {
+    if (++depth == states.length) {
+      int[] nstates = new int[states.length * 2];
+      System.arraycopy(states, 0, nstates, 0, states.length);
+      states = nstates;
+    }
+    states[depth] = state;
+  }
+
+  private static final int TOP = 0, TOP_DONE = 1;
+  private static final int ARRAY_FIRST = 2, ARRAY_NEXT = 3;
+  private static final int OBJECT_FIRST = 4, OBJECT_NEXT = 5, OBJECT_VALUE = 6;
+
+  private final JsonParser parser;
+  private int[] states = new int[16]; // states[0] is TOP (zero)
+  private int depth;
+  private boolean popPending;
+
+  private Token token;
+  private String string;
+  private Number number;
+  private boolean bool;
+}
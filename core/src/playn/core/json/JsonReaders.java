@@ -0,0 +1,81 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+
+import playn.core.Json;
+
+/**
+ * Creates {@link Json.Reader}s that stream a JSON document from a {@link java.io.Reader}, {@link
+ * InputStream} or {@link ByteBuffer}. The document is read through a fixed size buffer, so only the
+ * current token (and the nesting of the arrays and objects that enclose it) is held in memory,
+ * regardless of the size of the document. The caller remains responsible for closing the source.
+ *
+ * <p>This class is not available on the HTML platform, which lacks the necessary I/O classes. Use
+ * {@link Json#newReader} to read a document that is already in memory.</p>
+ */
+public final class JsonReaders {
+
+  /**
+   * Creates a reader that reads JSON from {@code reader}.
+   */
+  public static Json.Reader from(final java.io.Reader reader) {
+    return new JsonReader(new JsonParser(new JsonParser.Input() {
+      public int read(char[] buffer, int offset, int length) throws Exception {
+        return reader.read(buffer, offset, length);
+      }
+    }));
+  }
+
+  /**
+   * Creates a reader that reads UTF-8 encoded JSON from {@code in}.
+   */
+  public static Json.Reader from(InputStream in) {
+    return from(new InputStreamReader(in, UTF8));
+  }
+
+  /**
+   * Creates a reader that reads UTF-8 encoded JSON from the remaining bytes of {@code bytes}. The
+   * position of {@code bytes} is not changed.
+   */
+  public static Json.Reader from(ByteBuffer bytes) {
+    final ByteBuffer source = bytes.duplicate();
+    final CharsetDecoder decoder = UTF8.newDecoder().
+      onMalformedInput(CodingErrorAction.REPLACE).
+      onUnmappableCharacter(CodingErrorAction.REPLACE);
+    return new JsonReader(new JsonParser(new JsonParser.Input() {
+      public int read(char[] buffer, int offset, int length) throws Exception {
+        CharBuffer chars = CharBuffer.wrap(buffer, offset, length);
+        CoderResult result = decoder.decode(source, chars, true);
+        if (result.isError())
+          result.throwException();
+        int read = chars.position() - offset;
+        return (read == 0 && !source.hasRemaining()) ? -1 : read;
+      }
+    }));
+  }
+
+  private JsonReaders() {
+  }
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+}
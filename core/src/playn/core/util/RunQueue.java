@@ -15,21 +15,32 @@
  */
 package playn.core.util;
 
+import java.util.concurrent.atomic.AtomicReference;
+
 import playn.core.AbstractPlatform;
 import playn.core.Platform;
 
 /**
  * Manages a queue of runnables. Used to implement {@link Platform#invokeLater} by the various
  * platforms.
+ *
+ * <p>Runnables may be added from any thread without locking: each producer atomically swaps
+ * itself in as the tail of the queue and then links its predecessor to itself, so adding is O(1)
+ * regardless of the length of the queue. Only the game thread executes (and hence removes)
+ * runnables.</p>
  */
 public class RunQueue {
 
   private final AbstractPlatform platform;
-  private Entry head;
+  // the consumer's view of the queue; head is a sentinel whose runnable has already been run
+  private Entry head = new Entry(null);
+  private final AtomicReference<Entry> tail = new AtomicReference<Entry>(head);
+  private double budget;
+  private boolean executing;
 
-  private class Entry {
-    public final Runnable runnable;
-    public Entry next;
+  private static class Entry {
+    public Runnable runnable;
+    public volatile Entry next;
     public Entry(Runnable runnable) {
       this.runnable = runnable;
     }
@@ -43,36 +54,52 @@ public class RunQueue {
   }
 
   /**
-   * Executes all pending runnables (in the order they were added).
+   * Limits the time spent by each call to {@link #execute}. Once the budget is exhausted, the
+   * remaining runnables are left in the queue for the next call. At least one runnable is always
+   * executed, so the queue always makes progress. A budget of zero (the default) means unlimited.
+   *
+   * @param millis the budget in milliseconds, as measured by {@link Platform#time}.
+   */
+  public void setBudget(double millis) {
+    this.budget = millis;
+  }
+
+  /**
+   * Executes all pending runnables (in the order they were added). Runnables added while this
+   * method is executing are deferred to the next call, as are any that exceed our budget.
    */
   public void execute() {
-    Entry head;
-    synchronized(this) {
-      head = this.head;
-      this.head = null;
-    }
-    while (head != null) {
-      try {
-        head.runnable.run();
-      } catch (Throwable t) {
-        platform.reportError("Failure executing runnable: " + head.runnable, t);
+    // we only execute runnables that were in the queue when we started; runnables that requeue
+    // themselves would otherwise keep us here forever
+    Entry last = tail.get();
+    if (head == last || executing) return;
+    executing = true;
+    try {
+      double deadline = (budget > 0) ? platform.time() + budget : 0;
+      while (head != last) {
+        Entry next = head.next;
+        // a producer has swapped in a new tail but not yet linked it; we'll get it next time
+        if (next == null) break;
+        head.runnable = null;
+        head = next;
+        try {
+          next.runnable.run();
+        } catch (Throwable t) {
+          platform.reportError("Failure executing runnable: " + next.runnable, t);
+        }
+        if (deadline != 0 && platform.time() >= deadline) break;
       }
-      head = head.next;
+      head.runnable = null;
+    } finally {
+      executing = false;
     }
   }
 
   /**
-   * Adds {@code runnable} to the end of the queue.
+   * Adds {@code runnable} to the end of the queue. This may be called from any thread.
    */
-  public synchronized void add(Runnable runnable) {
-    if (head == null) {
-      head = new Entry(runnable);
-    } else {
-      Entry parent = head;
-      while (parent.next != null) {
-        parent = parent.next;
-      }
-      parent.next = new Entry(runnable);
-    }
+  public void add(Runnable runnable) {
+    Entry entry = new Entry(runnable);
+    tail.getAndSet(entry).next = entry;
   }
 }
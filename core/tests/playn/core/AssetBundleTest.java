@@ -0,0 +1,170 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.util.Callback;
+
+/**
+ * Tests {@link AssetBundle}.
+ */
+public class AssetBundleTest {
+
+  /** Delivers text and bytes only when {@link #deliver} is called. */
+  static class DeferredAssets extends CachingAssetsTest.TestAssets {
+    public final List<Runnable> queued = new ArrayList<Runnable>();
+    @Override public void getText(final String path, final Callback<String> callback) {
+      queued.add(new Runnable() { public void run() {
+        if (path.startsWith("bad")) callback.onFailure(new Exception(path));
+        else callback.onSuccess(getTextSync(path));
+      }});
+    }
+    @Override public void getBytes(final String path, final Callback<byte[]> callback) {
+      queued.add(new Runnable() { public void run() { callback.onSuccess(getBytesSync(path)); }});
+    }
+    public void deliver() {
+      queued.remove(0).run();
+    }
+  }
+
+  static class Result implements Callback<AssetBundle> {
+    public int successes, failures;
+    public void onSuccess(AssetBundle bundle) { successes++; }
+    public void onFailure(Throwable cause) { failures++; }
+  }
+
+  @Test public void testBoundedParallelism() {
+    DeferredAssets assets = new DeferredAssets();
+    AssetBundle bundle = new AssetBundle(assets).setParallelism(2);
+    for (int ii = 0; ii < 5; ii++) bundle.add(AssetBundle.Kind.TEXT, "t" + ii);
+    Result result = new Result();
+    bundle.load(result);
+    assertEquals(2, assets.queued.size());
+    assets.deliver();
+    assertEquals(2, assets.queued.size()); // the completed load was replaced
+    while (!assets.queued.isEmpty()) assets.deliver();
+    assertEquals(1, result.successes);
+    assertTrue(bundle.isLoaded());
+    assertEquals("t3", bundle.text("t3"));
+    assertNull(bundle.text("t5"));
+  }
+
+  @Test public void testWeightedProgress() {
+    DeferredAssets assets = new DeferredAssets();
+    AssetBundle bundle = AssetBundle.parse(assets, "# comment\n" +
+                                           "text big 300\n" +
+                                           "\n" +
+                                           "bytes small 100\n" +
+                                           "text unknown\n");
+    assertEquals(3, bundle.size());
+    assertEquals(0, bundle.progress(), 0);
+    bundle.load(null);
+    assets.deliver(); // big
+    // unknown is weighted as the average of the known sizes, 200
+    assertEquals(300/600f, bundle.progress(), 1e-6);
+    assets.deliver(); // small
+    assertEquals(400/600f, bundle.progress(), 1e-6);
+    assets.deliver();
+    assertEquals(1, bundle.progress(), 0);
+  }
+
+  @Test public void testDependencies() {
+    DeferredAssets assets = new DeferredAssets();
+    AssetBundle common = new AssetBundle(assets).add(AssetBundle.Kind.TEXT, "shared");
+    AssetBundle level = new AssetBundle(assets, common).add(AssetBundle.Kind.TEXT, "shared").
+      add(AssetBundle.Kind.TEXT, "level");
+    Result result = new Result();
+    level.load(result);
+    while (!assets.queued.isEmpty()) assets.deliver();
+    // the shared asset was loaded once, by the dependency
+    assertEquals(CachingAssetsTest.list("shared", "level"), assets.loads);
+    assertEquals(1, result.successes);
+    assertTrue(common.isLoaded());
+    assertEquals("shared", level.text("shared"));
+
+    // unloading the level leaves the dependency's assets alone
+    level.unload();
+    assertFalse(level.isLoaded());
+    assertNull(level.text("level"));
+    assertEquals("shared", level.text("shared"));
+  }
+
+  @Test public void testFailureAndReload() {
+    DeferredAssets assets = new DeferredAssets();
+    AssetBundle bundle = new AssetBundle(assets).add(AssetBundle.Kind.TEXT, "bad").
+      add(AssetBundle.Kind.TEXT, "good");
+    Result result = new Result();
+    bundle.load(result);
+    while (!assets.queued.isEmpty()) assets.deliver();
+    assertEquals(1, result.failures);
+    assertEquals("good", bundle.text("good"));
+
+    // unloading while loading discards the in-flight results
+    bundle.unload();
+    bundle.load(result);
+    bundle.unload();
+    while (!assets.queued.isEmpty()) assets.deliver();
+    assertNull(bundle.text("good"));
+    // the interrupted load was reported as a failure, and only that
+    assertEquals(2, result.failures);
+    assertEquals(0, result.successes);
+  }
+
+  @Test public void testUnloadWhileLoading() {
+    DeferredAssets assets = new DeferredAssets();
+    AssetBundle bundle = new AssetBundle(assets).add(AssetBundle.Kind.TEXT, "a");
+    Result first = new Result();
+    bundle.load(first);
+    bundle.unload();
+    assertEquals(1, first.failures);
+
+    // the callbacks of the interrupted load are not notified when a later load completes
+    Result second = new Result();
+    bundle.load(second);
+    while (!assets.queued.isEmpty()) assets.deliver();
+    assertEquals(1, second.successes);
+    assertEquals(1, first.failures);
+    assertEquals(0, first.successes);
+    assertEquals("a", bundle.text("a"));
+  }
+
+  @Test public void testManySynchronousAssets() {
+    // every asset completes as it is requested, which must not recurse once per asset
+    CachingAssetsTest.TestAssets assets = new CachingAssetsTest.TestAssets();
+    AssetBundle bundle = new AssetBundle(assets).setParallelism(1);
+    for (int ii = 0; ii < 100000; ii++) bundle.add(AssetBundle.Kind.TEXT, "t" + ii);
+    Result result = new Result();
+    bundle.load(result);
+    assertEquals(1, result.successes);
+    assertEquals("t99999", bundle.text("t99999"));
+  }
+
+  @Test public void testUnloadEvictsFromCache() throws Exception {
+    DeferredAssets delegate = new DeferredAssets();
+    CachingAssets assets = new CachingAssets(delegate);
+    AssetBundle bundle = new AssetBundle(assets).add(AssetBundle.Kind.BYTES, "data");
+    bundle.load(null);
+    delegate.deliver();
+    assertEquals(100, assets.usedBytes());
+    bundle.unload();
+    assertEquals(0, assets.usedBytes());
+  }
+}
@@ -0,0 +1,137 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.AssetLoader.Priority;
+import playn.core.util.Callback;
+
+/**
+ * Tests {@link AssetLoader}.
+ */
+public class AssetLoaderTest {
+
+  /** Queues async actions until we run them. Invokes "later" actions immediately. */
+  static class TestPlatform extends StubPlatform {
+    public final List<Runnable> async = new ArrayList<Runnable>();
+    @Override public void invokeAsync(Runnable action) { async.add(action); }
+    public void runAsync() {
+      while (!async.isEmpty()) async.remove(0).run();
+    }
+  }
+
+  final List<String> loaded = new ArrayList<String>();
+  final List<String> notified = new ArrayList<String>();
+
+  @Test public void testPriorityOrder() {
+    TestPlatform platform = new TestPlatform();
+    AssetLoader loader = new AssetLoader(platform, 1);
+    // the first load is claimed by our one worker immediately, the rest wait their turn
+    load(loader, "first", Priority.BACKGROUND);
+    load(loader, "bg", Priority.BACKGROUND);
+    load(loader, "pre", Priority.PREFETCH);
+    load(loader, "now", Priority.NOW);
+    assertEquals(1, platform.async.size());
+    assertEquals(3, loader.pendingCount());
+    platform.runAsync();
+    assertEquals(list("first", "now", "pre", "bg"), loaded);
+    assertEquals(list("first", "now", "pre", "bg"), notified);
+  }
+
+  @Test public void testCoalesceAndPromote() {
+    TestPlatform platform = new TestPlatform();
+    AssetLoader loader = new AssetLoader(platform, 1);
+    load(loader, "first", Priority.NOW);
+    load(loader, "a", Priority.PREFETCH);
+    load(loader, "b", Priority.NOW);
+    load(loader, "a", Priority.NOW); // joins and promotes a
+    assertEquals(2, loader.pendingCount());
+    platform.runAsync();
+    assertEquals(list("first", "b", "a"), loaded);
+    assertEquals(list("first", "b", "a", "a"), notified);
+  }
+
+  @Test public void testCancel() {
+    TestPlatform platform = new TestPlatform();
+    AssetLoader loader = new AssetLoader(platform, 1);
+    AssetLoader.Handle first = load(loader, "first", Priority.NOW);
+    AssetLoader.Handle a1 = load(loader, "a", Priority.NOW);
+    AssetLoader.Handle a2 = load(loader, "a", Priority.NOW);
+    AssetLoader.Handle b = load(loader, "b", Priority.NOW);
+    a1.cancel();
+    assertTrue(a1.isCancelled());
+    assertEquals(2, loader.pendingCount());
+    a2.cancel(); // all requests for a are cancelled, so it is never loaded
+    assertEquals(1, loader.pendingCount());
+    first.cancel(); // already started, so it is loaded but we are not notified
+    platform.runAsync();
+    assertEquals(list("first", "b"), loaded);
+    assertEquals(list("b"), notified);
+    assertFalse(b.isCancelled());
+  }
+
+  @Test public void testLaneLimit() {
+    TestPlatform platform = new TestPlatform();
+    AssetLoader loader = new AssetLoader(platform, 4);
+    loader.setLaneLimit(Priority.PREFETCH, 1);
+    for (int ii = 0; ii < 3; ii++) load(loader, "p" + ii, Priority.PREFETCH);
+    // only one worker is started, as only one prefetch may run at once
+    assertEquals(1, platform.async.size());
+    load(loader, "n", Priority.NOW);
+    assertEquals(2, platform.async.size());
+    platform.runAsync();
+    assertEquals(4, loaded.size());
+    assertEquals(0, loader.pendingCount());
+    assertEquals(0, loader.activeCount());
+  }
+
+  @Test public void testFailure() {
+    TestPlatform platform = new TestPlatform();
+    AssetLoader loader = new AssetLoader(platform, 1);
+    loader.load("x", Priority.NOW, new AssetLoader.Task<String>() {
+      public String load() throws Throwable { throw new Exception("x"); }
+    }, callback());
+    platform.runAsync();
+    assertEquals(list("failed:x"), notified);
+  }
+
+  protected AssetLoader.Handle load(AssetLoader loader, final String key, Priority priority) {
+    return loader.load(key, priority, new AssetLoader.Task<String>() {
+      public String load() {
+        loaded.add(key);
+        return key;
+      }
+    }, callback());
+  }
+
+  protected Callback<String> callback() {
+    return new Callback<String>() {
+      public void onSuccess(String result) { notified.add(result); }
+      public void onFailure(Throwable cause) { notified.add("failed:" + cause.getMessage()); }
+    };
+  }
+
+  protected static List<String> list(String... values) {
+    List<String> list = new ArrayList<String>();
+    for (String value : values) list.add(value);
+    return list;
+  }
+}
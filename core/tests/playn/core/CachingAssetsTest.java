@@ -0,0 +1,102 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.util.Callback;
+
+/**
+ * Tests {@link CachingAssets}.
+ */
+public class CachingAssetsTest {
+
+  /** Returns 100 bytes for any path and records the paths loaded. */
+  static class TestAssets implements Assets {
+    public final List<String> loads = new ArrayList<String>();
+    public Image getImageSync(String path) { throw new UnsupportedOperationException(); }
+    public Image getImage(String path) { throw new UnsupportedOperationException(); }
+    public Image getRemoteImage(String url) { throw new UnsupportedOperationException(); }
+    public Image getRemoteImage(String url, float width, float height) {
+      throw new UnsupportedOperationException();
+    }
+    public Sound getSound(String path) { throw new UnsupportedOperationException(); }
+    public Sound getMusic(String path) { throw new UnsupportedOperationException(); }
+    public String getTextSync(String path) {
+      loads.add(path);
+      return path;
+    }
+    public void getText(String path, Callback<String> callback) {
+      callback.onSuccess(getTextSync(path));
+    }
+    public byte[] getBytesSync(String path) {
+      loads.add(path);
+      return new byte[100];
+    }
+    public void getBytes(String path, Callback<byte[]> callback) {
+      callback.onSuccess(getBytesSync(path));
+    }
+  }
+
+  @Test public void testLRUEviction() throws Exception {
+    TestAssets delegate = new TestAssets();
+    CachingAssets assets = new CachingAssets(delegate, 250);
+    assets.getBytesSync("a");
+    assets.getBytesSync("b");
+    assertEquals(200, assets.usedBytes());
+    assets.getBytesSync("a"); // a is now more recently used than b
+    assets.getBytesSync("c"); // which causes b to be evicted
+    assertEquals(200, assets.usedBytes());
+    assertEquals(1, assets.evictions());
+    assets.getBytesSync("a");
+    assets.getBytesSync("c");
+    assets.getBytesSync("b");
+    assertEquals(2, assets.evictions());
+    assertEquals(list("a", "b", "c", "b"), delegate.loads);
+    assertEquals(3, assets.hits());
+    assertEquals(4, assets.misses());
+  }
+
+  @Test public void testUnbounded() throws Exception {
+    TestAssets delegate = new TestAssets();
+    CachingAssets assets = new CachingAssets(delegate);
+    for (int ii = 0; ii < 100; ii++) assets.getBytesSync("b" + ii);
+    assertEquals(10000, assets.usedBytes());
+    assertEquals(0, assets.evictions());
+    assets.evictAll();
+    assertEquals(0, assets.usedBytes());
+  }
+
+  @Test public void testTextAndBytesDistinct() throws Exception {
+    TestAssets delegate = new TestAssets();
+    CachingAssets assets = new CachingAssets(delegate);
+    assertEquals("foo", assets.getTextSync("foo"));
+    assertEquals(100, assets.getBytesSync("foo").length);
+    assertEquals("foo", assets.getTextSync("foo"));
+    assertEquals(list("foo", "foo"), delegate.loads);
+    assertEquals(106, assets.usedBytes());
+  }
+
+  protected static List<String> list(String... values) {
+    List<String> list = new ArrayList<String>();
+    for (String value : values) list.add(value);
+    return list;
+  }
+}
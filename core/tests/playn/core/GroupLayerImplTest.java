@@ -21,6 +21,10 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Random;
 
+import pythagoras.f.FloatMath;
+import pythagoras.f.Point;
+import pythagoras.f.Rectangle;
+
 import org.junit.Test;
 import static org.junit.Assert.*;
 
@@ -68,6 +72,151 @@ public class GroupLayerImplTest {
     }
   }
 
+  @Test public void testDirtyPropagation() {
+    TestGroupLayer group = new TestGroupLayer();
+    TestLayer layer = new TestLayer();
+    assertFalse(group.isSet(AbstractLayer.Flag.DIRTY));
+
+    // adding a child dirties its parent, but not the child itself
+    group.add(layer);
+    assertTrue(group.isSet(AbstractLayer.Flag.DIRTY));
+    assertFalse(layer.isSet(AbstractLayer.Flag.DIRTY));
+
+    // changes to the child's transform, appearance and visibility all dirty the parent
+    group.setFlag(AbstractLayer.Flag.DIRTY, false);
+    layer.setTranslation(5, 5);
+    assertTrue(group.isSet(AbstractLayer.Flag.DIRTY));
+    group.setFlag(AbstractLayer.Flag.DIRTY, false);
+    layer.setRotation(1);
+    assertTrue(group.isSet(AbstractLayer.Flag.DIRTY));
+    group.setFlag(AbstractLayer.Flag.DIRTY, false);
+    layer.setAlpha(0.5f);
+    assertTrue(group.isSet(AbstractLayer.Flag.DIRTY));
+    group.setFlag(AbstractLayer.Flag.DIRTY, false);
+    layer.setVisible(false);
+    assertTrue(group.isSet(AbstractLayer.Flag.DIRTY));
+
+    // as does removing it
+    group.setFlag(AbstractLayer.Flag.DIRTY, false);
+    group.remove(layer);
+    assertTrue(group.isSet(AbstractLayer.Flag.DIRTY));
+  }
+
+  @Test public void testComputeBounds() {
+    TestGroupLayer group = new TestGroupLayer();
+    Rectangle bounds = new Rectangle();
+    assertTrue(group.impl.computeBounds(bounds));
+    assertTrue(bounds.isEmpty());
+
+    TestLayer a = createSizedLayer(10, 20), b = createSizedLayer(5, 5);
+    a.setTranslation(5, 5);
+    b.setTranslation(-10, 30);
+    b.setOrigin(2, 2);
+    group.add(a);
+    group.add(b);
+    assertTrue(group.impl.computeBounds(bounds));
+    assertEquals(new Rectangle(-12, 5, 27, 28), bounds);
+
+    // invisible children don't contribute
+    b.setVisible(false);
+    assertTrue(group.impl.computeBounds(bounds));
+    assertEquals(new Rectangle(5, 5, 10, 20), bounds);
+
+    // rotation by 90 degrees maps (w, h) to (-h, w) about the translation
+    a.setRotation(FloatMath.PI/2);
+    assertTrue(group.impl.computeBounds(bounds));
+    assertEquals(-15, bounds.x, 1e-4f);
+    assertEquals(5, bounds.y, 1e-4f);
+    assertEquals(20, bounds.width, 1e-4f);
+    assertEquals(10, bounds.height, 1e-4f);
+
+    // a layer that doesn't report its bounds may render anywhere, and so then may its group
+    group.add(new TestLayer());
+    assertFalse(group.impl.computeBounds(bounds));
+  }
+
+  @Test public void testHitIndex() {
+    TestGroupLayer plain = new TestGroupLayer(), indexed = new TestGroupLayer();
+    indexed.setHitIndex(16);
+    Random rando = new Random(42);
+    List<TestLayer> plainKids = new ArrayList<TestLayer>();
+    List<TestLayer> indexedKids = new ArrayList<TestLayer>();
+    for (int ii = 0; ii < 200; ii++) {
+      float w = 1 + rando.nextInt(40), h = 1 + rando.nextInt(40);
+      float x = rando.nextInt(300) - 50, y = rando.nextInt(300) - 50, depth = rando.nextInt(5);
+      TestLayer p = createSizedLayer(w, h), i = createSizedLayer(w, h);
+      p.setDepth(depth);
+      i.setDepth(depth);
+      p.setInteractive(true);
+      i.setInteractive(true);
+      plain.addAt(p, x, y);
+      indexed.addAt(i, x, y);
+      plainKids.add(p);
+      indexedKids.add(i);
+    }
+    checkSameHits(plain, plainKids, indexed, indexedKids, rando);
+
+    // move, rotate, hide and remove some children and check again
+    for (int ii = 0; ii < 50; ii++) {
+      int idx = rando.nextInt(plainKids.size());
+      TestLayer p = plainKids.get(idx), i = indexedKids.get(idx);
+      switch (ii % 4) {
+      case 0:
+        float x = rando.nextInt(300) - 50, y = rando.nextInt(300) - 50;
+        p.setTranslation(x, y);
+        i.setTranslation(x, y);
+        break;
+      case 1:
+        p.setRotation(ii);
+        i.setRotation(ii);
+        break;
+      case 2:
+        p.setVisible(!p.visible());
+        i.setVisible(!i.visible());
+        break;
+      case 3:
+        plain.remove(p);
+        indexed.remove(i);
+        plainKids.remove(idx);
+        indexedKids.remove(idx);
+        break;
+      }
+    }
+    checkSameHits(plain, plainKids, indexed, indexedKids, rando);
+
+    // remove and re-add everything, and change the cell size, and check again
+    plain.removeAll();
+    indexed.removeAll();
+    for (TestLayer p : plainKids) plain.add(p);
+    for (TestLayer i : indexedKids) indexed.add(i);
+    indexed.setHitIndex(8);
+    indexedKids.get(0).setTranslation(10, 10);
+    plainKids.get(0).setTranslation(10, 10);
+    checkSameHits(plain, plainKids, indexed, indexedKids, rando);
+  }
+
+  protected void checkSameHits(TestGroupLayer plain, List<TestLayer> plainKids,
+                               TestGroupLayer indexed, List<TestLayer> indexedKids, Random rando) {
+    Point p = new Point();
+    for (int ii = 0; ii < 2000; ii++) {
+      float x = rando.nextFloat() * 350 - 75, y = rando.nextFloat() * 350 - 75;
+      Layer ph = plain.hitTest(p.set(x, y)), ih = indexed.hitTest(p.set(x, y));
+      int pidx = plainKids.indexOf(ph), iidx = indexedKids.indexOf(ih);
+      assertEquals("Hit at " + x + "," + y, pidx, iidx);
+    }
+  }
+
+  protected TestLayer createSizedLayer(final float width, final float height) {
+    return new TestLayer() {
+      @Override public float width() { return width; }
+      @Override public float height() { return height; }
+      @Override protected boolean computeBounds(Rectangle into) {
+        into.setBounds(0, 0, width, height);
+        return true;
+      }
+    };
+  }
+
   protected List<TestLayer> createLayers() {
     int[] zs = { 0, 0, 0, 1, 1, 1, 2, 2, 2, 3, 3, 3, 4 };
     TestLayer[] layers = new TestLayer[zs.length];
@@ -118,6 +267,17 @@ public class GroupLayerImplTest {
     public int size() {
       return impl.children.size();
     }
+    public void setHitIndex(float cellSize) {
+      impl.setHitIndex(cellSize);
+    }
+    @Override
+    public Layer hitTestDefault(Point p) {
+      return impl.hitTest(this, p);
+    }
+    @Override
+    protected void childChanged(AbstractLayer child) {
+      impl.childChanged((TestLayer)child);
+    }
     @Override
     public void depthChanged(Layer layer, float oldDepth) {
       impl.depthChanged(this, layer, oldDepth);
@@ -0,0 +1,53 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link IntMap}.
+ */
+public class IntMapTest {
+
+  @Test public void testPutGetRemove() {
+    IntMap<String> map = new IntMap<String>();
+    for (int ii = 0; ii < 10; ii++) map.put(ii*3, "v" + ii);
+    assertEquals(10, map.size());
+    assertEquals("v4", map.get(12));
+    assertNull(map.get(13));
+
+    map.put(12, "x");
+    assertEquals(10, map.size());
+    assertEquals("x", map.get(12));
+
+    map.remove(12);
+    map.remove(13);
+    assertEquals(9, map.size());
+    assertNull(map.get(12));
+    assertEquals("v9", map.get(27));
+
+    // removal during backwards iteration visits every remaining entry
+    int seen = 0;
+    for (int ii = map.size()-1; ii >= 0; ii--) {
+      assertEquals(map.get(map.keyAt(ii)), map.valueAt(ii));
+      map.removeAt(ii);
+      seen++;
+    }
+    assertEquals(9, seen);
+    assertEquals(0, map.size());
+  }
+}
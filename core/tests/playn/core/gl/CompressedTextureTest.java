@@ -0,0 +1,116 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+/**
+ * Tests {@link CompressedTexture} parsing and decoding.
+ */
+public class CompressedTextureTest {
+
+  // an individual mode ETC1 block: red on the left half, green on the right, all modifiers +2
+  static final byte[] ETC1_BLOCK = { (byte)0xF0, 0x0F, 0, 0, 0, 0, 0, 0 };
+
+  // a DXT1 block with red and blue endpoints, whose rows use color indices 0, 1, 2 and 3
+  static final byte[] DXT1_BLOCK = { 0x00, (byte)0xF8, 0x1F, 0x00, 0x00, 0x55, (byte)0xAA, -1 };
+
+  @Test public void testIsContainer() {
+    assertTrue(CompressedTexture.isContainer("images/tiles.ktx"));
+    assertTrue(CompressedTexture.isContainer("images/TILES.PKM"));
+    assertTrue(CompressedTexture.isContainer("tiles.dds"));
+    assertFalse(CompressedTexture.isContainer("tiles.png"));
+  }
+
+  @Test public void testPKM() {
+    byte[] data = new byte[16 + 8];
+    System.arraycopy(new byte[] { 'P', 'K', 'M', ' ', '1', '0', 0, 0, 0, 4, 0, 4, 0, 3, 0, 4 },
+                     0, data, 0, 16);
+    System.arraycopy(ETC1_BLOCK, 0, data, 16, 8);
+    CompressedTexture tex = CompressedTexture.parse(data);
+    assertEquals(CompressedTexture.ETC1_RGB8, tex.format);
+    assertEquals(3, tex.width);
+    assertEquals(4, tex.height);
+    assertEquals(1, tex.levels());
+    assertTrue(tex.canDecode());
+
+    int[] pixels = tex.decode();
+    assertEquals(12, pixels.length);
+    for (int y = 0; y < 4; y++) {
+      assertEquals(0xFFFF0202, pixels[y*3]);
+      assertEquals(0xFFFF0202, pixels[y*3+1]);
+      assertEquals(0xFF02FF02, pixels[y*3+2]);
+    }
+  }
+
+  @Test public void testDDS() {
+    byte[] data = new byte[128 + 8];
+    System.arraycopy(new byte[] { 'D', 'D', 'S', ' ', 124 }, 0, data, 0, 5);
+    data[12] = 4; // height
+    data[16] = 4; // width
+    data[80] = 4; // DDPF_FOURCC
+    System.arraycopy(new byte[] { 'D', 'X', 'T', '1' }, 0, data, 84, 4);
+    System.arraycopy(DXT1_BLOCK, 0, data, 128, 8);
+    CompressedTexture tex = CompressedTexture.parse(data);
+    assertEquals(CompressedTexture.DXT1_RGBA, tex.format);
+    assertEquals(4, tex.width);
+    assertEquals(4, tex.height);
+
+    int[] pixels = tex.decode(), rows = { 0xFFFF0000, 0xFF0000FF, 0xFFAA0055, 0xFF5500AA };
+    for (int y = 0; y < 4; y++) {
+      for (int x = 0; x < 4; x++) assertEquals(rows[y], pixels[y*4+x]);
+    }
+  }
+
+  @Test public void testKTX() {
+    byte[] data = new byte[64 + 2*(4 + 8)];
+    System.arraycopy(new byte[] { (byte)0xAB, 'K', 'T', 'X', ' ', '1', '1', (byte)0xBB, '\r',
+                                  '\n', 0x1A, '\n', 1, 2, 3, 4 }, 0, data, 0, 16);
+    putInt(data, 28, CompressedTexture.ETC2_RGB8);
+    putInt(data, 36, 4); // width
+    putInt(data, 40, 4); // height
+    putInt(data, 52, 1); // faces
+    putInt(data, 56, 2); // mipmap levels
+    for (int ii = 0, offset = 64; ii < 2; ii++, offset += 12) {
+      putInt(data, offset, 8);
+      data[offset + 4] = (byte)(ii+1);
+    }
+    CompressedTexture tex = CompressedTexture.parse(data);
+    assertEquals(CompressedTexture.ETC2_RGB8, tex.format);
+    assertEquals(2, tex.levels());
+    assertEquals(2, tex.levelWidth(1));
+    assertEquals(2, tex.levelHeight(1));
+    assertEquals(1, tex.level(0)[0]);
+    assertEquals(2, tex.level(1)[0]);
+    assertFalse(tex.canDecode());
+  }
+
+  @Test public void testBadData() {
+    try {
+      CompressedTexture.parse(new byte[] { 'G', 'I', 'F', '8', '9', 'a' });
+      fail("Parsed unknown container");
+    } catch (IllegalArgumentException iae) {} // expected
+    try {
+      CompressedTexture.parse(new byte[] { 'P', 'K', 'M', ' ', '1', '0', 0, 0, 0, 4, 0, 4 });
+      fail("Parsed truncated container");
+    } catch (IllegalArgumentException iae) {} // expected
+  }
+
+  protected static void putInt(byte[] data, int offset, int value) {
+    for (int ii = 0; ii < 4; ii++) data[offset + ii] = (byte)(value >>> (ii * 8));
+  }
+}
@@ -0,0 +1,141 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.gl;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.Canvas;
+import playn.core.CanvasImage;
+import playn.core.Image;
+import playn.core.Pattern;
+import playn.core.StubPlatform;
+import playn.core.util.Callback;
+
+/**
+ * Tests the replaying of cached group layers via {@link QuadCache}.
+ */
+public class QuadCacheTest {
+
+  @Test public void testCanvasRedrawnUnderCachedGroup() {
+    GL20Context ctx = new GL20Context(new StubPlatform(), noopGL(), 1, false);
+    ctx.init();
+    ctx.setSize(100, 100);
+
+    TestCanvasImage image = new TestCanvasImage(ctx);
+    ImageLayerGL layer = new ImageLayerGL(ctx);
+    layer.setImage(image);
+    GroupLayerGL group = new GroupLayerGL(ctx).setCached(true);
+    group.add(layer);
+    GroupLayerGL root = new GroupLayerGL(ctx);
+    root.add(group);
+
+    ctx.paint(root);
+    assertEquals(1, image.uploads);
+    assertTrue(group.cache.isValid());
+
+    // an unchanged canvas is not uploaded again when the group is replayed
+    ctx.paint(root);
+    assertEquals(1, image.uploads);
+
+    // but a redrawn canvas is, even though neither it nor the group's layers have changed
+    image.dirty = true;
+    ctx.paint(root);
+    assertEquals(2, image.uploads);
+    assertTrue(group.cache.isValid());
+  }
+
+  /** A canvas image whose canvas is "redrawn" by setting {@link #dirty}. */
+  static class TestCanvasImage extends ImageGL<Object> implements CanvasImage {
+    public boolean dirty;
+    public int uploads;
+
+    public TestCanvasImage(GLContext ctx) {
+      super(ctx, Scale.ONE);
+    }
+
+    @Override public int ensureTexture() {
+      // this mirrors the backends' canvas images
+      if (dirty) {
+        dirty = false;
+        refreshTexture();
+      }
+      return super.ensureTexture();
+    }
+
+    @Override protected void updateTexture(int tex) {
+      uploads++;
+    }
+
+    @Override public float width() { return 10; }
+    @Override public float height() { return 10; }
+    @Override public boolean isReady() { return true; }
+    @Override public void addCallback(Callback<? super Image> callback) {
+      callback.onSuccess(this);
+    }
+    @Override public Canvas canvas() { throw new UnsupportedOperationException(); }
+    @Override public Image snapshot() { throw new UnsupportedOperationException(); }
+    @Override public void setRgb(int startX, int startY, int width, int height, int[] rgbArray,
+                                 int offset, int scanSize) {
+      throw new UnsupportedOperationException();
+    }
+    @Override public void draw(Object gc, float dx, float dy, float dw, float dh) {
+      throw new UnsupportedOperationException();
+    }
+    @Override public void draw(Object gc, float dx, float dy, float dw, float dh,
+                               float sx, float sy, float sw, float sh) {
+      throw new UnsupportedOperationException();
+    }
+    @Override protected Pattern toSubPattern(AbstractImageGL<?> image, boolean repeatX,
+                                             boolean repeatY, float x, float y, float w, float h) {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  /** Creates a GL that does nothing, but whose every operation succeeds. */
+  static GL20 noopGL() {
+    return (GL20)Proxy.newProxyInstance(
+      GL20.class.getClassLoader(), new Class<?>[] { GL20.class }, new InvocationHandler() {
+        public Object invoke(Object proxy, Method method, Object[] args) {
+          String name = method.getName();
+          if (method.getDeclaringClass() == Object.class)
+            return name.equals("equals") ? proxy == args[0] : (Object)System.identityHashCode(proxy);
+          if (name.equals("glGetError")) return GL20.GL_NO_ERROR;
+          if (name.equals("glCheckFramebufferStatus")) return GL20.GL_FRAMEBUFFER_COMPLETE;
+          // object ids, compile and link statuses and limits are all reported as 256
+          if (args != null) {
+            for (Object arg : args) {
+              if (arg instanceof int[]) Arrays.fill((int[])arg, 256);
+              else if (arg instanceof IntBuffer) {
+                IntBuffer ints = (IntBuffer)arg;
+                for (int ii = ints.position(); ii < ints.limit(); ii++) ints.put(ii, 256);
+              }
+            }
+          }
+          Class<?> rtype = method.getReturnType();
+          if (rtype == Integer.TYPE) return 256;
+          if (rtype == Boolean.TYPE) return false;
+          if (rtype == Float.TYPE) return 0f;
+          if (rtype == String.class) return "";
+          return null;
+        }
+      });
+  }
+}
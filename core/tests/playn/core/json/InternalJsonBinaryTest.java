@@ -0,0 +1,151 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import playn.core.Json;
+
+public class InternalJsonBinaryTest {
+
+  @Test
+  public void testRoundTrip() {
+    String json = InternalJsonParallelParserTest.levelJson(500);
+    JsonObject object = JsonParser.object().from(json);
+    byte[] bytes = JsonBinary.write(object);
+    assertEquals(write(object), write(JsonBinary.parse(bytes)));
+    // repeated keys and packed arrays make the binary form much smaller
+    assertTrue(bytes.length + " vs " + json.length(), bytes.length * 2 < json.length());
+  }
+
+  @Test
+  public void testValues() {
+    byte[] bytes = JsonBinary.newWriter().array().
+      value(0).value(-1).value(Integer.MAX_VALUE).value(Long.MIN_VALUE).value(1.5f).value(-0.0).
+      value(new BigInteger("-30000000000000000000")).value("").value("caf\u00e9 \ud83d\ude00").
+      value(true).value(false).nul().array().end().object().value("a", 1).end().
+      end().toByteArray();
+    JsonArray array = (JsonArray)JsonBinary.parseArray(bytes);
+    assertEquals(14, array.length());
+    assertEquals(Integer.valueOf(0), array.get(0));
+    assertEquals(Integer.valueOf(-1), array.get(1));
+    assertEquals(Integer.valueOf(Integer.MAX_VALUE), array.get(2));
+    assertEquals(Long.valueOf(Long.MIN_VALUE), array.get(3));
+    assertEquals(Double.valueOf(1.5), array.get(4));
+    assertEquals(Double.valueOf(-0.0), array.get(5));
+    assertEquals(new BigInteger("-30000000000000000000"), array.get(6));
+    assertEquals("", array.get(7));
+    assertEquals("caf\u00e9 \ud83d\ude00", array.get(8));
+    assertEquals(Boolean.TRUE, array.get(9));
+    assertEquals(Boolean.FALSE, array.get(10));
+    assertTrue(array.isNull(11));
+    assertEquals(0, array.getArray(12).length());
+    assertEquals(1, array.getObject(13).getInt("a"));
+  }
+
+  @Test
+  public void testPackedArrays() {
+    JsonArray ints = JsonParser.array().from("[1, -2, 2147483647, -2147483648]");
+    JsonArray doubles = JsonParser.array().from("[1.5, -0.0, 1e300]");
+    JsonArray parsed = (JsonArray)JsonBinary.parseArray(JsonBinary.write(ints));
+    assertEquals(ints.toString(), parsed.toString());
+    assertTrue(parsed.intValues() != null);
+    parsed = (JsonArray)JsonBinary.parseArray(JsonBinary.write(doubles));
+    assertEquals(doubles.toString(), parsed.toString());
+    assertTrue(parsed.doubleValues() != null);
+    // arrays mixing ints and doubles are not packed, so that their ints remain ints
+    JsonArray mixed = JsonParser.array().from("[1, 2.5, -3]");
+    assertTrue(mixed.doubleValues() == null);
+    parsed = (JsonArray)JsonBinary.parseArray(JsonBinary.write(mixed));
+    assertEquals(mixed.toString(), parsed.toString());
+    assertEquals(Integer.class, parsed.get(2).getClass());
+    // four tag, count and element bytes, versus two for each element when not packed
+    assertEquals(2 + 4, JsonBinary.write(JsonParser.array().from("[1, 2, 3, 4]")).length);
+  }
+
+  @Test
+  public void testByteBuffers() {
+    JsonObject object = JsonParser.object().from("{\"a\": [1, 2.5, \"b\"], \"c\": {\"a\": null}}");
+    byte[] bytes = JsonBinary.write(object);
+    ByteBuffer direct = ByteBuffer.allocateDirect(bytes.length + 3);
+    direct.put(new byte[] { 9, 9, 9 }).put(bytes).position(3);
+    assertEquals(write(object), write(JsonBinary.parse(direct)));
+    assertEquals(3, direct.position());
+  }
+
+  @Test
+  public void testKeyOrder() {
+    String json = "{\"b\": 1, \"a\": [{\"d\": 2, \"c\": 3}]}";
+    JsonObject object = new JsonParser(json).setSortKeys(false).parse(JsonObject.class);
+    byte[] bytes = JsonBinary.write(object);
+    Json.Object ordered = JsonBinary.parse(bytes, false);
+    assertEquals("b", ordered.keys().get(0));
+    assertEquals("d", ordered.getArray("a").getObject(0).keys().get(0));
+    assertEquals(write(object), write(ordered));
+    Json.Object sorted = JsonBinary.parse(bytes);
+    assertEquals("a", sorted.keys().get(0));
+    assertEquals("c", sorted.getArray("a").getObject(0).keys().get(0));
+    Json.Array array = JsonBinary.parseArray(JsonBinary.write(ordered.getArray("a")), false);
+    assertEquals("d", array.getObject(0).keys().get(0));
+  }
+
+  @Test
+  public void testErrors() {
+    byte[] bytes = JsonBinary.write(JsonParser.object().from("{\"a\": [1, \"bcd\"]}"));
+    for (int length = 0; length < bytes.length; length++) {
+      byte[] truncated = new byte[length];
+      System.arraycopy(bytes, 0, truncated, 0, length);
+      assertParseError(truncated, "");
+    }
+    assertParseError(new byte[] { 99 }, "Invalid value tag: 99 at byte 0");
+    assertParseError(new byte[] { JsonBinary.TRUE, 0 }, "Expected end of input at byte 1");
+    assertParseError(new byte[] { JsonBinary.TRUE }, "JSON did not contain the correct type");
+    assertParseError(new byte[] { JsonBinary.OBJECT, 2, JsonBinary.NULL, 0 },
+                     "Invalid key reference");
+
+    try {
+      JsonBinary.newWriter().object().value(1);
+      fail();
+    } catch (JsonWriterException e) {
+      // expected
+    }
+    try {
+      JsonBinary.newWriter().array().toByteArray();
+      fail();
+    } catch (JsonWriterException e) {
+      // expected
+    }
+  }
+
+  protected static void assertParseError(byte[] bytes, String error) {
+    try {
+      JsonBinary.parse(bytes);
+      fail("Expected error: " + error);
+    } catch (JsonParserException e) {
+      assertFalse(e.getMessage(), e.getMessage().indexOf(error) < 0);
+    }
+  }
+
+  protected static String write(Json.Object o) {
+    return JsonStringWriter.toString(o);
+  }
+}
@@ -97,4 +97,80 @@ public class InternalJsonNumberTest {
     String json2 = new JsonStringWriter().array(array2).write();
     assertEquals(json, json2);
   }
+
+  @Test
+  public void testInPlaceDoubles() throws JsonParserException {
+    // numbers parsed in place must match those parsed by the JDK
+    String[] cases = { "0.1", "-0.25", "3.14159", "1e22", "1e23", "123456789012345.6", "1.5E-7",
+                       "0e400", "-0.0", "9007199254740993.0", "2.2250738585072014E-308", "1E+2",
+                       "0.30000000000000004", "179.76931348623157e306" };
+    for (String c : cases) {
+      Number n = (Number)JsonParser.any().from(c);
+      assertEquals(c, Double.class, n.getClass());
+      assertEquals(c, Double.doubleToLongBits(Double.parseDouble(c)),
+                   Double.doubleToLongBits(n.doubleValue()));
+    }
+  }
+
+  @Test
+  public void testNumericArrays() throws JsonParserException {
+    JsonArray ints = JsonParser.array().from("[1, -2, 300000000, 0]");
+    assertArrayEquals(new int[] { 1, -2, 300000000, 0 }, ints.getInts(null));
+    assertEquals(Integer.class, ints.get(1).getClass());
+    assertEquals("[1, -2, 300000000, 0]", ints.toString());
+    int[] into = new int[8];
+    assertSame(into, ints.getInts(into));
+    assertEquals(300000000, into[2]);
+
+    JsonArray doubles = JsonParser.array().from("[1.5, -2e1, 0.25]");
+    assertArrayEquals(new float[] { 1.5f, -20f, 0.25f }, doubles.getFloats(null), 0);
+    assertEquals("[1.5,-20.0,0.25]", new JsonStringWriter().array(doubles).write());
+
+    // mixed arrays keep the type of each element
+    JsonArray mixed = JsonParser.array().from("[1, 1.0, \"a\", 3000000000]");
+    assertEquals(Integer.class, mixed.get(0).getClass());
+    assertEquals(Double.class, mixed.get(1).getClass());
+    assertEquals(Long.class, mixed.get(3).getClass());
+    assertArrayEquals(new int[] { 1, 1, 0, (int)3000000000L }, mixed.getInts(null));
+
+    // arrays mixing ints and doubles stay unboxed, but keep the type of each element
+    JsonArray numbers = JsonParser.array().from("[1, 2.5, -3, 4]");
+    assertNull(numbers.intValues());
+    assertEquals(Integer.class, numbers.get(0).getClass());
+    assertEquals(Double.class, numbers.get(1).getClass());
+    assertEquals(Integer.class, numbers.get(2).getClass());
+    assertEquals("[1,2.5,-3,4]", new JsonStringWriter().array(numbers).write());
+    JsonArray many = new JsonArray();
+    for (int i = 0; i < 100; i++) many.addInt(i);
+    many.addDouble(0.5);
+    for (int i = 0; i < 100; i++) many.addInt(-i);
+    assertEquals(Integer.class, many.get(99).getClass());
+    assertEquals(Double.class, many.get(100).getClass());
+    assertEquals(-99, many.get(200));
+    JsonArray copy = new JsonArray();
+    copy.addAll(many);
+    assertEquals(many.toString(), copy.toString());
+    // more doubles than the ints' bit set covers
+    StringBuilder json = new StringBuilder("[1");
+    for (int i = 0; i < 100; i++) json.append(",2.5");
+    JsonArray widened = JsonParser.array().from(json.append("]").toString());
+    assertEquals(Integer.class, widened.get(0).getClass());
+    assertEquals(Double.class, widened.get(70).getClass());
+    assertNull(widened.getString(70));
+    assertTrue(widened.toString().endsWith("2.5]"));
+    widened.addInt(3);
+    assertEquals(Integer.class, widened.get(101).getClass());
+    assertEquals(Double.class, widened.get(100).getClass());
+    JsonArray wcopy = new JsonArray();
+    wcopy.addAll(widened);
+    assertEquals(widened.toString(), wcopy.toString());
+
+    // modifying an unboxed array keeps its values
+    ints.add(2.5);
+    ints.remove(0);
+    ints.set(0, "x");
+    assertEquals("[x, 300000000, 0, 2.5]", ints.toString());
+    doubles.add(1, 7);
+    assertEquals("[1.5, 7, -20.0, 0.25]", doubles.toString());
+  }
 }
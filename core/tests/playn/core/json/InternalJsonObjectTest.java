@@ -0,0 +1,94 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class InternalJsonObjectTest {
+
+  @Test
+  public void testSmallAndLarge() {
+    // exercise both the linear and hashed representations, and the switch between them
+    for (int count : new int[] { 3, 8, 9, 100, 1000 }) {
+      JsonObject o = new JsonObject(false);
+      for (int ii = 0; ii < count; ii++) o.put("k" + ii, ii);
+      assertEquals(count, o.keys().length());
+      for (int ii = 0; ii < count; ii++) assertEquals(ii, o.getInt("k" + ii));
+      assertFalse(o.containsKey("k" + count));
+
+      // overwriting a key keeps its position
+      o.put("k0", "zero");
+      assertEquals("zero", o.getString("k0"));
+      assertEquals("k0", o.keys().get(0));
+
+      // remove every other key, then make sure the rest can still be found
+      for (int ii = 0; ii < count; ii += 2) o.remove("k" + ii);
+      for (int ii = 0; ii < count; ii++) {
+        assertEquals(ii % 2 == 1, o.containsKey("k" + ii));
+      }
+      assertEquals(count / 2, o.keys().length());
+      assertNull(o.get("k0"));
+    }
+  }
+
+  @Test
+  public void testOrdering() {
+    JsonObject sorted = new JsonObject(), ordered = new JsonObject(false);
+    for (String key : new String[] { "c", "a", "b" }) {
+      sorted.put(key, key);
+      ordered.put(key, key);
+    }
+    assertEquals("{a=a, b=b, c=c}", sorted.toString());
+    assertEquals("{c=c, a=a, b=b}", ordered.toString());
+    assertEquals("{\"a\":\"a\",\"b\":\"b\",\"c\":\"c\"}", write(sorted));
+    assertEquals("{\"c\":\"c\",\"a\":\"a\",\"b\":\"b\"}", write(ordered));
+
+    // sorted keys are recomputed when the keys change
+    sorted.put("0", 0);
+    assertEquals("0", sorted.keys().get(0));
+    sorted.remove("0");
+    assertEquals("a", sorted.keys().get(0));
+
+    // parsed documents keep their order if so configured
+    String json = "{\"z\":1,\"y\":{\"b\":2,\"a\":3}}";
+    JsonImpl impl = new JsonImpl();
+    assertEquals("{\"y\":{\"a\":3,\"b\":2},\"z\":1}", write((JsonObject)impl.parse(json)));
+    impl.setSortKeys(false);
+    assertEquals(json, write((JsonObject)impl.parse(json)));
+    assertEquals(json, write((JsonObject)impl.parseArray("[" + json + "]").getObject(0)));
+  }
+
+  @Test
+  public void testInterning() {
+    JsonArray array = JsonParser.array().from(
+      "[{\"name\": \"a\", \"id\": 1}, {\"id\": 2, \"name\": \"b\"}, {\"na\\u006de\": \"name\"}]");
+    // keys are sorted, so "name" is the second key of each of the first two objects
+    String name = array.getObject(0).keys().get(1);
+    assertEquals("name", name);
+    assertSame(name, array.getObject(1).keys().get(1));
+    assertSame(name, array.getObject(2).keys().get(0)); // even if it was escaped
+    // string values are not interned
+    assertTrue(array.getObject(2).getString("name") != name);
+  }
+
+  protected static String write(JsonObject o) {
+    return JsonStringWriter.toString(o);
+  }
+}
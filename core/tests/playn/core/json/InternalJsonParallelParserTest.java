@@ -0,0 +1,142 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import playn.core.Json;
+import playn.core.StubPlatform;
+import playn.core.util.Callback;
+
+public class InternalJsonParallelParserTest {
+
+  /** Queues async actions until we run them, in reverse order to shake out ordering bugs. */
+  static class TestPlatform extends StubPlatform {
+    public final List<Runnable> async = new ArrayList<Runnable>();
+    public int asyncCount;
+    @Override public void invokeAsync(Runnable action) {
+      async.add(action);
+      asyncCount++;
+    }
+    public void runAsync() {
+      while (!async.isEmpty()) async.remove(async.size()-1).run();
+    }
+  }
+
+  static class Result<T> implements Callback<T> {
+    public T value;
+    public Throwable error;
+    public void onSuccess(T value) { this.value = value; }
+    public void onFailure(Throwable error) { this.error = error; }
+  }
+
+  @Test
+  public void testLargeObject() throws JsonParserException {
+    String json = levelJson(2000);
+    TestPlatform platform = new TestPlatform();
+    Result<Json.Object> result = new Result<Json.Object>();
+    new JsonImpl(platform).parseAsync(json, result);
+    assertNull(result.value); // nothing happens until our async actions run
+    platform.runAsync();
+    assertNull(result.error);
+    // the document was split into many slices
+    assertTrue(platform.asyncCount > 8);
+    assertEquals(JsonParser.object().from(json).toString(), result.value.toString());
+  }
+
+  @Test
+  public void testLargeArray() throws JsonParserException {
+    StringBuilder buf = new StringBuilder("[");
+    for (int ii = 0; ii < 20000; ii++) {
+      if (ii > 0) buf.append(",\n");
+      buf.append(ii % 3 == 0 ? "\"s,]}" + ii + "\\\"\"" : (ii % 3 == 1 ? "[" + ii + "]" : "1.5"));
+    }
+    String json = buf.append("]").toString();
+    TestPlatform platform = new TestPlatform();
+    Result<Json.Array> result = new Result<Json.Array>();
+    new JsonImpl(platform).parseArrayAsync(json, result);
+    platform.runAsync();
+    assertNull(result.error);
+    assertEquals(20000, result.value.length());
+    assertEquals(JsonParser.array().from(json).toString(), result.value.toString());
+  }
+
+  @Test
+  public void testMalformed() {
+    // a slice in the middle of the document fails; the error matches the sequential parser's
+    String json = levelJson(2000);
+    int bad = json.indexOf("true", json.length()/2);
+    json = json.substring(0, bad) + "tru" + json.substring(bad + 4);
+    String expected = null;
+    try {
+      JsonParser.object().from(json);
+    } catch (JsonParserException e) {
+      expected = e.getMessage();
+    }
+    assertNotNull(expected);
+
+    TestPlatform platform = new TestPlatform();
+    Result<Json.Object> result = new Result<Json.Object>();
+    new JsonImpl(platform).parseAsync(json, result);
+    platform.runAsync();
+    assertNull(result.value);
+    assertEquals(expected, result.error.getMessage());
+
+    // so does a document of the wrong type
+    result = new Result<Json.Object>();
+    new JsonImpl(platform).parseAsync("[" + json + "]", result);
+    platform.runAsync();
+    assertTrue(result.error instanceof JsonParserException);
+  }
+
+  @Test
+  public void testSmallAndSynchronous() {
+    TestPlatform platform = new TestPlatform();
+    Result<Json.Object> result = new Result<Json.Object>();
+    new JsonImpl(platform).parseAsync("{\"a\": [1, 2]}", result);
+    platform.runAsync();
+    assertEquals(1, platform.asyncCount);
+    assertEquals("{a=[1, 2]}", result.value.toString());
+
+    // without a platform, parsing happens immediately
+    result = new Result<Json.Object>();
+    new JsonImpl().parseAsync("{\"a\": {}}", result);
+    assertEquals("{a={}}", result.value.toString());
+  }
+
+  /** Creates a level-like document, with a few large arrays of small objects. */
+  protected static String levelJson(int entities) {
+    StringBuilder buf = new StringBuilder("{\n  \"name\": \"level\",\n  \"entities\": [");
+    for (int ii = 0; ii < entities; ii++) {
+      if (ii > 0) buf.append(",");
+      buf.append("\n    {\"id\": ").append(ii).append(", \"type\": \"crate{").append(ii % 7);
+      buf.append("\", \"x\": ").append(ii * 1.5).append(", \"solid\": true, \"tags\": [\"a\", ");
+      buf.append("\"b\"], \"props\": {\"hp\": ").append(ii % 100).append("}}");
+    }
+    buf.append("\n  ],\n  \"tiles\": [");
+    for (int ii = 0; ii < entities * 10; ii++) {
+      if (ii > 0) buf.append(", ");
+      buf.append(ii % 17);
+    }
+    return buf.append("],\n  \"version\": 3\n}").toString();
+  }
+}
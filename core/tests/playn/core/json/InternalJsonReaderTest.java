@@ -0,0 +1,174 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.json;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+
+import playn.core.Json;
+import playn.core.Json.Reader.Token;
+
+public class InternalJsonReaderTest {
+
+  static final String DOC = "{\"name\": \"caf\\u00e9\", \"size\": [3, 4.5],\n" +
+    " \"ok\": true, \"none\": null, \"big\": 12345678901, \"nested\": {\"a\": [{}, []]}}";
+
+  @Test
+  public void testTokens() {
+    Json.Reader reader = new JsonImpl().newReader(DOC);
+    assertNull(reader.token());
+    assertEquals(Token.START_OBJECT, reader.next());
+    assertEquals(1, reader.depth());
+    assertEquals(Token.KEY, reader.next());
+    assertEquals("name", reader.string());
+    assertEquals(Token.STRING, reader.next());
+    assertEquals("café", reader.string());
+    assertEquals(Token.KEY, reader.next());
+    assertEquals(Token.START_ARRAY, reader.next());
+    assertEquals(2, reader.depth());
+    assertEquals(Token.NUMBER, reader.next());
+    assertEquals(3, reader.intValue());
+    assertEquals(Token.NUMBER, reader.next());
+    assertEquals(4.5f, reader.floatValue(), 0);
+    assertEquals(Token.END_ARRAY, reader.next());
+    assertEquals(2, reader.depth()); // still within the array
+    assertEquals(Token.KEY, reader.next());
+    assertEquals(1, reader.depth());
+    assertEquals(Token.BOOLEAN, reader.next());
+    assertEquals(true, reader.booleanValue());
+    assertEquals(Token.KEY, reader.next());
+    assertEquals(Token.NULL, reader.next());
+    assertEquals(Token.KEY, reader.next());
+    assertEquals(Token.NUMBER, reader.next());
+    assertEquals(12345678901L, reader.longValue());
+    assertEquals(Token.KEY, reader.next());
+    assertEquals("nested", reader.string());
+    reader.skipValue();
+    assertEquals(Token.END_OBJECT, reader.token());
+    assertEquals(Token.END_OBJECT, reader.next());
+    assertEquals(1, reader.depth());
+    assertEquals(Token.END, reader.next());
+    assertEquals(0, reader.depth());
+  }
+
+  @Test
+  public void testValue() {
+    Json.Reader reader = new JsonImpl().newReader(DOC);
+    reader.next();
+    String nested = null;
+    while (reader.next() == Token.KEY) {
+      String key = reader.string();
+      reader.next();
+      if (key.equals("nested")) nested = reader.value().toString();
+      else if (key.equals("size")) assertEquals("[3, 4.5]", reader.value().toString());
+      else reader.skipValue();
+    }
+    assertEquals("{a=[{}, []]}", nested);
+    assertEquals(Token.END_OBJECT, reader.token());
+    assertEquals(Token.END, reader.next());
+  }
+
+  @Test
+  public void testStreamingSources() {
+    String expected = JsonParser.object().from(DOC).toString();
+    assertEquals(expected, read(JsonReaders.from(new StringReader(DOC))));
+    byte[] utf8 = DOC.getBytes(java.nio.charset.Charset.forName("UTF-8"));
+    assertEquals(expected, read(JsonReaders.from(new ByteArrayInputStream(utf8))));
+    ByteBuffer buf = ByteBuffer.wrap(utf8);
+    assertEquals(expected, read(JsonReaders.from(buf)));
+    assertEquals(0, buf.position());
+  }
+
+  @Test
+  public void testSmallBuffer() {
+    // tokens (and errors) that span buffer boundaries are handled correctly
+    String expected = JsonParser.object().from(DOC).toString();
+    for (int size = 1; size < 8; size++) {
+      JsonParser parser = new JsonParser(input(DOC), size);
+      assertEquals(expected, parser.parse(JsonObject.class).toString());
+    }
+    String bad = "{\"a\": [1, 2],\n \"b\": tru}";
+    JsonParserException error = parseError(new JsonParser(bad));
+    JsonParserException actual = parseError(new JsonParser(input(bad), 3));
+    assertEquals(error.getMessage(), actual.getMessage());
+    assertEquals(error.getCharOffset(), actual.getCharOffset());
+  }
+
+  @Test
+  public void testErrors() {
+    assertReadError("[1, 2,]", "Trailing comma");
+    assertReadError("[1 2]", "Expected a comma");
+    assertReadError("{\"a\" 1}", "Expected COLON");
+    assertReadError("{1: 1}", "Expected STRING");
+    assertReadError("{\"a\": 1} 2", "Expected end of input");
+    // skipped values are still validated
+    Json.Reader reader = new JsonImpl().newReader("{\"a\": [1, {\"b\" 2}]}");
+    reader.next();
+    reader.next();
+    try {
+      reader.skipValue();
+      fail();
+    } catch (JsonParserException e) {
+      assertEquals(1, e.getLinePosition());
+    }
+  }
+
+  protected static String read(Json.Reader reader) {
+    assertEquals(Token.START_OBJECT, reader.next());
+    String value = reader.value().toString();
+    assertEquals(Token.END, reader.next());
+    return value;
+  }
+
+  protected static void assertReadError(String json, String error) {
+    Json.Reader reader = new JsonImpl().newReader(json);
+    try {
+      while (reader.next() != Token.END) {}
+      fail("Expected error for " + json);
+    } catch (JsonParserException e) {
+      assertFalse(e.getMessage(), e.getMessage().indexOf(error) < 0);
+    }
+  }
+
+  protected static JsonParserException parseError(JsonParser parser) {
+    try {
+      parser.parse(JsonObject.class);
+    } catch (JsonParserException e) {
+      return e;
+    }
+    fail();
+    return null;
+  }
+
+  protected static JsonParser.Input input(final String json) {
+    return new JsonParser.Input() {
+      int pos = 0;
+      public int read(char[] buffer, int offset, int length) {
+        if (pos == json.length()) return -1;
+        int count = Math.min(length, json.length() - pos);
+        json.getChars(pos, pos + count, buffer, offset);
+        pos += count;
+        return count;
+      }
+    };
+  }
+}
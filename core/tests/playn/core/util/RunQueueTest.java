@@ -0,0 +1,121 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.core.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.StubPlatform;
+
+/**
+ * Tests {@link RunQueue}.
+ */
+public class RunQueueTest {
+
+  static class TestPlatform extends StubPlatform {
+    public double now;
+    @Override public double time() { return now; }
+  }
+
+  @Test public void testOrdering() {
+    RunQueue queue = new RunQueue(new TestPlatform());
+    final List<Integer> ran = new ArrayList<Integer>();
+    for (int ii = 0; ii < 100; ii++) queue.add(adder(ran, ii));
+    queue.execute();
+    assertEquals(100, ran.size());
+    for (int ii = 0; ii < 100; ii++) assertEquals(ii, ran.get(ii).intValue());
+    queue.execute();
+    assertEquals(100, ran.size());
+  }
+
+  @Test public void testRequeueDeferred() {
+    final RunQueue queue = new RunQueue(new TestPlatform());
+    final int[] runs = { 0 };
+    queue.add(new Runnable() {
+      public void run() {
+        runs[0]++;
+        queue.add(this);
+      }
+    });
+    queue.execute();
+    assertEquals(1, runs[0]);
+    queue.execute();
+    assertEquals(2, runs[0]);
+  }
+
+  @Test public void testBudget() {
+    final TestPlatform platform = new TestPlatform();
+    RunQueue queue = new RunQueue(platform);
+    queue.setBudget(10);
+    final List<Integer> ran = new ArrayList<Integer>();
+    for (int ii = 0; ii < 10; ii++) {
+      final int value = ii;
+      queue.add(new Runnable() {
+        public void run() {
+          ran.add(value);
+          platform.now += 4;
+        }
+      });
+    }
+    // each frame runs three runnables before exceeding the budget
+    queue.execute();
+    assertEquals(3, ran.size());
+    queue.execute();
+    assertEquals(6, ran.size());
+    queue.setBudget(0);
+    queue.execute();
+    assertEquals(10, ran.size());
+    for (int ii = 0; ii < 10; ii++) assertEquals(ii, ran.get(ii).intValue());
+  }
+
+  @Test public void testConcurrentProducers() throws InterruptedException {
+    final RunQueue queue = new RunQueue(new TestPlatform());
+    final int producers = 4, count = 10000;
+    final int[] totals = new int[producers];
+    Thread[] threads = new Thread[producers];
+    for (int pp = 0; pp < producers; pp++) {
+      final int producer = pp;
+      threads[pp] = new Thread() {
+        public void run() {
+          for (int ii = 0; ii < count; ii++) {
+            queue.add(new Runnable() {
+              public void run() { totals[producer]++; }
+            });
+          }
+        }
+      };
+      threads[pp].start();
+    }
+    // consume concurrently with the producers, then drain whatever remains
+    while (anyAlive(threads)) queue.execute();
+    queue.execute();
+    for (int pp = 0; pp < producers; pp++) assertEquals(count, totals[pp]);
+  }
+
+  protected static boolean anyAlive(Thread[] threads) {
+    for (Thread thread : threads) if (thread.isAlive()) return true;
+    return false;
+  }
+
+  protected static Runnable adder(final List<Integer> list, final int value) {
+    return new Runnable() {
+      public void run() { list.add(value); }
+    };
+  }
+}
@@ -673,16 +673,27 @@ public final class HtmlGL20 implements playn.core.gl.GL20 {
         boundElementArrayBuffer = requestedElementArrayBuffer;
       }
     }
-    gl.bufferData(target, getTypedArray(data, GL_BYTE, byteSize), usage);
+    if (data == null) {
+      gl.bufferData(target, byteSize, usage);
+    } else {
+      gl.bufferData(target, getTypedArray(data, GL_BYTE, byteSize), usage);
+    }
   }
 
   @Override
   public void glBufferSubData(int target, int offset, int size, Buffer data) {
-    if (target == GL_ARRAY_BUFFER && requestedArrayBuffer != boundArrayBuffer) {
-      gl.bindBuffer(target, requestedArrayBuffer);
-      boundArrayBuffer = requestedArrayBuffer;
+    if (target == GL_ARRAY_BUFFER) {
+      if (requestedArrayBuffer != boundArrayBuffer) {
+        gl.bindBuffer(target, requestedArrayBuffer);
+        boundArrayBuffer = requestedArrayBuffer;
+      }
+    } else if (target == GL_ELEMENT_ARRAY_BUFFER) {
+      if (requestedElementArrayBuffer != boundElementArrayBuffer) {
+        gl.bindBuffer(target, requestedElementArrayBuffer);
+        boundElementArrayBuffer = requestedElementArrayBuffer;
+      }
     }
-    throw new RuntimeException("NYI glBufferSubData");
+    gl.bufferSubData(target, offset, getTypedArray(data, GL_BYTE, size));
   }
 
   @Override
@@ -106,6 +106,26 @@ public class HtmlJson extends JsonImpl implements Json {
       return (long) getDouble(index, dflt);
     }
 
+    @Override
+    public int[] getInts(int[] into) {
+      int length = length();
+      if (into == null || into.length < length)
+        into = new int[length];
+      for (int i = 0; i < length; i++)
+        into[i] = getInt(i);
+      return into;
+    }
+
+    @Override
+    public float[] getFloats(float[] into) {
+      int length = length();
+      if (into == null || into.length < length)
+        into = new float[length];
+      for (int i = 0; i < length; i++)
+        into[i] = getNumber(i);
+      return into;
+    }
+
     @Override
     public Object getObject(int index) {
       return getObject(index, null);
@@ -18,7 +18,6 @@ import com.google.gwt.dom.client.*;
 
 import pythagoras.f.Point;
 
-import playn.core.Events;
 import playn.core.PlayN;
 import playn.core.Pointer;
 import playn.core.PointerImpl;
@@ -115,12 +114,12 @@ class HtmlPointer extends PointerImpl implements Pointer {
     float x = HtmlInput.getRelativeX(nativeEvent, rootElement);
     float y = HtmlInput.getRelativeY(nativeEvent, rootElement);
     Point xy = platform.graphics().transformMouse(x, y);
-    return new Event.Impl(new Events.Flags.Impl(), PlayN.currentTime(), xy.x, xy.y, false);
+    return obtainEvent(PlayN.currentTime(), xy.x, xy.y, false);
   }
 
   private Event.Impl eventFromTouch(final Element rootElement, Touch touch) {
     float x = touch.getRelativeX(rootElement), y = touch.getRelativeY(rootElement);
     Point xy = platform.graphics().transformMouse(x, y);
-    return new Event.Impl(new Events.Flags.Impl(), PlayN.currentTime(), xy.x, xy.y, true);
+    return obtainEvent(PlayN.currentTime(), xy.x, xy.y, true);
   }
 }
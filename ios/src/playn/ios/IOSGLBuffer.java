@@ -226,6 +226,11 @@ public abstract class IOSGLBuffer implements GLBuffer {
     return oposition;
   }
 
+  @Override
+  public boolean sendRebinds() {
+    return false;
+  }
+
   @Override
   public void flush() {
     // nothing needed here because we have no backing NIO buffer
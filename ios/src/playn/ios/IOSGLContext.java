@@ -329,6 +329,7 @@ public class IOSGLContext extends GLContext {
   }
 
   void paint(GroupLayerGL rootLayer) {
+    processUploads();
     if (rootLayer.size() > 0) {
       checkGLError("paint");
       bindFramebuffer();
@@ -43,6 +43,7 @@ import cli.System.Threading.ThreadPool;
 import cli.System.Threading.WaitCallback;
 
 import playn.core.AbstractPlatform;
+import playn.core.AssetLoader;
 import playn.core.Game;
 import playn.core.Json;
 import playn.core.Mouse;
@@ -281,12 +282,13 @@ public class IOSPlatform extends AbstractPlatform {
 
     graphics = new IOSGraphics(this, screenWidth, screenHeight, viewScale, deviceScale,
       config.interpolateCanvasDrawing);
-    json = new JsonImpl();
+    json = new JsonImpl(this);
     keyboard = new IOSKeyboard(this);
     net = new IOSNet(this);
     pointer = new IOSPointer(graphics);
     touch = new IOSTouch(graphics);
     assets = new IOSAssets(this);
+    setAssetLoader(new AssetLoader(this, 3));
     storage = new IOSStorage(config.storageFileName);
 
     mainWindow = (window == null) ? new UIWindow(bounds) : window;
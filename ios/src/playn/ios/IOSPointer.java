@@ -25,7 +25,6 @@ import cli.MonoTouch.UIKit.UITouch;
 
 import pythagoras.f.IPoint;
 
-import playn.core.Events;
 import playn.core.PointerImpl;
 
 public class IOSPointer extends PointerImpl {
@@ -65,27 +64,31 @@ public class IOSPointer extends PointerImpl {
   }
 
   private Event.Impl toPointerEvent(NSSet touches, UIEvent event) {
-    final Event.Impl[] eventw = new Event.Impl[1];
-    touches.Enumerate(new NSSetEnumerator(new NSSetEnumerator.Method() {
-      public void Invoke (NSObject obj, boolean[] stop) {
-        UITouch touch = (UITouch) obj;
-        int handle = touch.get_Handle().ToInt32();
-        // if we have an active touch, we only care about that touch
-        if (_active != 0 && handle != _active) {
-          stop[0] = false;
-        } else {
-          _active = handle;
-          PointF loc = touch.LocationInView(touch.get_View());
-          // transform the point based on our current scale
-          IPoint xloc = graphics.transformTouch(loc.get_X(), loc.get_Y());
-          eventw[0] = new Event.Impl(
-            new Events.Flags.Impl(), touch.get_Timestamp() * 1000, xloc.x(), xloc.y(), true);
-          stop[0] = true;
-        }
-      }
-    }));
-    return eventw[0];
+    _event = null;
+    touches.Enumerate(_enumerator);
+    Event.Impl ev = _event;
+    _event = null;
+    return ev;
   }
 
   private int _active;
+  // the enumerator (and the event it fills in) is reused for every event, to avoid allocation
+  private Event.Impl _event;
+  private final NSSetEnumerator _enumerator = new NSSetEnumerator(new NSSetEnumerator.Method() {
+    public void Invoke (NSObject obj, boolean[] stop) {
+      UITouch touch = (UITouch) obj;
+      int handle = touch.get_Handle().ToInt32();
+      // if we have an active touch, we only care about that touch
+      if (_active != 0 && handle != _active) {
+        stop[0] = false;
+      } else {
+        _active = handle;
+        PointF loc = touch.LocationInView(touch.get_View());
+        // transform the point based on our current scale
+        IPoint xloc = graphics.transformTouch(loc.get_X(), loc.get_Y());
+        _event = obtainEvent(touch.get_Timestamp() * 1000, xloc.x(), xloc.y(), true);
+        stop[0] = true;
+      }
+    }
+  });
 }
@@ -26,7 +26,6 @@ import cli.MonoTouch.UIKit.UITouch;
 
 import pythagoras.f.IPoint;
 
-import playn.core.Events;
 import playn.core.TouchImpl;
 
 public class IOSTouch extends TouchImpl {
@@ -54,21 +53,27 @@ public class IOSTouch extends TouchImpl {
   }
 
   private Event.Impl[] toTouchEvents(NSSet touches, UIEvent event) {
-    final Event.Impl[] events = new Event.Impl[Convert.ToInt32(touches.get_Count())];
-    touches.Enumerate(new NSSetEnumerator(new NSSetEnumerator.Method() {
-      public void Invoke (NSObject obj, boolean[] stop) {
-        UITouch touch = (UITouch) obj;
-        PointF loc = touch.LocationInView(touch.get_View());
-        // transform the point based on our current scale
-        IPoint xloc = graphics.transformTouch(loc.get_X(), loc.get_Y());
-        // on iOS the memory address of the UITouch object is the unique id
-        int id = touch.get_Handle().ToInt32();
-        events[_idx++] = new Event.Impl(
-          new Events.Flags.Impl(), touch.get_Timestamp() * 1000, xloc.x(), xloc.y(), id);
-        stop[0] = false;
-      }
-      private int _idx = 0;
-    }));
+    _events = obtainEvents(Convert.ToInt32(touches.get_Count()));
+    _idx = 0;
+    touches.Enumerate(_enumerator);
+    Event.Impl[] events = _events;
+    _events = null;
     return events;
   }
+
+  // the enumerator (and the state it fills in) is reused for every event, to avoid allocation
+  private Event.Impl[] _events;
+  private int _idx;
+  private final NSSetEnumerator _enumerator = new NSSetEnumerator(new NSSetEnumerator.Method() {
+    public void Invoke (NSObject obj, boolean[] stop) {
+      UITouch touch = (UITouch) obj;
+      PointF loc = touch.LocationInView(touch.get_View());
+      // transform the point based on our current scale
+      IPoint xloc = graphics.transformTouch(loc.get_X(), loc.get_Y());
+      // on iOS the memory address of the UITouch object is the unique id
+      int id = touch.get_Handle().ToInt32();
+      setEvent(_events, _idx++, touch.get_Timestamp() * 1000, xloc.x(), xloc.y(), id, -1, -1);
+      stop[0] = false;
+    }
+  });
 }
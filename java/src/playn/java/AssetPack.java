@@ -0,0 +1,206 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A single file containing many assets, preceded by an index of their paths. The file is memory
+ * mapped, and assets are served as slices of the mapping, so that loading an asset requires
+ * neither a class loader lookup nor a file open. This greatly reduces startup time for games with
+ * many small assets. Packs are registered via {@link JavaAssets#addPack}, and built with {@link
+ * #write}, or from the command line:
+ *
+ * <pre>{@code java -cp playn-java.jar playn.java.AssetPack game.pack src/main/assets}</pre>
+ *
+ * <p>The pack format is: the magic number {@code PLAYNPAK}, the number of assets (an int), then
+ * for each asset its path (in {@link DataOutputStream#writeUTF} format), offset (a long, from the
+ * start of the file) and length (an int), followed by the asset data. All numbers are big-endian.
+ * Paths are relative to the packed directory and use '/' as a separator.</p>
+ */
+public class AssetPack {
+
+  /**
+   * Builds a pack from the command line. See {@link #write}.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length != 2) {
+      System.err.println("Usage: AssetPack pack_file asset_dir");
+      System.exit(255);
+    }
+    int count = write(new File(args[0]), new File(args[1]));
+    System.out.println("Packed " + count + " assets into " + args[0]);
+  }
+
+  /**
+   * Writes all files in {@code rootDir} (and its subdirectories) into a pack at {@code pack}.
+   * @return the number of assets written.
+   */
+  public static int write(File pack, File rootDir) throws IOException {
+    List<String> paths = new ArrayList<String>();
+    collect(rootDir, "", paths);
+    Collections.sort(paths);
+
+    // compute the size of the index, so that we know where the data starts
+    long offset = MAGIC.length + 4;
+    for (String path : paths) offset += utfLength(path) + 8 + 4;
+
+    DataOutputStream out = new DataOutputStream(
+      new BufferedOutputStream(new FileOutputStream(pack)));
+    try {
+      out.write(MAGIC);
+      out.writeInt(paths.size());
+      for (String path : paths) {
+        long length = new File(rootDir, path).length();
+        if (length > Integer.MAX_VALUE) throw new IOException("Asset too large: " + path);
+        out.writeUTF(path);
+        out.writeLong(offset);
+        out.writeInt((int)length);
+        offset += length;
+        // packs are mapped into a single buffer, which is limited to 2GB
+        if (offset > Integer.MAX_VALUE) throw new IOException("Pack too large at: " + path);
+      }
+      byte[] buffer = new byte[64*1024];
+      for (String path : paths) {
+        InputStream in = new FileInputStream(new File(rootDir, path));
+        try {
+          for (int read; (read = in.read(buffer)) > 0; ) out.write(buffer, 0, read);
+        } finally {
+          in.close();
+        }
+      }
+    } finally {
+      out.close();
+    }
+    return paths.size();
+  }
+
+  /**
+   * Memory maps and indexes the pack at {@code file}.
+   * @throws IOException if the file could not be mapped, or is not a valid pack.
+   */
+  public AssetPack(File file) throws IOException {
+    this.file = file;
+    RandomAccessFile raf = new RandomAccessFile(file, "r");
+    try {
+      // a single mapping cannot exceed 2GB
+      long length = raf.length();
+      if (length > Integer.MAX_VALUE)
+        throw new IOException("Asset pack too large: " + file + " [length=" + length + "]");
+      // the mapping remains valid after the channel is closed
+      data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, length);
+    } finally {
+      raf.close();
+    }
+    try {
+      byte[] magic = new byte[MAGIC.length];
+      data.get(magic);
+      for (int ii = 0; ii < MAGIC.length; ii++) {
+        if (magic[ii] != MAGIC[ii]) throw new IOException("Not an asset pack: " + file);
+      }
+      int count = data.getInt();
+      index = new HashMap<String,long[]>(count * 4 / 3 + 1);
+      for (int ii = 0; ii < count; ii++) {
+        String path = readUTF(data);
+        long offset = data.getLong();
+        int length = data.getInt();
+        if (offset < 0 || offset + length > data.capacity())
+          throw new IOException("Corrupt asset pack: " + file + " [path=" + path + "]");
+        index.put(path, new long[] { offset, length });
+      }
+    } catch (RuntimeException re) {
+      throw new IOException("Corrupt asset pack: " + file + " [error=" + re + "]");
+    }
+  }
+
+  /** Returns the file from which this pack was loaded. */
+  public File file() {
+    return file;
+  }
+
+  /** Returns the number of assets in this pack. */
+  public int size() {
+    return index.size();
+  }
+
+  /** Returns true if this pack contains the asset at {@code path}. */
+  public boolean contains(String path) {
+    return index.containsKey(path);
+  }
+
+  /**
+   * Returns a read-only buffer containing the asset at {@code path}, or null if this pack does not
+   * contain it. The buffer is a view onto the mapped pack; its data is not copied.
+   */
+  public ByteBuffer get(String path) {
+    long[] entry = index.get(path);
+    if (entry == null) return null;
+    // duplicate our buffer so that concurrent lookups don't stomp on one another's position
+    ByteBuffer buf = data.duplicate();
+    buf.position((int)entry[0]).limit((int)(entry[0] + entry[1]));
+    return buf.slice().asReadOnlyBuffer();
+  }
+
+  @Override
+  public String toString() {
+    return "AssetPack[" + file + ", assets=" + index.size() + "]";
+  }
+
+  private static void collect(File dir, String prefix, List<String> paths) throws IOException {
+    File[] files = dir.listFiles();
+    if (files == null) throw new IOException("Not a directory: " + dir);
+    for (File file : files) {
+      String path = prefix + file.getName();
+      if (file.isDirectory()) collect(file, path + "/", paths);
+      else paths.add(path);
+    }
+  }
+
+  private static int utfLength(String path) throws IOException {
+    ByteArrayOutputStream bout = new ByteArrayOutputStream();
+    new DataOutputStream(bout).writeUTF(path);
+    return bout.size();
+  }
+
+  private static String readUTF(ByteBuffer buf) throws IOException {
+    byte[] bytes = new byte[buf.getShort() & 0xFFFF];
+    buf.get(bytes);
+    // DataOutputStream.writeUTF uses modified UTF-8, which matches standard UTF-8 for all
+    // characters except NUL and supplementary characters, neither of which we expect in a path
+    return new String(bytes, "UTF-8");
+  }
+
+  private static final byte[] MAGIC = { 'P', 'L', 'A', 'Y', 'N', 'P', 'A', 'K' };
+
+  private final File file;
+  private final ByteBuffer data;
+  private final Map<String,long[]> index;
+}
@@ -0,0 +1,82 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import java.awt.Point;
+import java.awt.color.ColorSpace;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DirectColorModel;
+import java.awt.image.Raster;
+
+import playn.core.gl.CompressedTexture;
+
+/**
+ * A buffered image backed by a compressed texture, which is uploaded to the GPU in place of
+ * decoded pixels. The texture is only decoded if its pixels are actually needed (to draw the
+ * image into a canvas, say), so that an image that is only ever drawn via GL does not hold both
+ * its compressed data and its decoded pixels. Textures in formats for which we have no software
+ * decoder read as transparent pixels.
+ */
+class CompressedBufferedImage extends BufferedImage {
+
+  /** The compressed texture from which this image was loaded. */
+  public final CompressedTexture texture;
+
+  public CompressedBufferedImage(CompressedTexture texture) {
+    // this is the color model and layout of a TYPE_INT_ARGB_PRE image, over our lazy pixels
+    super(new DirectColorModel(ColorSpace.getInstance(ColorSpace.CS_sRGB), 32, MASKS[0], MASKS[1],
+                               MASKS[2], MASKS[3], true, DataBuffer.TYPE_INT),
+          Raster.createPackedRaster(new DecodedPixels(texture), texture.width, texture.height,
+                                    texture.width, MASKS, new Point()),
+          true, null);
+    this.texture = texture;
+  }
+
+  /** The red, green, blue and alpha masks of our pixels. */
+  private static final int[] MASKS = { 0x00FF0000, 0x0000FF00, 0x000000FF, 0xFF000000 };
+
+  /** Premultiplied ARGB pixels which are decoded from a texture on first access. */
+  protected static class DecodedPixels extends DataBuffer {
+    private final CompressedTexture texture;
+    private volatile int[] pixels;
+
+    public DecodedPixels(CompressedTexture texture) {
+      super(TYPE_INT, texture.width * texture.height);
+      this.texture = texture;
+    }
+
+    @Override public int getElem(int bank, int i) {
+      return pixels()[i];
+    }
+
+    @Override public void setElem(int bank, int i, int val) {
+      pixels()[i] = val;
+    }
+
+    private int[] pixels() {
+      int[] pixels = this.pixels;
+      if (pixels == null) {
+        synchronized (this) {
+          if (this.pixels == null)
+            this.pixels = texture.canDecode() ? texture.decode() : new int[getSize()];
+          pixels = this.pixels;
+        }
+      }
+      return pixels;
+    }
+  }
+}
@@ -22,6 +22,8 @@ import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
 
 import java.util.Arrays;
 import javax.imageio.ImageIO;
@@ -34,6 +36,7 @@ import playn.core.AbstractAssets;
 import playn.core.AsyncImage;
 import playn.core.Image;
 import playn.core.Sound;
+import playn.core.gl.CompressedTexture;
 import playn.core.gl.Scale;
 
 /**
@@ -41,8 +44,18 @@ import playn.core.gl.Scale;
  */
 public class JavaAssets extends AbstractAssets<BufferedImage> {
 
+  static {
+    // decode images straight from their resource streams, rather than first spooling the stream
+    // into a temporary file, which ImageIO does by default
+    ImageIO.setUseCache(false);
+  }
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+
   private final JavaPlatform platform;
   private File[] directories = {};
+  // replaced (never mutated) by addPack on the game thread, read by loader threads
+  private volatile AssetPack[] packs = {};
 
   private String pathPrefix = "assets/";
   private Scale assetScale = null;
@@ -91,6 +104,22 @@ public class JavaAssets extends AbstractAssets<BufferedImage> {
     directories = ndirs;
   }
 
+  /**
+   * Adds the asset pack at {@code file} (see {@link AssetPack}) to the search path for resources.
+   * Packs are searched, in the order they were added, before the class path and extra
+   * directories. Paths in a pack are not prefixed with the path prefix.
+   *
+   * @return the mapped pack.
+   * @throws IOException if the pack could not be read.
+   */
+  public AssetPack addPack(File file) throws IOException {
+    AssetPack pack = new AssetPack(file);
+    AssetPack[] opacks = packs, npacks = Arrays.copyOf(opacks, opacks.length + 1);
+    npacks[opacks.length] = pack;
+    packs = npacks;
+    return pack;
+  }
+
   /**
    * Configures the default scale to use for assets. This allows one to specify an intermediate
    * graphics scale (like 1.5) and scale the 2x imagery down to 1.5x instead of scaling the 1.5x
@@ -150,7 +179,8 @@ public class JavaAssets extends AbstractAssets<BufferedImage> {
     Exception error = null;
     for (Scale.ScaledResource rsrc : assetScale().getScaledResources(fullPath)) {
       try {
-        BufferedImage image = requireResource(rsrc.path).readImage();
+        BufferedImage image = CompressedTexture.isContainer(rsrc.path) ?
+          readCompressedImage(requireResource(rsrc.path)) : requireResource(rsrc.path).readImage();
         // if image is at a higher scale factor than the view, scale to the view display factor
         Scale viewScale = platform.graphics().ctx().scale, imageScale = rsrc.scale;
         float viewImageRatio = viewScale.factor / imageScale.factor;
@@ -177,12 +207,34 @@ public class JavaAssets extends AbstractAssets<BufferedImage> {
     return recv.loadFailed(error != null ? error : new FileNotFoundException(fullPath));
   }
 
+  /**
+   * Reads a KTX, PKM or DDS compressed texture. If the GPU supports the texture's format, its
+   * compressed data is uploaded as is, and only decoded if the image is drawn into a canvas.
+   * Otherwise the texture is decoded in software, if we have a decoder for its format.
+   */
+  protected BufferedImage readCompressedImage(Resource rsrc) throws IOException {
+    CompressedTexture texture;
+    try {
+      texture = CompressedTexture.parse(rsrc.readBytes());
+    } catch (IllegalArgumentException iae) {
+      throw new IOException(iae.getMessage());
+    }
+    if (platform.graphics().ctx().supportsCompressedFormat(texture.format))
+      return new CompressedBufferedImage(texture);
+    if (!texture.canDecode())
+      throw new IOException("Compressed texture unsupported by GPU and decoder " + texture);
+    BufferedImage image = new BufferedImage(
+      texture.width, texture.height, BufferedImage.TYPE_INT_ARGB_PRE);
+    image.getRaster().setDataElements(0, 0, texture.width, texture.height, texture.decode());
+    return image;
+  }
+
   protected Sound getSound(String path, boolean music) {
     Exception err = null;
     for (String suff : SUFFIXES) {
       final String soundPath = path + suff;
       try {
-        return platform.audio().createSound(requireResource(soundPath), music);
+        return platform.audio().createSound(soundPath, requireResource(soundPath), music);
       } catch (Exception e) {
         err = e; // note the error, and loop through and try the next format
       }
@@ -195,11 +247,16 @@ public class JavaAssets extends AbstractAssets<BufferedImage> {
    * Attempts to locate the resource at the given path, and returns a wrapper which allows its data
    * to be efficiently read.
    *
-   * <p>First, the path prefix is prepended (see {@link #setPathPrefix(String)}) and the the class
+   * <p>First, any asset packs are checked (see {@link #addPack}). Then the path prefix is
+   * prepended (see {@link #setPathPrefix(String)}) and the the class
    * loader checked. If not found, then the extra directories, if any, are checked, in order. If
    * the file is not found in any of the extra directories either, then an exception is thrown.
    */
   protected Resource requireResource(String path) throws IOException {
+    for (AssetPack pack : packs) {
+      ByteBuffer data = pack.get(path);
+      if (data != null) return new PackResource(data);
+    }
     URL url = getClass().getClassLoader().getResource(pathPrefix + path);
     if (url != null) {
       return url.getProtocol().equals("file") ?
@@ -306,5 +363,63 @@ public class JavaAssets extends AbstractAssets<BufferedImage> {
     }
   }
 
+  protected static class PackResource extends Resource {
+    public final ByteBuffer data;
+    public PackResource(ByteBuffer data) {
+      this.data = data;
+    }
+    public InputStream openStream() {
+      return new ByteBufferInputStream(data.duplicate());
+    }
+    public BufferedImage readImage() throws IOException {
+      return ImageIO.read(openStream());
+    }
+    @Override public byte[] readBytes() {
+      byte[] bytes = new byte[data.remaining()];
+      data.duplicate().get(bytes);
+      return bytes;
+    }
+    @Override public String readString() {
+      // decode straight from the mapped pack, rather than first copying out the bytes
+      return UTF8.decode(data.duplicate()).toString();
+    }
+  }
+
+  /** Reads from a byte buffer, which may be a slice of a mapped asset pack. */
+  protected static class ByteBufferInputStream extends InputStream {
+    private final ByteBuffer buf;
+    private int mark;
+    public ByteBufferInputStream(ByteBuffer buf) {
+      this.buf = buf;
+    }
+    @Override public int read() {
+      return buf.hasRemaining() ? (buf.get() & 0xFF) : -1;
+    }
+    @Override public int read(byte[] bytes, int off, int len) {
+      if (len == 0) return 0;
+      if (!buf.hasRemaining()) return -1;
+      len = Math.min(len, buf.remaining());
+      buf.get(bytes, off, len);
+      return len;
+    }
+    @Override public long skip(long n) {
+      int skipped = (int)Math.max(0, Math.min(n, buf.remaining()));
+      buf.position(buf.position() + skipped);
+      return skipped;
+    }
+    @Override public int available() {
+      return buf.remaining();
+    }
+    @Override public boolean markSupported() {
+      return true;
+    }
+    @Override public synchronized void mark(int readLimit) {
+      mark = buf.position();
+    }
+    @Override public synchronized void reset() {
+      buf.position(mark);
+    }
+  }
+
   protected static final String[] SUFFIXES = { ".wav", ".mp3" };
 }
@@ -15,53 +15,93 @@
  */
 package playn.java;
 
-import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.util.HashMap;
+import java.util.Map;
 
 import javax.sound.sampled.AudioFormat;
 import javax.sound.sampled.AudioInputStream;
 import javax.sound.sampled.AudioSystem;
-import playn.core.AudioImpl;
-
 import javax.sound.sampled.Clip;
 
+import playn.core.AudioImpl;
+import playn.core.Sound;
+
 public class JavaAudio extends AudioImpl {
 
   public JavaAudio(JavaPlatform platform) {
+    this(platform, 32);
+  }
+
+  /**
+   * Creates the audio service.
+   *
+   * @param mixerVoices the number of voices in the software mixer through which sound effects are
+   * played (see {@link MixerSound}), or zero to play each sound effect on its own {@code Clip}.
+   */
+  public JavaAudio(JavaPlatform platform, int mixerVoices) {
     super(platform);
+    this.mixerVoices = mixerVoices;
   }
 
   /**
    * Creates a sound instance from the audio data available via {@code in}.
    *
    * @param rsrc a resource via which the audio data can be read.
-   * @param music if true, a custom {@link Clip} implementation will be used which can handle long
-   * audio clips; if false, the default Java clip implementation is used which cannot handle long
-   * audio clips.
+   * @param music if true, the audio is streamed from the resource as it plays (see {@link
+   * StreamingClip}), rather than being decoded into memory up front. This is appropriate for long
+   * audio tracks.
+   *
+   * <p>The sound plays on its own {@code Clip}; sound effects loaded via {@link JavaAssets} play
+   * through the software mixer instead (see {@link MixerSound}).</p>
    */
-  public JavaSound createSound(final JavaAssets.Resource rsrc, final boolean music) {
+  public JavaSound createSound(JavaAssets.Resource rsrc, boolean music) {
+    return createClipSound(rsrc, music);
+  }
+
+  /**
+   * Creates a sound instance from the audio data available via {@code rsrc}, playing sound effects
+   * through our mixer if it is enabled. Sound effects loaded from the same {@code path} share their
+   * decoded audio data, while any of them remain loaded.
+   */
+  Sound createSound(String path, JavaAssets.Resource rsrc, boolean music) {
+    JavaMixer mixer = music ? null : mixer();
+    return (mixer == null) ? createClipSound(rsrc, music) : createMixerSound(mixer, path, rsrc);
+  }
+
+  protected Sound createMixerSound(JavaMixer mixer, final String path,
+                                   final JavaAssets.Resource rsrc) {
+    final MixerSound sound = new MixerSound(mixer);
+    JavaMixer.Samples cached = cachedSamples(path);
+    if (cached != null) {
+      dispatchLoaded(sound, cached);
+      return sound;
+    }
+    ((JavaPlatform) platform).invokeAsync(new Runnable() {
+      public void run () {
+        try {
+          dispatchLoaded(sound, cacheSamples(path, JavaMixer.Samples.decode(
+            rsrc.openAudioStream())));
+        } catch (Exception e) {
+          dispatchLoadError(sound, e);
+        }
+      }
+    });
+    return sound;
+  }
+
+  protected JavaSound createClipSound(final JavaAssets.Resource rsrc, final boolean music) {
     final JavaSound sound = new JavaSound();
     ((JavaPlatform) platform).invokeAsync(new Runnable() {
       public void run () {
         try {
-          AudioInputStream ais = rsrc.openAudioStream();
-          Clip clip = AudioSystem.getClip();
+          Clip clip;
           if (music) {
-            clip = new BigClip(clip);
-          }
-          AudioFormat baseFormat = ais.getFormat();
-          if (baseFormat.getEncoding() != AudioFormat.Encoding.PCM_SIGNED) {
-            AudioFormat decodedFormat = new AudioFormat(
-              AudioFormat.Encoding.PCM_SIGNED,
-              baseFormat.getSampleRate(),
-              16, // we have to force sample size to 16
-              baseFormat.getChannels(),
-              baseFormat.getChannels()*2,
-              baseFormat.getSampleRate(),
-              false // big endian
-              );
-            ais = AudioSystem.getAudioInputStream(decodedFormat, ais);
+            clip = new StreamingClip(rsrc);
+          } else {
+            clip = AudioSystem.getClip();
+            clip.open(toPCM(rsrc.openAudioStream()));
           }
-          clip.open(ais);
           dispatchLoaded(sound, clip);
         } catch (Exception e) {
           dispatchLoadError(sound, e);
@@ -70,4 +110,58 @@ public class JavaAudio extends AudioImpl {
     });
     return sound;
   }
+
+  /** Returns our mixer, creating and opening it if necessary. Returns null if the mixer is
+   * disabled, or could not be opened. */
+  protected synchronized JavaMixer mixer() {
+    if (mixer == null && mixerVoices > 0) {
+      try {
+        JavaMixer mixer = new JavaMixer(mixerVoices);
+        mixer.open();
+        this.mixer = mixer;
+      } catch (Exception e) {
+        platform.log().warn("Unable to open audio mixer, falling back to clips", e);
+        mixerVoices = 0;
+      }
+    }
+    return mixer;
+  }
+
+  protected synchronized JavaMixer.Samples cachedSamples(String path) {
+    WeakReference<JavaMixer.Samples> ref = (path == null) ? null : samples.get(path);
+    return (ref == null) ? null : ref.get();
+  }
+
+  protected synchronized JavaMixer.Samples cacheSamples(String path, JavaMixer.Samples data) {
+    if (path == null) return data;
+    // if another load of this path finished first, share its data and discard ours
+    JavaMixer.Samples cached = cachedSamples(path);
+    if (cached != null) return cached;
+    samples.put(path, new WeakReference<JavaMixer.Samples>(data));
+    return data;
+  }
+
+  /**
+   * Returns a stream that decodes {@code ais} into signed PCM, if it is not already in that
+   * format.
+   */
+  static AudioInputStream toPCM(AudioInputStream ais) {
+    AudioFormat baseFormat = ais.getFormat();
+    if (baseFormat.getEncoding() == AudioFormat.Encoding.PCM_SIGNED) return ais;
+    AudioFormat decodedFormat = new AudioFormat(
+      AudioFormat.Encoding.PCM_SIGNED,
+      baseFormat.getSampleRate(),
+      16, // we have to force sample size to 16
+      baseFormat.getChannels(),
+      baseFormat.getChannels()*2,
+      baseFormat.getSampleRate(),
+      false // big endian
+      );
+    return AudioSystem.getAudioInputStream(decodedFormat, ais);
+  }
+
+  protected int mixerVoices;
+  protected JavaMixer mixer;
+  protected final Map<String,WeakReference<JavaMixer.Samples>> samples =
+    new HashMap<String,WeakReference<JavaMixer.Samples>>();
 }
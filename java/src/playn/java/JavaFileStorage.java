@@ -0,0 +1,476 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+import playn.core.BatchImpl;
+import playn.core.Platform;
+import playn.core.Storage;
+
+/**
+ * A {@link Storage} kept in a single file, as an append-only log of changes. Items are held in
+ * memory, so reads never touch the file. Writes update the in-memory items immediately and are
+ * appended to the log by a background thread, which writes all of the changes that accumulated
+ * while it was busy in one go and then syncs them to disk. Thus the game thread never waits on the
+ * disk, and changes made in quick succession cost one sync.
+ *
+ * <p>Each {@link #setItem}, {@link #removeItem} and {@link Batch#commit} is appended as a single
+ * checksummed record. When the file is loaded, a record that was not completely written (because
+ * the game crashed, say) is discarded, so a batch is applied entirely or not at all. Once the log
+ * has grown to twice its size after it was last compacted, it is rewritten, containing just the
+ * current items, and atomically moved into place.</p>
+ *
+ * <p>If the file cannot be read or written, items are kept only in memory and {@link #isPersisted}
+ * returns false.</p>
+ */
+class JavaFileStorage implements Storage {
+
+  JavaFileStorage(Platform platform, File file) {
+    this.platform = platform;
+    this.file = file;
+    try {
+      load();
+      isPersisted = true;
+    } catch (IOException e) {
+      platform.log().warn("Couldn't open storage file " + file + ": " + e.getMessage());
+      closeQuietly();
+    }
+    writer = new Thread("PlayN storage writer") {
+      @Override public void run() {
+        writeLoop();
+      }
+    };
+    writer.setDaemon(true);
+    writer.start();
+  }
+
+  @Override
+  public void setItem(String key, String value) {
+    checkKey(key);
+    if (value == null) throw new NullPointerException("Null value for key " + key);
+    synchronized (this) {
+      if (!closed) {
+        int start = beginRecord(1);
+        appendSet(key, value);
+        endRecord(start);
+      }
+      items.put(key, value);
+    }
+  }
+
+  @Override
+  public void removeItem(String key) {
+    checkKey(key);
+    synchronized (this) {
+      if (!closed) {
+        int start = beginRecord(1);
+        appendRemove(key);
+        endRecord(start);
+      }
+      items.remove(key);
+    }
+  }
+
+  @Override
+  public synchronized String getItem(String key) {
+    return items.get(key);
+  }
+
+  @Override
+  public Batch startBatch() {
+    return new BatchImpl(this) {
+      // gather the changes, and append them all at once, so that they form a single record
+      private final ArrayList<String> keys = new ArrayList<String>();
+      private final ArrayList<String> values = new ArrayList<String>();
+      @Override protected void setImpl(String key, String data) {
+        checkKey(key);
+        keys.add(key);
+        values.add(data);
+      }
+      @Override protected void removeImpl(String key) {
+        checkKey(key);
+        keys.add(key);
+        values.add(null);
+      }
+      @Override protected void onAfterCommit() {
+        synchronized (JavaFileStorage.this) {
+          if (!closed) {
+            int start = beginRecord(keys.size());
+            for (int ii = 0, ll = keys.size(); ii < ll; ii++) {
+              String value = values.get(ii);
+              if (value == null)
+                appendRemove(keys.get(ii));
+              else
+                appendSet(keys.get(ii), value);
+            }
+            endRecord(start);
+          }
+          for (int ii = 0, ll = keys.size(); ii < ll; ii++) {
+            String value = values.get(ii);
+            if (value == null)
+              items.remove(keys.get(ii));
+            else
+              items.put(keys.get(ii), value);
+          }
+        }
+      }
+    };
+  }
+
+  @Override
+  public synchronized Iterable<String> keys() {
+    return new ArrayList<String>(items.keySet());
+  }
+
+  @Override
+  public boolean isPersisted() {
+    return isPersisted;
+  }
+
+  /**
+   * Blocks until all changes made so far have been written and synced to disk.
+   */
+  public synchronized void flush() {
+    long target = appended;
+    while (synced < target && writer.isAlive()) {
+      try {
+        wait();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Writes any outstanding changes, stops the writer thread and closes the file. Further changes
+   * are kept only in memory (and are not encoded into the log).
+   */
+  public void close() {
+    synchronized (this) {
+      closed = true;
+      notifyAll();
+    }
+    try {
+      writer.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Reads the items in the log into memory, truncating the log after its last intact record.
+   */
+  private void load() throws IOException {
+    File parent = file.getAbsoluteFile().getParentFile();
+    if (parent != null && !parent.isDirectory() && !parent.mkdirs())
+      throw new IOException("Couldn't create directory " + parent);
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.CREATE,
+                               StandardOpenOption.READ, StandardOpenOption.WRITE);
+    long size = channel.size();
+    // a file too short to have a header was created but never written, so start it afresh
+    if (size < FILE_HEADER) {
+      channel.truncate(0);
+      writeFully(channel, header(), 0);
+      channel.force(false);
+      logSize = compactedSize = FILE_HEADER;
+      return;
+    }
+    if (size > Integer.MAX_VALUE)
+      throw new IOException("Storage file is too large: " + size);
+
+    ByteBuffer log = ByteBuffer.allocate((int)size);
+    while (log.hasRemaining() && channel.read(log, log.position()) >= 0) {}
+    log.flip();
+    if (log.remaining() < FILE_HEADER || log.getInt() != MAGIC || log.getInt() != VERSION)
+      throw new IOException("Not a storage file");
+
+    CRC32 crc = new CRC32();
+    int end = log.position();
+    while (log.remaining() >= RECORD_HEADER) {
+      int length = log.getInt(), checksum = log.getInt();
+      if (length < 4 || length > log.remaining()) break;
+      crc.reset();
+      crc.update(log.array(), log.position(), length);
+      if ((int)crc.getValue() != checksum) break;
+      applyRecord(log);
+      end = log.position();
+    }
+    if (end < size) {
+      platform.log().warn("Discarding " + (size - end) + " bytes of incomplete changes from " +
+                          file);
+      channel.truncate(end);
+      channel.force(false);
+    }
+    logSize = compactedSize = end;
+  }
+
+  private void applyRecord(ByteBuffer log) {
+    for (int ii = 0, count = log.getInt(); ii < count; ii++) {
+      byte op = log.get();
+      String key = readString(log);
+      if (op == SET)
+        items.put(key, readString(log));
+      else
+        items.remove(key);
+    }
+  }
+
+  private void writeLoop() {
+    while (true) {
+      ByteBuffer bytes;
+      Map<String,String> snapshot = null;
+      long upto;
+      synchronized (this) {
+        while (pending.position() == 0 && !closed) {
+          try {
+            wait();
+          } catch (InterruptedException e) {
+            // keep waiting until we're closed
+          }
+        }
+        if (pending.position() == 0) break;
+        // swap buffers, so that changes can be made while we write these ones
+        bytes = pending;
+        bytes.flip();
+        pending = spare;
+        pending.clear();
+        spare = bytes;
+        upto = appended;
+        if (channel != null && logSize + bytes.remaining() > Math.max(2*compactedSize, MIN_COMPACT))
+          snapshot = new HashMap<String,String>(items);
+      }
+
+      if (channel != null) {
+        try {
+          if (snapshot == null || !compact(snapshot)) {
+            writeFully(channel, bytes, logSize);
+            channel.force(false);
+            logSize += bytes.limit();
+          }
+        } catch (IOException e) {
+          platform.log().warn("Error writing storage file " + file + ": " + e.getMessage());
+          isPersisted = false;
+          closeQuietly();
+        }
+      }
+
+      synchronized (this) {
+        synced = upto;
+        notifyAll();
+      }
+    }
+    closeQuietly();
+    synchronized (this) {
+      notifyAll();
+    }
+  }
+
+  /**
+   * Replaces the log with one that contains just {@code snapshot}.
+   *
+   * @return true if the log was replaced, false if the existing log should be appended to instead.
+   */
+  private boolean compact(Map<String,String> snapshot) throws IOException {
+    File tmp = new File(file.getPath() + ".tmp");
+    ByteBuffer bytes = encode(snapshot);
+    try {
+      FileChannel out = FileChannel.open(
+        tmp.toPath(), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING,
+        StandardOpenOption.WRITE);
+      try {
+        writeFully(out, bytes, 0);
+        out.force(false);
+      } finally {
+        out.close();
+      }
+    } catch (IOException e) {
+      platform.log().warn("Couldn't compact storage file " + file + ": " + e.getMessage());
+      tmp.delete();
+      // we'll try again when the log has doubled again
+      compactedSize = logSize;
+      return false;
+    }
+
+    // some platforms won't replace a file that is open, so close the log while we replace it
+    channel.close();
+    channel = null;
+    boolean moved = false;
+    try {
+      Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING,
+                 StandardCopyOption.ATOMIC_MOVE);
+      moved = true;
+    } catch (IOException e) {
+      platform.log().warn("Couldn't replace storage file " + file + ": " + e.getMessage());
+      tmp.delete();
+    }
+    channel = FileChannel.open(file.toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE);
+    logSize = channel.size();
+    // if we failed, we'll try again when the log has doubled again
+    compactedSize = logSize;
+    return moved;
+  }
+
+  /** Encodes a complete log containing a single record that sets {@code items}. */
+  private ByteBuffer encode(Map<String,String> items) {
+    int size = FILE_HEADER + RECORD_HEADER + 4;
+    for (Map.Entry<String,String> entry : items.entrySet())
+      size += 9 + utf8Length(entry.getKey()) + utf8Length(entry.getValue());
+    ByteBuffer bytes = ByteBuffer.allocate(size);
+    bytes.put(header());
+    int start = bytes.position();
+    bytes.putInt(0).putInt(0).putInt(items.size());
+    for (Map.Entry<String,String> entry : items.entrySet()) {
+      bytes.put(SET);
+      writeString(bytes, entry.getKey());
+      writeString(bytes, entry.getValue());
+    }
+    checksum(bytes, start);
+    bytes.flip();
+    return bytes;
+  }
+
+  private static void checkKey(String key) {
+    if (key == null) throw new NullPointerException("Null key");
+  }
+
+  /** Starts a record of {@code count} changes in {@link #pending}, returning its position. */
+  private int beginRecord(int count) {
+    ensurePending(RECORD_HEADER + 4);
+    int start = pending.position();
+    pending.putInt(0).putInt(0).putInt(count);
+    return start;
+  }
+
+  // the append methods only encode changes; callers apply them to items once a record is complete,
+  // and must check that keys are non-null first, so that a record is never left half written
+
+  private void appendSet(String key, String value) {
+    ensurePending(9 + utf8Length(key) + utf8Length(value));
+    pending.put(SET);
+    writeString(pending, key);
+    writeString(pending, value);
+  }
+
+  private void appendRemove(String key) {
+    ensurePending(5 + utf8Length(key));
+    pending.put(REMOVE);
+    writeString(pending, key);
+  }
+
+  private void endRecord(int start) {
+    checksum(pending, start);
+    appended++;
+    notifyAll();
+  }
+
+  /** Fills in the length and checksum of the record written to {@code bytes} from {@code start}
+   * to its current position. */
+  private static void checksum(ByteBuffer bytes, int start) {
+    int payload = start + RECORD_HEADER, length = bytes.position() - payload;
+    CRC32 crc = new CRC32();
+    crc.update(bytes.array(), payload, length);
+    bytes.putInt(start, length);
+    bytes.putInt(start + 4, (int)crc.getValue());
+  }
+
+  private void ensurePending(int bytes) {
+    if (pending.remaining() < bytes) {
+      ByteBuffer npending = ByteBuffer.allocate(
+        Math.max(pending.capacity() * 2, pending.position() + bytes));
+      pending.flip();
+      npending.put(pending);
+      pending = npending;
+    }
+  }
+
+  private void closeQuietly() {
+    if (channel != null) {
+      try {
+        channel.close();
+      } catch (IOException e) {
+        // nothing to be done
+      }
+      channel = null;
+    }
+  }
+
+  private static ByteBuffer header() {
+    ByteBuffer header = ByteBuffer.allocate(FILE_HEADER);
+    header.putInt(MAGIC).putInt(VERSION).flip();
+    return header;
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer bytes, long position)
+      throws IOException {
+    while (bytes.hasRemaining())
+      position += channel.write(bytes, position);
+  }
+
+  private static void writeString(ByteBuffer bytes, String s) {
+    byte[] data = s.getBytes(UTF8);
+    bytes.putInt(data.length).put(data);
+  }
+
+  private static String readString(ByteBuffer bytes) {
+    int length = bytes.getInt();
+    String s = new String(bytes.array(), bytes.position(), length, UTF8);
+    bytes.position(bytes.position() + length);
+    return s;
+  }
+
+  /** Returns an upper bound on the length of {@code s} in UTF-8. */
+  private static int utf8Length(String s) {
+    return s.length() * 3;
+  }
+
+  private final Platform platform;
+  private final File file;
+  private final Thread writer;
+  private volatile boolean isPersisted;
+
+  // the following are guarded by this
+  private final Map<String,String> items = new HashMap<String,String>();
+  /** Records yet to be written, and the buffer into which they will be encoded next time. */
+  private ByteBuffer pending = ByteBuffer.allocate(4096), spare = ByteBuffer.allocate(4096);
+  /** The number of records appended to {@link #pending}, and the number that have been synced. */
+  private long appended, synced;
+  private boolean closed;
+
+  // the following are used by the writer thread (or by the constructor, before it starts)
+  private FileChannel channel;
+  private long logSize, compactedSize;
+
+  private static final Charset UTF8 = Charset.forName("UTF-8");
+  private static final int MAGIC = 0x504C4E53; // PLNS
+  private static final int VERSION = 1;
+  private static final int FILE_HEADER = 8;
+  /** Each record starts with the length and CRC32 of its payload, which starts with an op count. */
+  private static final int RECORD_HEADER = 8;
+  private static final byte SET = 1, REMOVE = 2;
+  /** Logs smaller than this are never compacted. */
+  private static final int MIN_COMPACT = 64 * 1024;
+}
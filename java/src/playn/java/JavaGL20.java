@@ -224,13 +224,21 @@ final class JavaGL20 extends AbstractGL20 {
   @Override public void glCompressedTexImage2D (int target, int level, int internalformat,
                                                 int width, int height, int border,
                                                 int imageSize, Buffer data) {
-    throw new UnsupportedOperationException("not implemented");
+    ByteBuffer bdata = (ByteBuffer)data;
+    int oldLimit = bdata.limit();
+    bdata.limit(bdata.position() + imageSize);
+    GL13.glCompressedTexImage2D(target, level, internalformat, width, height, border, bdata);
+    bdata.limit(oldLimit);
   }
 
   @Override public void glCompressedTexSubImage2D (int target, int level, int xoffset, int yoffset,
                                                    int width, int height, int format,
                                                    int imageSize, Buffer data) {
-    throw new UnsupportedOperationException("not implemented");
+    ByteBuffer bdata = (ByteBuffer)data;
+    int oldLimit = bdata.limit();
+    bdata.limit(bdata.position() + imageSize);
+    GL13.glCompressedTexSubImage2D(target, level, xoffset, yoffset, width, height, format, bdata);
+    bdata.limit(oldLimit);
   }
 
   @Override
@@ -21,17 +21,46 @@ import java.awt.image.DataBufferByte;
 import java.awt.image.DataBufferInt;
 import java.nio.ByteBuffer;
 import java.nio.ByteOrder;
+import java.nio.IntBuffer;
 
+import org.lwjgl.opengl.ARBDrawInstanced;
+import org.lwjgl.opengl.ARBInstancedArrays;
+import org.lwjgl.opengl.ContextCapabilities;
 import org.lwjgl.opengl.GL11;
 import org.lwjgl.opengl.GL12;
+import org.lwjgl.opengl.GL31;
+import org.lwjgl.opengl.GL33;
 
+import playn.core.Image;
 import playn.core.gl.GL20Context;
+import playn.core.gl.GLInstancing;
 
 public class JavaGLContext extends GL20Context {
 
   private final static boolean CHECK_ERRORS = Boolean.getBoolean("playn.glerrors");
+  private final static boolean NO_INSTANCING = Boolean.getBoolean("playn.noinstancing");
+
+  private final static GLInstancing GL33_INSTANCING = new GLInstancing() {
+    public void glVertexAttribDivisor(int index, int divisor) {
+      GL33.glVertexAttribDivisor(index, divisor);
+    }
+    public void glDrawElementsInstanced(int mode, int count, int type, int offset, int primcount) {
+      GL31.glDrawElementsInstanced(mode, count, type, offset, primcount);
+    }
+  };
+
+  private final static GLInstancing ARB_INSTANCING = new GLInstancing() {
+    public void glVertexAttribDivisor(int index, int divisor) {
+      ARBInstancedArrays.glVertexAttribDivisorARB(index, divisor);
+    }
+    public void glDrawElementsInstanced(int mode, int count, int type, int offset, int primcount) {
+      ARBDrawInstanced.glDrawElementsInstancedARB(mode, count, type, offset, primcount);
+    }
+  };
 
   private ByteBuffer imgBuf = createImageBuffer(1024);
+  private int imgBufFormat, imgBufType;
+  private int[] imgRow = new int[0];
 
   /** Converts the given image into a format for quick upload to the GPU. */
   static BufferedImage convertImage (BufferedImage image) {
@@ -58,42 +87,124 @@ public class JavaGLContext extends GL20Context {
     super(platform, new JavaGL20(), scaleFactor, CHECK_ERRORS);
   }
 
+  @Override
+  public GLInstancing instancing() {
+    if (NO_INSTANCING) return null;
+    ContextCapabilities caps = org.lwjgl.opengl.GLContext.getCapabilities();
+    if (caps.OpenGL33) return GL33_INSTANCING;
+    if (caps.GL_ARB_instanced_arrays && caps.GL_ARB_draw_instanced) return ARB_INSTANCING;
+    return null;
+  }
+
+  @Override
+  public void texImage2D(Image image, int target, int level, int internalformat, int format,
+                         int type) {
+    if (!(image instanceof JavaImage)) {
+      super.texImage2D(image, target, level, internalformat, format, type);
+      return;
+    }
+    // upload straight from the image's raster, rather than via Image.getRgb
+    BufferedImage bimg = ((JavaImage)image).bufferedImage();
+    ByteBuffer bbuf = toImageBuffer(bimg);
+    GL11.glTexImage2D(target, level, internalformat, bimg.getWidth(), bimg.getHeight(), 0,
+                      imgBufFormat, imgBufType, bbuf);
+    checkGLError("texImage2D");
+  }
+
+  @Override
+  public void texSubImage2D(Image image, int target, int level, int xOffset, int yOffset,
+                            int format, int type) {
+    if (!(image instanceof JavaImage)) {
+      super.texSubImage2D(image, target, level, xOffset, yOffset, format, type);
+      return;
+    }
+    BufferedImage bimg = ((JavaImage)image).bufferedImage();
+    ByteBuffer bbuf = toImageBuffer(bimg);
+    GL11.glTexSubImage2D(target, level, xOffset, yOffset, bimg.getWidth(), bimg.getHeight(),
+                         imgBufFormat, imgBufType, bbuf);
+    checkGLError("texSubImage2D");
+  }
+
   void updateTexture(int tex, BufferedImage image) {
-    // Convert the image into a format for quick uploading
-    image = convertImage(image);
+    ByteBuffer bbuf = toImageBuffer(image);
+    bindTexture(tex);
+    GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, image.getWidth(), image.getHeight(), 0,
+                      imgBufFormat, imgBufType, bbuf);
+    checkGLError("updateTexture");
+  }
 
+  void updateTextureRows(int tex, BufferedImage image, int y, int rows) {
+    ByteBuffer bbuf = toImageBuffer(image, y, rows);
+    bindTexture(tex);
+    GL11.glTexSubImage2D(GL11.GL_TEXTURE_2D, 0, 0, y, image.getWidth(), rows,
+                         imgBufFormat, imgBufType, bbuf);
+    checkGLError("updateTextureRows");
+  }
+
+  private ByteBuffer toImageBuffer(BufferedImage image) {
+    return toImageBuffer(image, 0, image.getHeight());
+  }
+
+  /**
+   * Writes rows {@code y0} through {@code y0+rows-1} of {@code image} into our reusable image
+   * buffer in a GL-ready, premultiplied format, and notes the format and type to be used to upload
+   * them in {@link #imgBufFormat} and {@link #imgBufType}. Images in the formats produced by
+   * {@link #convertImage} are copied wholesale; other images are converted a row at a time, rather
+   * than by creating a converted copy of the entire image.
+   */
+  private ByteBuffer toImageBuffer(BufferedImage image, int y0, int rows) {
+    if (image.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
+      image.coerceData(true); // premultiply the alpha in place
+    }
     DataBuffer dbuf = image.getRaster().getDataBuffer();
+    int width = image.getWidth();
     ByteBuffer bbuf;
-    int format, type;
 
-    if (image.getType() == BufferedImage.TYPE_INT_ARGB_PRE) {
+    switch (image.getType()) {
+    case BufferedImage.TYPE_INT_ARGB_PRE: {
       DataBufferInt ibuf = (DataBufferInt)dbuf;
-      int iSize = ibuf.getSize()*4;
+      int iSize = width*rows*4;
       bbuf = checkGetImageBuffer(iSize);
-      bbuf.asIntBuffer().put(ibuf.getData());
+      bbuf.asIntBuffer().put(ibuf.getData(), y0*width, width*rows);
       bbuf.position(bbuf.position()+iSize);
       bbuf.flip();
-      format = GL12.GL_BGRA;
-      type = GL12.GL_UNSIGNED_INT_8_8_8_8_REV;
+      imgBufFormat = GL12.GL_BGRA;
+      imgBufType = GL12.GL_UNSIGNED_INT_8_8_8_8_REV;
+      break;
+    }
 
-    } else if (image.getType() == BufferedImage.TYPE_4BYTE_ABGR) {
+    case BufferedImage.TYPE_4BYTE_ABGR:
+    case BufferedImage.TYPE_4BYTE_ABGR_PRE: {
       DataBufferByte dbbuf = (DataBufferByte)dbuf;
-      bbuf = checkGetImageBuffer(dbbuf.getSize());
-      bbuf.put(dbbuf.getData());
+      int bSize = width*rows*4;
+      bbuf = checkGetImageBuffer(bSize);
+      bbuf.put(dbbuf.getData(), y0*width*4, bSize);
       bbuf.flip();
-      format = GL11.GL_RGBA;
-      type = GL12.GL_UNSIGNED_INT_8_8_8_8;
-
-    } else {
-      // Something went awry and convertImage thought this image was in a good form already,
-      // except we don't know how to deal with it
-      throw new RuntimeException("Image type wasn't converted to usable: " + image.getType());
+      imgBufFormat = GL11.GL_RGBA;
+      imgBufType = GL12.GL_UNSIGNED_INT_8_8_8_8;
+      break;
     }
 
-    bindTexture(tex);
-    GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGBA, image.getWidth(), image.getHeight(), 0,
-                      format, type, bbuf);
-    checkGLError("updateTexture");
+    default: {
+      bbuf = checkGetImageBuffer(width*rows*4);
+      IntBuffer ints = bbuf.asIntBuffer();
+      if (imgRow.length < width) imgRow = new int[width];
+      int[] row = imgRow;
+      for (int y = y0, yy = y0+rows; y < yy; y++) {
+        image.getRGB(0, y, width, 1, row, 0, width);
+        for (int x = 0; x < width; x++) {
+          int argb = row[x], a = argb >>> 24;
+          if (a != 255) row[x] = premultiply(argb, a);
+        }
+        ints.put(row, 0, width);
+      }
+      bbuf.limit(width*rows*4);
+      imgBufFormat = GL12.GL_BGRA;
+      imgBufType = GL12.GL_UNSIGNED_INT_8_8_8_8_REV;
+      break;
+    }
+    }
+    return bbuf;
   }
 
   private ByteBuffer checkGetImageBuffer (int byteSize) {
@@ -27,6 +27,7 @@ import pythagoras.f.MathUtil;
 import playn.core.Image;
 import playn.core.Pattern;
 import playn.core.gl.AbstractImageGL;
+import playn.core.gl.CompressedTexture;
 import playn.core.gl.GLContext;
 import playn.core.gl.ImageGL;
 import playn.core.gl.Scale;
@@ -124,4 +125,21 @@ public abstract class JavaImage extends ImageGL<Graphics2D> {
     assert img != null;
     ((JavaGLContext) ctx).updateTexture(tex, img);
   }
+
+  @Override
+  protected CompressedTexture compressedTexture() {
+    return (img instanceof CompressedBufferedImage) ?
+      ((CompressedBufferedImage)img).texture : null;
+  }
+
+  @Override
+  protected boolean canUpdateTextureRows() {
+    return true;
+  }
+
+  @Override
+  protected void updateTextureRows(int tex, int y, int rows) {
+    assert img != null;
+    ((JavaGLContext) ctx).updateTextureRows(tex, img, y, rows);
+  }
 }
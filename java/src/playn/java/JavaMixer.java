@@ -0,0 +1,282 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import playn.core.PlayN;
+
+/**
+ * Mixes any number of sound effects into a single {@link SourceDataLine}, on a single thread.
+ * Sounds are played on a fixed pool of voices; when all voices are busy, the non-looping voice
+ * closest to completion is stolen. Each voice has its own volume and pan, and reads from a shared,
+ * immutable {@link Samples} instance, so any number of overlapping plays of the same sound cost
+ * no more memory than one.
+ *
+ * <p>Voices are identified by their owner (a {@link MixerSound}), so that a sound can control all
+ * of its voices without holding references to voices that may since have been reassigned.</p>
+ */
+class JavaMixer {
+
+  /** The format of the mixed output: 44.1kHz, 16-bit, signed, little-endian stereo. */
+  static final AudioFormat FORMAT = new AudioFormat(44100, 16, 2, true, false);
+
+  /** Decoded audio data, shared by all voices that play it. */
+  static class Samples {
+    /** Signed 16-bit samples, interleaved if {@link #channels} is two. */
+    public final short[] data;
+    /** The number of channels: one or two. */
+    public final int channels;
+    /** The sample rate of {@link #data}, in frames per second. */
+    public final float rate;
+
+    /** Decodes all of {@code ais} into memory. */
+    public static Samples decode(AudioInputStream ais) throws IOException {
+      AudioInputStream pcm = JavaAudio.toPCM(ais);
+      AudioFormat format = pcm.getFormat();
+      ByteArrayOutputStream bout = new ByteArrayOutputStream();
+      byte[] buffer = new byte[16*1024];
+      try {
+        for (int read; (read = pcm.read(buffer)) > 0; ) bout.write(buffer, 0, read);
+      } finally {
+        pcm.close();
+      }
+      return fromPCM(bout.toByteArray(), format);
+    }
+
+    /** Converts signed PCM {@code bytes} in {@code format} into samples. Channels beyond the
+     * second are discarded. */
+    public static Samples fromPCM(byte[] bytes, AudioFormat format) {
+      int inChannels = format.getChannels(), channels = Math.min(inChannels, 2);
+      int sampleBytes = format.getSampleSizeInBits() / 8;
+      if (sampleBytes != 1 && sampleBytes != 2) throw new IllegalArgumentException(
+        "Unsupported sample size " + format.getSampleSizeInBits());
+      boolean bigEndian = format.isBigEndian();
+      int frameBytes = inChannels * sampleBytes, frames = bytes.length / frameBytes;
+      short[] data = new short[frames * channels];
+      for (int ff = 0, ii = 0; ff < frames; ff++) {
+        for (int cc = 0; cc < channels; cc++) {
+          int offset = ff * frameBytes + cc * sampleBytes;
+          if (sampleBytes == 1) data[ii++] = (short)(bytes[offset] << 8);
+          else if (bigEndian) data[ii++] = (short)(bytes[offset] << 8 | bytes[offset+1] & 0xFF);
+          else data[ii++] = (short)(bytes[offset+1] << 8 | bytes[offset] & 0xFF);
+        }
+      }
+      return new Samples(data, channels, format.getSampleRate());
+    }
+
+    public Samples(short[] data, int channels, float rate) {
+      this.data = data;
+      this.channels = channels;
+      this.rate = rate;
+    }
+
+    /** Returns the number of frames in this data. */
+    public int frames() {
+      return data.length / channels;
+    }
+  }
+
+  /**
+   * Creates a mixer with {@code voices} voices. The mixer does not produce any output until it is
+   * {@link #open}ed.
+   */
+  JavaMixer(int voices) {
+    this.voices = new Voice[voices];
+    for (int ii = 0; ii < voices; ii++) this.voices[ii] = new Voice();
+  }
+
+  /**
+   * Opens our output line and starts our mixing thread.
+   */
+  synchronized void open() throws LineUnavailableException {
+    if (line != null) return;
+    SourceDataLine line = AudioSystem.getSourceDataLine(FORMAT);
+    line.open(FORMAT, BUFFER_FRAMES * FORMAT.getFrameSize());
+    line.start();
+    this.line = line;
+    Thread thread = new Thread("JavaMixer") {
+      @Override public void run() {
+        pump();
+      }
+    };
+    thread.setDaemon(true);
+    thread.start();
+  }
+
+  /**
+   * Starts playing {@code samples} on a free voice, on behalf of {@code owner}.
+   * @param pan from -1 (left) to 1 (right).
+   */
+  synchronized void play(Object owner, Samples samples, float volume, float pan, boolean loop) {
+    Voice voice = null;
+    float bestProgress = -1;
+    for (Voice v : voices) {
+      if (v.owner == null) {
+        voice = v;
+        break;
+      }
+      // if all voices are busy, steal the one closest to completion, which is least likely to be
+      // missed; looping voices are never stolen
+      float progress = (float)(v.pos / v.samples.frames());
+      if (!v.loop && progress > bestProgress) {
+        voice = v;
+        bestProgress = progress;
+      }
+    }
+    if (voice == null) return; // every voice is looping; drop this sound
+    voice.owner = owner;
+    voice.samples = samples;
+    voice.step = samples.rate / FORMAT.getSampleRate();
+    voice.pos = 0;
+    voice.loop = loop;
+    voice.setGains(volume, pan);
+    notifyAll(); // wake our mixing thread if it is idle
+  }
+
+  /** Stops all voices playing on behalf of {@code owner}. */
+  synchronized void stop(Object owner) {
+    for (Voice v : voices) if (v.owner == owner) v.clear();
+  }
+
+  /** Returns true if any voice is playing on behalf of {@code owner}. */
+  synchronized boolean isPlaying(Object owner) {
+    for (Voice v : voices) if (v.owner == owner) return true;
+    return false;
+  }
+
+  /** Updates the volume and pan of all voices playing on behalf of {@code owner}. */
+  synchronized void setGains(Object owner, float volume, float pan) {
+    for (Voice v : voices) if (v.owner == owner) v.setGains(volume, pan);
+  }
+
+  /** Updates the looping state of all voices playing on behalf of {@code owner}. A voice that
+   * stops looping plays out its current pass and then ends. */
+  synchronized void setLooping(Object owner, boolean loop) {
+    for (Voice v : voices) if (v.owner == owner) v.loop = loop;
+  }
+
+  /**
+   * Mixes the next {@code frames} frames of all active voices into {@code out}, as interleaved
+   * stereo samples.
+   * @return true if any voices were active.
+   */
+  synchronized boolean mix(short[] out, int frames) {
+    int samples = frames * 2;
+    if (accum.length < samples) accum = new int[samples];
+    Arrays.fill(accum, 0, samples, 0);
+    boolean active = false;
+    for (Voice v : voices) {
+      if (v.owner != null) {
+        v.mix(accum, frames);
+        active = true;
+      }
+    }
+    for (int ii = 0; ii < samples; ii++) {
+      int s = accum[ii];
+      out[ii] = (short)(s > Short.MAX_VALUE ? Short.MAX_VALUE :
+                        (s < Short.MIN_VALUE ? Short.MIN_VALUE : s));
+    }
+    return active;
+  }
+
+  /** Mixes and writes chunks to our line until the app exits. Called on the mixing thread. */
+  protected void pump() {
+    short[] mixed = new short[CHUNK_FRAMES * 2];
+    byte[] bytes = new byte[mixed.length * 2];
+    try {
+      while (true) {
+        synchronized (this) {
+          // sleep while there's nothing to play, rather than feeding the line silence
+          while (!hasActiveVoice()) wait();
+          mix(mixed, CHUNK_FRAMES);
+        }
+        for (int ii = 0, bb = 0; ii < mixed.length; ii++) {
+          bytes[bb++] = (byte)mixed[ii];
+          bytes[bb++] = (byte)(mixed[ii] >> 8);
+        }
+        // this blocks while the line's buffer is full, which paces our mixing
+        line.write(bytes, 0, bytes.length);
+      }
+    } catch (InterruptedException ie) {
+      // time to go
+    } catch (Exception e) {
+      PlayN.log().warn("Audio mixer failed", e);
+    }
+  }
+
+  private boolean hasActiveVoice() {
+    for (Voice v : voices) if (v.owner != null) return true;
+    return false;
+  }
+
+  protected static class Voice {
+    public Object owner; // null if this voice is free
+    public Samples samples;
+    public double pos, step;
+    public boolean loop;
+    public float leftGain, rightGain;
+
+    public void setGains(float volume, float pan) {
+      // linear pan law: the far channel fades out as the sound moves to the near side
+      leftGain = volume * Math.min(1, 1 - pan);
+      rightGain = volume * Math.min(1, 1 + pan);
+    }
+
+    public void mix(int[] accum, int frames) {
+      short[] data = samples.data;
+      int channels = samples.channels, length = samples.frames();
+      int left = (int)(leftGain * 256), right = (int)(rightGain * 256);
+      for (int ff = 0, ii = 0; ff < frames; ff++) {
+        int idx = (int)pos;
+        if (idx >= length) {
+          if (!loop || length == 0) {
+            clear();
+            return;
+          }
+          pos -= length;
+          idx = (int)pos;
+        }
+        int l = data[idx * channels], r = (channels == 2) ? data[idx * channels + 1] : l;
+        accum[ii++] += (l * left) >> 8;
+        accum[ii++] += (r * right) >> 8;
+        pos += step;
+      }
+    }
+
+    public void clear() {
+      owner = null;
+      samples = null;
+    }
+  }
+
+  protected final Voice[] voices;
+  protected int[] accum = new int[0];
+  protected SourceDataLine line;
+
+  /** The size of our line's buffer, in frames: about 93ms at 44.1kHz. */
+  protected static final int BUFFER_FRAMES = 4096;
+  /** The number of frames we mix at once: a quarter of the line's buffer. */
+  protected static final int CHUNK_FRAMES = BUFFER_FRAMES / 4;
+}
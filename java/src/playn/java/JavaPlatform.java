@@ -27,6 +27,7 @@ import org.lwjgl.LWJGLException;
 import org.lwjgl.opengl.Display;
 
 import playn.core.AbstractPlatform;
+import playn.core.AssetLoader;
 import playn.core.Game;
 import playn.core.Json;
 import playn.core.Key;
@@ -54,6 +55,12 @@ public class JavaPlatform extends AbstractPlatform {
      * want to run multiple sessions without overwriting one another's storage. */
     public String storageFileName = "playn";
 
+    /** If set, storage is kept in a file named {@link #storageFileName} in this directory, by
+     * {@link JavaFileStorage}, rather than in Java Preferences. File storage has no limits on the
+     * size of items, and writes to disk on a background thread, so it suits games that save often.
+     * Note that items previously saved to Preferences are not carried over. */
+    public File storageDir;
+
     /** The width of the PlayN window, in pixels. */
     public int width = 640;
 
@@ -89,6 +96,16 @@ public class JavaPlatform extends AbstractPlatform {
 
     /** Configure the web socket RFC draft number: 10, 17, 75 or 76 */
     public int wsDraft = 10;
+
+    /** The number of threads used to run asynchronous tasks (see {@link
+     * JavaPlatform#invokeAsync}). This is also the maximum number of assets that will be loaded at
+     * once. */
+    public int asyncThreads = 4;
+
+    /** The number of voices in the software mixer through which sound effects are played, which
+     * is the maximum number of sound effects that can play at once. If zero, sound effects are
+     * played on individual {@code Clip}s instead. */
+    public int mixerVoices = 32;
   }
 
   /**
@@ -131,10 +148,10 @@ public class JavaPlatform extends AbstractPlatform {
   public final boolean convertImagesOnLoad;
 
   private final Config config;
-  private final JavaAudio audio = new JavaAudio(this);
+  private final JavaAudio audio;
   private final JavaNet net;
-  private final JavaStorage storage;
-  private final JsonImpl json = new JsonImpl();
+  private final Storage storage;
+  private final JsonImpl json = new JsonImpl(this);
   private final JavaKeyboard keyboard;
   private final JavaPointer pointer = new JavaPointer();
   private final TouchImpl touch;
@@ -144,18 +161,22 @@ public class JavaPlatform extends AbstractPlatform {
   private final Keyboard.Listener keyListener;
   private boolean active = true;
 
-  private final ExecutorService _exec = Executors.newFixedThreadPool(4);
+  private final ExecutorService _exec;
   private final long start = System.nanoTime();
 
   public JavaPlatform(Config config) {
     super(new JavaLog());
     this.config = config;
+    _exec = Executors.newFixedThreadPool(config.asyncThreads);
+    setAssetLoader(new AssetLoader(this, config.asyncThreads));
+    audio = new JavaAudio(this, config.mixerVoices);
     if (!config.headless) {
       unpackNatives();
     }
     graphics = createGraphics(config);
     keyboard = createKeyboard();
-    storage = new JavaStorage(this, config);
+    storage = (config.storageDir == null) ? new JavaStorage(this, config) :
+      new JavaFileStorage(this, new File(config.storageDir, config.storageFileName));
     touch = createTouch(config);
     if (touch instanceof JavaEmulatedTouch) {
       mouse = ((JavaEmulatedTouch)touch).createMouse(this);
@@ -354,6 +375,9 @@ public class JavaPlatform extends AbstractPlatform {
       // nothing to do here except go ahead and exit
     }
 
+    // make sure any pending storage changes make it to disk
+    if (storage instanceof JavaFileStorage) ((JavaFileStorage)storage).close();
+
     // and finally stick a fork in the JVM
     System.exit(0);
   }
@@ -15,7 +15,6 @@
  */
 package playn.java;
 
-import playn.core.Events;
 import playn.core.PointerImpl;
 
 class JavaPointer extends PointerImpl {
@@ -23,18 +22,18 @@ class JavaPointer extends PointerImpl {
   private boolean mouseDown;
 
   void onMouseDown(double time, float x, float y) {
-    onPointerStart(new Event.Impl(new Events.Flags.Impl(), time, x, y, false), false);
+    onPointerStart(obtainEvent(time, x, y, false), false);
     mouseDown = true;
   }
 
   void onMouseUp(double time, float x, float y) {
-    onPointerEnd(new Event.Impl(new Events.Flags.Impl(), time, x, y, false), false);
+    onPointerEnd(obtainEvent(time, x, y, false), false);
     mouseDown = false;
   }
 
   void onMouseMove(double time, float x, float y) {
     if (mouseDown) {
-      onPointerDrag(new Event.Impl(new Events.Flags.Impl(), time, x, y, false), false);
+      onPointerDrag(obtainEvent(time, x, y, false), false);
     }
   }
 
@@ -0,0 +1,79 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import pythagoras.f.MathUtil;
+
+import playn.core.AbstractSound;
+
+/**
+ * A sound effect played via the {@link JavaMixer}. Unlike a {@code Clip} based sound, calling
+ * {@link #play} while the sound is already playing starts an additional, overlapping voice, rather
+ * than restarting the sound. A looping sound plays on at most one voice. {@link #stop}, {@link
+ * #setVolume} and {@link #setPan} apply to all of the sound's voices.
+ */
+public class MixerSound extends AbstractSound<JavaMixer.Samples> {
+
+  MixerSound(JavaMixer mixer) {
+    this.mixer = mixer;
+  }
+
+  /** Returns this sound's pan, from -1 (left) to 1 (right). */
+  public float pan() {
+    return pan;
+  }
+
+  /** Sets this sound's pan, from -1 (left) to 1 (right). Defaults to 0 (centered). */
+  public void setPan(float pan) {
+    this.pan = MathUtil.clamp(pan, -1, 1);
+    mixer.setGains(this, volume, this.pan);
+  }
+
+  @Override
+  protected boolean playingImpl() {
+    return mixer.isPlaying(this);
+  }
+
+  @Override
+  protected boolean playImpl() {
+    if (looping) mixer.stop(this);
+    mixer.play(this, impl, volume, pan, looping);
+    return true;
+  }
+
+  @Override
+  protected void stopImpl() {
+    mixer.stop(this);
+  }
+
+  @Override
+  protected void setLoopingImpl(boolean looping) {
+    mixer.setLooping(this, looping);
+  }
+
+  @Override
+  protected void setVolumeImpl(float volume) {
+    mixer.setGains(this, volume, pan);
+  }
+
+  @Override
+  protected void releaseImpl() {
+    mixer.stop(this);
+  }
+
+  protected final JavaMixer mixer;
+  protected float pan;
+}
@@ -0,0 +1,319 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import java.io.IOException;
+
+import javax.sound.sampled.AudioFormat;
+import javax.sound.sampled.AudioInputStream;
+import javax.sound.sampled.AudioSystem;
+import javax.sound.sampled.Clip;
+import javax.sound.sampled.Control;
+import javax.sound.sampled.FloatControl;
+import javax.sound.sampled.Line;
+import javax.sound.sampled.LineListener;
+import javax.sound.sampled.LineUnavailableException;
+import javax.sound.sampled.SourceDataLine;
+
+import playn.core.PlayN;
+
+/**
+ * A {@link Clip} that streams its audio from a resource, rather than decoding it into memory up
+ * front. A playback thread decodes the resource a chunk at a time and writes it to a {@link
+ * SourceDataLine}, whose buffer is the only audio held in memory. When looping, the next pass
+ * over the resource is started as soon as the previous one ends, so that the line's buffer never
+ * runs dry and the loop is seamless. The line is only open while the clip is playing, so that idle
+ * clips do not tie up the mixer's lines.
+ *
+ * <p>Only the parts of the {@code Clip} interface used by {@link JavaSound} are fully supported:
+ * the clip cannot be opened from preloaded data, its length is not known, and loop points are not
+ * supported.</p>
+ */
+class StreamingClip implements Clip {
+
+  /**
+   * Creates a clip that streams from {@code rsrc}. The resource is opened once to determine its
+   * format, and then reopened each time the clip is played (or loops).
+   */
+  public StreamingClip(JavaAssets.Resource rsrc) throws Exception {
+    this.rsrc = rsrc;
+    AudioInputStream ais = openStream();
+    try {
+      format = ais.getFormat();
+    } finally {
+      ais.close();
+    }
+    // obtaining (but not opening) the line checks that some mixer can play our format
+    line = AudioSystem.getSourceDataLine(format);
+  }
+
+  @Override public void open(AudioInputStream stream) {
+    throw new UnsupportedOperationException("StreamingClip is opened from a resource");
+  }
+
+  @Override public void open(AudioFormat format, byte[] data, int offset, int bufferSize) {
+    throw new UnsupportedOperationException("StreamingClip is opened from a resource");
+  }
+
+  @Override public synchronized void open() throws LineUnavailableException {
+    if (line.isOpen()) return;
+    line.open(format);
+    int frameSize = format.getFrameSize();
+    // decode a quarter of the line's buffer at a time, so that the buffer stays mostly full
+    int size = Math.max(frameSize, line.getBufferSize() / 4 / frameSize * frameSize);
+    if (chunk == null || chunk.length != size) chunk = new byte[size];
+    // apply any volume that was set while the line was closed
+    if (line.isControlSupported(FloatControl.Type.MASTER_GAIN)) gain.apply();
+  }
+
+  @Override public synchronized void close() {
+    stop();
+    line.close();
+  }
+
+  @Override public boolean isOpen() {
+    return line.isOpen();
+  }
+
+  @Override public synchronized void start() {
+    loop(0);
+  }
+
+  @Override public synchronized void loop(int count) {
+    stop(); // restart if we're already playing
+    try {
+      open();
+    } catch (LineUnavailableException lue) {
+      PlayN.log().warn("Unable to open audio line: " + rsrc, lue);
+      return;
+    }
+    final int startFrame = framePosition;
+    loopsRemaining = count;
+    active = true;
+    thread = new Thread("StreamingClip") {
+      @Override public void run() {
+        play(startFrame);
+      }
+    };
+    thread.setDaemon(true);
+    line.start();
+    thread.start();
+  }
+
+  @Override public synchronized void stop() {
+    active = false;
+    // stopping and flushing the line unblocks the playback thread if it is blocked in write()
+    line.stop();
+    line.flush();
+    if (thread != null) {
+      try {
+        thread.join();
+      } catch (InterruptedException ie) {
+        Thread.currentThread().interrupt();
+      }
+      thread = null;
+    }
+    // release the line (discarding anything written after our flush) until we next play
+    line.close();
+  }
+
+  @Override public boolean isActive() {
+    return active;
+  }
+
+  @Override public boolean isRunning() {
+    return active && line.isRunning();
+  }
+
+  @Override public void setFramePosition(int frames) {
+    framePosition = frames;
+  }
+
+  @Override public int getFramePosition() {
+    return framePosition;
+  }
+
+  @Override public long getLongFramePosition() {
+    return framePosition;
+  }
+
+  @Override public void setMicrosecondPosition(long micros) {
+    framePosition = (int)(micros * format.getFrameRate() / 1000000);
+  }
+
+  @Override public long getMicrosecondPosition() {
+    return (long)(framePosition * 1000000d / format.getFrameRate());
+  }
+
+  @Override public int getFrameLength() {
+    return AudioSystem.NOT_SPECIFIED;
+  }
+
+  @Override public long getMicrosecondLength() {
+    return AudioSystem.NOT_SPECIFIED;
+  }
+
+  @Override public void setLoopPoints(int start, int end) {
+    if (start != 0 || end != -1)
+      throw new UnsupportedOperationException("StreamingClip does not support loop points");
+  }
+
+  @Override public AudioFormat getFormat() {
+    return format;
+  }
+
+  @Override public void drain() {
+    line.drain();
+  }
+
+  @Override public void flush() {
+    line.flush();
+  }
+
+  @Override public int getBufferSize() {
+    return line.getBufferSize();
+  }
+
+  @Override public int available() {
+    return line.available();
+  }
+
+  @Override public float getLevel() {
+    return line.getLevel();
+  }
+
+  @Override public Line.Info getLineInfo() {
+    return line.getLineInfo();
+  }
+
+  @Override public Control[] getControls() {
+    return line.getControls();
+  }
+
+  @Override public boolean isControlSupported(Control.Type control) {
+    return control == FloatControl.Type.MASTER_GAIN || line.isControlSupported(control);
+  }
+
+  @Override public Control getControl(Control.Type control) {
+    // our gain is available whether or not the line is open
+    return (control == FloatControl.Type.MASTER_GAIN) ? gain : line.getControl(control);
+  }
+
+  @Override public void addLineListener(LineListener listener) {
+    line.addLineListener(listener);
+  }
+
+  @Override public void removeLineListener(LineListener listener) {
+    line.removeLineListener(listener);
+  }
+
+  /** Streams the resource into our line, starting at {@code startFrame}. Called on the playback
+   * thread. */
+  protected void play(int startFrame) {
+    int frameSize = format.getFrameSize();
+    AudioInputStream ais = null;
+    try {
+      ais = openStream();
+      skipFully(ais, (long)startFrame * frameSize);
+      framePosition = startFrame;
+      while (active) {
+        int read = readFully(ais, chunk);
+        if (read > 0) {
+          line.write(chunk, 0, read);
+          framePosition += read / frameSize;
+        }
+        if (read < chunk.length) { // end of stream
+          ais.close();
+          ais = null;
+          if (loopsRemaining == 0) break;
+          if (loopsRemaining != LOOP_CONTINUOUSLY) loopsRemaining--;
+          ais = openStream();
+          framePosition = 0;
+        }
+      }
+      // let the remainder of the audio play out, unless we were stopped
+      if (active) line.drain();
+      framePosition = 0;
+    } catch (Exception e) {
+      PlayN.log().warn("Error streaming audio: " + rsrc, e);
+    } finally {
+      if (ais != null) {
+        try {
+          ais.close();
+        } catch (IOException ioe) {} // nothing to be done
+      }
+      // if we finished on our own, release the line now rather than waiting for a stop()
+      if (active) line.close();
+      active = false;
+    }
+  }
+
+  /** A gain control which retains its value while our line is closed, and applies it to the line
+   * when it is opened. The range is that typical of a line's gain; values outside the line's
+   * range are clamped. */
+  protected class Gain extends FloatControl {
+    public Gain() {
+      super(FloatControl.Type.MASTER_GAIN, -80f, 6.0206f, 0.01f, -1, 0f, "dB");
+    }
+
+    @Override public void setValue(float value) {
+      super.setValue(value);
+      synchronized (StreamingClip.this) {
+        if (line.isOpen() && line.isControlSupported(FloatControl.Type.MASTER_GAIN)) apply();
+      }
+    }
+
+    void apply() {
+      try {
+        FloatControl ctrl = (FloatControl)line.getControl(FloatControl.Type.MASTER_GAIN);
+        ctrl.setValue(Math.max(ctrl.getMinimum(), Math.min(ctrl.getMaximum(), getValue())));
+      } catch (IllegalArgumentException iae) {
+        // the line was closed by our playback thread; we'll apply our gain when it's reopened
+      }
+    }
+  }
+
+  protected AudioInputStream openStream() throws Exception {
+    return JavaAudio.toPCM(rsrc.openAudioStream());
+  }
+
+  protected static int readFully(AudioInputStream ais, byte[] buf) throws IOException {
+    int total = 0;
+    while (total < buf.length) {
+      int read = ais.read(buf, total, buf.length - total);
+      if (read < 0) break;
+      total += read;
+    }
+    return total;
+  }
+
+  protected static void skipFully(AudioInputStream ais, long bytes) throws IOException {
+    while (bytes > 0) {
+      long skipped = ais.skip(bytes);
+      if (skipped <= 0) break;
+      bytes -= skipped;
+    }
+  }
+
+  private final JavaAssets.Resource rsrc;
+  private final AudioFormat format;
+  private final SourceDataLine line;
+  private final Gain gain = new Gain();
+  private byte[] chunk;
+  private Thread thread;
+  private volatile boolean active;
+  private volatile int framePosition, loopsRemaining;
+}
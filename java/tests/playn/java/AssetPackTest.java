@@ -0,0 +1,86 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class AssetPackTest {
+
+  @Test
+  public void testWriteAndRead() throws IOException {
+    File root = createTempDir();
+    write(new File(root, "hello.txt"), "Hello pack!");
+    write(new File(root, "sub/dir/data.json"), "{\"a\": 1}");
+    write(new File(root, "empty.bin"), "");
+
+    File packFile = File.createTempFile("assets", ".pack");
+    packFile.deleteOnExit();
+    assertEquals(3, AssetPack.write(packFile, root));
+
+    AssetPack pack = new AssetPack(packFile);
+    assertEquals(3, pack.size());
+    assertTrue(pack.contains("sub/dir/data.json"));
+    assertNull(pack.get("missing.txt"));
+    assertEquals("Hello pack!", read(pack.get("hello.txt")));
+    assertEquals("{\"a\": 1}", read(pack.get("sub/dir/data.json")));
+    assertEquals(0, pack.get("empty.bin").remaining());
+
+    // the resource served by JavaAssets reads the same data via all of its accessors
+    JavaAssets.PackResource rsrc = new JavaAssets.PackResource(pack.get("hello.txt"));
+    assertEquals("Hello pack!", rsrc.readString());
+    assertEquals("Hello pack!", new String(rsrc.readBytes(), "UTF-8"));
+    assertEquals("Hello pack!", new String(JavaAssets.toByteArray(rsrc.openStream()), "UTF-8"));
+  }
+
+  @Test(expected=IOException.class)
+  public void testNotAPack() throws IOException {
+    File file = File.createTempFile("notapack", ".pack");
+    file.deleteOnExit();
+    write(file, "This is not an asset pack.");
+    new AssetPack(file);
+  }
+
+  protected static String read(ByteBuffer buf) throws IOException {
+    byte[] bytes = new byte[buf.remaining()];
+    buf.get(bytes);
+    return new String(bytes, "UTF-8");
+  }
+
+  protected static void write(File file, String data) throws IOException {
+    file.getParentFile().mkdirs();
+    file.deleteOnExit();
+    FileOutputStream out = new FileOutputStream(file);
+    try {
+      out.write(data.getBytes("UTF-8"));
+    } finally {
+      out.close();
+    }
+  }
+
+  protected static File createTempDir() throws IOException {
+    File dir = File.createTempFile("assets", "");
+    dir.delete();
+    dir.mkdirs();
+    dir.deleteOnExit();
+    return dir;
+  }
+}
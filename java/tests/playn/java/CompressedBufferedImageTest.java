@@ -0,0 +1,42 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import java.awt.image.BufferedImage;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.gl.CompressedTexture;
+
+public class CompressedBufferedImageTest {
+
+  @Test
+  public void testDecodeOnDraw() {
+    // a 3x4 ETC1 texture whose left two columns are red and right column is green
+    byte[] data = new byte[16 + 8];
+    System.arraycopy(new byte[] { 'P', 'K', 'M', ' ', '1', '0', 0, 0, 0, 4, 0, 4, 0, 3, 0, 4 },
+                     0, data, 0, 16);
+    System.arraycopy(new byte[] { (byte)0xF0, 0x0F, 0, 0, 0, 0, 0, 0 }, 0, data, 16, 8);
+    CompressedBufferedImage image = new CompressedBufferedImage(CompressedTexture.parse(data));
+    assertEquals(3, image.getWidth());
+    assertEquals(4, image.getHeight());
+    assertEquals(0xFFFF0202, image.getRGB(0, 0));
+
+    BufferedImage canvas = new BufferedImage(3, 4, BufferedImage.TYPE_INT_ARGB);
+    canvas.createGraphics().drawImage(image, 0, 0, null);
+    assertEquals(0xFFFF0202, canvas.getRGB(1, 3));
+    assertEquals(0xFF02FF02, canvas.getRGB(2, 3));
+  }
+}
@@ -0,0 +1,170 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not use this file except
+ * in compliance with the License. You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software distributed under the License
+ * is distributed on an "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express
+ * or implied. See the License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+import playn.core.Storage;
+import playn.core.StubPlatform;
+
+public class JavaFileStorageTest {
+
+  @Test
+  public void testPersistence() throws IOException {
+    File file = createTempFile();
+    JavaFileStorage storage = new JavaFileStorage(new StubPlatform(), file);
+    assertTrue(storage.isPersisted());
+    storage.setItem("a", "one");
+    storage.setItem("b", "café");
+    storage.setItem("a", "two");
+    storage.removeItem("b");
+    storage.setItem("c", "three");
+    // changes are visible immediately, before they are written
+    assertEquals("two", storage.getItem("a"));
+    assertNull(storage.getItem("b"));
+    storage.close();
+
+    storage = new JavaFileStorage(new StubPlatform(), file);
+    assertEquals("two", storage.getItem("a"));
+    assertNull(storage.getItem("b"));
+    assertEquals("three", storage.getItem("c"));
+    Set<String> keys = new HashSet<String>();
+    for (String key : storage.keys()) keys.add(key);
+    assertEquals(2, keys.size());
+    storage.close();
+  }
+
+  @Test
+  public void testPartialBatch() throws IOException {
+    File file = createTempFile();
+    JavaFileStorage storage = new JavaFileStorage(new StubPlatform(), file);
+    storage.setItem("score", "10");
+    storage.flush();
+    long committed = file.length();
+
+    Storage.Batch batch = storage.startBatch();
+    batch.setItem("score", "20");
+    batch.setItem("level", "2");
+    batch.removeItem("missing");
+    batch.commit();
+    assertEquals("2", storage.getItem("level"));
+    storage.close();
+
+    // chop the batch in two, as if we crashed while writing it
+    long full = file.length();
+    RandomAccessFile raf = new RandomAccessFile(file, "rw");
+    raf.setLength((committed + full) / 2);
+    raf.close();
+
+    storage = new JavaFileStorage(new StubPlatform(), file);
+    assertEquals("10", storage.getItem("score"));
+    assertNull(storage.getItem("level"));
+    // the partial batch is truncated, so that later changes are not lost behind it
+    storage.setItem("level", "3");
+    storage.close();
+    assertEquals("3", new JavaFileStorage(new StubPlatform(), file).getItem("level"));
+  }
+
+  @Test
+  public void testCompaction() throws IOException {
+    File file = createTempFile();
+    JavaFileStorage storage = new JavaFileStorage(new StubPlatform(), file);
+    StringBuilder value = new StringBuilder();
+    for (int ii = 0; ii < 100; ii++) value.append("0123456789");
+    for (int ii = 0; ii < 1000; ii++) {
+      storage.setItem("key" + (ii % 10), value.toString() + ii);
+      if (ii % 100 == 0) storage.flush();
+    }
+    storage.close();
+    // a thousand 1k writes would be a 1M log, but only ten items are live
+    assertTrue("log is " + file.length() + " bytes", file.length() < 200 * 1024);
+
+    storage = new JavaFileStorage(new StubPlatform(), file);
+    for (int ii = 990; ii < 1000; ii++)
+      assertEquals(value.toString() + ii, storage.getItem("key" + (ii % 10)));
+    storage.close();
+  }
+
+  @Test
+  public void testNotAStorageFile() throws IOException {
+    File file = createTempFile();
+    AssetPackTest.write(file, "This is not a storage file.");
+    JavaFileStorage storage = new JavaFileStorage(new StubPlatform(), file);
+    assertFalse(storage.isPersisted());
+    storage.setItem("a", "one");
+    assertEquals("one", storage.getItem("a"));
+    storage.close();
+    // the file is left alone
+    assertEquals(27, file.length());
+  }
+
+  @Test
+  public void testNullKeys() throws IOException {
+    File file = createTempFile();
+    JavaFileStorage storage = new JavaFileStorage(new StubPlatform(), file);
+    storage.setItem("a", "one");
+    try {
+      storage.setItem(null, "x");
+      fail("Null key accepted");
+    } catch (NullPointerException npe) {} // expected
+    Storage.Batch batch = storage.startBatch();
+    batch.setItem("b", "two");
+    batch.setItem(null, "y");
+    try {
+      batch.commit();
+      fail("Null batch key accepted");
+    } catch (NullPointerException npe) {} // expected
+    assertNull(storage.getItem("b"));
+    // the rejected changes left no partial record behind, so later changes are not lost
+    storage.setItem("c", "three");
+    storage.close();
+
+    storage = new JavaFileStorage(new StubPlatform(), file);
+    assertEquals("one", storage.getItem("a"));
+    assertEquals("three", storage.getItem("c"));
+    storage.close();
+  }
+
+  @Test
+  public void testChangesAfterClose() throws IOException {
+    File file = createTempFile();
+    JavaFileStorage storage = new JavaFileStorage(new StubPlatform(), file);
+    storage.setItem("a", "one");
+    storage.close();
+    long length = file.length();
+    // changes after closing are kept in memory only
+    storage.setItem("a", "two");
+    storage.removeItem("a");
+    storage.setItem("b", "three");
+    assertEquals("three", storage.getItem("b"));
+    storage.flush();
+    assertEquals(length, file.length());
+    assertEquals("one", new JavaFileStorage(new StubPlatform(), file).getItem("a"));
+  }
+
+  protected static File createTempFile() throws IOException {
+    File file = File.createTempFile("storage", ".log");
+    file.delete();
+    file.deleteOnExit();
+    new File(file.getPath() + ".tmp").deleteOnExit();
+    return file;
+  }
+}
@@ -0,0 +1,102 @@
+/**
+ * Copyright 2014 The PlayN Authors
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License"); you may not
+ * use this file except in compliance with the License. You may obtain a copy of
+ * the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied. See the
+ * License for the specific language governing permissions and limitations under
+ * the License.
+ */
+package playn.java;
+
+import javax.sound.sampled.AudioFormat;
+
+import org.junit.Test;
+import static org.junit.Assert.*;
+
+public class JavaMixerTest {
+
+  @Test
+  public void testFromPCM() {
+    // two 16-bit little-endian stereo frames
+    byte[] bytes = { 0x01, 0x02, (byte)0xFF, (byte)0xFF, 0x00, (byte)0x80, (byte)0xFF, 0x7F };
+    JavaMixer.Samples s = JavaMixer.Samples.fromPCM(
+      bytes, new AudioFormat(22050, 16, 2, true, false));
+    assertEquals(2, s.channels);
+    assertEquals(2, s.frames());
+    assertArrayEquals(new short[] { 0x0201, -1, Short.MIN_VALUE, Short.MAX_VALUE }, s.data);
+
+    // 8-bit mono is widened to 16-bit
+    s = JavaMixer.Samples.fromPCM(new byte[] { 1, -1 }, new AudioFormat(8000, 8, 1, true, false));
+    assertEquals(1, s.channels);
+    assertArrayEquals(new short[] { 256, -256 }, s.data);
+  }
+
+  @Test
+  public void testMixAndClamp() {
+    JavaMixer mixer = new JavaMixer(4);
+    JavaMixer.Samples mono = samples(1000, 2000, 3000);
+    Object a = new Object(), b = new Object();
+    mixer.play(a, mono, 1, 0, false);
+    mixer.play(b, mono, 1, -1, false); // hard left
+
+    short[] out = new short[8];
+    assertTrue(mixer.mix(out, 4));
+    assertArrayEquals(new short[] { 2000, 1000, 4000, 2000, 6000, 3000, 0, 0 }, out);
+    // both voices ran off the end of their data and were freed
+    assertFalse(mixer.isPlaying(a));
+    assertFalse(mixer.mix(out, 4));
+
+    // loud overlapping voices are clamped rather than wrapping
+    JavaMixer.Samples loud = samples(30000);
+    mixer.play(a, loud, 1, 0, true);
+    mixer.play(b, loud, 1, 0, true);
+    mixer.mix(out, 4);
+    for (short v : out) assertEquals(Short.MAX_VALUE, v);
+    mixer.stop(a);
+    mixer.setGains(b, 0.5f, 0);
+    mixer.mix(out, 1);
+    assertEquals(15000, out[0]);
+  }
+
+  @Test
+  public void testVoiceStealing() {
+    JavaMixer mixer = new JavaMixer(2);
+    Object a = new Object(), b = new Object(), c = new Object();
+    mixer.play(a, samples(new short[100]), 1, 0, false);
+    mixer.mix(new short[20], 10); // a is now 10% complete
+    mixer.play(b, samples(new short[100]), 1, 0, false);
+    mixer.play(c, samples(new short[100]), 1, 0, false);
+    // the voice furthest along was reassigned
+    assertFalse(mixer.isPlaying(a));
+    assertTrue(mixer.isPlaying(b));
+    assertTrue(mixer.isPlaying(c));
+  }
+
+  @Test
+  public void testResample() {
+    JavaMixer mixer = new JavaMixer(1);
+    Object a = new Object();
+    // data at half the output rate plays each frame twice
+    mixer.play(a, new JavaMixer.Samples(new short[] { 100, 200 }, 1, 22050), 1, 0, false);
+    short[] out = new short[8];
+    mixer.mix(out, 4);
+    assertArrayEquals(new short[] { 100, 100, 100, 100, 200, 200, 200, 200 }, out);
+  }
+
+  protected static JavaMixer.Samples samples(int... data) {
+    short[] sdata = new short[data.length];
+    for (int ii = 0; ii < data.length; ii++) sdata[ii] = (short)data[ii];
+    return samples(sdata);
+  }
+
+  protected static JavaMixer.Samples samples(short[] data) {
+    return new JavaMixer.Samples(data, 1, 44100);
+  }
+}
@@ -146,12 +146,13 @@ public class RoboPlatform extends AbstractPlatform {
     this.config = config;
     bounds = bounds != null ? bounds : UIScreen.getMainScreen().getBounds();
     graphics = new RoboGraphics(this, bounds);
-    json = new JsonImpl();
+    json = new JsonImpl(this);
     keyboard = new RoboKeyboard(this);
     net = new RoboNet(this);
     pointer = new RoboPointer(this);
     touch = new RoboTouch(this);
     assets = new RoboAssets(this);
+    setAssetLoader(new AssetLoader(this, 3)); // one load per pool thread
     storage = new RoboStorage(this);
   }
 
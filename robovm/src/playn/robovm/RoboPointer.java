@@ -20,7 +20,6 @@ import org.robovm.apple.uikit.UIEvent;
 import org.robovm.apple.uikit.UITouch;
 import pythagoras.f.IPoint;
 
-import playn.core.Events;
 import playn.core.PointerImpl;
 
 public class RoboPointer extends PointerImpl {
@@ -68,8 +67,7 @@ public class RoboPointer extends PointerImpl {
         CGPoint loc = touch.getLocationInView(touch.getView());
         // transform the point based on our current scale
         IPoint xloc = platform.graphics().transformTouch((float)loc.getX(), (float)loc.getY());
-        return new Event.Impl(
-          new Events.Flags.Impl(), touch.getTimestamp() * 1000, xloc.x(), xloc.y(), true);
+        return obtainEvent(touch.getTimestamp() * 1000, xloc.x(), xloc.y(), true);
       }
     }
     return null;
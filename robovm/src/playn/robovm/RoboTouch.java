@@ -18,7 +18,6 @@ import org.robovm.apple.foundation.NSSet;
 import org.robovm.apple.uikit.UIEvent;
 import org.robovm.apple.uikit.UITouch;
 
-import playn.core.Events;
 import playn.core.TouchImpl;
 import pythagoras.f.IPoint;
 
@@ -47,7 +46,7 @@ public class RoboTouch extends TouchImpl {
   }
 
   private Event.Impl[] toTouchEvents(NSSet<UITouch> touches, UIEvent event) {
-    final Event.Impl[] events = new Event.Impl[touches.size()];
+    Event.Impl[] events = obtainEvents(touches.size());
     int idx = 0;
     for (UITouch touch : touches) {
       CGPoint loc = touch.getLocationInView(touch.getView());
@@ -55,8 +54,7 @@ public class RoboTouch extends TouchImpl {
       IPoint xloc = platform.graphics().transformTouch((float)loc.getX(), (float)loc.getY());
       // on iOS the memory address of the UITouch object is the unique id
       int id = (int)touch.getHandle();
-      events[idx++] = new Event.Impl(
-        new Events.Flags.Impl(), touch.getTimestamp() * 1000, xloc.x(), xloc.y(), id);
+      setEvent(events, idx++, touch.getTimestamp() * 1000, xloc.x(), xloc.y(), id, -1, -1);
     }
     return events;
   }